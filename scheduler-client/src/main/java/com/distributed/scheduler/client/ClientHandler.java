@@ -1,9 +1,14 @@
 package com.distributed.scheduler.client;
 
+import com.distributed.scheduler.client.model.TaskCancelRequest;
 import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.client.model.TaskResult;
 import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.client.model.TriggerRequest;
 import com.distributed.scheduler.client.protocol.Message;
 import com.distributed.scheduler.client.protocol.MessageType;
+import com.distributed.scheduler.client.protocol.ProtocolVersion;
+import com.distributed.scheduler.client.protocol.codec.BinaryMessageCodec;
 import com.distributed.scheduler.client.task.TaskExecutor;
 import com.distributed.scheduler.client.task.TaskRegistry;
 import io.netty.channel.ChannelHandlerContext;
@@ -13,12 +18,18 @@ import org.slf4j.LoggerFactory;
 
 import java.util.UUID;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 public class ClientHandler extends SimpleChannelInboundHandler<Message> {
     private static final Logger logger = LoggerFactory.getLogger(ClientHandler.class);
     private final ClientScheduler clientScheduler;
     private final TaskRegistry taskRegistry;
+    // 正在执行的实例，key为实例ID
+    private final ConcurrentMap<String, RunningInstance> runningInstances = new ConcurrentHashMap<>();
     
     public ClientHandler(ClientScheduler clientScheduler, TaskRegistry taskRegistry) {
         this.clientScheduler = clientScheduler;
@@ -36,6 +47,10 @@ public class ClientHandler extends SimpleChannelInboundHandler<Message> {
                 // 处理服务端响应
                 handleServerResponse(message);
                 break;
+            case TASK_CANCEL:
+                // 处理服务端的取消请求
+                handleTaskCancel(message);
+                break;
             default:
                 logger.warn("Unknown message type: {}", message.getType());
         }
@@ -46,7 +61,70 @@ public class ClientHandler extends SimpleChannelInboundHandler<Message> {
      */
     private void handleTaskTrigger(Message message) {
         try {
-            TaskInfo taskInfo = (TaskInfo) message.getData();
+            Object data = message.getData();
+            if (data instanceof TriggerRequest) {
+                handleTriggerRequest((TriggerRequest) data);
+            } else if (data instanceof TaskInfo) {
+                // 兼容旧版本服务端，触发消息中携带完整的任务信息
+                executeTrigger((TaskInfo) data, UUID.randomUUID().toString());
+            } else {
+                logger.warn("Unsupported task trigger data: {}", data);
+            }
+        } catch (Exception e) {
+            // 捕获handleTaskTrigger方法中的所有异常，确保不会影响Netty的事件循环线程
+            logger.error("Unexpected error in handleTaskTrigger", e);
+        }
+    }
+    
+    /**
+     * 处理精简触发请求，根据taskId从本地注册表解析任务信息
+     */
+    private void handleTriggerRequest(TriggerRequest request) {
+        TaskInfo localTaskInfo = taskRegistry.getTaskInfo(request.getTaskId());
+        if (localTaskInfo == null) {
+            logger.error("Task trigger received for unregistered task: {}, Instance: {}",
+                request.getTaskId(), request.getInstanceId());
+            
+            // 本地没有该任务，直接上报失败，避免服务端一直认为任务在运行
+            TaskStatus status = new TaskStatus();
+            status.setTaskId(request.getTaskId());
+            status.setInstanceId(request.getInstanceId());
+            status.setClientId(clientScheduler.getClientInfo().getClientId());
+            status.setStatus(TaskStatus.Status.FAILED);
+            status.setStartTime(new Date());
+            status.setEndTime(status.getStartTime());
+            status.setErrorMsg("Task is not registered on client");
+            if (isDuplicate(status)) {
+                return;
+            }
+            sendTaskStatus(status);
+            return;
+        }
+        
+        TaskInfo taskInfo = localTaskInfo;
+        if (request.getParams() != null || request.getShardTotal() > 0 || request.getAttempt() > 1) {
+            // 覆盖本次执行的参数和分片信息，不修改本地注册的任务信息
+            taskInfo = localTaskInfo.copy();
+            if (request.getParams() != null) {
+                taskInfo.setParams(request.getParams());
+            }
+            if (request.getShardTotal() > 0) {
+                taskInfo.setRunId(request.getRunId());
+                taskInfo.setShardIndex(request.getShardIndex());
+                taskInfo.setShardTotal(request.getShardTotal());
+            }
+            if (request.getAttempt() > 1) {
+                taskInfo.setAttempt(request.getAttempt());
+            }
+        }
+        executeTrigger(taskInfo, request.getInstanceId());
+    }
+    
+    /**
+     * 执行一次任务触发
+     */
+    private void executeTrigger(TaskInfo taskInfo, String instanceId) {
+        try {
             String clientId = clientScheduler.getClientInfo().getClientId();
             logger.trace("Task trigger received for: {}", taskInfo.getTaskName());
             
@@ -54,11 +132,18 @@ public class ClientHandler extends SimpleChannelInboundHandler<Message> {
             TaskStatus status = new TaskStatus();
             status.setTaskId(taskInfo.getTaskId());
             status.setTaskName(taskInfo.getTaskName());
-            status.setInstanceId(UUID.randomUUID().toString());
+            status.setInstanceId(instanceId);
             status.setClientId(clientId);
             status.setStatus(TaskStatus.Status.RUNNING);
             status.setStartTime(new Date());
             status.setOneRunning(taskInfo.isOneRunning());
+            status.setRunId(taskInfo.getRunId());
+            status.setShardIndex(taskInfo.getShardIndex());
+            status.setShardTotal(taskInfo.getShardTotal());
+            status.setAttempt(taskInfo.getAttempt());
+            if (isDuplicate(status)) {
+                return;
+            }
             
             // 发送任务开始执行状态
             sendTaskStatus(status);
@@ -79,55 +164,142 @@ public class ClientHandler extends SimpleChannelInboundHandler<Message> {
             }
             
             // 使用线程池异步执行任务，避免阻塞Netty的IO线程
+            // 超时或被服务端取消的实例已上报结束状态，执行线程结束时不再上报
+            RunningInstance instance = new RunningInstance(status);
+            runningInstances.put(instanceId, instance);
             try {
-                clientScheduler.getTaskExecutorService().submit(() -> {
+                instance.setFuture(clientScheduler.getTaskExecutorService().submit(() -> {
                     String currentThreadName = Thread.currentThread().getName();
                     logger.debug("Starting task execution in thread: {}, Task: {}, Instance: {}", 
                         currentThreadName, taskInfo.getTaskName(), status.getInstanceId());
-                        
+                    
+                    Object result = null;
+                    Exception error = null;
                     try {
-                        executeTask(taskInfo);
+                        result = executeTask(taskInfo);
+                    } catch (Exception e) {
+                        error = e;
+                    } finally {
+                        runningInstances.remove(instanceId, instance);
+                    }
+                    if (!instance.finish()) {
+                        logger.debug("Task {} instance {} already finished by timeout or cancel, result discarded",
+                            taskInfo.getTaskName(), status.getInstanceId());
+                        return;
+                    }
+                    boolean reportResult = error == null && result != null
+                        && taskInfo.getRunId() != null && taskInfo.getResultReducer() != null;
+                    if (reportResult && !BinaryMessageCodec.isNativeValue(result)) {
+                        // 服务端只能读取编解码器原生支持的类型，其他类型的结果在发送前拒绝，分片按失败上报
+                        error = new IllegalArgumentException("Unsupported result type " + result.getClass().getName()
+                            + ", shard results must be String, Integer, Long, Double, Boolean, Map or List");
+                        reportResult = false;
+                    }
+                    if (error == null) {
+                        // 广播分片的结果在结束状态之前上报，服务端收到结束状态时结果已经合并
+                        if (reportResult) {
+                            sendTaskResult(taskInfo, status, result);
+                        }
                         // 更新状态为成功
                         status.setStatus(TaskStatus.Status.SUCCESS);
-                        status.setEndTime(new Date());
-                        status.setExecutionTime(status.getEndTime().getTime() - status.getStartTime().getTime());
                         logger.debug("Task execution completed successfully: {}, Instance: {}, Thread: {}", 
                             taskInfo.getTaskName(), status.getInstanceId(), currentThreadName);
-                    } catch (Exception e) {
+                    } else {
                         // 更新状态为失败
                         status.setStatus(TaskStatus.Status.FAILED);
-                        status.setEndTime(new Date());
-                        status.setErrorMsg(e.getMessage());
-                        status.setExecutionTime(status.getEndTime().getTime() - status.getStartTime().getTime());
+                        status.setErrorMsg(error.getMessage());
                         logger.error("Task execution failed: {}, Instance: {}, Thread: {}", 
-                            taskInfo.getTaskName(), status.getInstanceId(), currentThreadName, e);
-                    } finally {
-                        // 发送任务结束状态
-                        logger.debug("Sending final status for task: {}, Instance: {}, Thread: {}", 
-                            taskInfo.getTaskName(), status.getInstanceId(), currentThreadName);
-                        sendTaskStatus(status);
+                            taskInfo.getTaskName(), status.getInstanceId(), currentThreadName, error);
                     }
-                });
+                    status.setEndTime(new Date());
+                    status.setExecutionTime(status.getEndTime().getTime() - status.getStartTime().getTime());
+                    // 发送任务结束状态
+                    logger.debug("Sending final status for task: {}, Instance: {}, Thread: {}", 
+                        taskInfo.getTaskName(), status.getInstanceId(), currentThreadName);
+                    sendTaskStatus(status);
+                }));
+                if (taskInfo.getTimeoutMillis() > 0) {
+                    instance.setTimeout(clientScheduler.getTimeoutScheduler().schedule(
+                        () -> cancelInstance(instance, "Execution timed out after " + taskInfo.getTimeoutMillis() + " ms"),
+                        taskInfo.getTimeoutMillis(), TimeUnit.MILLISECONDS));
+                }
             } catch (RejectedExecutionException e) {
                 // 处理任务被拒绝的情况
                 logger.error("Task rejected by executor service: {}, Error: {}", 
                     taskInfo.getTaskName(), e.getMessage());
                 
+                runningInstances.remove(instanceId, instance);
+                if (!instance.finish()) {
+                    return;
+                }
                 status.setStatus(TaskStatus.Status.FAILED);
                 status.setEndTime(new Date());
                 status.setErrorMsg("Task execution rejected by executor service: " + e.getMessage());
                 sendTaskStatus(status);
             }
         } catch (Exception e) {
-            // 捕获handleTaskTrigger方法中的所有异常，确保不会影响Netty的事件循环线程
-            logger.error("Unexpected error in handleTaskTrigger", e);
+            // 捕获所有异常，确保不会影响Netty的事件循环线程
+            logger.error("Unexpected error in executeTrigger", e);
         }
     }
 
+    /**
+     * 服务端未收到确认时以相同的实例ID重投触发，已收到过的实例不再执行，重新上报最近的状态作为确认
+     */
+    private boolean isDuplicate(TaskStatus status) {
+        TaskStatus known = clientScheduler.rememberTrigger(status);
+        if (known == null) {
+            return false;
+        }
+        logger.info("Duplicate trigger of task {} instance {} ignored, current status: {}",
+            known.getTaskId(), known.getInstanceId(), known.getStatus());
+        sendTaskStatus(known);
+        return true;
+    }
+    
+    /**
+     * 处理服务端的取消请求，服务端在实例超时后仍未收到结束状态时发送
+     */
+    private void handleTaskCancel(Message message) {
+        Object data = message.getData();
+        if (!(data instanceof TaskCancelRequest)) {
+            logger.warn("Unsupported task cancel data: {}", data);
+            return;
+        }
+        TaskCancelRequest request = (TaskCancelRequest) data;
+        RunningInstance instance = runningInstances.get(request.getInstanceId());
+        if (instance == null) {
+            logger.debug("Cancel received for task {} instance {} which is not running",
+                request.getTaskId(), request.getInstanceId());
+            return;
+        }
+        cancelInstance(instance, request.getReason());
+    }
+    
+    /**
+     * 超时或被服务端取消，上报TIMED_OUT并中断执行线程，释放线程池容量
+     */
+    private void cancelInstance(RunningInstance instance, String reason) {
+        TaskStatus status = instance.getStatus();
+        runningInstances.remove(status.getInstanceId(), instance);
+        if (!instance.finish()) {
+            return;
+        }
+        status.setStatus(TaskStatus.Status.TIMED_OUT);
+        status.setEndTime(new Date());
+        status.setErrorMsg(reason);
+        status.setExecutionTime(status.getEndTime().getTime() - status.getStartTime().getTime());
+        logger.warn("Task {} instance {} cancelled: {}", status.getTaskName(), status.getInstanceId(), reason);
+        sendTaskStatus(status);
+        instance.interrupt();
+    }
+    
     /**
      * 执行任务
+     *
+     * @return 任务执行结果
      */
-    private void executeTask(TaskInfo taskInfo) throws Exception {
+    private Object executeTask(TaskInfo taskInfo) throws Exception {
         String taskName = taskInfo.getTaskName();
         logger.debug("Executing task: {}", taskName);
         
@@ -135,13 +307,14 @@ public class ClientHandler extends SimpleChannelInboundHandler<Message> {
         
         TaskExecutor executor = null;
         boolean isSingleton = false;
+        Object result;
         
         try {
             // 使用TaskRegistry获取任务执行器
             executor = taskRegistry.getTaskExecutor(taskInfo.getTaskId());
             if (executor != null) {
                 logger.trace("Executing task using registered executor: {}", executor.getTaskName());
-                executor.execute(taskInfo);
+                result = executor.execute(taskInfo);
                 
                 long executionTime = System.currentTimeMillis() - startTime;
                 logger.debug("Task executed successfully with registered executor: {}, Execution time: {}ms", 
@@ -171,7 +344,7 @@ public class ClientHandler extends SimpleChannelInboundHandler<Message> {
                     
                     // 实际执行代码 (这里补充完整之前的注释部分)
                     java.lang.reflect.Method method = targetClass.getMethod(taskInfo.getTargetMethod(), TaskInfo.class);
-                    method.invoke(instance, taskInfo);
+                    result = method.invoke(instance, taskInfo);
                     
                     long executionTime = System.currentTimeMillis() - startTime;
                     logger.debug("Task executed successfully with reflection: {}, Execution time: {}ms", 
@@ -181,6 +354,7 @@ public class ClientHandler extends SimpleChannelInboundHandler<Message> {
                     throw new Exception("Failed to execute task using reflection: " + e.getMessage(), e);
                 }
             }
+            return result;
         } catch (Exception e) {
             logger.error("Error executing task: {}", taskName, e);
             throw e;
@@ -199,24 +373,36 @@ public class ClientHandler extends SimpleChannelInboundHandler<Message> {
     }
     
     /**
-     * 发送任务状态
+     * 上报广播分片的执行结果
      */
-    private void sendTaskStatus(TaskStatus status) {
+    private void sendTaskResult(TaskInfo taskInfo, TaskStatus status, Object result) {
         try {
             Message message = new Message();
-            message.setType(MessageType.TASK_STATUS_REPORT);
-            message.setClientId(clientScheduler.getClientInfo().getClientId());
-            message.setData(status);
-            
+            message.setType(MessageType.TASK_RESULT_REPORT);
+            message.setClientId(status.getClientId());
+            message.setData(new TaskResult(taskInfo.getTaskId(), status.getInstanceId(), status.getClientId(),
+                    taskInfo.getRunId(), taskInfo.getShardIndex(), taskInfo.getShardTotal(), result));
+            clientScheduler.sendMessage(message);
+        } catch (Exception e) {
+            logger.error("Failed to send task result for task: {}, Instance: {}",
+                taskInfo.getTaskId(), status.getInstanceId(), e);
+        }
+    }
+    
+    /**
+     * 发送任务状态，由TaskStatusReporter合并后批量发送
+     */
+    private void sendTaskStatus(TaskStatus status) {
+        try {
             // 记录任务状态发送信息，包括任务ID、实例ID和状态
-            logger.debug("Sending task status - TaskID: {}, InstanceID: {}, Status: {}, Thread: {}", 
+            logger.debug("Reporting task status - TaskID: {}, InstanceID: {}, Status: {}, Thread: {}", 
                 status.getTaskId(), status.getInstanceId(), status.getStatus(), 
                 Thread.currentThread().getName());
             
-            // 通过ClientScheduler发送消息
-            clientScheduler.sendMessage(message);
-            logger.debug("Task status successfully reported: {}, Status: {}, Thread: {}", 
-                status.getTaskId(), status.getStatus(), Thread.currentThread().getName());
+            if (status.isTerminal()) {
+                clientScheduler.updateTrigger(status);
+            }
+            clientScheduler.reportTaskStatus(status);
         } catch (Exception e) {
             logger.error("Failed to send task status for task: {}, Status: {}", 
                 status.getTaskId(), status.getStatus(), e);
@@ -228,6 +414,13 @@ public class ClientHandler extends SimpleChannelInboundHandler<Message> {
      */
     private void handleServerResponse(Message message) {
         logger.debug("Received server response: {}", message.getData());
+        // 注册响应携带服务端的协议版本，旧版本服务端的响应只有文本
+        Object data = message.getData();
+        if (data instanceof Map && ((Map<?, ?>) data).get(ProtocolVersion.RESPONSE_KEY) instanceof Number) {
+            int version = ((Number) ((Map<?, ?>) data).get(ProtocolVersion.RESPONSE_KEY)).intValue();
+            clientScheduler.setServerProtocolVersion(version);
+            logger.info("Server protocol version: {}", version);
+        }
     }
     
     @Override
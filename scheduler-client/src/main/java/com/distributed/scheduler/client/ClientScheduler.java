@@ -1,21 +1,27 @@
 package com.distributed.scheduler.client;
 
 import com.distributed.scheduler.client.model.ClientInfo;
+import com.distributed.scheduler.client.model.ClientLoad;
+import com.distributed.scheduler.client.model.DelayedJob;
 import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.client.model.TaskStatus;
 import com.distributed.scheduler.client.protocol.Message;
 import com.distributed.scheduler.client.protocol.MessageType;
+import com.distributed.scheduler.client.protocol.ProtocolVersion;
+import com.distributed.scheduler.client.protocol.codec.CodecType;
+import com.distributed.scheduler.client.protocol.codec.MessageCodecs;
 import com.distributed.scheduler.client.task.TaskExecutor;
 import com.distributed.scheduler.client.task.TaskRegistry;
+import com.distributed.scheduler.client.transport.TransportType;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.serialization.ClassResolvers;
-import io.netty.handler.codec.serialization.ObjectDecoder;
-import io.netty.handler.codec.serialization.ObjectEncoder;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,8 +31,10 @@ import java.net.Inet4Address;
 import java.net.NetworkInterface;
 import java.net.UnknownHostException;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -35,14 +43,26 @@ public class ClientScheduler {
     @Getter
     private ClientInfo clientInfo;
     private Channel serverChannel;
-    private final NioEventLoopGroup group = new NioEventLoopGroup(1);
+    // 服务端在注册响应中返回的协议版本，收到响应前按旧版本服务端处理，不发送旧版本服务端无法解码的消息
+    private volatile int serverProtocolVersion = ProtocolVersion.LEGACY;
+    private EventLoopGroup group;
+    // 是否优先使用epoll原生传输，不可用时自动回退到NIO
+    private boolean preferNativeTransport = true;
+    private TransportType transportType;
 
     // 重连机制的定时任务
     private final ScheduledExecutorService reconnectScheduler;
     // 心跳机制的定时任务
     private final ScheduledExecutorService heartbeatScheduler;
+    // 任务执行超时的定时器
+    private final ScheduledThreadPoolExecutor timeoutScheduler;
     // 任务执行线程池，用于并行执行任务
     private final ThreadPoolExecutor taskExecutorService;
+    // 被执行线程池拒绝的任务数，每次心跳上报后清零
+    private final AtomicInteger rejectedTasks = new AtomicInteger();
+    // 心跳间隔，心跳同时上报负载
+    private static final long DEFAULT_HEARTBEAT_INTERVAL_MILLIS = 30000L;
+    private long heartbeatIntervalMillis = DEFAULT_HEARTBEAT_INTERVAL_MILLIS;
 
     private boolean started = false;
     private final TaskRegistry taskRegistry = new TaskRegistry();
@@ -52,6 +72,8 @@ public class ClientScheduler {
     private int serverPort;
     private String clientGroup;
     private String applicationName;
+    // 与服务端通信使用的编解码类型，服务端会按连接自动识别
+    private CodecType codecType = CodecType.BINARY;
     
     // 线程池默认配置参数
     private static final int CORE_POOL_SIZE = Runtime.getRuntime().availableProcessors();
@@ -59,6 +81,22 @@ public class ClientScheduler {
     private static final int QUEUE_CAPACITY = 100;
     private static final long KEEP_ALIVE_TIME = 60L;
     
+    // 任务状态批量上报默认配置
+    private static final int DEFAULT_STATUS_BATCH_SIZE = 64;
+    private static final long DEFAULT_STATUS_LINGER_MILLIS = 20L;
+    private int statusBatchSize = DEFAULT_STATUS_BATCH_SIZE;
+    private long statusLingerMillis = DEFAULT_STATUS_LINGER_MILLIS;
+    private TaskStatusReporter taskStatusReporter;
+    
+    // 最近收到的触发的状态，key为实例ID，服务端未收到确认重投触发时据此忽略重复的触发，跨重连保留
+    private static final int RECENT_TRIGGER_CAPACITY = 4096;
+    private final Map<String, TaskStatus> recentTriggers = new LinkedHashMap<String, TaskStatus>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TaskStatus> eldest) {
+            return size() > RECENT_TRIGGER_CAPACITY;
+        }
+    };
+    
     /**
      * 默认构造函数
      */
@@ -76,6 +114,14 @@ public class ClientScheduler {
             thread.setName("Reconnect-Thread");
             return thread;
         });
+        this.timeoutScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("Task-Timeout-Thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 按时结束的任务取消超时检查后立即从队列中移除
+        this.timeoutScheduler.setRemoveOnCancelPolicy(true);
     }
     
     /**
@@ -113,6 +159,41 @@ public class ClientScheduler {
         }
     }
     
+    /**
+     * 设置通信编解码类型，需要在start之前调用
+     * 连接旧版本服务端时可以设置为CodecType.JAVA
+     */
+    public void setCodecType(CodecType codecType) {
+        if (codecType == null) {
+            throw new IllegalArgumentException("Codec type cannot be null");
+        }
+        this.codecType = codecType;
+    }
+    
+    /**
+     * 设置任务状态批量上报的最大批量，需要在start之前调用，小于等于1表示不批量
+     */
+    public void setStatusBatchSize(int statusBatchSize) {
+        this.statusBatchSize = statusBatchSize;
+    }
+    
+    /**
+     * 设置任务状态批量上报的最大等待时间(毫秒)，需要在start之前调用，小于等于0表示不批量
+     */
+    public void setStatusLingerMillis(long statusLingerMillis) {
+        this.statusLingerMillis = statusLingerMillis;
+    }
+    
+    /**
+     * 设置心跳间隔(毫秒)，需要在start之前调用，心跳同时上报执行线程池的负载，间隔越短leastLoaded策略使用的负载越新
+     */
+    public void setHeartbeatIntervalMillis(long heartbeatIntervalMillis) {
+        if (heartbeatIntervalMillis <= 0) {
+            throw new IllegalArgumentException("heartbeatIntervalMillis must be positive");
+        }
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+    
     /**
      * Start client
      */
@@ -122,20 +203,12 @@ public class ClientScheduler {
         }
         
         try {
-            Bootstrap bootstrap = new Bootstrap();
-            bootstrap.group(group)
-                    .channel(NioSocketChannel.class)
-                    .handler(new ChannelInitializer<SocketChannel>() {
-                        @Override
-                        protected void initChannel(SocketChannel ch) throws Exception {
-                            // 添加编解码器和处理器
-                            ch.pipeline().addLast(
-                                    new ObjectEncoder(),
-                                    new ObjectDecoder(Integer.MAX_VALUE, ClassResolvers.weakCachingConcurrentResolver(this.getClass().getClassLoader())),
-                                    new ClientHandler(ClientScheduler.this, taskRegistry)
-                            );
-                        }
-                    });
+            transportType = TransportType.resolve(preferNativeTransport);
+            group = transportType.newEventLoopGroup(1);
+            logger.info("Client transport: {}", transportType);
+            taskStatusReporter = new TaskStatusReporter(this, group, statusBatchSize, statusLingerMillis);
+            
+            Bootstrap bootstrap = newBootstrap();
             
             connect(bootstrap);
             
@@ -155,6 +228,42 @@ public class ClientScheduler {
         }
     }
     
+    /**
+     * 设置是否优先使用epoll原生传输，需要在start之前调用
+     */
+    public void setPreferNativeTransport(boolean preferNativeTransport) {
+        this.preferNativeTransport = preferNativeTransport;
+    }
+    
+    /**
+     * 创建客户端Bootstrap，启动、重连和手动重连共用同一套传输和通道配置
+     */
+    private Bootstrap newBootstrap() {
+        Bootstrap bootstrap = new Bootstrap();
+        bootstrap.group(group)
+                .channel(transportType.socketChannelClass())
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(newChannelInitializer());
+        if (transportType == TransportType.EPOLL) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+        }
+        return bootstrap;
+    }
+    
+    /**
+     * 创建客户端通道初始化器
+     */
+    private ChannelInitializer<SocketChannel> newChannelInitializer() {
+        return new ChannelInitializer<SocketChannel>() {
+            @Override
+            protected void initChannel(SocketChannel ch) throws Exception {
+                // 添加编解码器和处理器
+                MessageCodecs.addCodec(ch.pipeline(), codecType);
+                ch.pipeline().addLast(new ClientHandler(ClientScheduler.this, taskRegistry));
+            }
+        };
+    }
+    
     /**
      * 连接到服务器
      */
@@ -163,6 +272,7 @@ public class ClientScheduler {
             // Connect to server
             ChannelFuture future = bootstrap.connect(serverHost, serverPort).sync();
             serverChannel = future.channel();
+            serverProtocolVersion = ProtocolVersion.LEGACY;
             logger.info("Connected to server: {}:{}", serverHost, serverPort);
             
             // Send registration message
@@ -215,7 +325,8 @@ public class ClientScheduler {
      * 启动心跳
      */
     private void startHeartbeat() {
-        heartbeatScheduler.scheduleAtFixedRate(this::sendHeartbeat, 10, 30, TimeUnit.SECONDS);
+        heartbeatScheduler.scheduleAtFixedRate(this::sendHeartbeat,
+                Math.min(10000L, heartbeatIntervalMillis), heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
     }
     
     /**
@@ -228,6 +339,8 @@ public class ClientScheduler {
                 Message message = new Message();
                 message.setType(MessageType.CLIENT_HEARTBEAT);
                 message.setClientId(clientInfo.getClientId());
+                // 旧版本服务端无法解码负载，心跳不携带数据
+                message.setData(serverProtocolVersion >= ProtocolVersion.V1 ? currentLoad() : null);
                 serverChannel.writeAndFlush(message);
             } catch (Exception e) {
                 logger.warn("Failed to send heartbeat, will try to reconnect: {}", e.getMessage());
@@ -249,20 +362,7 @@ public class ClientScheduler {
         if (started && (serverChannel == null || !serverChannel.isActive())) {
             logger.info("Attempting immediate reconnect to server: {}:{}", serverHost, serverPort);
             try {
-                Bootstrap bootstrap = new Bootstrap();
-                bootstrap.group(group)
-                        .channel(NioSocketChannel.class)
-                        .handler(new ChannelInitializer<SocketChannel>() {
-                            @Override
-                            protected void initChannel(SocketChannel ch) throws Exception {
-                                ch.pipeline().addLast(
-                                        new ObjectEncoder(),
-                                        new ObjectDecoder(Integer.MAX_VALUE, ClassResolvers.weakCachingConcurrentResolver(this.getClass().getClassLoader())),
-                                        new ClientHandler(ClientScheduler.this, taskRegistry)
-                                );
-                            }
-                        });
-                connect(bootstrap);
+                connect(newBootstrap());
             } catch (Exception e) {
                 logger.warn("Immediate reconnect failed, will try again later: {}", e.getMessage());
             }
@@ -325,6 +425,10 @@ public class ClientScheduler {
         logger.info("Shutting down client scheduler...");
         
         try {
+            if (taskStatusReporter != null) {
+                // 发送尚未上报的任务状态
+                taskStatusReporter.flush();
+            }
             if (serverChannel != null) {
                 // 发送注销消息
                 Message message = new Message();
@@ -341,11 +445,14 @@ public class ClientScheduler {
             Thread.currentThread().interrupt();
         } finally {
             // 关闭事件循环组
-            group.shutdownGracefully();
+            if (group != null) {
+                group.shutdownGracefully();
+            }
             
             // 关闭调度器
             reconnectScheduler.shutdown();
             heartbeatScheduler.shutdown();
+            timeoutScheduler.shutdownNow();
             
             // 关闭任务执行线程池，使用超时等待确保任务完成
             if (taskExecutorService != null) {
@@ -392,6 +499,55 @@ public class ClientScheduler {
         }
     }
     
+    /**
+     * 上报任务状态，状态会被合并后批量发送
+     */
+    public void reportTaskStatus(TaskStatus status) {
+        if (taskStatusReporter != null) {
+            taskStatusReporter.report(status);
+        } else {
+            Message message = new Message();
+            message.setType(MessageType.TASK_STATUS_REPORT);
+            message.setClientId(clientInfo.getClientId());
+            message.setData(status.copy());
+            sendMessage(message);
+        }
+    }
+    
+    /**
+     * 提交一次性延迟任务，在指定时间以给定参数触发一次已注册的任务
+     *
+     * @param taskId 要触发的任务ID
+     * @param fireTime 触发时间(毫秒时间戳)
+     * @param params 本次执行覆盖的任务参数，为空时使用任务注册时的参数
+     * @return 作业ID，未连接到服务端或服务端不支持延迟任务时返回null
+     */
+    public String submitDelayedJob(String taskId, long fireTime, Map<String, Object> params) {
+        if (serverChannel == null || !serverChannel.isActive()) {
+            logger.warn("Cannot submit delayed job of task {}: not connected to server", taskId);
+            return null;
+        }
+        if (serverProtocolVersion < ProtocolVersion.V1) {
+            logger.warn("Cannot submit delayed job of task {}: server does not support delayed jobs", taskId);
+            return null;
+        }
+        DelayedJob job = new DelayedJob(UUID.randomUUID().toString(), taskId, fireTime, params);
+        Message message = new Message();
+        message.setMessageId(job.getJobId());
+        message.setType(MessageType.DELAYED_JOB_SUBMIT);
+        message.setClientId(clientInfo.getClientId());
+        message.setData(job);
+        serverChannel.writeAndFlush(message);
+        return job.getJobId();
+    }
+    
+    /**
+     * 提交一次性延迟任务，在当前时间之后delay触发
+     */
+    public String submitDelayedJob(String taskId, long delay, TimeUnit unit, Map<String, Object> params) {
+        return submitDelayedJob(taskId, System.currentTimeMillis() + unit.toMillis(delay), params);
+    }
+    
     /**
      * 创建任务执行线程池
      */
@@ -414,6 +570,7 @@ public class ClientScheduler {
         
         // 创建拒绝策略，打印详细日志
         RejectedExecutionHandler rejectionHandler = (r, executor) -> {
+            rejectedTasks.incrementAndGet();
             logger.error("Task rejected, executor saturated - poolSize: {}, activeCount: {}, queueSize: {}",
                 executor.getPoolSize(), executor.getActiveCount(), executor.getQueue().size());
             try {
@@ -442,6 +599,34 @@ public class ClientScheduler {
         return executor;
     }
     
+    /**
+     * 执行线程池当前的负载，拒绝数为自上次调用以来的增量
+     */
+    private ClientLoad currentLoad() {
+        return new ClientLoad(taskExecutorService.getActiveCount(), taskExecutorService.getMaximumPoolSize(),
+                taskExecutorService.getQueue().size(), rejectedTasks.getAndSet(0));
+    }
+    
+    /**
+     * 记录收到的触发，保存状态的副本，执行线程之后修改原对象不影响记录
+     *
+     * @return 该实例已收到过触发时返回之前记录的状态，此时不应重复执行
+     */
+    TaskStatus rememberTrigger(TaskStatus status) {
+        synchronized (recentTriggers) {
+            return recentTriggers.putIfAbsent(status.getInstanceId(), status.copy());
+        }
+    }
+    
+    /**
+     * 实例结束时更新记录的状态，之后重投的触发按结束状态确认，记录已被淘汰时忽略
+     */
+    void updateTrigger(TaskStatus status) {
+        synchronized (recentTriggers) {
+            recentTriggers.replace(status.getInstanceId(), status.copy());
+        }
+    }
+    
     /**
      * 获取任务执行线程池
      */
@@ -449,6 +634,27 @@ public class ClientScheduler {
         return taskExecutorService;
     }
     
+    /**
+     * 获取任务执行超时的定时器
+     */
+    public ScheduledExecutorService getTimeoutScheduler() {
+        return timeoutScheduler;
+    }
+    
+    /**
+     * 获取服务端的协议版本，收到注册响应前为{@link ProtocolVersion#LEGACY}
+     */
+    public int getServerProtocolVersion() {
+        return serverProtocolVersion;
+    }
+    
+    /**
+     * 收到注册响应时记录服务端的协议版本
+     */
+    void setServerProtocolVersion(int serverProtocolVersion) {
+        this.serverProtocolVersion = serverProtocolVersion;
+    }
+    
     /**
      * 获取本地真实IP地址
      * 避免返回127.0.0.1或localhost
@@ -498,21 +704,7 @@ public class ClientScheduler {
         if (started) {
             logger.info("Manual reconnect triggered");
             // 创建一个新的Bootstrap实例并连接
-            Bootstrap bootstrap = new Bootstrap();
-            bootstrap.group(group)
-                        .channel(NioSocketChannel.class)
-                        .handler(new ChannelInitializer<SocketChannel>() {
-                            @Override
-                            protected void initChannel(SocketChannel ch) throws Exception {
-                                ch.pipeline().addLast(
-                                        new ObjectEncoder(),
-                                        new ObjectDecoder(Integer.MAX_VALUE, ClassResolvers.weakCachingConcurrentResolver(this.getClass().getClassLoader())),
-                                        new ClientHandler(ClientScheduler.this, taskRegistry)
-                                );
-                            }
-                        });
-            
-            connect(bootstrap);
+            connect(newBootstrap());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.distributed.scheduler.client;
+
+import com.distributed.scheduler.client.model.TaskStatus;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 客户端正在执行的任务实例
+ * 执行线程、超时检查和服务端的取消请求可能同时结束同一个实例，只有第一个结束的上报结束状态。
+ */
+final class RunningInstance {
+
+    private final TaskStatus status;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile Future<?> future;
+    private volatile Future<?> timeout;
+
+    RunningInstance(TaskStatus status) {
+        this.status = status;
+    }
+
+    TaskStatus getStatus() {
+        return status;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void setTimeout(Future<?> timeout) {
+        this.timeout = timeout;
+        // 设置前实例已经结束
+        if (finished.get()) {
+            timeout.cancel(false);
+        }
+    }
+
+    /**
+     * 结束实例，取消超时检查
+     *
+     * @return 实例尚未结束并由本次调用结束时返回true，调用方负责上报结束状态
+     */
+    boolean finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return false;
+        }
+        Future<?> t = timeout;
+        if (t != null) {
+            t.cancel(false);
+        }
+        return true;
+    }
+
+    /**
+     * 中断执行线程，任务需要响应中断才能及时释放线程
+     */
+    void interrupt() {
+        Future<?> f = future;
+        if (f != null) {
+            f.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.distributed.scheduler.client;
+
+import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.client.protocol.Message;
+import com.distributed.scheduler.client.protocol.MessageType;
+import com.distributed.scheduler.client.protocol.ProtocolVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务状态批量上报器
+ * 将短时间内产生的任务状态合并为一条消息发送，达到最大批量或最大等待时间时发送。
+ * 同一实例的RUNNING状态和终止状态同时处于待发送队列时，只发送终止状态。
+ */
+public class TaskStatusReporter {
+    private static final Logger logger = LoggerFactory.getLogger(TaskStatusReporter.class);
+
+    private final ClientScheduler clientScheduler;
+    private final ScheduledExecutorService scheduler;
+    private final int maxBatchSize;
+    private final long maxLingerMillis;
+
+    // 待发送的任务状态，key为实例ID，保持上报顺序
+    private final Map<String, TaskStatus> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    public TaskStatusReporter(ClientScheduler clientScheduler, ScheduledExecutorService scheduler,
+                              int maxBatchSize, long maxLingerMillis) {
+        this.clientScheduler = clientScheduler;
+        this.scheduler = scheduler;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerMillis = maxLingerMillis;
+    }
+
+    /**
+     * 上报任务状态，状态对象会被复制，调用方可以继续修改原对象
+     */
+    public void report(TaskStatus status) {
+        TaskStatus snapshot = status.copy();
+
+        // 未开启批量或无法按实例合并时直接发送
+        if (maxBatchSize <= 1 || maxLingerMillis <= 0 || snapshot.getInstanceId() == null) {
+            send(Collections.singletonList(snapshot));
+            return;
+        }
+
+        boolean scheduleFlush = false;
+        // 发送也在锁内进行，保证同一实例的状态按顺序到达服务端；sendMessage只是异步写入，不会阻塞
+        synchronized (pending) {
+            String key = snapshot.getInstanceId();
+            TaskStatus existing = pending.get(key);
+            if (existing != null && existing.isTerminal() && !snapshot.isTerminal()) {
+                // 终止状态已在队列中，忽略迟到的中间状态
+                return;
+            }
+            if (existing != null) {
+                logger.trace("Coalescing task status for instance: {}, {} -> {}", key, existing.getStatus(), snapshot.getStatus());
+            }
+            pending.put(key, snapshot);
+
+            if (pending.size() >= maxBatchSize) {
+                send(drain());
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                scheduleFlush = true;
+            }
+        }
+
+        if (scheduleFlush) {
+            try {
+                scheduler.schedule(this::flush, maxLingerMillis, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // 调度器已关闭时直接发送
+                logger.debug("Failed to schedule status flush, flushing immediately: {}", e.getMessage());
+                flush();
+            }
+        }
+    }
+
+    /**
+     * 立即发送所有待发送的任务状态
+     */
+    public void flush() {
+        synchronized (pending) {
+            flushScheduled = false;
+            if (!pending.isEmpty()) {
+                send(drain());
+            }
+        }
+    }
+
+    private List<TaskStatus> drain() {
+        List<TaskStatus> batch = new ArrayList<>(pending.values());
+        pending.clear();
+        return batch;
+    }
+
+    private void send(List<TaskStatus> batch) {
+        try {
+            logger.debug("Sending {} task status(es), Thread: {}", batch.size(), Thread.currentThread().getName());
+            if (batch.size() > 1 && clientScheduler.getServerProtocolVersion() >= ProtocolVersion.V1) {
+                clientScheduler.sendMessage(newMessage(MessageType.TASK_STATUS_BATCH, batch));
+                return;
+            }
+            // 旧版本服务端不支持批量上报，逐条发送
+            for (TaskStatus status : batch) {
+                clientScheduler.sendMessage(newMessage(MessageType.TASK_STATUS_REPORT, status));
+            }
+        } catch (Exception e) {
+            logger.error("Failed to send {} task status(es)", batch.size(), e);
+        }
+    }
+
+    private Message newMessage(MessageType type, Object data) {
+        Message message = new Message();
+        message.setClientId(clientScheduler.getClientInfo().getClientId());
+        message.setType(type);
+        message.setData(data);
+        return message;
+    }
+}
@@ -2,6 +2,7 @@ package com.distributed.scheduler.client.model;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import com.distributed.scheduler.client.protocol.ProtocolVersion;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
@@ -24,6 +25,13 @@ public class ClientInfo implements Serializable {
     private int taskExecutionCount; // 任务执行次数
     private int weight = 1;         // 权重
     private boolean online = true;  // 在线状态
+    // 心跳上报的负载，由服务端更新
+    private int activeThreads;      // 正在执行任务的线程数
+    private int maxThreads;         // 执行线程池的最大线程数
+    private int queueDepth;         // 执行线程池中排队的任务数
+    private int recentRejections;   // 最近一个心跳周期内被拒绝的任务数
+    private long loadReportTime;    // 最近一次上报负载的时间
+    private int protocolVersion;    // 客户端支持的协议版本，旧版本客户端没有该字段，为ProtocolVersion.LEGACY
     
     public ClientInfo(String host, int port, String group, String applicationName) {
         this.clientId = UUID.randomUUID().toString();
@@ -36,6 +44,7 @@ public class ClientInfo implements Serializable {
         this.lastHeartbeatTime = System.currentTimeMillis();
         this.taskExecutionCount = 0;
         this.online = true; // 默认在线
+        this.protocolVersion = ProtocolVersion.CURRENT;
     }
     
     public int getTaskExecutionCount() {
@@ -0,0 +1,23 @@
+package com.distributed.scheduler.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 客户端的负载，随心跳上报
+ * 服务端据此和自己记录的在途实例数为leastLoaded策略选择负载最低的客户端
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClientLoad implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int activeThreads;           // 正在执行任务的线程数
+    private int maxThreads;              // 执行线程池的最大线程数
+    private int queueDepth;              // 执行线程池中排队的任务数
+    private int recentRejections;        // 自上次心跳以来被执行线程池拒绝的任务数
+}
@@ -0,0 +1,24 @@
+package com.distributed.scheduler.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 一次性延迟任务
+ * 在指定时间以给定参数触发一次已注册的任务，不需要为每个作业创建TaskInfo
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DelayedJob implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String jobId;                // 作业ID，为空时由服务端生成
+    private String taskId;               // 要触发的任务ID
+    private long fireTime;               // 触发时间(毫秒时间戳)
+    private Map<String, Object> params;  // 本次执行覆盖的任务参数，为空时使用本地任务参数
+}
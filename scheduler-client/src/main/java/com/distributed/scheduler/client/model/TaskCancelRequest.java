@@ -0,0 +1,22 @@
+package com.distributed.scheduler.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 取消任务实例的请求
+ * 服务端在实例超时后发送，客户端中断仍在执行的实例并释放执行线程
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskCancelRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String taskId;               // 任务ID
+    private String instanceId;           // 要取消的实例ID
+    private String reason;               // 取消原因
+}
@@ -16,10 +16,36 @@ import java.util.concurrent.CopyOnWriteArraySet;
 public class TaskInfo implements Serializable {
     private static final long serialVersionUID = 1L;
     
+    public enum ScheduleType {
+        CRON,           // 按cron表达式触发
+        FIXED_RATE,     // 按固定频率触发，以上一次计划触发时间为基准
+        FIXED_DELAY     // 上一次执行完成后间隔固定时间再触发
+    }
+    
+    public enum OverflowPolicy {
+        REROUTE,    // 客户端待发送队列已满时改派到同组其他客户端
+        REJECT      // 客户端待发送队列已满时直接拒绝本次触发
+    }
+    
+    public enum MisfirePolicy {
+        FIRE_ONCE_NOW,  // 错过的触发合并为立即执行一次
+        SKIP,           // 跳过错过的触发，等待下一次触发时间
+        CATCH_UP        // 依次补执行错过的触发，最多maxCatchUp次
+    }
+    
+    public enum ConcurrencyPolicy {
+        SKIP,   // 达到并发上限时跳过本次触发
+        QUEUE,  // 进入任务的等待队列，有实例结束后依次触发
+        DELAY   // 延迟后重试，超过错过触发阈值后跳过
+    }
+    
     private String taskId;           // 任务唯一标识
     private String taskName;         // 任务名称
     private String taskGroup;        // 任务分组
     private String cronExpression;   // 定时表达式
+    private ScheduleType scheduleType = ScheduleType.CRON; // 调度类型
+    private long interval;           // FIXED_RATE/FIXED_DELAY的间隔毫秒数
+    private long initialDelay;       // FIXED_RATE/FIXED_DELAY首次触发的延迟毫秒数，为0时等于间隔
     private String targetClass;      // 目标执行类
     private String targetMethod;     // 目标执行方法
     private Map<String, Object> params; // 任务参数
@@ -27,8 +53,66 @@ public class TaskInfo implements Serializable {
     private String description;      // 任务描述
     private int executionCount;      // 任务执行次数
     private boolean oneRunning = false;  // 是否只允许一个任务实例运行，默认为false表示允许多实例并行执行
-    private String scheduleStrategy; // 调度策略，可选值：roundRobin, random, weighted
+    private String scheduleStrategy; // 调度策略，可选值：roundRobin, random, weighted, leastLoaded, latencyAware
     private Set<String> registeredClients = new CopyOnWriteArraySet<>(); // 注册该任务的客户端ID集合
+    private OverflowPolicy overflowPolicy = OverflowPolicy.REROUTE; // 客户端积压时的溢出策略
+    private MisfirePolicy misfirePolicy = MisfirePolicy.FIRE_ONCE_NOW; // 错过触发时间时的处理策略
+    private long misfireThreshold = 5000; // 实际触发晚于计划时间超过该毫秒数时视为错过触发
+    private int maxCatchUp = 10;      // CATCH_UP策略下最多补执行的次数
+    private boolean broadcast;       // 是否广播到分组内所有在线客户端分片执行
+    private String runId;            // 本次执行所属的逻辑运行ID，广播执行时所有分片相同
+    private int shardIndex;          // 本次执行的分片序号，从0开始
+    private int shardTotal = 1;      // 本次执行的分片总数，非广播执行时为1
+    private String resultReducer;    // 广播执行时合并各分片结果的服务端归约器名称
+    private int maxConcurrentInstances; // 同时运行的最大实例数，0表示不限制，oneRunning=true时为1
+    private ConcurrencyPolicy concurrencyPolicy = ConcurrencyPolicy.SKIP; // 达到并发上限时的处理策略
+    private long timeoutMillis;        // 执行超时(毫秒)，0表示不限制
+    private int maxAttempts = 1;       // 最多执行次数，包括首次执行，1表示失败后不重试
+    private long retryBackoffMillis = 1000; // 首次重试前的等待时间(毫秒)，之后每次翻倍
+    private long retryMaxBackoffMillis = 60000; // 重试等待时间的上限(毫秒)
+    private boolean retryOnOtherClient = true; // 重试时是否优先选择上次失败的客户端以外的客户端
+    private int attempt = 1;           // 本次执行是第几次尝试，从1开始
+    
+    /**
+     * 复制任务信息，用于单次执行时覆盖参数等字段而不影响共享的任务信息
+     */
+    public TaskInfo copy() {
+        TaskInfo copy = new TaskInfo();
+        copy.setTaskId(taskId);
+        copy.setTaskName(taskName);
+        copy.setTaskGroup(taskGroup);
+        copy.setCronExpression(cronExpression);
+        copy.setScheduleType(scheduleType);
+        copy.setInterval(interval);
+        copy.setInitialDelay(initialDelay);
+        copy.setTargetClass(targetClass);
+        copy.setTargetMethod(targetMethod);
+        copy.setParams(params);
+        copy.setEnabled(enabled);
+        copy.setDescription(description);
+        copy.setExecutionCount(executionCount);
+        copy.setOneRunning(oneRunning);
+        copy.setScheduleStrategy(scheduleStrategy);
+        copy.setRegisteredClients(registeredClients);
+        copy.setOverflowPolicy(overflowPolicy);
+        copy.setMisfirePolicy(misfirePolicy);
+        copy.setMisfireThreshold(misfireThreshold);
+        copy.setMaxCatchUp(maxCatchUp);
+        copy.setBroadcast(broadcast);
+        copy.setRunId(runId);
+        copy.setShardIndex(shardIndex);
+        copy.setShardTotal(shardTotal);
+        copy.setResultReducer(resultReducer);
+        copy.setMaxConcurrentInstances(maxConcurrentInstances);
+        copy.setConcurrencyPolicy(concurrencyPolicy);
+        copy.setTimeoutMillis(timeoutMillis);
+        copy.setMaxAttempts(maxAttempts);
+        copy.setRetryBackoffMillis(retryBackoffMillis);
+        copy.setRetryMaxBackoffMillis(retryMaxBackoffMillis);
+        copy.setRetryOnOtherClient(retryOnOtherClient);
+        copy.setAttempt(attempt);
+        return copy;
+    }
     
     /**
      * 添加注册客户端
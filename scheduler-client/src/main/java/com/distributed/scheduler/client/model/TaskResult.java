@@ -0,0 +1,27 @@
+package com.distributed.scheduler.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 任务执行结果
+ * 广播执行的分片结束时由客户端上报{@link com.distributed.scheduler.client.task.TaskExecutor#execute(TaskInfo)}的返回值，
+ * 服务端按任务配置的归约器逐个合并到运行的汇总结果中
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String taskId;               // 任务ID
+    private String instanceId;           // 实例ID
+    private String clientId;             // 执行的客户端ID
+    private String runId;                // 广播运行ID
+    private int shardIndex;              // 分片序号
+    private int shardTotal;              // 分片总数
+    private Object result;               // 执行结果，只支持编解码器能够传输的类型
+}
@@ -17,7 +17,8 @@ public class TaskStatus implements Serializable {
         WAITING,    // 等待执行
         RUNNING,    // 执行中
         SUCCESS,    // 执行成功
-        FAILED      // 执行失败
+        FAILED,     // 执行失败
+        TIMED_OUT   // 执行超时，已被取消
     }
     
     private String taskId;           // 任务ID
@@ -30,4 +31,37 @@ public class TaskStatus implements Serializable {
     private String errorMsg;         // 错误信息
     private long executionTime;      // 执行时长(毫秒)
     private boolean oneRunning;      // 任务配置：是否只允许一个实例运行，用于服务端处理
+    private String runId;            // 所属的逻辑运行ID，广播执行时所有分片相同
+    private int shardIndex;          // 分片序号
+    private int shardTotal;          // 分片总数，0或1表示非广播执行
+    private int attempt;             // 第几次尝试，从1开始，0表示旧版本客户端未上报
+    
+    /**
+     * 复制任务状态，用于异步上报时保存当前状态的快照
+     */
+    public TaskStatus copy() {
+        TaskStatus copy = new TaskStatus();
+        copy.setTaskId(taskId);
+        copy.setTaskName(taskName);
+        copy.setInstanceId(instanceId);
+        copy.setClientId(clientId);
+        copy.setStatus(status);
+        copy.setStartTime(startTime);
+        copy.setEndTime(endTime);
+        copy.setErrorMsg(errorMsg);
+        copy.setExecutionTime(executionTime);
+        copy.setOneRunning(oneRunning);
+        copy.setRunId(runId);
+        copy.setShardIndex(shardIndex);
+        copy.setShardTotal(shardTotal);
+        copy.setAttempt(attempt);
+        return copy;
+    }
+    
+    /**
+     * 是否为终止状态
+     */
+    public boolean isTerminal() {
+        return status == Status.SUCCESS || status == Status.FAILED || status == Status.TIMED_OUT;
+    }
 }
\ No newline at end of file
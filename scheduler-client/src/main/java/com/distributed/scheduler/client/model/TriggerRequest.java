@@ -0,0 +1,36 @@
+package com.distributed.scheduler.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 任务触发请求
+ * 只携带任务ID和本次执行相关的信息，客户端根据taskId从本地TaskRegistry中解析完整的任务信息，
+ * 使触发帧的大小不随集群规模增长
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TriggerRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String taskId;               // 任务ID
+    private String instanceId;           // 服务端生成的实例ID
+    private long scheduledFireTime;      // 计划触发时间(毫秒时间戳)
+    private Map<String, Object> params;  // 本次执行覆盖的任务参数，为空时使用本地任务参数
+    private String runId;                // 广播执行的逻辑运行ID
+    private int shardIndex;              // 分片序号
+    private int shardTotal;              // 分片总数，0表示非广播执行
+    private int attempt;                 // 第几次尝试，从1开始，0表示旧版本服务端未指定
+
+    public TriggerRequest(String taskId, String instanceId, long scheduledFireTime, Map<String, Object> params) {
+        this.taskId = taskId;
+        this.instanceId = instanceId;
+        this.scheduledFireTime = scheduledFireTime;
+        this.params = params;
+    }
+}
@@ -7,5 +7,8 @@ public enum MessageType {
     TASK_TRIGGER,         // 任务触发
     TASK_STATUS_REPORT,   // 任务状态上报
     TASK_RESULT_REPORT,   // 任务结果上报
-    SERVER_RESPONSE       // 服务端响应
+    SERVER_RESPONSE,      // 服务端响应
+    TASK_STATUS_BATCH,    // 任务状态批量上报
+    DELAYED_JOB_SUBMIT,   // 提交一次性延迟任务
+    TASK_CANCEL           // 取消正在执行的任务实例
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.distributed.scheduler.client.protocol;
+
+/**
+ * 协议版本
+ * 客户端在注册信息中声明自己的版本，服务端在注册响应中返回自己的版本，双方只向声明了支持的对端发送新版本的消息。
+ * 没有声明版本的对端按{@link #LEGACY}处理。
+ */
+public final class ProtocolVersion {
+
+    /**
+     * 旧版本：触发消息携带完整的TaskInfo，客户端自行生成实例ID，
+     * 没有状态批量上报、心跳负载、延迟任务、分片结果和取消消息
+     */
+    public static final int LEGACY = 0;
+
+    /**
+     * 精简触发请求、状态批量上报、心跳负载、延迟任务、广播分片结果和取消消息
+     */
+    public static final int V1 = 1;
+
+    public static final int CURRENT = V1;
+
+    // 注册响应数据中服务端协议版本的键
+    public static final String RESPONSE_KEY = "protocolVersion";
+
+    private ProtocolVersion() {
+    }
+}
@@ -0,0 +1,833 @@
+package com.distributed.scheduler.client.protocol.codec;
+
+import com.distributed.scheduler.client.model.ClientInfo;
+import com.distributed.scheduler.client.model.ClientLoad;
+import com.distributed.scheduler.client.model.DelayedJob;
+import com.distributed.scheduler.client.model.TaskCancelRequest;
+import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.client.model.TaskResult;
+import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.client.model.TriggerRequest;
+import com.distributed.scheduler.client.protocol.Message;
+import com.distributed.scheduler.client.protocol.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.EncoderException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 二进制消息编解码实现
+ *
+ * 帧格式：magic(2) + version(1) + length(4) + body
+ * body格式：type(1) + messageId + timestamp(8) + clientId + data
+ *
+ * 模型对象以长度前缀的结构体写出，字段只能追加在末尾：
+ * 旧版本读取时跳过不认识的尾部字段，新版本读取旧数据时缺失的字段保持默认值。
+ * MessageType按ordinal编码，新增类型只能追加在枚举末尾。
+ */
+public final class BinaryMessageCodec {
+
+    public static final short MAGIC = 0x6A6A;
+    public static final byte VERSION = 1;
+    public static final int HEADER_LENGTH = 7;
+
+    // 数据类型标记
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_INT = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_BOOLEAN = 4;
+    private static final byte TAG_DOUBLE = 5;
+    private static final byte TAG_MAP = 6;
+    private static final byte TAG_LIST = 7;
+    private static final byte TAG_CLIENT_INFO = 16;
+    private static final byte TAG_TASK_INFO = 17;
+    private static final byte TAG_TASK_STATUS = 18;
+    private static final byte TAG_TRIGGER_REQUEST = 19;
+    private static final byte TAG_DELAYED_JOB = 20;
+    private static final byte TAG_TASK_RESULT = 21;
+    private static final byte TAG_TASK_CANCEL = 22;
+    private static final byte TAG_CLIENT_LOAD = 23;
+    private static final byte TAG_SERIALIZED = 127;
+
+    private static final long NULL_DATE = Long.MIN_VALUE;
+    // 按帧中的元素数预分配集合的上限，元素数来自对端，不可信
+    private static final int MAX_PRESIZE = 256;
+    // 允许通过Java序列化读取的类所在的包，只包含模型和JDK的基础类型、集合
+    private static final String[] SERIALIZABLE_PACKAGES = {
+            "com.distributed.scheduler.client.model", "java.lang", "java.util", "java.util.concurrent", "java.math"
+    };
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+    private static final TaskStatus.Status[] STATUSES = TaskStatus.Status.values();
+    private static final TaskInfo.OverflowPolicy[] OVERFLOW_POLICIES = TaskInfo.OverflowPolicy.values();
+    private static final TaskInfo.MisfirePolicy[] MISFIRE_POLICIES = TaskInfo.MisfirePolicy.values();
+    private static final TaskInfo.ScheduleType[] SCHEDULE_TYPES = TaskInfo.ScheduleType.values();
+    private static final TaskInfo.ConcurrencyPolicy[] CONCURRENCY_POLICIES = TaskInfo.ConcurrencyPolicy.values();
+
+    private BinaryMessageCodec() {
+    }
+
+    /**
+     * 写出完整的帧，包括帧头
+     */
+    public static void encode(Message message, ByteBuf out) {
+        out.writeShort(MAGIC);
+        out.writeByte(VERSION);
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        encodeBody(message, out);
+        out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+    }
+
+    /**
+     * 写出消息体
+     */
+    public static void encodeBody(Message message, ByteBuf out) {
+        MessageType type = message.getType();
+        out.writeByte(type == null ? -1 : type.ordinal());
+        writeString(out, message.getMessageId());
+        out.writeLong(message.getTimestamp());
+        writeString(out, message.getClientId());
+        writeValue(out, message.getData());
+    }
+
+    /**
+     * 读取消息体，调用方需要保证帧头已经被跳过
+     *
+     * @throws CorruptedFrameException 消息体被截断或格式错误
+     */
+    public static Message decodeBody(ByteBuf in) {
+        try {
+            return readMessage(in);
+        } catch (IndexOutOfBoundsException e) {
+            // 长度字段都已按剩余字节数校验，读越界说明消息体被截断
+            throw new CorruptedFrameException("Truncated message body", e);
+        }
+    }
+
+    private static Message readMessage(ByteBuf in) {
+        Message message = new Message();
+        int typeIndex = in.readByte();
+        if (typeIndex >= MESSAGE_TYPES.length) {
+            throw new CorruptedFrameException("Unknown message type: " + typeIndex);
+        }
+        message.setType(typeIndex < 0 ? null : MESSAGE_TYPES[typeIndex]);
+        message.setMessageId(readString(in));
+        message.setTimestamp(in.readLong());
+        message.setClientId(readString(in));
+        message.setData(readValue(in));
+        return message;
+    }
+
+    // ---------------------------------------------------------------------
+    // 通用值
+    // ---------------------------------------------------------------------
+
+    /**
+     * 写出带类型标记的值，未知类型回退到Java序列化
+     */
+    public static void writeValue(ByteBuf out, Object value) {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TAG_INT);
+            writeVarInt(out, zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Map && hasStringKeys((Map<?, ?>) value)) {
+            out.writeByte(TAG_MAP);
+            writeMap(out, castMap(value));
+        } else if (value instanceof List) {
+            out.writeByte(TAG_LIST);
+            writeList(out, (List<?>) value);
+        } else if (value instanceof ClientInfo) {
+            out.writeByte(TAG_CLIENT_INFO);
+            writeStruct(out, value);
+        } else if (value instanceof TaskInfo) {
+            out.writeByte(TAG_TASK_INFO);
+            writeStruct(out, value);
+        } else if (value instanceof TaskStatus) {
+            out.writeByte(TAG_TASK_STATUS);
+            writeStruct(out, value);
+        } else if (value instanceof TriggerRequest) {
+            out.writeByte(TAG_TRIGGER_REQUEST);
+            writeStruct(out, value);
+        } else if (value instanceof DelayedJob) {
+            out.writeByte(TAG_DELAYED_JOB);
+            writeStruct(out, value);
+        } else if (value instanceof TaskResult) {
+            out.writeByte(TAG_TASK_RESULT);
+            writeStruct(out, value);
+        } else if (value instanceof TaskCancelRequest) {
+            out.writeByte(TAG_TASK_CANCEL);
+            writeStruct(out, value);
+        } else if (value instanceof ClientLoad) {
+            out.writeByte(TAG_CLIENT_LOAD);
+            writeStruct(out, value);
+        } else if (value instanceof Serializable) {
+            out.writeByte(TAG_SERIALIZED);
+            writeSerialized(out, value);
+        } else {
+            throw new EncoderException("Unsupported data type: " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * 值是否只由编解码器原生支持的类型组成（String、Integer、Long、Boolean、Double，键为String的Map和List，可以嵌套），
+     * 这些类型不经过Java序列化，对端一定能够读取
+     */
+    public static boolean isNativeValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Integer || value instanceof Long
+                || value instanceof Boolean || value instanceof Double) {
+            return true;
+        }
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!(entry.getKey() instanceof String) || !isNativeValue(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                if (!isNativeValue(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 读取带类型标记的值
+     */
+    public static Object readValue(ByteBuf in) {
+        if (!in.isReadable()) {
+            return null;
+        }
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString(in);
+            case TAG_INT:
+                return unZigZag(readVarInt(in));
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_MAP:
+                return readMap(in);
+            case TAG_LIST:
+                return readList(in);
+            case TAG_CLIENT_INFO:
+            case TAG_TASK_INFO:
+            case TAG_TASK_STATUS:
+            case TAG_TRIGGER_REQUEST:
+            case TAG_DELAYED_JOB:
+            case TAG_TASK_RESULT:
+            case TAG_TASK_CANCEL:
+            case TAG_CLIENT_LOAD:
+                return readStruct(in, tag);
+            case TAG_SERIALIZED:
+                return readSerialized(in);
+            default:
+                throw new CorruptedFrameException("Unknown data tag: " + tag);
+        }
+    }
+
+    /**
+     * 以长度前缀写出结构体，便于读取端跳过不认识的尾部字段
+     */
+    private static void writeStruct(ByteBuf out, Object value) {
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        if (value instanceof ClientInfo) {
+            writeClientInfo(out, (ClientInfo) value);
+        } else if (value instanceof TaskInfo) {
+            writeTaskInfo(out, (TaskInfo) value);
+        } else if (value instanceof TaskStatus) {
+            writeTaskStatus(out, (TaskStatus) value);
+        } else if (value instanceof TriggerRequest) {
+            writeTriggerRequest(out, (TriggerRequest) value);
+        } else if (value instanceof DelayedJob) {
+            writeDelayedJob(out, (DelayedJob) value);
+        } else if (value instanceof TaskCancelRequest) {
+            writeTaskCancelRequest(out, (TaskCancelRequest) value);
+        } else if (value instanceof ClientLoad) {
+            writeClientLoad(out, (ClientLoad) value);
+        } else {
+            writeTaskResult(out, (TaskResult) value);
+        }
+        out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+    }
+
+    private static Object readStruct(ByteBuf in, byte tag) {
+        ByteBuf struct = in.readSlice(checkSize(in, in.readInt()));
+        switch (tag) {
+            case TAG_CLIENT_INFO:
+                return readClientInfo(struct);
+            case TAG_TASK_INFO:
+                return readTaskInfo(struct);
+            case TAG_TASK_STATUS:
+                return readTaskStatus(struct);
+            case TAG_TRIGGER_REQUEST:
+                return readTriggerRequest(struct);
+            case TAG_DELAYED_JOB:
+                return readDelayedJob(struct);
+            case TAG_TASK_CANCEL:
+                return readTaskCancelRequest(struct);
+            case TAG_CLIENT_LOAD:
+                return readClientLoad(struct);
+            default:
+                return readTaskResult(struct);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 模型对象，字段只能追加
+    // ---------------------------------------------------------------------
+
+    private static void writeClientInfo(ByteBuf out, ClientInfo info) {
+        writeString(out, info.getClientId());
+        writeString(out, info.getHostName());
+        writeString(out, info.getIpAddress());
+        writeVarInt(out, zigZag(info.getPort()));
+        writeString(out, info.getGroup());
+        writeString(out, info.getApplicationName());
+        out.writeLong(info.getRegistrationTime());
+        out.writeLong(info.getLastHeartbeatTime());
+        writeVarInt(out, zigZag(info.getTaskExecutionCount()));
+        writeVarInt(out, zigZag(info.getWeight()));
+        out.writeBoolean(info.isOnline());
+        writeVarInt(out, info.getProtocolVersion());
+    }
+
+    private static ClientInfo readClientInfo(ByteBuf in) {
+        ClientInfo info = new ClientInfo();
+        info.setClientId(readString(in));
+        info.setHostName(readString(in));
+        info.setIpAddress(readString(in));
+        info.setPort(readInt(in));
+        info.setGroup(readString(in));
+        info.setApplicationName(readString(in));
+        info.setRegistrationTime(readLong(in));
+        info.setLastHeartbeatTime(readLong(in));
+        info.setTaskExecutionCount(readInt(in));
+        if (in.isReadable()) {
+            info.setWeight(readInt(in));
+        }
+        if (in.isReadable()) {
+            info.setOnline(in.readBoolean());
+        }
+        if (in.isReadable()) {
+            info.setProtocolVersion(readVarInt(in));
+        }
+        return info;
+    }
+
+    private static void writeTaskInfo(ByteBuf out, TaskInfo info) {
+        writeString(out, info.getTaskId());
+        writeString(out, info.getTaskName());
+        writeString(out, info.getTaskGroup());
+        writeString(out, info.getCronExpression());
+        writeString(out, info.getTargetClass());
+        writeString(out, info.getTargetMethod());
+        writeMap(out, info.getParams());
+        out.writeBoolean(info.isEnabled());
+        writeString(out, info.getDescription());
+        writeVarInt(out, zigZag(info.getExecutionCount()));
+        out.writeBoolean(info.isOneRunning());
+        writeString(out, info.getScheduleStrategy());
+        writeStringSet(out, info.getRegisteredClients());
+        writeEnum(out, info.getOverflowPolicy());
+        writeEnum(out, info.getMisfirePolicy());
+        out.writeLong(info.getMisfireThreshold());
+        writeVarInt(out, zigZag(info.getMaxCatchUp()));
+        writeEnum(out, info.getScheduleType());
+        out.writeLong(info.getInterval());
+        out.writeLong(info.getInitialDelay());
+        out.writeBoolean(info.isBroadcast());
+        writeString(out, info.getRunId());
+        writeVarInt(out, zigZag(info.getShardIndex()));
+        writeVarInt(out, zigZag(info.getShardTotal()));
+        writeString(out, info.getResultReducer());
+        writeVarInt(out, zigZag(info.getMaxConcurrentInstances()));
+        writeEnum(out, info.getConcurrencyPolicy());
+        out.writeLong(info.getTimeoutMillis());
+        writeVarInt(out, zigZag(info.getMaxAttempts()));
+        out.writeLong(info.getRetryBackoffMillis());
+        out.writeLong(info.getRetryMaxBackoffMillis());
+        out.writeBoolean(info.isRetryOnOtherClient());
+    }
+
+    private static TaskInfo readTaskInfo(ByteBuf in) {
+        TaskInfo info = new TaskInfo();
+        info.setTaskId(readString(in));
+        info.setTaskName(readString(in));
+        info.setTaskGroup(readString(in));
+        info.setCronExpression(readString(in));
+        info.setTargetClass(readString(in));
+        info.setTargetMethod(readString(in));
+        info.setParams(readMap(in));
+        info.setEnabled(readBoolean(in));
+        info.setDescription(readString(in));
+        info.setExecutionCount(readInt(in));
+        info.setOneRunning(readBoolean(in));
+        info.setScheduleStrategy(readString(in));
+        readStringSet(in, info.getRegisteredClients());
+        if (in.isReadable()) {
+            info.setOverflowPolicy(readEnum(in, OVERFLOW_POLICIES));
+        }
+        if (in.isReadable()) {
+            info.setMisfirePolicy(readEnum(in, MISFIRE_POLICIES));
+            info.setMisfireThreshold(readLong(in));
+            info.setMaxCatchUp(readInt(in));
+        }
+        if (in.isReadable()) {
+            info.setScheduleType(readEnum(in, SCHEDULE_TYPES));
+            info.setInterval(readLong(in));
+            info.setInitialDelay(readLong(in));
+        }
+        if (in.isReadable()) {
+            info.setBroadcast(readBoolean(in));
+            info.setRunId(readString(in));
+            info.setShardIndex(readInt(in));
+            info.setShardTotal(readInt(in));
+        }
+        if (in.isReadable()) {
+            info.setResultReducer(readString(in));
+        }
+        if (in.isReadable()) {
+            info.setMaxConcurrentInstances(readInt(in));
+            info.setConcurrencyPolicy(readEnum(in, CONCURRENCY_POLICIES));
+        }
+        if (in.isReadable()) {
+            info.setTimeoutMillis(readLong(in));
+        }
+        if (in.isReadable()) {
+            info.setMaxAttempts(readInt(in));
+            info.setRetryBackoffMillis(readLong(in));
+            info.setRetryMaxBackoffMillis(readLong(in));
+            info.setRetryOnOtherClient(readBoolean(in));
+        }
+        return info;
+    }
+
+    private static void writeTaskStatus(ByteBuf out, TaskStatus status) {
+        writeString(out, status.getTaskId());
+        writeString(out, status.getTaskName());
+        writeString(out, status.getInstanceId());
+        writeString(out, status.getClientId());
+        out.writeByte(status.getStatus() == null ? -1 : status.getStatus().ordinal());
+        writeDate(out, status.getStartTime());
+        writeDate(out, status.getEndTime());
+        writeString(out, status.getErrorMsg());
+        out.writeLong(status.getExecutionTime());
+        out.writeBoolean(status.isOneRunning());
+        writeString(out, status.getRunId());
+        writeVarInt(out, zigZag(status.getShardIndex()));
+        writeVarInt(out, zigZag(status.getShardTotal()));
+        writeVarInt(out, zigZag(status.getAttempt()));
+    }
+
+    private static TaskStatus readTaskStatus(ByteBuf in) {
+        TaskStatus status = new TaskStatus();
+        status.setTaskId(readString(in));
+        status.setTaskName(readString(in));
+        status.setInstanceId(readString(in));
+        status.setClientId(readString(in));
+        int statusIndex = in.readByte();
+        if (statusIndex >= STATUSES.length) {
+            throw new CorruptedFrameException("Unknown task status: " + statusIndex);
+        }
+        status.setStatus(statusIndex < 0 ? null : STATUSES[statusIndex]);
+        status.setStartTime(readDate(in));
+        status.setEndTime(readDate(in));
+        status.setErrorMsg(readString(in));
+        status.setExecutionTime(readLong(in));
+        status.setOneRunning(readBoolean(in));
+        if (in.isReadable()) {
+            status.setRunId(readString(in));
+            status.setShardIndex(readInt(in));
+            status.setShardTotal(readInt(in));
+        }
+        if (in.isReadable()) {
+            status.setAttempt(readInt(in));
+        }
+        return status;
+    }
+
+    private static void writeTriggerRequest(ByteBuf out, TriggerRequest request) {
+        writeString(out, request.getTaskId());
+        writeString(out, request.getInstanceId());
+        out.writeLong(request.getScheduledFireTime());
+        writeMap(out, request.getParams());
+        writeString(out, request.getRunId());
+        writeVarInt(out, zigZag(request.getShardIndex()));
+        writeVarInt(out, zigZag(request.getShardTotal()));
+        writeVarInt(out, zigZag(request.getAttempt()));
+    }
+
+    private static TriggerRequest readTriggerRequest(ByteBuf in) {
+        TriggerRequest request = new TriggerRequest();
+        request.setTaskId(readString(in));
+        request.setInstanceId(readString(in));
+        request.setScheduledFireTime(readLong(in));
+        request.setParams(readMap(in));
+        if (in.isReadable()) {
+            request.setRunId(readString(in));
+            request.setShardIndex(readInt(in));
+            request.setShardTotal(readInt(in));
+        }
+        if (in.isReadable()) {
+            request.setAttempt(readInt(in));
+        }
+        return request;
+    }
+
+    public static void writeDelayedJob(ByteBuf out, DelayedJob job) {
+        writeString(out, job.getJobId());
+        writeString(out, job.getTaskId());
+        out.writeLong(job.getFireTime());
+        writeMap(out, job.getParams());
+    }
+
+    public static DelayedJob readDelayedJob(ByteBuf in) {
+        DelayedJob job = new DelayedJob();
+        job.setJobId(readString(in));
+        job.setTaskId(readString(in));
+        job.setFireTime(readLong(in));
+        job.setParams(readMap(in));
+        return job;
+    }
+
+    private static void writeTaskResult(ByteBuf out, TaskResult result) {
+        writeString(out, result.getTaskId());
+        writeString(out, result.getInstanceId());
+        writeString(out, result.getClientId());
+        writeString(out, result.getRunId());
+        writeVarInt(out, zigZag(result.getShardIndex()));
+        writeVarInt(out, zigZag(result.getShardTotal()));
+        writeValue(out, result.getResult());
+    }
+
+    private static TaskResult readTaskResult(ByteBuf in) {
+        TaskResult result = new TaskResult();
+        result.setTaskId(readString(in));
+        result.setInstanceId(readString(in));
+        result.setClientId(readString(in));
+        result.setRunId(readString(in));
+        result.setShardIndex(readInt(in));
+        result.setShardTotal(readInt(in));
+        result.setResult(readValue(in));
+        return result;
+    }
+
+    private static void writeTaskCancelRequest(ByteBuf out, TaskCancelRequest request) {
+        writeString(out, request.getTaskId());
+        writeString(out, request.getInstanceId());
+        writeString(out, request.getReason());
+    }
+
+    private static TaskCancelRequest readTaskCancelRequest(ByteBuf in) {
+        TaskCancelRequest request = new TaskCancelRequest();
+        request.setTaskId(readString(in));
+        request.setInstanceId(readString(in));
+        request.setReason(readString(in));
+        return request;
+    }
+
+    private static void writeClientLoad(ByteBuf out, ClientLoad load) {
+        writeVarInt(out, zigZag(load.getActiveThreads()));
+        writeVarInt(out, zigZag(load.getMaxThreads()));
+        writeVarInt(out, zigZag(load.getQueueDepth()));
+        writeVarInt(out, zigZag(load.getRecentRejections()));
+    }
+
+    private static ClientLoad readClientLoad(ByteBuf in) {
+        ClientLoad load = new ClientLoad();
+        load.setActiveThreads(readInt(in));
+        load.setMaxThreads(readInt(in));
+        load.setQueueDepth(readInt(in));
+        load.setRecentRejections(readInt(in));
+        return load;
+    }
+
+    // ---------------------------------------------------------------------
+    // 基础类型，读取已到结构体末尾时返回默认值
+    // ---------------------------------------------------------------------
+
+    public static void writeString(ByteBuf out, String value) {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, ByteBufUtil.utf8Bytes(value) + 1);
+        ByteBufUtil.writeUtf8(out, value);
+    }
+
+    public static String readString(ByteBuf in) {
+        if (!in.isReadable()) {
+            return null;
+        }
+        int length = readVarInt(in) - 1;
+        if (length == -1) {
+            return null;
+        }
+        checkSize(in, length);
+        String value = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+        in.skipBytes(length);
+        return value;
+    }
+
+    public static void writeMap(ByteBuf out, Map<String, Object> map) {
+        if (map == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, map.size() + 1);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    public static Map<String, Object> readMap(ByteBuf in) {
+        if (!in.isReadable()) {
+            return null;
+        }
+        int size = readVarInt(in) - 1;
+        if (size == -1) {
+            return null;
+        }
+        checkSize(in, size);
+        Map<String, Object> map = new HashMap<>(Math.max(4, Math.min(size, MAX_PRESIZE) * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    public static void writeList(ByteBuf out, List<?> list) {
+        writeVarInt(out, list.size());
+        for (Object value : list) {
+            writeValue(out, value);
+        }
+    }
+
+    public static List<Object> readList(ByteBuf in) {
+        int size = checkSize(in, readVarInt(in));
+        List<Object> list = new ArrayList<>(Math.min(size, MAX_PRESIZE));
+        for (int i = 0; i < size; i++) {
+            list.add(readValue(in));
+        }
+        return list;
+    }
+
+    private static void writeStringSet(ByteBuf out, Set<String> values) {
+        if (values == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static void readStringSet(ByteBuf in, Set<String> target) {
+        if (!in.isReadable()) {
+            return;
+        }
+        int size = checkSize(in, readVarInt(in));
+        for (int i = 0; i < size; i++) {
+            target.add(readString(in));
+        }
+    }
+
+    /**
+     * 校验从帧中读取的元素数或字节数，每个元素至少占一个字节，超过剩余字节数时帧已损坏
+     */
+    private static int checkSize(ByteBuf in, int size) {
+        if (size < 0 || size > in.readableBytes()) {
+            throw new CorruptedFrameException("Invalid element count " + size + ", readable bytes: " + in.readableBytes());
+        }
+        return size;
+    }
+
+    private static void writeEnum(ByteBuf out, Enum<?> value) {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuf in, E[] values) {
+        int index = in.readByte();
+        if (index >= values.length) {
+            throw new CorruptedFrameException("Unknown enum ordinal: " + index);
+        }
+        return index < 0 ? null : values[index];
+    }
+
+    private static void writeDate(ByteBuf out, Date date) {
+        out.writeLong(date == null ? NULL_DATE : date.getTime());
+    }
+
+    private static Date readDate(ByteBuf in) {
+        if (!in.isReadable()) {
+            return null;
+        }
+        long time = in.readLong();
+        return time == NULL_DATE ? null : new Date(time);
+    }
+
+    public static int readInt(ByteBuf in) {
+        return in.isReadable() ? unZigZag(readVarInt(in)) : 0;
+    }
+
+    public static long readLong(ByteBuf in) {
+        return in.isReadable() ? in.readLong() : 0L;
+    }
+
+    public static boolean readBoolean(ByteBuf in) {
+        return in.isReadable() && in.readBoolean();
+    }
+
+    public static void writeVarInt(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(ByteBuf in) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new CorruptedFrameException("Malformed varint");
+    }
+
+    public static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    public static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeSerialized(ByteBuf out, Object value) {
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        try (ObjectOutputStream oos = new ObjectOutputStream(new ByteBufOutputStream(out))) {
+            oos.writeObject(value);
+        } catch (IOException e) {
+            throw new EncoderException("Failed to serialize " + value.getClass().getName(), e);
+        }
+        out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+    }
+
+    private static Object readSerialized(ByteBuf in) {
+        int length = checkSize(in, in.readInt());
+        try (ObjectInputStream ois = new FilteringObjectInputStream(new ByteBufInputStream(in.readSlice(length)))) {
+            return ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new DecoderException("Failed to deserialize message data", e);
+        }
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * 只允许读取SERIALIZABLE_PACKAGES中的类的ObjectInputStream
+     * 需要兼容JDK 8，不使用JDK 9的ObjectInputFilter，在解析类时按包名检查，不允许的类在实例化之前被拒绝
+     */
+    private static final class FilteringObjectInputStream extends ObjectInputStream {
+
+        FilteringObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            // 数组按元素类型检查，基本类型数组的元素类型名只有一个字母
+            String elementName = name.replaceFirst("^\\[+", "");
+            if (elementName.startsWith("L") && elementName.endsWith(";")) {
+                elementName = elementName.substring(1, elementName.length() - 1);
+            } else if (elementName.length() != name.length()) {
+                return super.resolveClass(desc);
+            }
+            if (!isAllowed(elementName)) {
+                throw new InvalidClassException(name, "Class is not allowed in message data");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("Proxy classes are not allowed in message data");
+        }
+
+        private static boolean isAllowed(String className) {
+            int dot = className.lastIndexOf('.');
+            String packageName = dot < 0 ? "" : className.substring(0, dot);
+            for (String allowed : SERIALIZABLE_PACKAGES) {
+                if (packageName.equals(allowed)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.distributed.scheduler.client.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 二进制消息解码器
+ * 先按帧头中的长度字段拆帧，再校验magic和协议版本。
+ * magic或版本错误说明流已经错位，抛出异常由上层关闭连接；帧头正确而消息体无法解码时只丢弃这一帧，
+ * 帧已按长度完整读出，后续的帧不受影响，避免一条消息（如无法读取的自定义类型）断开整个连接。
+ */
+public class BinaryMessageDecoder extends LengthFieldBasedFrameDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryMessageDecoder.class);
+
+    public BinaryMessageDecoder(int maxFrameLength) {
+        super(maxFrameLength, 3, 4, 0, 0);
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        ByteBuf frame = (ByteBuf) super.decode(ctx, in);
+        if (frame == null) {
+            return null;
+        }
+        try {
+            short magic = frame.readShort();
+            if (magic != BinaryMessageCodec.MAGIC) {
+                throw new CorruptedFrameException("Invalid magic number: " + magic);
+            }
+            byte version = frame.readByte();
+            if (version < 1 || version > BinaryMessageCodec.VERSION) {
+                throw new CorruptedFrameException("Unsupported protocol version: " + version);
+            }
+            frame.skipBytes(4);
+            try {
+                return BinaryMessageCodec.decodeBody(frame);
+            } catch (RuntimeException e) {
+                logger.warn("Dropping undecodable message from {}: {}", ctx.channel().remoteAddress(), e.toString());
+                return null;
+            }
+        } finally {
+            frame.release();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.distributed.scheduler.client.protocol.codec;
+
+import com.distributed.scheduler.client.protocol.Message;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+/**
+ * 二进制消息编码器
+ */
+public class BinaryMessageEncoder extends MessageToByteEncoder<Message> {
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Message message, ByteBuf out) throws Exception {
+        BinaryMessageCodec.encode(message, out);
+    }
+}
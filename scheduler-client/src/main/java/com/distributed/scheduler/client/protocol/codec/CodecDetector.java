@@ -0,0 +1,30 @@
+package com.distributed.scheduler.client.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * 编解码协商处理器
+ * 根据连接上第一帧的前两个字节判断对端使用的编解码类型，安装对应的编解码器后移除自身。
+ * Java序列化帧以4字节长度开头，高位字节不会与二进制协议的magic冲突。
+ */
+public class CodecDetector extends ByteToMessageDecoder {
+    private static final Logger logger = LoggerFactory.getLogger(CodecDetector.class);
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (in.readableBytes() < 2) {
+            return;
+        }
+        CodecType codecType = in.getShort(in.readerIndex()) == BinaryMessageCodec.MAGIC
+                ? CodecType.BINARY : CodecType.JAVA;
+        logger.debug("Codec detected for channel {}: {}", ctx.channel().id().asShortText(), codecType);
+        MessageCodecs.addCodecAfter(ctx.pipeline(), ctx.name(), codecType);
+        ctx.pipeline().remove(this);
+    }
+}
@@ -0,0 +1,46 @@
+package com.distributed.scheduler.client.protocol.codec;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.serialization.ClassResolvers;
+import io.netty.handler.codec.serialization.ObjectDecoder;
+import io.netty.handler.codec.serialization.ObjectEncoder;
+
+/**
+ * 连接使用的编解码类型
+ * JAVA为原有的Java序列化编解码，保留用于兼容旧版本；BINARY为紧凑的二进制编解码
+ */
+public enum CodecType {
+    JAVA {
+        @Override
+        public ChannelHandler newEncoder() {
+            return new ObjectEncoder();
+        }
+
+        @Override
+        public ChannelHandler newDecoder() {
+            return new ObjectDecoder(MessageCodecs.MAX_FRAME_LENGTH,
+                    ClassResolvers.weakCachingConcurrentResolver(CodecType.class.getClassLoader()));
+        }
+    },
+    BINARY {
+        @Override
+        public ChannelHandler newEncoder() {
+            return new BinaryMessageEncoder();
+        }
+
+        @Override
+        public ChannelHandler newDecoder() {
+            return new BinaryMessageDecoder(MessageCodecs.MAX_FRAME_LENGTH);
+        }
+    };
+
+    /**
+     * 创建该编解码类型的编码器
+     */
+    public abstract ChannelHandler newEncoder();
+
+    /**
+     * 创建该编解码类型的解码器
+     */
+    public abstract ChannelHandler newDecoder();
+}
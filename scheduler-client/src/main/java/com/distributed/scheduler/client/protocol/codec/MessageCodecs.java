@@ -0,0 +1,35 @@
+package com.distributed.scheduler.client.protocol.codec;
+
+import io.netty.channel.ChannelPipeline;
+
+/**
+ * 编解码器安装工具类
+ * 客户端和服务端共用，保证两端的handler名称和帧大小限制一致
+ */
+public final class MessageCodecs {
+
+    public static final String ENCODER_NAME = "messageEncoder";
+    public static final String DECODER_NAME = "messageDecoder";
+
+    // 单帧最大长度，避免异常数据导致无限制的内存分配
+    public static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    private MessageCodecs() {
+    }
+
+    /**
+     * 在pipeline末尾添加指定类型的编解码器
+     */
+    public static void addCodec(ChannelPipeline pipeline, CodecType codecType) {
+        pipeline.addLast(ENCODER_NAME, codecType.newEncoder());
+        pipeline.addLast(DECODER_NAME, codecType.newDecoder());
+    }
+
+    /**
+     * 在指定handler之后添加编解码器，用于连接建立后按协议动态安装
+     */
+    public static void addCodecAfter(ChannelPipeline pipeline, String baseName, CodecType codecType) {
+        pipeline.addAfter(baseName, DECODER_NAME, codecType.newDecoder());
+        pipeline.addAfter(baseName, ENCODER_NAME, codecType.newEncoder());
+    }
+}
@@ -1,6 +1,10 @@
 package com.distributed.scheduler.client.task;
 
 import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.client.model.TaskInfo.ConcurrencyPolicy;
+import com.distributed.scheduler.client.model.TaskInfo.MisfirePolicy;
+import com.distributed.scheduler.client.model.TaskInfo.OverflowPolicy;
+import com.distributed.scheduler.client.model.TaskInfo.ScheduleType;
 
 /**
  * 任务执行器接口
@@ -50,6 +54,146 @@ public interface TaskExecutor {
      */
     String getCronExpression();
     
+    /**
+     * 获取调度类型
+     * FIXED_RATE按固定频率触发，FIXED_DELAY在上一次执行完成后间隔固定时间再触发，两者都使用{@link #getInterval()}
+     * @return 调度类型，默认按cron表达式触发
+     */
+    default ScheduleType getScheduleType() {
+        return ScheduleType.CRON;
+    }
+    
+    /**
+     * 获取FIXED_RATE/FIXED_DELAY的间隔
+     * @return 间隔毫秒数，精度受服务端时间轮tick限制
+     */
+    default long getInterval() {
+        return 0;
+    }
+    
+    /**
+     * 获取FIXED_RATE/FIXED_DELAY首次触发的延迟
+     * @return 延迟毫秒数，为0时等于间隔
+     */
+    default long getInitialDelay() {
+        return 0;
+    }
+    
+    /**
+     * 获取客户端积压时的溢出策略
+     * 服务端发往某个客户端的待发送队列已满时，按此策略改派到同组其他客户端或直接拒绝
+     * @return 溢出策略，默认改派
+     */
+    default OverflowPolicy getOverflowPolicy() {
+        return OverflowPolicy.REROUTE;
+    }
+    
+    /**
+     * 获取错过触发时间时的处理策略
+     * 服务端停顿或过载导致实际触发晚于计划时间超过{@link #getMisfireThreshold()}时按此策略处理
+     * @return 错过触发策略，默认立即执行一次
+     */
+    default MisfirePolicy getMisfirePolicy() {
+        return MisfirePolicy.FIRE_ONCE_NOW;
+    }
+    
+    /**
+     * 获取错过触发的判定阈值
+     * @return 毫秒数，默认5000
+     */
+    default long getMisfireThreshold() {
+        return 5000;
+    }
+    
+    /**
+     * 获取CATCH_UP策略下最多补执行的次数
+     * @return 最多补执行次数，默认10
+     */
+    default int getMaxCatchUp() {
+        return 10;
+    }
+    
+    /**
+     * 是否广播执行
+     * 广播执行时每次触发都会在分组内所有在线客户端上各执行一个分片，
+     * 分片序号和总数通过execute参数的{@link TaskInfo#getShardIndex()}、{@link TaskInfo#getShardTotal()}获取
+     * @return true表示广播执行，默认false由调度策略选择一个客户端执行
+     */
+    default boolean isBroadcast() {
+        return false;
+    }
+    
+    /**
+     * 获取广播执行时合并分片结果的归约器名称
+     * 每个分片结束时客户端上报execute的返回值，服务端在分片完成时逐个交给归约器合并，不缓存全部结果，
+     * 内置sum（数值求和）和mergeCounts（按键累加Map中的数值），也可以在服务端注册自定义的ShardResultReducer
+     * @return 归约器名称，默认null表示不收集结果
+     */
+    default String getResultReducer() {
+        return null;
+    }
+    
+    /**
+     * 获取同时运行的最大实例数
+     * 服务端按任务统计已触发但尚未结束的实例，广播执行的一次运行算作一个实例
+     * @return 最大实例数，默认0表示不限制
+     */
+    default int getMaxConcurrentInstances() {
+        return 0;
+    }
+    
+    /**
+     * 获取达到并发上限时的处理策略
+     * @return 并发策略，默认跳过本次触发
+     */
+    default ConcurrencyPolicy getConcurrencyPolicy() {
+        return ConcurrencyPolicy.SKIP;
+    }
+    
+    /**
+     * 获取执行超时
+     * 客户端在执行超过该时长后中断执行线程并上报TIMED_OUT，服务端在超时后仍未收到结束状态时
+     * 把实例标记为TIMED_OUT并通知客户端取消，execute需要响应中断才能及时释放执行线程
+     * @return 超时毫秒数，默认0表示不限制
+     */
+    default long getTimeoutMillis() {
+        return 0;
+    }
+    
+    /**
+     * 获取最多执行次数，包括首次执行
+     * 执行失败、超时或执行的客户端断开后，服务端按指数退避等待后重新触发，
+     * 本次执行是第几次尝试可通过execute参数的{@link TaskInfo#getAttempt()}获取。广播执行不重试
+     * @return 最多执行次数，默认1表示不重试
+     */
+    default int getMaxAttempts() {
+        return 1;
+    }
+    
+    /**
+     * 获取首次重试前的等待时间，之后每次重试翻倍，实际等待时间在一半到全部之间随机
+     * @return 毫秒数，默认1000
+     */
+    default long getRetryBackoffMillis() {
+        return 1000;
+    }
+    
+    /**
+     * 获取重试等待时间的上限
+     * @return 毫秒数，默认60000
+     */
+    default long getRetryMaxBackoffMillis() {
+        return 60000;
+    }
+    
+    /**
+     * 重试时是否排除上次失败的客户端，分组内没有其他可用客户端时仍会选择该客户端
+     * @return 默认true
+     */
+    default boolean isRetryOnOtherClient() {
+        return true;
+    }
+    
     /**
      * 判断任务执行器是否为单例
      * @return true表示单例，false表示非单例
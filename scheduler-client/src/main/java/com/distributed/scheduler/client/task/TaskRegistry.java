@@ -49,6 +49,30 @@ public class TaskRegistry {
             taskInfo.setTaskName(tempExecutor.getTaskName());
             taskInfo.setTaskGroup(tempExecutor.getTaskGroup());
             taskInfo.setCronExpression(tempExecutor.getCronExpression());
+            if (tempExecutor.getScheduleType() != null) {
+                taskInfo.setScheduleType(tempExecutor.getScheduleType());
+            }
+            taskInfo.setInterval(tempExecutor.getInterval());
+            taskInfo.setInitialDelay(tempExecutor.getInitialDelay());
+            if (tempExecutor.getOverflowPolicy() != null) {
+                taskInfo.setOverflowPolicy(tempExecutor.getOverflowPolicy());
+            }
+            if (tempExecutor.getMisfirePolicy() != null) {
+                taskInfo.setMisfirePolicy(tempExecutor.getMisfirePolicy());
+            }
+            taskInfo.setMisfireThreshold(tempExecutor.getMisfireThreshold());
+            taskInfo.setMaxCatchUp(tempExecutor.getMaxCatchUp());
+            taskInfo.setBroadcast(tempExecutor.isBroadcast());
+            taskInfo.setResultReducer(tempExecutor.getResultReducer());
+            taskInfo.setMaxConcurrentInstances(tempExecutor.getMaxConcurrentInstances());
+            if (tempExecutor.getConcurrencyPolicy() != null) {
+                taskInfo.setConcurrencyPolicy(tempExecutor.getConcurrencyPolicy());
+            }
+            taskInfo.setTimeoutMillis(tempExecutor.getTimeoutMillis());
+            taskInfo.setMaxAttempts(tempExecutor.getMaxAttempts());
+            taskInfo.setRetryBackoffMillis(tempExecutor.getRetryBackoffMillis());
+            taskInfo.setRetryMaxBackoffMillis(tempExecutor.getRetryMaxBackoffMillis());
+            taskInfo.setRetryOnOtherClient(tempExecutor.isRetryOnOtherClient());
             taskInfo.setEnabled(true);
             
             // 保存任务执行器类信息
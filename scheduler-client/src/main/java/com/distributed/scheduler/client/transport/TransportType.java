@@ -0,0 +1,88 @@
+package com.distributed.scheduler.client.transport;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 网络传输类型
+ * Linux上优先使用epoll原生传输，不可用时回退到NIO，客户端和服务端共用
+ */
+public enum TransportType {
+    NIO {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads) {
+            return new NioEventLoopGroup(threads);
+        }
+
+        @Override
+        public Class<? extends SocketChannel> socketChannelClass() {
+            return NioSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverSocketChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+    },
+    EPOLL {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads) {
+            return new EpollEventLoopGroup(threads);
+        }
+
+        @Override
+        public Class<? extends SocketChannel> socketChannelClass() {
+            return EpollSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverSocketChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+    };
+
+    private static final Logger logger = LoggerFactory.getLogger(TransportType.class);
+
+    /**
+     * 创建事件循环组，threads为0时使用Netty默认线程数
+     */
+    public abstract EventLoopGroup newEventLoopGroup(int threads);
+
+    /**
+     * 客户端通道类型
+     */
+    public abstract Class<? extends SocketChannel> socketChannelClass();
+
+    /**
+     * 服务端监听通道类型
+     */
+    public abstract Class<? extends ServerChannel> serverSocketChannelClass();
+
+    /**
+     * 根据配置和运行环境选择传输类型
+     *
+     * @param preferNative 是否优先使用原生传输
+     * @return epoll可用且优先使用原生传输时返回EPOLL，否则返回NIO
+     */
+    public static TransportType resolve(boolean preferNative) {
+        if (!preferNative) {
+            return NIO;
+        }
+        if (Epoll.isAvailable()) {
+            return EPOLL;
+        }
+        logger.info("Native epoll transport is not available, falling back to NIO: {}",
+                Epoll.unavailabilityCause() == null ? "unknown" : Epoll.unavailabilityCause().getMessage());
+        return NIO;
+    }
+}
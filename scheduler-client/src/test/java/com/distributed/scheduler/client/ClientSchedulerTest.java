@@ -0,0 +1,62 @@
+package com.distributed.scheduler.client;
+
+import com.distributed.scheduler.client.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 记录的触发状态与执行线程修改的状态对象相互独立
+ */
+class ClientSchedulerTest {
+
+    private final ClientScheduler clientScheduler = new ClientScheduler();
+
+    @AfterEach
+    void tearDown() {
+        clientScheduler.getTaskExecutorService().shutdownNow();
+    }
+
+    @Test
+    void remembersCopyOfTriggerStatus() {
+        TaskStatus status = status("instance");
+        assertNull(clientScheduler.rememberTrigger(status));
+
+        // 执行线程修改原对象，重投的触发看到的仍是记录时的状态
+        status.setStatus(TaskStatus.Status.SUCCESS);
+        status.setEndTime(new Date());
+        TaskStatus known = clientScheduler.rememberTrigger(status("instance"));
+        assertNotSame(status, known);
+        assertEquals(TaskStatus.Status.RUNNING, known.getStatus());
+        assertNull(known.getEndTime());
+
+        // 上报结束状态时更新记录
+        clientScheduler.updateTrigger(status);
+        status.setStatus(TaskStatus.Status.FAILED);
+        known = clientScheduler.rememberTrigger(status("instance"));
+        assertEquals(TaskStatus.Status.SUCCESS, known.getStatus());
+        assertEquals(status.getEndTime(), known.getEndTime());
+    }
+
+    @Test
+    void ignoresUpdateOfUnknownInstance() {
+        TaskStatus status = status("evicted");
+        status.setStatus(TaskStatus.Status.SUCCESS);
+        clientScheduler.updateTrigger(status);
+        assertNull(clientScheduler.rememberTrigger(status("evicted")));
+    }
+
+    private static TaskStatus status(String instanceId) {
+        TaskStatus status = new TaskStatus();
+        status.setTaskId("task");
+        status.setInstanceId(instanceId);
+        status.setStatus(TaskStatus.Status.RUNNING);
+        status.setStartTime(new Date(1000));
+        return status;
+    }
+}
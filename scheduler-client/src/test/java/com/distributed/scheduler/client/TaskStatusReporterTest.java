@@ -0,0 +1,206 @@
+package com.distributed.scheduler.client;
+
+import com.distributed.scheduler.client.model.ClientInfo;
+import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.client.protocol.Message;
+import com.distributed.scheduler.client.protocol.MessageType;
+import com.distributed.scheduler.client.protocol.ProtocolVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.distributed.scheduler.client.model.TaskStatus.Status.FAILED;
+import static com.distributed.scheduler.client.model.TaskStatus.Status.RUNNING;
+import static com.distributed.scheduler.client.model.TaskStatus.Status.SUCCESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 状态合并、迟到的RUNNING状态、按批量和等待时间发送，以及向旧版本服务端逐条发送
+ */
+class TaskStatusReporterTest {
+
+    private static final long LINGER_MILLIS = 20;
+
+    private RecordingClientScheduler clientScheduler;
+    private ManualScheduler flushScheduler;
+
+    @BeforeEach
+    void setUp() {
+        clientScheduler = new RecordingClientScheduler();
+        clientScheduler.setServerProtocolVersion(ProtocolVersion.V1);
+        flushScheduler = new ManualScheduler();
+    }
+
+    @AfterEach
+    void tearDown() {
+        flushScheduler.shutdownNow();
+        clientScheduler.getTaskExecutorService().shutdownNow();
+    }
+
+    @Test
+    void sendsOnlyTerminalStatusOfCoalescedInstance() {
+        TaskStatusReporter reporter = new TaskStatusReporter(clientScheduler, flushScheduler, 64, LINGER_MILLIS);
+        reporter.report(status("first", RUNNING));
+        reporter.report(status("second", RUNNING));
+        reporter.report(status("first", SUCCESS));
+        assertTrue(clientScheduler.sent.isEmpty());
+
+        // 到达最大等待时间时发送，合并后的状态保持首次上报的顺序
+        assertEquals(1, flushScheduler.scheduled.size());
+        assertEquals(LINGER_MILLIS, flushScheduler.delays.get(0));
+        flushScheduler.runScheduled();
+        assertEquals(1, clientScheduler.sent.size());
+        Message message = clientScheduler.sent.get(0);
+        assertEquals(MessageType.TASK_STATUS_BATCH, message.getType());
+        assertEquals("client", message.getClientId());
+        List<TaskStatus> batch = batch(message);
+        assertEquals(2, batch.size());
+        assertEquals("first", batch.get(0).getInstanceId());
+        assertEquals(SUCCESS, batch.get(0).getStatus());
+        assertEquals("second", batch.get(1).getInstanceId());
+        assertEquals(RUNNING, batch.get(1).getStatus());
+    }
+
+    @Test
+    void dropsRunningStatusArrivingAfterTerminal() {
+        TaskStatusReporter reporter = new TaskStatusReporter(clientScheduler, flushScheduler, 64, LINGER_MILLIS);
+        reporter.report(status("first", FAILED));
+        reporter.report(status("first", RUNNING));
+        flushScheduler.runScheduled();
+
+        assertEquals(1, clientScheduler.sent.size());
+        Message message = clientScheduler.sent.get(0);
+        assertEquals(MessageType.TASK_STATUS_REPORT, message.getType());
+        assertEquals(FAILED, ((TaskStatus) message.getData()).getStatus());
+    }
+
+    @Test
+    void sendsWhenBatchIsFull() {
+        TaskStatusReporter reporter = new TaskStatusReporter(clientScheduler, flushScheduler, 3, LINGER_MILLIS);
+        reporter.report(status("a", RUNNING));
+        reporter.report(status("b", RUNNING));
+        assertTrue(clientScheduler.sent.isEmpty());
+        reporter.report(status("c", RUNNING));
+        assertEquals(1, clientScheduler.sent.size());
+        assertEquals(3, batch(clientScheduler.sent.get(0)).size());
+
+        // 已安排的发送到期时队列为空，之后的上报重新安排发送
+        flushScheduler.runScheduled();
+        assertEquals(1, clientScheduler.sent.size());
+        reporter.report(status("d", RUNNING));
+        assertEquals(1, flushScheduler.scheduled.size());
+        flushScheduler.runScheduled();
+        assertEquals(2, clientScheduler.sent.size());
+    }
+
+    @Test
+    void copiesStatusOnReport() {
+        TaskStatusReporter reporter = new TaskStatusReporter(clientScheduler, flushScheduler, 64, LINGER_MILLIS);
+        TaskStatus status = status("first", RUNNING);
+        reporter.report(status);
+        status.setStatus(SUCCESS);
+        flushScheduler.runScheduled();
+        assertEquals(RUNNING, ((TaskStatus) clientScheduler.sent.get(0).getData()).getStatus());
+    }
+
+    @Test
+    void sendsStatusesOneByOneToLegacyServer() {
+        clientScheduler.setServerProtocolVersion(ProtocolVersion.LEGACY);
+        TaskStatusReporter reporter = new TaskStatusReporter(clientScheduler, flushScheduler, 3, LINGER_MILLIS);
+        reporter.report(status("a", RUNNING));
+        reporter.report(status("b", SUCCESS));
+        reporter.report(status("c", FAILED));
+
+        assertEquals(3, clientScheduler.sent.size());
+        String[] instanceIds = {"a", "b", "c"};
+        for (int i = 0; i < instanceIds.length; i++) {
+            Message message = clientScheduler.sent.get(i);
+            assertEquals(MessageType.TASK_STATUS_REPORT, message.getType());
+            assertEquals(instanceIds[i], ((TaskStatus) message.getData()).getInstanceId());
+        }
+    }
+
+    @Test
+    void sendsImmediatelyWhenBatchingIsDisabledOrSchedulerIsShutDown() {
+        new TaskStatusReporter(clientScheduler, flushScheduler, 1, LINGER_MILLIS).report(status("a", RUNNING));
+        new TaskStatusReporter(clientScheduler, flushScheduler, 64, 0).report(status("b", RUNNING));
+        assertEquals(2, clientScheduler.sent.size());
+        assertTrue(flushScheduler.scheduled.isEmpty());
+
+        ScheduledExecutorService stopped = Executors.newSingleThreadScheduledExecutor();
+        stopped.shutdown();
+        new TaskStatusReporter(clientScheduler, stopped, 64, LINGER_MILLIS).report(status("c", RUNNING));
+        assertEquals(3, clientScheduler.sent.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<TaskStatus> batch(Message message) {
+        assertEquals(MessageType.TASK_STATUS_BATCH, message.getType());
+        return (List<TaskStatus>) message.getData();
+    }
+
+    private static TaskStatus status(String instanceId, TaskStatus.Status value) {
+        TaskStatus status = new TaskStatus();
+        status.setTaskId("task");
+        status.setInstanceId(instanceId);
+        status.setStatus(value);
+        return status;
+    }
+
+    /**
+     * 记录发送的消息，不连接服务端
+     */
+    static class RecordingClientScheduler extends ClientScheduler {
+        private final ClientInfo clientInfo = new ClientInfo();
+        private final List<Message> sent = new ArrayList<>();
+
+        RecordingClientScheduler() {
+            clientInfo.setClientId("client");
+        }
+
+        @Override
+        public ClientInfo getClientInfo() {
+            return clientInfo;
+        }
+
+        @Override
+        public void sendMessage(Message message) {
+            sent.add(message);
+        }
+    }
+
+    /**
+     * 只记录安排的发送，由测试手动执行
+     */
+    static class ManualScheduler extends ScheduledThreadPoolExecutor {
+        private final List<Runnable> scheduled = new ArrayList<>();
+        private final List<Long> delays = new ArrayList<>();
+
+        ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            scheduled.add(command);
+            delays.add(unit.toMillis(delay));
+            return null;
+        }
+
+        void runScheduled() {
+            List<Runnable> due = new ArrayList<>(scheduled);
+            scheduled.clear();
+            delays.clear();
+            due.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.distributed.scheduler.client.benchmark;
+
+import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.client.model.TriggerRequest;
+import com.distributed.scheduler.client.protocol.Message;
+import com.distributed.scheduler.client.protocol.MessageType;
+import com.distributed.scheduler.client.protocol.codec.CodecType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 编解码基准测试
+ * 对比Java序列化与二进制编解码的单帧字节数和编解码耗时
+ *
+ * 运行方式：mvn -pl scheduler-client test-compile exec:java -Dexec.classpathScope=test
+ *          -Dexec.mainClass=com.distributed.scheduler.client.benchmark.CodecBenchmark -Dexec.args="[clients] [iterations]"
+ */
+public class CodecBenchmark {
+
+    // 每分钟触发次数，用于估算每分钟的编解码CPU耗时
+    private static final int TRIGGERS_PER_MINUTE = 50_000;
+
+    public static void main(String[] args) {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        Message trigger = newTriggerMessage(clients);
+        Message slimTrigger = newSlimTriggerMessage();
+        Message status = newStatusMessage();
+
+        System.out.printf("clients=%d, iterations=%d%n", clients, iterations);
+        System.out.printf("%-8s %-20s %10s %14s %14s %18s%n",
+                "codec", "message", "bytes", "encode ns/op", "decode ns/op", "ms/min@" + TRIGGERS_PER_MINUTE);
+        for (CodecType codecType : CodecType.values()) {
+            run(codecType, "TASK_TRIGGER(full)", trigger, iterations);
+            run(codecType, "TASK_TRIGGER(slim)", slimTrigger, iterations);
+            run(codecType, "TASK_STATUS_REPORT", status, iterations);
+        }
+    }
+
+    private static void run(CodecType codecType, String name, Message message, int iterations) {
+        EmbeddedChannel encoder = new EmbeddedChannel(codecType.newEncoder());
+        EmbeddedChannel decoder = new EmbeddedChannel(codecType.newDecoder());
+
+        ByteBuf frame = encode(encoder, message);
+        int bytes = frame.readableBytes();
+
+        // 预热
+        for (int i = 0; i < iterations / 4; i++) {
+            encode(encoder, message).release();
+            decode(decoder, frame.retainedDuplicate());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            encode(encoder, message).release();
+        }
+        double encodeNanos = (double) (System.nanoTime() - start) / iterations;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            decode(decoder, frame.retainedDuplicate());
+        }
+        double decodeNanos = (double) (System.nanoTime() - start) / iterations;
+
+        frame.release();
+        encoder.finishAndReleaseAll();
+        decoder.finishAndReleaseAll();
+
+        double millisPerMinute = (encodeNanos + decodeNanos) * TRIGGERS_PER_MINUTE / 1_000_000;
+        System.out.printf("%-8s %-20s %10d %14.0f %14.0f %18.1f%n",
+                codecType, name, bytes, encodeNanos, decodeNanos, millisPerMinute);
+    }
+
+    private static ByteBuf encode(EmbeddedChannel channel, Message message) {
+        channel.writeOutbound(message);
+        ByteBuf first = channel.readOutbound();
+        ByteBuf next = channel.readOutbound();
+        if (next == null) {
+            return first;
+        }
+        // ObjectEncoder可能输出多个ByteBuf，合并后统计
+        CompositeByteBuf composite = Unpooled.compositeBuffer();
+        composite.addComponent(true, first);
+        while (next != null) {
+            composite.addComponent(true, next);
+            next = channel.readOutbound();
+        }
+        return composite;
+    }
+
+    private static void decode(EmbeddedChannel channel, ByteBuf frame) {
+        channel.writeInbound(frame);
+        Message message = channel.readInbound();
+        if (message == null) {
+            throw new IllegalStateException("Frame was not decoded");
+        }
+    }
+
+    private static Message newTriggerMessage(int clients) {
+        TaskInfo taskInfo = new TaskInfo();
+        taskInfo.setTaskId("orderTimeoutTask_orderGroup");
+        taskInfo.setTaskName("orderTimeoutTask");
+        taskInfo.setTaskGroup("orderGroup");
+        taskInfo.setCronExpression("*/10 * * * * ?");
+        taskInfo.setTargetClass("com.example.order.OrderTimeoutTask");
+        taskInfo.setTargetMethod("execute");
+        Map<String, Object> params = new HashMap<>();
+        params.put("batchSize", 500);
+        params.put("region", "cn-east-1");
+        taskInfo.setParams(params);
+        taskInfo.setEnabled(true);
+        taskInfo.setDescription("Close unpaid orders");
+        taskInfo.setExecutionCount(12345);
+        taskInfo.setScheduleStrategy("roundRobin");
+        for (int i = 0; i < clients; i++) {
+            taskInfo.addRegisteredClient(UUID.randomUUID().toString());
+        }
+
+        Message message = new Message(MessageType.TASK_TRIGGER, taskInfo);
+        message.setMessageId(UUID.randomUUID().toString());
+        message.setClientId(UUID.randomUUID().toString());
+        return message;
+    }
+
+    private static Message newSlimTriggerMessage() {
+        TriggerRequest request = new TriggerRequest("orderTimeoutTask_orderGroup",
+                UUID.randomUUID().toString(), System.currentTimeMillis(), null);
+        Message message = new Message(MessageType.TASK_TRIGGER, request);
+        message.setMessageId(request.getInstanceId());
+        message.setClientId(UUID.randomUUID().toString());
+        return message;
+    }
+
+    private static Message newStatusMessage() {
+        TaskStatus status = new TaskStatus();
+        status.setTaskId("orderTimeoutTask_orderGroup");
+        status.setTaskName("orderTimeoutTask");
+        status.setInstanceId(UUID.randomUUID().toString());
+        status.setClientId(UUID.randomUUID().toString());
+        status.setStatus(TaskStatus.Status.SUCCESS);
+        status.setStartTime(new Date());
+        status.setEndTime(new Date());
+        status.setExecutionTime(42);
+
+        Message message = new Message(MessageType.TASK_STATUS_REPORT, status);
+        message.setClientId(status.getClientId());
+        return message;
+    }
+}
@@ -0,0 +1,234 @@
+package com.distributed.scheduler.client.protocol.codec;
+
+import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.client.model.TriggerRequest;
+import com.distributed.scheduler.client.protocol.Message;
+import com.distributed.scheduler.client.protocol.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.TooLongFrameException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 二进制编解码的往返、拆帧和损坏帧
+ */
+class BinaryMessageCodecTest {
+
+    @Test
+    void roundTripsThroughPipeline() {
+        EmbeddedChannel channel = new EmbeddedChannel(new BinaryMessageEncoder(),
+                new BinaryMessageDecoder(MessageCodecs.MAX_FRAME_LENGTH));
+        List<Message> messages = Arrays.asList(triggerMessage(), statusMessage(), taskInfoMessage(), valuesMessage());
+        for (Message message : messages) {
+            assertTrue(channel.writeOutbound(message));
+            ByteBuf frame = channel.readOutbound();
+            assertTrue(channel.writeInbound(frame));
+            Message decoded = channel.readInbound();
+            assertEquals(message, decoded);
+        }
+        assertTrue(channel.isActive());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void waitsForTheRestOfASplitFrame() {
+        EmbeddedChannel channel = new EmbeddedChannel(new BinaryMessageDecoder(MessageCodecs.MAX_FRAME_LENGTH));
+        ByteBuf frame = encode(triggerMessage());
+        for (int i = 0; i < frame.readableBytes() - 1; i++) {
+            channel.writeInbound(frame.retainedSlice(i, 1));
+            assertNull(channel.readInbound());
+        }
+        channel.writeInbound(frame.retainedSlice(frame.readableBytes() - 1, 1));
+        frame.release();
+        assertEquals(triggerMessage(), channel.readInbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void rejectsOversizedFrame() {
+        EmbeddedChannel channel = new EmbeddedChannel(new BinaryMessageDecoder(64));
+        ByteBuf frame = encode(taskInfoMessage());
+        assertTrue(frame.readableBytes() > 64);
+        assertThrows(TooLongFrameException.class, () -> channel.writeInbound(frame));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void rejectsFrameWithInvalidMagic() {
+        EmbeddedChannel channel = new EmbeddedChannel(new BinaryMessageDecoder(MessageCodecs.MAX_FRAME_LENGTH));
+        ByteBuf frame = encode(statusMessage());
+        frame.setShort(0, 0x1234);
+        assertThrows(CorruptedFrameException.class, () -> channel.writeInbound(frame));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void truncatedBodyIsCorrupted() {
+        for (Message message : Arrays.asList(triggerMessage(), statusMessage(), taskInfoMessage(), valuesMessage())) {
+            byte[] body = body(message);
+            for (int length = 0; length < body.length; length++) {
+                ByteBuf truncated = Unpooled.wrappedBuffer(body, 0, length);
+                try {
+                    // 恰好截断在某个可选字段之前时可以解码，其他位置只能是帧损坏
+                    BinaryMessageCodec.decodeBody(truncated);
+                } catch (RuntimeException e) {
+                    assertInstanceOf(CorruptedFrameException.class, e, "length " + length + " of " + body.length);
+                }
+            }
+        }
+        byte[] body = body(statusMessage());
+        assertThrows(CorruptedFrameException.class,
+                () -> BinaryMessageCodec.decodeBody(Unpooled.wrappedBuffer(body, 0, body.length - 1)));
+    }
+
+    @Test
+    void oversizedLengthFieldsAreCorrupted() {
+        ByteBuf string = Unpooled.buffer();
+        string.writeByte(MessageType.SERVER_RESPONSE.ordinal());
+        BinaryMessageCodec.writeVarInt(string, 1000);
+        string.writeBytes(new byte[10]);
+        assertThrows(CorruptedFrameException.class, () -> BinaryMessageCodec.decodeBody(string));
+
+        ByteBuf struct = Unpooled.buffer();
+        BinaryMessageCodec.encodeBody(statusMessage(), struct);
+        byte[] bytes = new byte[struct.readableBytes()];
+        struct.readBytes(bytes);
+        // 消息ID、时间戳和客户端ID之后是结构体的标记和4字节长度
+        int lengthIndex = 1 + 1 + 3 + 8 + 1 + 6 + 1;
+        bytes[lengthIndex] = 0x7F;
+        assertThrows(CorruptedFrameException.class, () -> BinaryMessageCodec.decodeBody(Unpooled.wrappedBuffer(bytes)));
+    }
+
+    @Test
+    void mutatedBodiesFailAsDecoderExceptions() {
+        Random random = new Random(7);
+        List<byte[]> bodies = new ArrayList<>();
+        for (Message message : Arrays.asList(triggerMessage(), statusMessage(), taskInfoMessage(), valuesMessage())) {
+            bodies.add(body(message));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            byte[] body = bodies.get(random.nextInt(bodies.size())).clone();
+            int mutations = 1 + random.nextInt(4);
+            for (int m = 0; m < mutations; m++) {
+                body[random.nextInt(body.length)] = (byte) random.nextInt(256);
+            }
+            try {
+                BinaryMessageCodec.decodeBody(Unpooled.wrappedBuffer(body));
+            } catch (RuntimeException e) {
+                // 损坏的帧只能以DecoderException结束，Java序列化的数据无法读取时为DecoderException，其他为CorruptedFrameException
+                assertInstanceOf(DecoderException.class, e, Arrays.toString(body));
+            }
+        }
+    }
+
+    @Test
+    void roundTripsZigZagVarInts() {
+        ByteBuf buf = Unpooled.buffer();
+        int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        for (int value : values) {
+            BinaryMessageCodec.writeVarInt(buf, BinaryMessageCodec.zigZag(value));
+        }
+        int[] decoded = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            decoded[i] = BinaryMessageCodec.unZigZag(BinaryMessageCodec.readVarInt(buf));
+        }
+        assertArrayEquals(values, decoded);
+    }
+
+    private static ByteBuf encode(Message message) {
+        ByteBuf out = Unpooled.buffer();
+        BinaryMessageCodec.encode(message, out);
+        return out;
+    }
+
+    private static byte[] body(Message message) {
+        ByteBuf out = Unpooled.buffer();
+        BinaryMessageCodec.encodeBody(message, out);
+        byte[] bytes = new byte[out.readableBytes()];
+        out.readBytes(bytes);
+        return bytes;
+    }
+
+    private static Message triggerMessage() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("orderId", 42L);
+        params.put("region", "cn-east");
+        TriggerRequest request = new TriggerRequest("task-1", "instance-1", 1_700_000_000_000L, params);
+        request.setAttempt(2);
+        Message message = new Message(MessageType.TASK_TRIGGER, request);
+        message.setMessageId("instance-1");
+        message.setClientId("client-1");
+        message.setTimestamp(1_700_000_000_123L);
+        return message;
+    }
+
+    private static Message statusMessage() {
+        TaskStatus status = new TaskStatus();
+        status.setTaskId("task-1");
+        status.setTaskName("orders");
+        status.setInstanceId("instance-1");
+        status.setClientId("client-1");
+        status.setStatus(TaskStatus.Status.FAILED);
+        status.setStartTime(new Date(1_700_000_000_000L));
+        status.setEndTime(new Date(1_700_000_001_500L));
+        status.setExecutionTime(1500);
+        status.setErrorMsg("boom");
+        Message message = new Message(MessageType.TASK_STATUS_REPORT, status);
+        message.setMessageId("m");
+        message.setClientId("client");
+        message.setTimestamp(1L);
+        return message;
+    }
+
+    private static Message taskInfoMessage() {
+        TaskInfo taskInfo = new TaskInfo();
+        taskInfo.setTaskId("task-1");
+        taskInfo.setTaskName("orders");
+        taskInfo.setTaskGroup("default");
+        taskInfo.setCronExpression("0 */5 * * * *");
+        taskInfo.setDescription("统计订单");
+        taskInfo.setParams(Collections.singletonMap("limit", 100));
+        taskInfo.setMaxAttempts(3);
+        taskInfo.setTimeoutMillis(30_000);
+        taskInfo.addRegisteredClient("client-1");
+        Message message = new Message(MessageType.TASK_STATUS_REPORT, taskInfo);
+        message.setMessageId("register");
+        message.setClientId("client-1");
+        message.setTimestamp(2L);
+        return message;
+    }
+
+    private static Message valuesMessage() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("int", -5);
+        nested.put("long", Long.MIN_VALUE);
+        nested.put("double", 2.5);
+        nested.put("bool", true);
+        nested.put("null", null);
+        nested.put("list", Arrays.asList("a", 1, Collections.singletonMap("k", "v")));
+        Message message = new Message(MessageType.SERVER_RESPONSE, nested);
+        message.setTimestamp(3L);
+        return message;
+    }
+}
@@ -0,0 +1,77 @@
+package com.distributed.scheduler.client.protocol.codec;
+
+import com.distributed.scheduler.client.model.TaskResult;
+import com.distributed.scheduler.client.protocol.Message;
+import com.distributed.scheduler.client.protocol.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 无法解码的单条消息只丢弃该消息，分片结果只接受编解码器原生类型
+ */
+class BinaryMessageDecoderTest {
+
+    @Test
+    void dropsMessageWithCustomResultTypeAndKeepsConnection() {
+        EmbeddedChannel channel = new EmbeddedChannel(new BinaryMessageDecoder(MessageCodecs.MAX_FRAME_LENGTH));
+        ByteBuf in = Unpooled.buffer();
+        // 旧客户端会把自定义类型按Java序列化写出，服务端不允许反序列化
+        BinaryMessageCodec.encode(resultMessage(new Report(42)), in);
+        BinaryMessageCodec.encode(resultMessage(7L), in);
+
+        assertFalse(channel.writeInbound(in.retainedSlice(0, in.readableBytes() / 2)));
+        channel.writeInbound(in.retainedSlice(in.readableBytes() / 2, in.readableBytes() - in.readableBytes() / 2));
+        in.release();
+
+        Message decoded = channel.readInbound();
+        assertEquals(7L, ((TaskResult) decoded.getData()).getResult());
+        assertNull(channel.readInbound());
+        assertTrue(channel.isActive());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void acceptsOnlyCodecNativeResults() {
+        Map<String, Object> counts = new HashMap<>();
+        counts.put("orders", 3L);
+        counts.put("shards", Arrays.asList(1, 2.5, "x", null, Collections.singletonMap("ok", true)));
+        assertTrue(BinaryMessageCodec.isNativeValue(null));
+        assertTrue(BinaryMessageCodec.isNativeValue(counts));
+
+        assertFalse(BinaryMessageCodec.isNativeValue(new Report(1)));
+        assertFalse(BinaryMessageCodec.isNativeValue(Collections.singletonList(new Report(1))));
+        assertFalse(BinaryMessageCodec.isNativeValue(Collections.singletonMap(1, "x")));
+        assertFalse(BinaryMessageCodec.isNativeValue(new java.math.BigDecimal("1.5")));
+        assertFalse(BinaryMessageCodec.isNativeValue(1.5f));
+    }
+
+    private static Message resultMessage(Object result) {
+        Message message = new Message(MessageType.TASK_RESULT_REPORT,
+                new TaskResult("task", "instance", "client", "run", 0, 2, result));
+        message.setMessageId("m-" + result);
+        return message;
+    }
+
+    static class Report implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int count;
+
+        Report(int count) {
+            this.count = count;
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package com.distributed.scheduler.server.config;
 
+import com.distributed.scheduler.client.protocol.codec.CodecDetector;
+import com.distributed.scheduler.client.transport.TransportType;
 import com.distributed.scheduler.server.handler.ServerHandler;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.serialization.ClassResolvers;
-import io.netty.handler.codec.serialization.ObjectDecoder;
-import io.netty.handler.codec.serialization.ObjectEncoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +22,8 @@ import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -29,9 +34,39 @@ public class NettyServerConfig implements ApplicationRunner {
     @Value("${netty.port:8888}")
     private int port;
     
-    private final NioEventLoopGroup bossGroup = new NioEventLoopGroup();
-    private final NioEventLoopGroup workerGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2);
-
+    // 合并同一批写入的flush，定时器同一tick内触发的大量任务只产生少量flush系统调用
+    @Value("${netty.flush-consolidation.enabled:true}")
+    private boolean flushConsolidationEnabled;
+    
+    // 连续多少次flush后强制真正flush一次
+    @Value("${netty.flush-consolidation.explicit-flush-after-flushes:256}")
+    private int explicitFlushAfterFlushes;
+    
+    // 是否优先使用epoll原生传输，不可用时自动回退到NIO
+    @Value("${netty.transport.prefer-native:true}")
+    private boolean preferNativeTransport;
+    
+    // 接收连接的线程数，epoll下大于1时通过SO_REUSEPORT多次绑定同一端口
+    @Value("${netty.transport.accept-threads:1}")
+    private int acceptThreads;
+    
+    // IO线程数，0表示CPU核数的2倍
+    @Value("${netty.transport.worker-threads:0}")
+    private int workerThreads;
+    
+    // epoll下是否使用边缘触发模式
+    @Value("${netty.transport.edge-triggered:true}")
+    private boolean edgeTriggered;
+    
+    // 出站缓冲区高低水位，超过高水位后通道不可写，触发消息进入待发送队列
+    @Value("${netty.write-buffer.low-water-mark:32768}")
+    private int writeBufferLowWaterMark;
+    
+    @Value("${netty.write-buffer.high-water-mark:65536}")
+    private int writeBufferHighWaterMark;
+    
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
     
     @Autowired
     private ServerHandler serverHandler;
@@ -42,27 +77,60 @@ public class NettyServerConfig implements ApplicationRunner {
     }
     
     public void startServer() {
+        TransportType transportType = TransportType.resolve(preferNativeTransport);
+        boolean reusePort = transportType == TransportType.EPOLL && acceptThreads > 1;
+        if (acceptThreads > 1 && !reusePort) {
+            logger.warn("SO_REUSEPORT requires the epoll transport, using a single accept thread");
+        }
+        int bindCount = reusePort ? acceptThreads : 1;
+        bossGroup = transportType.newEventLoopGroup(bindCount);
+        workerGroup = transportType.newEventLoopGroup(workerThreads > 0
+                ? workerThreads : Runtime.getRuntime().availableProcessors() * 2);
+        
         ExecutorService executor = Executors.newSingleThreadExecutor();
         executor.submit(() -> {
             try {
                 ServerBootstrap bootstrap = new ServerBootstrap();
                 bootstrap.group(bossGroup, workerGroup)
-                        .channel(NioServerSocketChannel.class)
+                        .channel(transportType.serverSocketChannelClass())
                         .childHandler(new ChannelInitializer<SocketChannel>() {
                             @Override
                             protected void initChannel(SocketChannel ch) throws Exception {
                                 ChannelPipeline pipeline = ch.pipeline();
-                                pipeline.addLast(new ObjectEncoder());
-                                pipeline.addLast(new ObjectDecoder(Integer.MAX_VALUE,
-                                        ClassResolvers.weakCachingConcurrentResolver(this.getClass().getClassLoader())));
+                                if (flushConsolidationEnabled) {
+                                    // 非读事件中的flush也延迟到事件循环的下一次任务中合并执行
+                                    pipeline.addLast(new FlushConsolidationHandler(explicitFlushAfterFlushes, true));
+                                }
+                                // 根据客户端第一帧自动选择二进制或Java序列化编解码
+                                pipeline.addLast(new CodecDetector());
                                 pipeline.addLast(serverHandler);
                             }
                         })
                         .option(ChannelOption.SO_BACKLOG, 128)
-                        .childOption(ChannelOption.SO_KEEPALIVE, true);
+                        .childOption(ChannelOption.SO_KEEPALIVE, true)
+                        .childOption(ChannelOption.TCP_NODELAY, true)
+                        .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                                new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark));
+                
+                if (transportType == TransportType.EPOLL) {
+                    EpollMode epollMode = edgeTriggered ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED;
+                    bootstrap.option(EpollChannelOption.EPOLL_MODE, epollMode)
+                            .childOption(EpollChannelOption.EPOLL_MODE, epollMode);
+                    if (reusePort) {
+                        bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+                    }
+                }
 
-                // 绑定端口并启动服务
-                bootstrap.bind(port).sync().channel().closeFuture().sync();
+                // 绑定端口并启动服务，开启SO_REUSEPORT时每个接收线程各绑定一次，由内核分发新连接
+                List<Channel> serverChannels = new ArrayList<>(bindCount);
+                for (int i = 0; i < bindCount; i++) {
+                    serverChannels.add(bootstrap.bind(port).sync().channel());
+                }
+                logger.info("Netty server bound on port {} with {} transport, accept threads: {}",
+                        port, transportType, bindCount);
+                for (Channel serverChannel : serverChannels) {
+                    serverChannel.closeFuture().sync();
+                }
             } catch (InterruptedException e) {
                 logger.error("Failed to start Netty server", e);
                 Thread.currentThread().interrupt();
@@ -1,15 +1,35 @@
 package com.distributed.scheduler.server.controller;
 
+import com.distributed.scheduler.server.manager.ClientLatencyTracker;
 import com.distributed.scheduler.server.manager.ClientManager;
 import com.distributed.scheduler.client.model.ClientInfo;
+import com.distributed.scheduler.client.model.DelayedJob;
 import com.distributed.scheduler.server.monitor.SystemMonitorData;
+import com.distributed.scheduler.server.scheduler.BroadcastRun;
+import com.distributed.scheduler.server.scheduler.BroadcastRunTracker;
 import com.distributed.scheduler.server.scheduler.TaskScheduler;
+import com.distributed.scheduler.server.scheduler.TaskTrigger;
+import com.distributed.scheduler.server.scheduler.delay.DelayedJobService;
+import com.distributed.scheduler.server.scheduler.workflow.WorkflowDefinition;
+import com.distributed.scheduler.server.scheduler.workflow.WorkflowRun;
+import com.distributed.scheduler.server.scheduler.workflow.WorkflowService;
 import com.distributed.scheduler.client.model.TaskInfo;
 import com.distributed.scheduler.server.monitor.SystemMonitor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -19,11 +39,26 @@ public class ServerConsoleController {
     @Autowired
     private ClientManager clientManager;
     
+    @Autowired
+    private ClientLatencyTracker latencyTracker;
+    
     @Autowired
     private TaskScheduler taskScheduler;
     
+    @Autowired
+    private TaskTrigger taskTrigger;
+    
     @Autowired
     private SystemMonitor systemMonitor;
+    
+    @Autowired
+    private DelayedJobService delayedJobService;
+    
+    @Autowired
+    private BroadcastRunTracker broadcastRunTracker;
+    
+    @Autowired
+    private WorkflowService workflowService;
 
     /**
      * 获取所有注册的客户端信息
@@ -33,6 +68,23 @@ public class ServerConsoleController {
         return clientManager.getAllClients();
     }
 
+    /**
+     * 调整客户端权重，权重调度策略立即使用新的权重
+     * 请求体：{"weight": 正整数}
+     */
+    @PostMapping("/api/clients/{clientId}/weight")
+    public ResponseEntity<Map<String, Object>> updateClientWeight(@PathVariable String clientId,
+                                                                  @RequestBody Map<String, Object> request) {
+        Object weight = request.get("weight");
+        if (!(weight instanceof Number) || ((Number) weight).intValue() <= 0) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", "weight must be a positive integer"));
+        }
+        if (!clientManager.updateWeight(clientId, ((Number) weight).intValue())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Collections.singletonMap("weight", ((Number) weight).intValue()));
+    }
+
     /**
      * 获取系统状态信息
      */
@@ -44,10 +96,35 @@ public class ServerConsoleController {
         status.put("enabledTasks", taskScheduler.getEnabledTaskCount());
         status.put("disabledTasks", taskScheduler.getDisabledTaskCount());
         // 暂时使用0作为占位符，因为TaskScheduler没有这些方法
-        status.put("runningTasks", 0);
+        status.put("runningTasks", taskTrigger.getRunningMarkCount());
         status.put("pendingTasks", 0);
         status.put("completedTasks", 0);
         status.put("failedTasks", 0);
+        status.put("rejectedTriggers", taskTrigger.getRejectedTriggerCount());
+        status.put("reclaimedRunningMarks", taskTrigger.getReclaimedCount());
+        status.put("timedOutInstances", taskTrigger.getTimedOutCount());
+        status.put("pendingAcks", taskTrigger.getPendingAckCount());
+        status.put("redeliveredTriggers", taskTrigger.getRedeliveredCount());
+        status.put("misfires", taskScheduler.getMisfireCount());
+        status.put("concurrencySkipped", taskScheduler.getConcurrencySkippedCount());
+        status.put("concurrencyDelayed", taskScheduler.getConcurrencyDelayedCount());
+        status.put("concurrencyQueued", taskScheduler.getConcurrencyQueuedCount());
+        status.put("retries", taskScheduler.getRetryCount());
+        status.put("schedulerShards", taskScheduler.getShardCount());
+        status.put("dispatchThreads", taskScheduler.getDispatchThreadCount());
+        status.put("dispatchQueued", taskScheduler.getDispatchQueuedCount());
+        status.put("dispatchLagAvgMillis", taskScheduler.getDispatchLagAvgMillis());
+        status.put("dispatchLagMaxMillis", taskScheduler.getDispatchLagMaxMillis());
+        status.put("tickLatenessAvgMillis", taskScheduler.getTickLatenessAvgMillis());
+        status.put("tickLatenessMaxMillis", taskScheduler.getTickLatenessMaxMillis());
+        status.put("broadcastRunsActive", broadcastRunTracker.getActiveRunCount());
+        status.put("workflowRunsActive", workflowService.getActiveRunCount());
+        status.put("delayedJobsPending", delayedJobService.getPendingCount());
+        status.put("delayedJobsSubmitted", delayedJobService.getSubmittedCount());
+        status.put("delayedJobsRetried", delayedJobService.getRetriedCount());
+        status.put("delayedJobsDropped", delayedJobService.getDroppedCount());
+        status.put("delayedJobSegments", delayedJobService.getSegmentCount());
+        status.put("delayedJobDiskBytes", delayedJobService.getDiskBytes());
         status.put("systemTime", System.currentTimeMillis());
         return status;
     }
@@ -64,4 +141,167 @@ public class ServerConsoleController {
     public Map<String, TaskInfo> getAllTasks() {
         return taskScheduler.getAllTasks();
     }
-}
\ No newline at end of file
+    
+    /**
+     * 获取任务在各客户端上执行耗时和失败率的移动平均
+     */
+    @GetMapping("/api/tasks/{taskId}/client-stats")
+    public Map<String, ClientLatencyTracker.ExecutionStats> getTaskClientStats(@PathVariable String taskId) {
+        return latencyTracker.getTaskStats(taskId);
+    }
+    
+    /**
+     * 获取正在执行和最近结束的广播运行
+     */
+    @GetMapping("/api/broadcast-runs")
+    public Map<String, Object> getBroadcastRuns() {
+        Map<String, Object> runs = new LinkedHashMap<>();
+        runs.put("active", broadcastRunTracker.getActiveRuns());
+        runs.put("recent", broadcastRunTracker.getRecentRuns());
+        return runs;
+    }
+    
+    /**
+     * 获取一次广播运行，包括各分片的实例ID、状态和执行时间
+     */
+    @GetMapping("/api/broadcast-runs/{runId}")
+    public ResponseEntity<BroadcastRun> getBroadcastRun(@PathVariable String runId) {
+        BroadcastRun run = broadcastRunTracker.getRun(runId);
+        return run == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(run);
+    }
+    
+    /**
+     * 获取一次广播运行的汇总结果和各分片的执行时间
+     */
+    @GetMapping("/api/broadcast-runs/{runId}/result")
+    public ResponseEntity<Map<String, Object>> getBroadcastRunResult(@PathVariable String runId) {
+        BroadcastRun run = broadcastRunTracker.getRun(runId);
+        if (run == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("runId", run.getRunId());
+        result.put("status", run.getStatus());
+        result.put("reducer", run.getReducerName());
+        result.put("resultCount", run.getResultCount());
+        result.put("aggregate", run.getAggregate());
+        result.put("reduceError", run.getReduceError());
+        List<Map<String, Object>> timings = new ArrayList<>();
+        for (BroadcastRun.Shard shard : run.getShards()) {
+            Map<String, Object> timing = new LinkedHashMap<>();
+            timing.put("shardIndex", shard.getIndex());
+            timing.put("clientId", shard.getClientId());
+            timing.put("status", shard.getStatus());
+            timing.put("executionTime", shard.getExecutionTime());
+            timing.put("finishedAfterMillis", shard.getEndTime() == 0 ? null : shard.getEndTime() - run.getStartTime());
+            timings.add(timing);
+        }
+        result.put("shards", timings);
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * 提交一次性延迟任务
+     * 请求体：{"taskId": "...", "fireTime": 毫秒时间戳, "params": {...}}，也可以用delayMillis代替fireTime
+     */
+    @PostMapping("/api/delayed-jobs")
+    public ResponseEntity<Map<String, Object>> submitDelayedJob(@RequestBody Map<String, Object> request) {
+        Object taskId = request.get("taskId");
+        if (!(taskId instanceof String) || taskScheduler.getTask((String) taskId) == null) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Unknown taskId: " + taskId));
+        }
+        long fireTime;
+        if (request.get("fireTime") instanceof Number) {
+            fireTime = ((Number) request.get("fireTime")).longValue();
+        } else if (request.get("delayMillis") instanceof Number) {
+            fireTime = System.currentTimeMillis() + ((Number) request.get("delayMillis")).longValue();
+        } else {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", "fireTime or delayMillis is required"));
+        }
+        Object params = request.get("params");
+        if (params != null && !(params instanceof Map)) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", "params must be an object"));
+        }
+        
+        DelayedJob job = new DelayedJob(null, (String) taskId, fireTime, castParams(params));
+        return ResponseEntity.ok(Collections.singletonMap("jobId", delayedJobService.submit(job)));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castParams(Object params) {
+        return (Map<String, Object>) params;
+    }
+    
+    /**
+     * 获取所有工作流定义
+     */
+    @GetMapping("/api/workflows")
+    public Collection<WorkflowDefinition> getWorkflows() {
+        return workflowService.getDefinitions();
+    }
+    
+    /**
+     * 注册或替换工作流定义，节点必须是已注册的任务
+     * 请求体：{"workflowId": "...", "cronExpression": "...", "nodes": ["taskA", "taskB"],
+     * "edges": [{"from": "taskA", "to": "taskB", "failurePolicy": "SKIP"}]}
+     */
+    @PostMapping("/api/workflows")
+    public ResponseEntity<Map<String, Object>> registerWorkflow(@RequestBody WorkflowDefinition definition) {
+        for (String taskId : definition.getNodes()) {
+            if (taskId == null || taskScheduler.getTask(taskId) == null) {
+                return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Unknown taskId: " + taskId));
+            }
+        }
+        try {
+            workflowService.register(definition);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(Collections.singletonMap("workflowId", definition.getWorkflowId()));
+    }
+    
+    /**
+     * 移除工作流定义
+     */
+    @DeleteMapping("/api/workflows/{workflowId}")
+    public ResponseEntity<Void> removeWorkflow(@PathVariable String workflowId) {
+        return workflowService.remove(workflowId) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+    
+    /**
+     * 手动启动一次工作流运行
+     */
+    @PostMapping("/api/workflows/{workflowId}/runs")
+    public ResponseEntity<Map<String, Object>> startWorkflow(@PathVariable String workflowId) {
+        if (workflowService.getDefinition(workflowId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(Collections.singletonMap("runId", workflowService.start(workflowId).getRunId()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Collections.singletonMap("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * 获取正在执行和最近结束的工作流运行
+     */
+    @GetMapping("/api/workflow-runs")
+    public Map<String, Object> getWorkflowRuns() {
+        Map<String, Object> runs = new LinkedHashMap<>();
+        runs.put("active", workflowService.getActiveRuns());
+        runs.put("recent", workflowService.getRecentRuns());
+        return runs;
+    }
+    
+    /**
+     * 获取一次工作流运行，包括各节点的状态和执行时间
+     */
+    @GetMapping("/api/workflow-runs/{runId}")
+    public ResponseEntity<WorkflowRun> getWorkflowRun(@PathVariable String runId) {
+        WorkflowRun run = workflowService.getRun(runId);
+        return run == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(run);
+    }
+}
@@ -1,18 +1,29 @@
 package com.distributed.scheduler.server.handler;
 
 import com.distributed.scheduler.client.model.ClientInfo;
+import com.distributed.scheduler.client.model.ClientLoad;
+import com.distributed.scheduler.client.model.DelayedJob;
 import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.client.model.TaskResult;
 import com.distributed.scheduler.client.model.TaskStatus;
 import com.distributed.scheduler.client.protocol.Message;
 import com.distributed.scheduler.client.protocol.MessageType;
+import com.distributed.scheduler.client.protocol.ProtocolVersion;
 import com.distributed.scheduler.server.manager.ClientManager;
 import com.distributed.scheduler.server.monitor.TaskStatusMonitor;
+import com.distributed.scheduler.server.scheduler.BroadcastRun;
+import com.distributed.scheduler.server.scheduler.BroadcastRunTracker;
+import com.distributed.scheduler.server.scheduler.RunningMark;
 import com.distributed.scheduler.server.scheduler.TaskScheduler;
 import com.distributed.scheduler.server.scheduler.TaskTrigger;
+import com.distributed.scheduler.server.scheduler.delay.DelayedJobService;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelId;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.TooLongFrameException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +31,9 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 @Sharable
@@ -42,6 +56,12 @@ public class ServerHandler extends SimpleChannelInboundHandler<Message> {
     @Autowired
     private TaskScheduler taskScheduler;
     
+    @Autowired
+    private DelayedJobService delayedJobService;
+    
+    @Autowired
+    private BroadcastRunTracker broadcastRunTracker;
+    
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Message message) throws Exception {
         switch (message.getType()) {
@@ -57,9 +77,15 @@ public class ServerHandler extends SimpleChannelInboundHandler<Message> {
             case TASK_STATUS_REPORT:
                 handleTaskStatusReport(ctx, message);
                 break;
+            case TASK_STATUS_BATCH:
+                handleTaskStatusBatch(ctx, message);
+                break;
             case TASK_RESULT_REPORT:
                 handleTaskResultReport(ctx, message);
                 break;
+            case DELAYED_JOB_SUBMIT:
+                handleDelayedJobSubmit(message);
+                break;
             default:
                 logger.warn("Unknown message type: {}", message.getType());
         }
@@ -81,13 +107,17 @@ public class ServerHandler extends SimpleChannelInboundHandler<Message> {
 
         // 注册客户端
         clientManager.registerClient(channelId.asLongText(), clientInfo);
-        // 使用clientId注册通道，而不是channelId
-        taskTrigger.registerClientChannel(clientId, ctx.channel());
+        // 使用clientId注册通道，而不是channelId，旧版本客户端的触发消息按旧格式发送
+        taskTrigger.registerClientChannel(clientId, ctx.channel(), clientInfo.getProtocolVersion());
         
-        logger.info("Client registered: {} from {} ({})", clientId, clientInfo.getHostName(), clientInfo.getIpAddress());
+        logger.info("Client registered: {} from {} ({}), protocol version: {}", clientId, clientInfo.getHostName(),
+                clientInfo.getIpAddress(), clientInfo.getProtocolVersion());
         
-        // 发送响应
-        sendResponse(ctx, "Client registered successfully");
+        // 发送响应，携带服务端的协议版本，客户端据此决定是否发送新版本的消息，旧版本客户端只记录日志
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Client registered successfully");
+        response.put(ProtocolVersion.RESPONSE_KEY, ProtocolVersion.CURRENT);
+        sendResponse(ctx, response);
     }
     
     /**
@@ -97,7 +127,9 @@ public class ServerHandler extends SimpleChannelInboundHandler<Message> {
         String clientId = message.getClientId();
         if (clientId != null) {
             logger.debug("Heartbeat received from client: {}", clientId);
-            clientManager.updateHeartbeat(clientId);
+            // 心跳携带客户端执行线程池的负载，旧版本客户端的心跳没有数据
+            Object data = message.getData();
+            clientManager.updateHeartbeat(clientId, data instanceof ClientLoad ? (ClientLoad) data : null);
         }
     }
     
@@ -113,42 +145,28 @@ public class ServerHandler extends SimpleChannelInboundHandler<Message> {
         clientManager.unregisterClient(clientId);
         // 使用clientId移除通道
         taskTrigger.removeClientChannel(clientId);
+        failExecutionsOfClient(clientId);
         
         logger.info("Client unregistered: {}, tasks cancelled", clientId);
         ctx.close();
     }
     
+    /**
+     * 客户端断开后，该客户端上未结束的广播分片标记为失败，其他实例的运行标记在移除通道时回收
+     */
+    private void failExecutionsOfClient(String clientId) {
+        for (BroadcastRun run : broadcastRunTracker.failShardsOfClient(clientId)) {
+            taskScheduler.onBroadcastRunFinished(run);
+        }
+    }
+    
     /**
      * 处理任务状态报告
      */
     private void handleTaskStatusReport(ChannelHandlerContext ctx, Message message) {
         Object data = message.getData();
         if (data instanceof TaskStatus) {
-            TaskStatus status = (TaskStatus) data;
-            taskStatusMonitor.updateTaskStatus(status);
-            logger.debug("Task status updated: {} - {}", status.getTaskId(), status.getStatus());
-            
-            // 如果任务执行成功，更新任务执行次数
-            if (status.getStatus() == TaskStatus.Status.SUCCESS) {
-                String clientId = status.getClientId();
-                if (clientId != null) {
-                    ClientInfo clientInfo = clientManager.getClient(clientId);
-                    if (clientInfo != null) {
-                        clientInfo.setTaskExecutionCount(clientInfo.getTaskExecutionCount() + 1);
-                        logger.debug("Client {} task execution count updated to {}",
-                                clientId, clientInfo.getTaskExecutionCount());
-                    }
-                }
-            }
-            
-            // 当任务执行完成时（无论成功或失败），使用新的notifyTaskCompleted方法
-            // 传递完整的TaskStatus对象，该方法会根据任务的oneRunning配置决定是否清除运行标记
-            // 这样对于oneRunning=false的任务，允许多实例并行执行
-            if (status.getStatus() == TaskStatus.Status.SUCCESS || 
-                status.getStatus() == TaskStatus.Status.FAILED) {
-                taskTrigger.notifyTaskCompleted(status);
-                logger.debug("Task {} completed with status: {}", status.getTaskId(), status.getStatus());
-            }
+            processTaskStatus((TaskStatus) data);
         } else if (data instanceof TaskInfo) {
             // 处理任务注册
             TaskInfo taskInfo = (TaskInfo) data;
@@ -160,13 +178,119 @@ public class ServerHandler extends SimpleChannelInboundHandler<Message> {
         }
     }
     
+    /**
+     * 处理任务状态批量报告，客户端已合并同一实例的RUNNING和终止状态
+     */
+    private void handleTaskStatusBatch(ChannelHandlerContext ctx, Message message) {
+        Object data = message.getData();
+        if (!(data instanceof List)) {
+            logger.warn("Invalid task status batch from client: {}", message.getClientId());
+            return;
+        }
+        List<?> statuses = (List<?>) data;
+        logger.debug("Task status batch received: {} status(es) from client: {}", statuses.size(), message.getClientId());
+        for (Object item : statuses) {
+            if (item instanceof TaskStatus) {
+                processTaskStatus((TaskStatus) item);
+            }
+        }
+    }
+    
+    /**
+     * 处理单个任务状态
+     */
+    private void processTaskStatus(TaskStatus status) {
+        // 旧版本客户端上报的是自行生成的实例ID，先换成服务端的实例ID
+        taskTrigger.resolveLegacyInstanceId(status);
+        taskStatusMonitor.updateTaskStatus(status);
+        logger.debug("Task status updated: {} - {}", status.getTaskId(), status.getStatus());
+        
+        // 如果任务执行成功，更新任务执行次数
+        if (status.getStatus() == TaskStatus.Status.SUCCESS) {
+            String clientId = status.getClientId();
+            if (clientId != null) {
+                ClientInfo clientInfo = clientManager.getClient(clientId);
+                if (clientInfo != null) {
+                    clientInfo.setTaskExecutionCount(clientInfo.getTaskExecutionCount() + 1);
+                    logger.debug("Client {} task execution count updated to {}",
+                            clientId, clientInfo.getTaskExecutionCount());
+                }
+            }
+        }
+        
+        // 当任务执行完成时（无论成功或失败），移除实例的运行标记并释放占用的并发槽
+        // 未设置并发上限的任务不占用并发槽，允许多实例并行执行
+        if (status.getRunId() != null && status.getShardTotal() > 0) {
+            // 广播分片按整个逻辑运行处理，所有分片结束后才释放并发槽，分片运行中时为整个运行续约
+            if (status.getStatus() == TaskStatus.Status.RUNNING) {
+                taskTrigger.renewLease(status.getRunId());
+            }
+            BroadcastRun run = broadcastRunTracker.onShardStatus(status);
+            if (run != null) {
+                taskScheduler.onBroadcastRunFinished(run);
+            }
+            return;
+        }
+        // 客户端对实例的任何状态上报都视为确认收到触发，未确认的触发会被重投
+        taskTrigger.acknowledge(status.getInstanceId());
+        if (status.getStatus() == TaskStatus.Status.RUNNING) {
+            taskTrigger.renewLease(status.getInstanceId());
+        } else if (status.isTerminal()) {
+            RunningMark mark = taskTrigger.notifyTaskCompleted(status);
+            if (mark == null) {
+                // 运行标记已因租约到期、执行超时或客户端断开被回收，实例已按失败处理，忽略迟到的结束状态
+                logger.debug("Ignoring late completion of task {} instance {}", status.getTaskId(), status.getInstanceId());
+                return;
+            }
+            // 没有成功时按重试策略重试，否则通知等待该实例结束的工作流，触发因并发上限等待的触发，FIXED_DELAY任务从完成时间开始计算下一次触发
+            taskScheduler.notifyTaskCompleted(status, mark);
+            logger.debug("Task {} completed with status: {}", status.getTaskId(), status.getStatus());
+        }
+    }
+    
+    /**
+     * 处理延迟任务提交，支持单个作业或作业列表
+     */
+    private void handleDelayedJobSubmit(Message message) {
+        Object data = message.getData();
+        if (data instanceof DelayedJob) {
+            submitDelayedJob((DelayedJob) data, message.getClientId());
+        } else if (data instanceof List) {
+            for (Object item : (List<?>) data) {
+                if (item instanceof DelayedJob) {
+                    submitDelayedJob((DelayedJob) item, message.getClientId());
+                }
+            }
+        } else {
+            logger.warn("Unsupported delayed job data: {}", data);
+        }
+    }
+    
+    private void submitDelayedJob(DelayedJob job, String clientId) {
+        try {
+            delayedJobService.submit(job);
+        } catch (Exception e) {
+            logger.warn("Failed to submit delayed job {} from client {}: {}", job.getJobId(), clientId, e.getMessage());
+        }
+    }
+    
     /**
      * 处理任务结果报告
      */
     private void handleTaskResultReport(ChannelHandlerContext ctx, Message message) {
         // 处理任务执行结果
         String clientId = message.getClientId();
-        logger.info("Task result received: {} from client {}", message.getData(), clientId);
+        Object data = message.getData();
+        if (data instanceof TaskResult && ((TaskResult) data).getRunId() != null) {
+            // 广播分片的结果直接合并到运行的汇总结果中，不保留原始结果
+            TaskResult result = (TaskResult) data;
+            if (!broadcastRunTracker.onShardResult(result)) {
+                logger.debug("Result of shard {} of run {} from client {} ignored",
+                        result.getShardIndex(), result.getRunId(), clientId);
+            }
+            return;
+        }
+        logger.info("Task result received: {} from client {}", data, clientId);
         
         // 注意：任务执行次数的更新已在handleTaskStatusReport方法中处理
         // 当任务状态为SUCCESS时会更新计数，避免重复计数
@@ -193,13 +317,33 @@ public class ServerHandler extends SimpleChannelInboundHandler<Message> {
             clientManager.unregisterClient(clientId);
             // 使用clientId移除通道
             taskTrigger.removeClientChannel(clientId);
+            failExecutionsOfClient(clientId);
             logger.info("Client disconnected: {}", clientId);
         }
         super.channelInactive(ctx);
     }
     
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // 出站缓冲区回落到低水位以下时，继续发送积压的触发消息
+        if (ctx.channel().isWritable()) {
+            String clientId = clientManager.findClientIdByChannelId(ctx.channel().id().asLongText());
+            if (clientId != null) {
+                taskTrigger.drainPendingTriggers(clientId);
+            }
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+    
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (cause instanceof DecoderException && !(cause instanceof CorruptedFrameException)
+                && !(cause instanceof TooLongFrameException)) {
+            // 单条消息无法解码（如对端发送了服务端没有的类），帧已完整读出，后续消息不受影响，不关闭连接，
+            // 否则该客户端上所有运行中的实例都会被回收
+            logger.warn("Dropping undecodable message from {}: {}", ctx.channel().remoteAddress(), cause.toString());
+            return;
+        }
         logger.error("Exception caught in server handler", cause);
         ctx.close();
     }
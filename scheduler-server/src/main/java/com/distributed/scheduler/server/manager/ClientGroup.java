@@ -0,0 +1,248 @@
+package com.distributed.scheduler.server.manager;
+
+import com.distributed.scheduler.client.model.ClientInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分组内在线客户端的不可变快照
+ * 由ClientManager在注册、注销、上下线或权重变化时整体重建，调度路径上只读取数组，不分配对象。
+ * 客户端按clientId排序，客户端不变时下标稳定。轮询游标按快照保存，不同分组交替触发时互不影响。
+ */
+public final class ClientGroup {
+
+    // 未设置权重的客户端使用的权重
+    public static final int DEFAULT_WEIGHT = 1;
+
+    // 平滑加权轮询序列的最大长度，约去最大公约数后的总权重超过时按权重随机选择
+    static final int MAX_WEIGHTED_SEQUENCE = 1 << 16;
+
+    public static final ClientGroup EMPTY = new ClientGroup(null, new ClientInfo[0], new AtomicInteger[0]);
+
+    private final String group;
+    private final ClientInfo[] clients;
+    private final String[] clientIds;
+    // 重建时读取的权重，不大于0时为DEFAULT_WEIGHT
+    private final int[] weights;
+    // 权重的前缀和，cumulativeWeights[i]为前i+1个客户端的权重之和
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+    // 约去最大公约数后的总权重，即平滑加权轮询序列的长度
+    private final int weightedPeriod;
+    private final Map<String, Integer> indexes;
+    // 各客户端已触发但尚未结束的实例数，计数器由ClientManager持有，快照重建后仍是同一个计数器
+    private final AtomicInteger[] inFlight;
+    private final AtomicInteger roundRobinCursor = new AtomicInteger();
+    private final AtomicInteger weightedCursor = new AtomicInteger();
+    // 首次按权重选择时构建，重复构建的结果相同
+    private volatile int[] weightedSequence;
+
+    /**
+     * @param clients 已按clientId排序的在线客户端
+     * @param inFlight 与clients一一对应的在途实例计数器
+     */
+    private ClientGroup(String group, ClientInfo[] clients, AtomicInteger[] inFlight) {
+        this.group = group;
+        this.clients = clients;
+        this.inFlight = inFlight;
+        this.clientIds = new String[clients.length];
+        this.weights = new int[clients.length];
+        this.cumulativeWeights = new int[clients.length];
+        this.indexes = new HashMap<>(clients.length * 2);
+        int total = 0;
+        int gcd = 0;
+        for (int i = 0; i < clients.length; i++) {
+            clientIds[i] = clients[i].getClientId();
+            weights[i] = clients[i].getWeight() > 0 ? clients[i].getWeight() : DEFAULT_WEIGHT;
+            total += weights[i];
+            cumulativeWeights[i] = total;
+            gcd = gcd(gcd, weights[i]);
+            indexes.put(clientIds[i], i);
+        }
+        this.totalWeight = total;
+        this.weightedPeriod = gcd == 0 ? 0 : total / gcd;
+    }
+
+    /**
+     * 由在线客户端构建快照，按clientId排序，在途实例计数器为快照独有
+     */
+    public static ClientGroup of(String group, Collection<ClientInfo> clients) {
+        return of(group, clients, new HashMap<>());
+    }
+
+    /**
+     * @param inFlightCounts 按clientId保存的在途实例计数器，没有的客户端会被创建
+     */
+    static ClientGroup of(String group, Collection<ClientInfo> clients, Map<String, AtomicInteger> inFlightCounts) {
+        if (clients.isEmpty()) {
+            return EMPTY;
+        }
+        List<ClientInfo> sorted = new ArrayList<>(clients);
+        sorted.sort(Comparator.comparing(ClientInfo::getClientId));
+        AtomicInteger[] inFlight = new AtomicInteger[sorted.size()];
+        for (int i = 0; i < inFlight.length; i++) {
+            inFlight[i] = inFlightCounts.computeIfAbsent(sorted.get(i).getClientId(), k -> new AtomicInteger());
+        }
+        return new ClientGroup(group, sorted.toArray(new ClientInfo[0]), inFlight);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * 返回排除指定客户端后的快照，用于重试和改派时排除已失败的客户端，不在分组内时返回自身
+     */
+    public ClientGroup without(String clientId) {
+        int index = indexOf(clientId);
+        if (index < 0) {
+            return this;
+        }
+        ClientInfo[] remaining = new ClientInfo[clients.length - 1];
+        System.arraycopy(clients, 0, remaining, 0, index);
+        System.arraycopy(clients, index + 1, remaining, index, clients.length - index - 1);
+        AtomicInteger[] remainingInFlight = new AtomicInteger[inFlight.length - 1];
+        System.arraycopy(inFlight, 0, remainingInFlight, 0, index);
+        System.arraycopy(inFlight, index + 1, remainingInFlight, index, inFlight.length - index - 1);
+        return new ClientGroup(group, remaining, remainingInFlight);
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int size() {
+        return clients.length;
+    }
+
+    public boolean isEmpty() {
+        return clients.length == 0;
+    }
+
+    public ClientInfo getClient(int index) {
+        return clients[index];
+    }
+
+    public String getClientId(int index) {
+        return clientIds[index];
+    }
+
+    /**
+     * 重建快照时客户端的权重
+     */
+    public int getWeight(int index) {
+        return weights[index];
+    }
+
+    public int getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * 服务端记录的客户端已触发但尚未结束的实例数
+     */
+    public int getInFlight(int index) {
+        return inFlight[index].get();
+    }
+
+    /**
+     * 轮询选择下一个客户端的下标
+     */
+    public int nextRoundRobinIndex() {
+        return Math.floorMod(roundRobinCursor.getAndIncrement(), clients.length);
+    }
+
+    /**
+     * 按平滑加权轮询选择下一个客户端的下标，每个周期内各客户端按权重比例均匀交错出现，常数时间
+     * 周期过长时按权重随机选择，对数时间
+     */
+    public int nextWeightedIndex() {
+        int[] sequence = weightedSequence;
+        if (sequence == null) {
+            if (weightedPeriod > MAX_WEIGHTED_SEQUENCE) {
+                return indexOfWeight(ThreadLocalRandom.current().nextInt(totalWeight));
+            }
+            sequence = buildWeightedSequence();
+            weightedSequence = sequence;
+        }
+        return sequence[Math.floorMod(weightedCursor.getAndIncrement(), sequence.length)];
+    }
+
+    /**
+     * @param position 0到总权重之间的位置
+     * @return 权重区间包含该位置的客户端下标
+     */
+    public int indexOfWeight(int position) {
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] > position) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 构建一个周期的平滑加权轮询序列
+     * 客户端i第k次出现的位置为(2k-1)/(2w)，按位置从小到大排列，周期内恰好出现w次且间隔均匀
+     */
+    private int[] buildWeightedSequence() {
+        int gcd = totalWeight / weightedPeriod;
+        int[] picks = new int[clients.length];
+        PriorityQueue<Integer> queue = new PriorityQueue<>(Math.max(1, clients.length), (a, b) -> {
+            // 比较(2*picks[a]+1)/weights[a]与(2*picks[b]+1)/weights[b]，相同时下标小的在前
+            int c = Long.compare((2L * picks[a] + 1) * weights[b], (2L * picks[b] + 1) * weights[a]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int i = 0; i < clients.length; i++) {
+            queue.add(i);
+        }
+        int[] sequence = new int[weightedPeriod];
+        for (int n = 0; n < weightedPeriod; n++) {
+            int index = queue.poll();
+            sequence[n] = index;
+            if (++picks[index] < weights[index] / gcd) {
+                queue.add(index);
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * @return 客户端在快照中的下标，不在分组内时返回-1
+     */
+    public int indexOf(String clientId) {
+        Integer index = clientId == null ? null : indexes.get(clientId);
+        return index == null ? -1 : index;
+    }
+
+    public boolean contains(String clientId) {
+        return indexOf(clientId) >= 0;
+    }
+
+    /**
+     * 按clientId排序的客户端ID
+     */
+    public List<String> getClientIds() {
+        return Collections.unmodifiableList(Arrays.asList(clientIds));
+    }
+}
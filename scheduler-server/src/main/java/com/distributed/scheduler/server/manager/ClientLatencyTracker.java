@@ -0,0 +1,117 @@
+package com.distributed.scheduler.server.manager;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按任务和客户端统计的执行耗时和失败率
+ * 实例结束时按指数加权移动平均（EWMA）更新，越新的结果权重越大，慢下来或恢复的客户端能在几次执行内体现出来。
+ * latencyAware策略根据统计优先选择执行快、失败少的客户端。
+ */
+@Component
+public class ClientLatencyTracker {
+
+    // 新结果的权重，越大对变化越敏感，也越容易受偶发的慢执行影响
+    @Value("${scheduler.strategy.latency.alpha:0.2}")
+    private double alpha;
+
+    // latencyAware策略随机选择客户端的比例，让较慢的客户端恢复后能被重新发现
+    @Value("${scheduler.strategy.latency.probe-ratio:0.05}")
+    private double probeRatio;
+
+    // taskId -> clientId -> 统计
+    private final Map<String, Map<String, ExecutionStats>> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 记录客户端一次执行的结果
+     *
+     * @param executionTimeMillis 执行耗时，未知时（如客户端断开被回收）小于0，只更新失败率
+     */
+    public void record(String taskId, String clientId, boolean success, long executionTimeMillis) {
+        if (taskId == null || clientId == null) {
+            return;
+        }
+        stats.computeIfAbsent(taskId, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(clientId, k -> new ExecutionStats())
+                .update(alpha, success, executionTimeMillis);
+    }
+
+    /**
+     * 任务在各客户端上的统计，没有记录时返回空映射
+     */
+    public Map<String, ExecutionStats> getTaskStats(String taskId) {
+        Map<String, ExecutionStats> taskStats = taskId == null ? null : stats.get(taskId);
+        return taskStats == null ? Collections.emptyMap() : taskStats;
+    }
+
+    /**
+     * 任务被移除时清理统计
+     */
+    public void removeTask(String taskId) {
+        stats.remove(taskId);
+    }
+
+    /**
+     * 客户端注销时清理统计
+     */
+    public void removeClient(String clientId) {
+        for (Map<String, ExecutionStats> taskStats : stats.values()) {
+            taskStats.remove(clientId);
+        }
+    }
+
+    public double getProbeRatio() {
+        return probeRatio;
+    }
+
+    /**
+     * 单个任务在单个客户端上的统计
+     */
+    public static final class ExecutionStats {
+        private volatile double latencyMillis = Double.NaN;
+        private volatile double failureRate;
+        private volatile long samples;
+        private volatile long lastUpdateTime;
+
+        private synchronized void update(double alpha, boolean success, long executionTimeMillis) {
+            double failure = success ? 0 : 1;
+            // 第一次结果直接作为初始值，避免从0开始逐渐逼近
+            failureRate = samples == 0 ? failure : failureRate + alpha * (failure - failureRate);
+            if (executionTimeMillis >= 0) {
+                latencyMillis = Double.isNaN(latencyMillis) ? executionTimeMillis
+                        : latencyMillis + alpha * (executionTimeMillis - latencyMillis);
+            }
+            samples++;
+            lastUpdateTime = System.currentTimeMillis();
+        }
+
+        /**
+         * 执行耗时的移动平均（毫秒），没有已知耗时的结果时为NaN
+         */
+        public double getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        /**
+         * 失败率的移动平均，0到1之间
+         */
+        public double getFailureRate() {
+            return failureRate;
+        }
+
+        /**
+         * 已记录的结果数
+         */
+        public long getSamples() {
+            return samples;
+        }
+
+        public long getLastUpdateTime() {
+            return lastUpdateTime;
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package com.distributed.scheduler.server.manager;
 
 import com.distributed.scheduler.client.model.ClientInfo;
+import com.distributed.scheduler.client.model.ClientLoad;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class ClientManager {
@@ -15,13 +19,25 @@ public class ClientManager {
     private final Map<String, ClientInfo> clients = new ConcurrentHashMap<>();
     private final Map<String, String> channelIdToClientId = new ConcurrentHashMap<>(); // 通道ID到客户端ID的映射
     private static final long HEARTBEAT_TIMEOUT = 60000; // 60秒心跳超时
+    // 每个分组在线客户端的不可变快照，客户端变化时整体替换
+    private final Map<String, ClientGroup> groups = new ConcurrentHashMap<>();
+    private final Object rebuildLock = new Object();
+    // 各客户端已触发但尚未结束的实例数，由TaskTrigger在记录和移除运行标记时更新
+    private final Map<String, AtomicInteger> inFlightCounts = new ConcurrentHashMap<>();
+    
+    @Autowired
+    private ClientLatencyTracker latencyTracker;
     
     /**
      * 注册客户端
      */
     public void registerClient(String channelId, ClientInfo clientInfo) {
-        clients.put(clientInfo.getClientId(), clientInfo);
+        ClientInfo previous = clients.put(clientInfo.getClientId(), clientInfo);
         channelIdToClientId.put(channelId, clientInfo.getClientId());
+        if (previous != null && previous.getGroup() != null && !previous.getGroup().equals(clientInfo.getGroup())) {
+            rebuildGroup(previous.getGroup());
+        }
+        rebuildGroup(clientInfo.getGroup());
         logger.debug("Client registered: {} - {}", clientInfo.getClientId(), clientInfo.getApplicationName());
     }
     
@@ -29,12 +45,29 @@ public class ClientManager {
      * 更新客户端心跳
      */
     public boolean updateHeartbeat(String clientId) {
+        return updateHeartbeat(clientId, null);
+    }
+    
+    /**
+     * 更新客户端心跳和心跳上报的负载
+     *
+     * @param load 旧版本客户端的心跳不携带负载，为null
+     */
+    public boolean updateHeartbeat(String clientId, ClientLoad load) {
         ClientInfo client = clients.get(clientId);
         if (client != null) {
             client.setLastHeartbeatTime(System.currentTimeMillis());
+            if (load != null) {
+                client.setActiveThreads(load.getActiveThreads());
+                client.setMaxThreads(load.getMaxThreads());
+                client.setQueueDepth(load.getQueueDepth());
+                client.setRecentRejections(load.getRecentRejections());
+                client.setLoadReportTime(client.getLastHeartbeatTime());
+            }
             if (!client.isOnline()) {
                 // 如果客户端之前是离线状态，现在恢复为在线状态
                 client.setOnline(true);
+                rebuildGroup(client.getGroup());
                 logger.info("Client is back online: {}", clientId);
             }
             return true;
@@ -46,7 +79,12 @@ public class ClientManager {
      * 注销客户端
      */
     public void unregisterClient(String clientId) {
-        clients.remove(clientId);
+        ClientInfo client = clients.remove(clientId);
+        if (client != null) {
+            rebuildGroup(client.getGroup());
+        }
+        inFlightCounts.remove(clientId);
+        latencyTracker.removeClient(clientId);
         // 移除对应的通道映射
         channelIdToClientId.forEach((channelId, id) -> {
             if (id.equals(clientId)) {
@@ -71,12 +109,77 @@ public class ClientManager {
     }
     
     /**
-     * 根据分组获取客户端
+     * 根据分组获取在线客户端的快照，每次触发都会调用，直接返回预先构建的快照
+     */
+    public ClientGroup getClientsByGroup(String group) {
+        ClientGroup clientGroup = group == null ? null : groups.get(group);
+        return clientGroup == null ? ClientGroup.EMPTY : clientGroup;
+    }
+    
+    /**
+     * 更新客户端权重
+     *
+     * @return 客户端不存在时返回false
+     */
+    public boolean updateWeight(String clientId, int weight) {
+        ClientInfo client = clients.get(clientId);
+        if (client == null) {
+            return false;
+        }
+        client.setWeight(weight);
+        rebuildGroup(client.getGroup());
+        logger.info("Client {} weight updated to {}", clientId, weight);
+        return true;
+    }
+    
+    /**
+     * 客户端新增一个在途实例
      */
-    public Map<String, ClientInfo> getClientsByGroup(String group) {
-        return clients.values().stream()
-                .filter(client -> client.getGroup().equals(group))
-                .collect(Collectors.toConcurrentMap(ClientInfo::getClientId, client -> client));
+    public void incrementInFlight(String clientId) {
+        AtomicInteger count = inFlightCounts.get(clientId);
+        if (count != null) {
+            count.incrementAndGet();
+        }
+    }
+    
+    /**
+     * 客户端的一个在途实例结束、被回收或改投到其他客户端
+     */
+    public void decrementInFlight(String clientId) {
+        AtomicInteger count = inFlightCounts.get(clientId);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+    
+    /**
+     * 获取客户端的在途实例数
+     */
+    public int getInFlight(String clientId) {
+        AtomicInteger count = inFlightCounts.get(clientId);
+        return count == null ? 0 : count.get();
+    }
+    
+    /**
+     * 重建分组的快照，串行执行保证最后一次重建读取到所有已完成的变化
+     */
+    private void rebuildGroup(String group) {
+        if (group == null) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            List<ClientInfo> members = new ArrayList<>();
+            for (ClientInfo client : clients.values()) {
+                if (client.isOnline() && group.equals(client.getGroup())) {
+                    members.add(client);
+                }
+            }
+            if (members.isEmpty()) {
+                groups.remove(group);
+                return;
+            }
+            groups.put(group, ClientGroup.of(group, members, inFlightCounts));
+        }
     }
     
     /**
@@ -105,6 +208,7 @@ public class ClientManager {
             if (timeout && client.isOnline()) {
                 // 只需要标记为离线，不需要完全移除
                 client.setOnline(false);
+                rebuildGroup(client.getGroup());
                 logger.warn("Client timed out, marked as offline: {}", client.getClientId());
                 // 移除对应的通道映射，因为通道已经不可用
                 channelIdToClientId.forEach((channelId, id) -> {
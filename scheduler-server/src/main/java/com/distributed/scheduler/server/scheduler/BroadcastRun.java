@@ -0,0 +1,369 @@
+package com.distributed.scheduler.server.scheduler;
+
+import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.server.scheduler.result.ShardResultReducer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 广播执行的一次逻辑运行
+ * 一次触发在分组内每个在线客户端上各执行一个分片，所有分片都结束后运行结束，
+ * 任一分片失败时整个运行为失败。
+ * 配置了归约器时，分片结果到达后立即合并到累加值，运行结束时得到汇总结果。
+ */
+public class BroadcastRun {
+
+    private final String runId;
+    private final String taskId;
+    private final long scheduledFireTime;
+    private final long startTime;
+    private final int shardTotal;
+    private final Shard[] shards;
+    private final ShardResultReducer reducer;
+    private long endTime;
+    private int finished;
+    private int failed;
+    // 归约状态，运行结束后释放累加值
+    private Object accumulator;
+    private Object aggregate;
+    private int resultCount;
+    private String reduceError;
+
+    public BroadcastRun(String runId, String taskId, long scheduledFireTime, int shardTotal) {
+        this(runId, taskId, scheduledFireTime, shardTotal, null);
+    }
+
+    public BroadcastRun(String runId, String taskId, long scheduledFireTime, int shardTotal,
+                        ShardResultReducer reducer) {
+        this.runId = runId;
+        this.taskId = taskId;
+        this.scheduledFireTime = scheduledFireTime;
+        this.startTime = System.currentTimeMillis();
+        this.shardTotal = shardTotal;
+        this.shards = new Shard[shardTotal];
+        for (int i = 0; i < shardTotal; i++) {
+            shards[i] = new Shard(i);
+        }
+        this.reducer = reducer;
+        if (reducer != null) {
+            try {
+                accumulator = reducer.init();
+            } catch (Exception e) {
+                reduceError = "Reducer init failed: " + e;
+            }
+        }
+    }
+
+    /**
+     * 记录分片已发送到客户端
+     */
+    public synchronized void shardTriggered(int shardIndex, String instanceId, String clientId) {
+        Shard shard = shards[shardIndex];
+        shard.instanceId = instanceId;
+        shard.clientId = clientId;
+        shard.status = TaskStatus.Status.WAITING;
+    }
+
+    /**
+     * 按客户端上报的状态更新分片，同时记录分片的执行时间
+     *
+     * @return 本次更新使整个运行结束时返回true
+     */
+    public synchronized boolean updateShard(TaskStatus status) {
+        Shard shard = pendingShard(status.getShardIndex(), status.getInstanceId());
+        if (shard == null) {
+            return false;
+        }
+        if (status.getStartTime() != null) {
+            shard.startTime = status.getStartTime().getTime();
+        }
+        if (status.getEndTime() != null) {
+            shard.endTime = status.getEndTime().getTime();
+            shard.executionTime = status.getExecutionTime();
+        }
+        return transition(shard, status.getStatus(), status.getErrorMsg());
+    }
+
+    /**
+     * 更新分片状态，实例ID与分片当前的实例不一致时忽略
+     *
+     * @return 本次更新使整个运行结束时返回true
+     */
+    public synchronized boolean updateShard(int shardIndex, String instanceId, TaskStatus.Status status, String errorMsg) {
+        Shard shard = pendingShard(shardIndex, instanceId);
+        return shard != null && transition(shard, status, errorMsg);
+    }
+
+    /**
+     * 合并一个分片的执行结果，每个分片只合并一次，运行结束后到达的结果被忽略
+     *
+     * @return 结果被合并时返回true
+     */
+    public synchronized boolean addResult(int shardIndex, String instanceId, Object result) {
+        if (reducer == null || reduceError != null || result == null || finished == shardTotal
+                || shardIndex < 0 || shardIndex >= shardTotal) {
+            return false;
+        }
+        Shard shard = shards[shardIndex];
+        if (shard.resultReceived || (instanceId != null && !instanceId.equals(shard.instanceId))) {
+            return false;
+        }
+        shard.resultReceived = true;
+        try {
+            accumulator = reducer.accumulate(accumulator, shardIndex, result);
+            resultCount++;
+            return true;
+        } catch (Exception e) {
+            reduceError = "Shard " + shardIndex + ": " + e;
+            accumulator = null;
+            return false;
+        }
+    }
+
+    private Shard pendingShard(int shardIndex, String instanceId) {
+        if (shardIndex < 0 || shardIndex >= shardTotal) {
+            return null;
+        }
+        Shard shard = shards[shardIndex];
+        if (shard.isTerminal() || (instanceId != null && !instanceId.equals(shard.instanceId))) {
+            return null;
+        }
+        return shard;
+    }
+
+    private boolean transition(Shard shard, TaskStatus.Status status, String errorMsg) {
+        shard.status = status;
+        shard.errorMsg = errorMsg;
+        if (!shard.isTerminal()) {
+            return false;
+        }
+        if (shard.endTime == 0) {
+            shard.endTime = System.currentTimeMillis();
+        }
+        finished++;
+        if (status != TaskStatus.Status.SUCCESS) {
+            failed++;
+        }
+        if (finished == shardTotal) {
+            endTime = System.currentTimeMillis();
+            completeReduce();
+            return true;
+        }
+        return false;
+    }
+
+    private void completeReduce() {
+        if (reducer == null || reduceError != null) {
+            return;
+        }
+        try {
+            aggregate = reducer.complete(accumulator);
+        } catch (Exception e) {
+            reduceError = "Reducer complete failed: " + e;
+        }
+        accumulator = null;
+    }
+
+    /**
+     * 把指定客户端上未结束的分片标记为失败
+     *
+     * @return 本次更新使整个运行结束时返回true
+     */
+    public synchronized boolean failShardsOfClient(String clientId, String errorMsg) {
+        boolean completed = false;
+        for (Shard shard : shards) {
+            if (clientId.equals(shard.clientId) && !shard.isTerminal()) {
+                completed |= updateShard(shard.index, shard.instanceId, TaskStatus.Status.FAILED, errorMsg);
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * 把所有未结束的分片标记为指定的失败状态
+     *
+     * @param status FAILED或TIMED_OUT
+     * @return 本次更新使整个运行结束时返回true
+     */
+    public synchronized boolean failUnfinishedShards(TaskStatus.Status status, String errorMsg) {
+        boolean completed = false;
+        for (Shard shard : shards) {
+            if (!shard.isTerminal()) {
+                completed |= updateShard(shard.index, shard.instanceId, status, errorMsg);
+            }
+        }
+        return completed;
+    }
+
+    public synchronized boolean isFinished() {
+        return finished == shardTotal;
+    }
+
+    /**
+     * 运行状态：RUNNING、SUCCESS或FAILED
+     */
+    public synchronized TaskStatus.Status getStatus() {
+        if (finished < shardTotal) {
+            return TaskStatus.Status.RUNNING;
+        }
+        return failed == 0 ? TaskStatus.Status.SUCCESS : TaskStatus.Status.FAILED;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public long getScheduledFireTime() {
+        return scheduledFireTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public synchronized long getEndTime() {
+        return endTime;
+    }
+
+    public int getShardTotal() {
+        return shardTotal;
+    }
+
+    public synchronized int getFinishedShards() {
+        return finished;
+    }
+
+    public synchronized int getFailedShards() {
+        return failed;
+    }
+
+    /**
+     * 归约器名称，未配置时为null
+     */
+    public String getReducerName() {
+        return reducer == null ? null : reducer.getReducerName();
+    }
+
+    /**
+     * 汇总结果，运行结束且归约成功后才有值
+     */
+    public synchronized Object getAggregate() {
+        return aggregate;
+    }
+
+    /**
+     * 已合并的分片结果数
+     */
+    public synchronized int getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * 归约失败的原因，失败后不再合并后续结果
+     */
+    public synchronized String getReduceError() {
+        return reduceError;
+    }
+
+    /**
+     * 各分片的快照
+     */
+    public synchronized List<Shard> getShards() {
+        List<Shard> snapshot = new ArrayList<>(shardTotal);
+        for (Shard shard : shards) {
+            snapshot.add(shard.copy());
+        }
+        return Collections.unmodifiableList(snapshot);
+    }
+
+    /**
+     * 单个分片
+     */
+    public static final class Shard {
+        private final int index;
+        private String instanceId;
+        private String clientId;
+        private TaskStatus.Status status;
+        private String errorMsg;
+        private long startTime;
+        private long endTime;
+        private long executionTime;
+        private boolean resultReceived;
+
+        private Shard(int index) {
+            this.index = index;
+        }
+
+        /**
+         * 分片是否已结束（成功、失败或超时）
+         */
+        public boolean isTerminal() {
+            return status == TaskStatus.Status.SUCCESS || status == TaskStatus.Status.FAILED
+                    || status == TaskStatus.Status.TIMED_OUT;
+        }
+
+        private Shard copy() {
+            Shard copy = new Shard(index);
+            copy.instanceId = instanceId;
+            copy.clientId = clientId;
+            copy.status = status;
+            copy.errorMsg = errorMsg;
+            copy.startTime = startTime;
+            copy.endTime = endTime;
+            copy.executionTime = executionTime;
+            copy.resultReceived = resultReceived;
+            return copy;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getInstanceId() {
+            return instanceId;
+        }
+
+        public String getClientId() {
+            return clientId;
+        }
+
+        public TaskStatus.Status getStatus() {
+            return status;
+        }
+
+        public String getErrorMsg() {
+            return errorMsg;
+        }
+
+        /**
+         * 客户端开始执行的时间，未开始时为0
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * 分片结束的时间，未结束时为0
+         */
+        public long getEndTime() {
+            return endTime;
+        }
+
+        /**
+         * 客户端上报的执行耗时（毫秒）
+         */
+        public long getExecutionTime() {
+            return executionTime;
+        }
+
+        public boolean isResultReceived() {
+            return resultReceived;
+        }
+    }
+}
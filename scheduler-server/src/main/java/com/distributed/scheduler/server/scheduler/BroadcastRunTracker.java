@@ -0,0 +1,135 @@
+package com.distributed.scheduler.server.scheduler;
+
+import com.distributed.scheduler.client.model.TaskResult;
+import com.distributed.scheduler.client.model.TaskStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 广播执行跟踪
+ * 按runId把所有分片实例作为一次逻辑运行跟踪，保留最近结束的运行用于查询。
+ */
+@Component
+public class BroadcastRunTracker {
+    
+    private final ConcurrentMap<String, BroadcastRun> activeRuns = new ConcurrentHashMap<>();
+    // 最近结束的运行，由自身保护
+    private final Deque<BroadcastRun> recentRuns = new ArrayDeque<>();
+    
+    // 保留的最近结束的运行数
+    @Value("${scheduler.broadcast.history-size:100}")
+    private int historySize;
+    
+    /**
+     * 开始跟踪一次运行
+     */
+    public void start(BroadcastRun run) {
+        activeRuns.put(run.getRunId(), run);
+    }
+    
+    /**
+     * 处理分片的状态上报
+     *
+     * @return 本次上报使运行结束时返回该运行，否则返回null
+     */
+    public BroadcastRun onShardStatus(TaskStatus status) {
+        BroadcastRun run = activeRuns.get(status.getRunId());
+        if (run != null && run.updateShard(status)) {
+            return run;
+        }
+        return null;
+    }
+    
+    /**
+     * 处理分片的结果上报，合并到运行的累加值中
+     *
+     * @return 结果被合并时返回true
+     */
+    public boolean onShardResult(TaskResult result) {
+        BroadcastRun run = activeRuns.get(result.getRunId());
+        return run != null && run.addResult(result.getShardIndex(), result.getInstanceId(), result.getResult());
+    }
+    
+    /**
+     * 客户端断开时把该客户端上未结束的分片标记为失败
+     *
+     * @return 因此结束的运行
+     */
+    public List<BroadcastRun> failShardsOfClient(String clientId) {
+        List<BroadcastRun> finished = new ArrayList<>();
+        for (BroadcastRun run : activeRuns.values()) {
+            if (run.failShardsOfClient(clientId, "Client disconnected")) {
+                finished.add(run);
+            }
+        }
+        return finished;
+    }
+    
+    /**
+     * 运行的标记被回收时把未结束的分片标记为失败或超时
+     *
+     * @return 因此结束的运行，运行不存在或未结束时返回null
+     */
+    public BroadcastRun failRun(String runId, TaskStatus.Status status, String reason) {
+        BroadcastRun run = activeRuns.get(runId);
+        if (run != null && run.failUnfinishedShards(status, reason)) {
+            return run;
+        }
+        return null;
+    }
+    
+    /**
+     * 结束跟踪，移入最近结束的运行
+     */
+    public void finish(BroadcastRun run) {
+        if (activeRuns.remove(run.getRunId()) == null) {
+            return;
+        }
+        synchronized (recentRuns) {
+            recentRuns.addFirst(run);
+            while (recentRuns.size() > historySize) {
+                recentRuns.removeLast();
+            }
+        }
+    }
+    
+    public BroadcastRun getRun(String runId) {
+        BroadcastRun run = activeRuns.get(runId);
+        if (run != null) {
+            return run;
+        }
+        synchronized (recentRuns) {
+            for (BroadcastRun recent : recentRuns) {
+                if (recent.getRunId().equals(runId)) {
+                    return recent;
+                }
+            }
+        }
+        return null;
+    }
+    
+    public Collection<BroadcastRun> getActiveRuns() {
+        return new ArrayList<>(activeRuns.values());
+    }
+    
+    /**
+     * 最近结束的运行，最新的在前
+     */
+    public List<BroadcastRun> getRecentRuns() {
+        synchronized (recentRuns) {
+            return new ArrayList<>(recentRuns);
+        }
+    }
+    
+    public int getActiveRunCount() {
+        return activeRuns.size();
+    }
+}
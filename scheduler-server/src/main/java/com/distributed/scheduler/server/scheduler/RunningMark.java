@@ -0,0 +1,136 @@
+package com.distributed.scheduler.server.scheduler;
+
+import io.netty.util.Timeout;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 已触发但尚未结束的实例的运行标记
+ * 标记带有租约，租约到期、执行超时或执行实例的客户端断开时回收，回收后该实例迟到的结束状态被忽略。
+ */
+public class RunningMark {
+
+    private final String instanceId;
+    private final String taskId;
+    private volatile String clientId;
+    private final boolean broadcastRun;
+    private final boolean holdsSlot;
+    // 触发信息，失败重试时使用
+    private final int attempt;
+    private final long scheduledFireTime;
+    private final Map<String, Object> params;
+    private volatile long leaseDeadline;
+    volatile Timeout leaseTimeout;
+    // 执行超时的定时器，任务未设置超时时为null
+    volatile Timeout deadlineTimeout;
+    // 等待客户端确认收到触发的定时器
+    volatile Timeout ackTimeout;
+    // 触发消息的投递次数，包括首次投递
+    private volatile int deliveries = 1;
+    // 实例失败后为重试保留的并发槽，重试触发前释放
+    private final AtomicBoolean slotRetained = new AtomicBoolean();
+
+    RunningMark(String instanceId, String taskId, String clientId, boolean broadcastRun, boolean holdsSlot,
+                int attempt, long scheduledFireTime, Map<String, Object> params, long leaseDeadline) {
+        this.instanceId = instanceId;
+        this.taskId = taskId;
+        this.clientId = clientId;
+        this.broadcastRun = broadcastRun;
+        this.holdsSlot = holdsSlot;
+        this.attempt = attempt;
+        this.scheduledFireTime = scheduledFireTime;
+        this.params = params;
+        this.leaseDeadline = leaseDeadline;
+    }
+
+    /**
+     * 实例ID，广播执行时为运行ID
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    /**
+     * 执行实例的客户端，重投后为新的客户端，广播执行时为null，分片所在客户端的断开由BroadcastRunTracker处理
+     */
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * 触发消息的投递次数，包括首次投递
+     */
+    public int getDeliveries() {
+        return deliveries;
+    }
+
+    void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    void redelivered() {
+        deliveries++;
+    }
+
+    void retainSlot() {
+        slotRetained.set(true);
+    }
+
+    /**
+     * @return 保留了并发槽并被本次取走时返回true
+     */
+    boolean takeRetainedSlot() {
+        return slotRetained.compareAndSet(true, false);
+    }
+
+    /**
+     * 是否为广播执行的一次逻辑运行
+     */
+    public boolean isBroadcastRun() {
+        return broadcastRun;
+    }
+
+    /**
+     * 是否占用任务的一个并发槽
+     */
+    public boolean isHoldsSlot() {
+        return holdsSlot;
+    }
+
+    /**
+     * 第几次尝试，从1开始
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * 计划触发时间
+     */
+    public long getScheduledFireTime() {
+        return scheduledFireTime;
+    }
+
+    /**
+     * 本次执行覆盖的任务参数
+     */
+    public Map<String, Object> getParams() {
+        return params;
+    }
+
+    /**
+     * 租约到期的毫秒时间戳
+     */
+    public long getLeaseDeadline() {
+        return leaseDeadline;
+    }
+
+    void setLeaseDeadline(long leaseDeadline) {
+        this.leaseDeadline = leaseDeadline;
+    }
+}
@@ -0,0 +1,315 @@
+package com.distributed.scheduler.server.scheduler;
+
+import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.server.scheduler.cron.CronSchedule;
+import com.distributed.scheduler.server.scheduler.cron.CronScheduleCache;
+import com.distributed.scheduler.server.scheduler.engine.SchedulerEngine;
+import com.distributed.scheduler.server.scheduler.engine.SchedulerEngineType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 调度分片
+ * 每个分片有独立的任务表、调度引擎和分发线程，TaskScheduler按taskId散列把任务分配到分片，
+ * 分片之间不共享可变状态，调度吞吐随分片数扩展。
+ */
+public class SchedulerShard {
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerShard.class);
+
+    /**
+     * 分发线程中真正触发任务的回调
+     */
+    @FunctionalInterface
+    public interface TaskInvoker {
+        /**
+         * @return 触发消息已发出或已按任务的并发策略处理时返回true
+         */
+        boolean invoke(TaskInfo taskInfo, long scheduledFireTime);
+    }
+
+    private final int index;
+    private final Map<String, TaskInfo> tasks = new ConcurrentHashMap<>();
+    private final CronScheduleCache cronCache;
+    private final SchedulerEngine engine;
+    private final TaskDispatcher dispatcher;
+    private final TaskInvoker invoker;
+    // 错过触发的次数
+    private final AtomicLong misfireCount = new AtomicLong();
+    // 实际到期时间相对计划触发时间的延迟
+    private final LongAdder fireCount = new LongAdder();
+    private final LongAdder totalLatenessMillis = new LongAdder();
+    private final AtomicLong maxLatenessMillis = new AtomicLong();
+
+    public SchedulerShard(int index, SchedulerEngineType engineType, long tickMillis, int wheelSize,
+                          int dispatchThreads, CronScheduleCache cronCache, TaskInvoker invoker) {
+        this.index = index;
+        this.cronCache = cronCache;
+        this.invoker = invoker;
+        this.dispatcher = new TaskDispatcher("task-dispatch-" + index, dispatchThreads);
+        this.engine = engineType.newEngine(tickMillis, wheelSize, this::onFire);
+    }
+
+    public void start() {
+        engine.start();
+    }
+
+    public void stop() {
+        engine.stop();
+        dispatcher.shutdown();
+    }
+
+    /**
+     * 获取或创建任务，任务已启用且未被调度时开始调度
+     *
+     * @return 分片中保存的任务信息
+     */
+    public TaskInfo addTask(TaskInfo taskInfo, String clientId) {
+        TaskInfo existingTask = tasks.computeIfAbsent(taskInfo.getTaskId(), k -> taskInfo);
+
+        // 记录注册客户端
+        existingTask.addRegisteredClient(clientId);
+
+        // 如果任务已启用且未被调度，则调度任务
+        if (existingTask.isEnabled() && !engine.isScheduled(existingTask.getTaskId())) {
+            scheduleFirst(existingTask, System.currentTimeMillis());
+        }
+        return existingTask;
+    }
+
+    public TaskInfo removeTask(String taskId) {
+        TaskInfo removed = tasks.remove(taskId);
+        cancelTask(taskId);
+        return removed;
+    }
+
+    /**
+     * 取消任务调度但保留任务信息
+     *
+     * @return 任务在调度中并被取消时返回true
+     */
+    public boolean cancelTask(String taskId) {
+        return engine.cancel(taskId);
+    }
+
+    public TaskInfo getTask(String taskId) {
+        return tasks.get(taskId);
+    }
+
+    public Map<String, TaskInfo> getTasks() {
+        return tasks;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public TaskDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public long getMisfireCount() {
+        return misfireCount.get();
+    }
+
+    /**
+     * 到期触发的次数
+     */
+    public long getFireCount() {
+        return fireCount.sum();
+    }
+
+    /**
+     * 平均tick延迟（毫秒），即实际到期时间晚于计划触发时间的平均值
+     */
+    public double getAverageLatenessMillis() {
+        long count = fireCount.sum();
+        return count == 0 ? 0 : (double) totalLatenessMillis.sum() / count;
+    }
+
+    /**
+     * 最大tick延迟（毫秒）
+     */
+    public long getMaxLatenessMillis() {
+        return maxLatenessMillis.get();
+    }
+
+    /**
+     * FIXED_DELAY任务执行完成后从当前时间开始调度下一次执行
+     */
+    public void onTaskCompleted(String taskId) {
+        TaskInfo taskInfo = tasks.get(taskId);
+        if (taskInfo == null || taskInfo.getScheduleType() != TaskInfo.ScheduleType.FIXED_DELAY) {
+            return;
+        }
+        scheduleFixedDelay(taskInfo);
+    }
+
+    /**
+     * 计算任务在指定时间之后的下一次触发时间
+     *
+     * @param after 上一次的计划触发时间，基于计划时间计算避免误差累积
+     * @return 下一次触发时间，没有下一次触发时返回-1
+     */
+    private long nextFireTime(TaskInfo taskInfo, long after) {
+        TaskInfo.ScheduleType type = taskInfo.getScheduleType();
+        if (type == TaskInfo.ScheduleType.FIXED_RATE || type == TaskInfo.ScheduleType.FIXED_DELAY) {
+            return taskInfo.getInterval() > 0 ? after + taskInfo.getInterval() : -1;
+        }
+        if (!StringUtils.hasText(taskInfo.getCronExpression())) return -1;
+        // 获取编译后的cron表达式，相同表达式只在首次使用时编译一次
+        return cronCache.get(taskInfo.getCronExpression()).nextFireTime(after);
+    }
+
+    /**
+     * 首次调度，FIXED_RATE/FIXED_DELAY任务延迟initialDelay后触发，未设置时延迟一个间隔
+     */
+    private void scheduleFirst(TaskInfo taskInfo, long now) {
+        if (taskInfo.getScheduleType() != TaskInfo.ScheduleType.CRON && taskInfo.getInitialDelay() > 0) {
+            scheduleAt(taskInfo, taskInfo.getInterval() > 0 ? now + taskInfo.getInitialDelay() : -1);
+        } else {
+            scheduleTask(taskInfo, now);
+        }
+    }
+
+    /**
+     * 调度任务在指定时间之后的下一次执行
+     *
+     * @param after 上一次的计划触发时间，首次调度时为当前时间，基于计划时间计算避免误差累积
+     */
+    private void scheduleTask(TaskInfo taskInfo, long after) {
+        try {
+            scheduleAt(taskInfo, nextFireTime(taskInfo, after));
+        } catch (Exception e) {
+            logger.error("Error parsing cron expression for task: {}", taskInfo.getTaskId(), e);
+        }
+    }
+
+    private void scheduleFixedDelay(TaskInfo taskInfo) {
+        // 任务已删除、已禁用或已在调度中时不重复调度
+        if (tasks.get(taskInfo.getTaskId()) != taskInfo || !taskInfo.isEnabled()
+                || engine.isScheduled(taskInfo.getTaskId())) {
+            return;
+        }
+        scheduleTask(taskInfo, System.currentTimeMillis());
+    }
+
+    private void scheduleAt(TaskInfo taskInfo, long scheduledFireTime) {
+        String taskId = taskInfo.getTaskId();
+        if (scheduledFireTime < 0) {
+            if (taskInfo.getScheduleType() == TaskInfo.ScheduleType.CRON) {
+                if (StringUtils.hasText(taskInfo.getCronExpression())) {
+                    logger.warn("Invalid cron expression for task: {}", taskId);
+                }
+            } else {
+                logger.warn("Invalid interval {} for {} task: {}", taskInfo.getInterval(), taskInfo.getScheduleType(), taskId);
+            }
+            return;
+        }
+
+        // 调度任务执行，到期后由onFire触发并重新调度
+        engine.schedule(taskId, scheduledFireTime);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Task scheduled on shard {}: {}, next execution at: {}", index, taskId, new Date(scheduledFireTime));
+        }
+    }
+
+    /**
+     * 调度引擎到期回调，在定时线程中执行，只计算下一次触发时间并把本次触发交给分发线程
+     */
+    private void onFire(String taskId, long scheduledFireTime) {
+        TaskInfo taskInfo = tasks.get(taskId);
+        if (taskInfo == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        recordLateness(now - scheduledFireTime);
+        if (now - scheduledFireTime <= taskInfo.getMisfireThreshold()) {
+            // 先从本次计划时间重新调度下一次执行，下一次触发不受tick延迟和本次分发耗时影响
+            // FIXED_DELAY任务在执行完成后才调度下一次执行
+            if (taskInfo.getScheduleType() != TaskInfo.ScheduleType.FIXED_DELAY) {
+                scheduleTask(taskInfo, scheduledFireTime);
+            }
+            dispatch(taskInfo, scheduledFireTime);
+            return;
+        }
+        handleMisfire(taskInfo, scheduledFireTime, now);
+    }
+
+    /**
+     * 处理错过的触发，之后从当前时间重新调度
+     */
+    private void handleMisfire(TaskInfo taskInfo, long scheduledFireTime, long now) {
+        misfireCount.incrementAndGet();
+        TaskInfo.MisfirePolicy policy = taskInfo.getMisfirePolicy() != null
+                ? taskInfo.getMisfirePolicy() : TaskInfo.MisfirePolicy.FIRE_ONCE_NOW;
+        TaskInfo.ScheduleType type = taskInfo.getScheduleType();
+        if (type == TaskInfo.ScheduleType.FIXED_DELAY) {
+            // FIXED_DELAY任务不补执行，SKIP时从当前时间重新开始计时，否则立即执行一次并等待完成
+            if (policy == TaskInfo.MisfirePolicy.SKIP) {
+                logger.debug("Task {} misfired by {} ms, skipping", taskInfo.getTaskId(), now - scheduledFireTime);
+                scheduleTask(taskInfo, now);
+            } else {
+                logger.debug("Task {} misfired by {} ms, firing once now", taskInfo.getTaskId(), now - scheduledFireTime);
+                dispatch(taskInfo, scheduledFireTime);
+            }
+            return;
+        }
+        switch (policy) {
+            case SKIP:
+                logger.debug("Task {} misfired by {} ms, skipping", taskInfo.getTaskId(), now - scheduledFireTime);
+                break;
+            case CATCH_UP:
+                // 按原计划时间依次补执行，最多maxCatchUp次
+                int limit = Math.max(1, taskInfo.getMaxCatchUp());
+                int fired = 0;
+                for (long fireTime = scheduledFireTime; fireTime >= 0 && fireTime <= now && fired < limit;
+                     fireTime = nextFireTime(taskInfo, fireTime)) {
+                    dispatch(taskInfo, fireTime);
+                    fired++;
+                }
+                logger.debug("Task {} misfired by {} ms, caught up {} fire(s)", taskInfo.getTaskId(), now - scheduledFireTime, fired);
+                break;
+            default:
+                logger.debug("Task {} misfired by {} ms, firing once now", taskInfo.getTaskId(), now - scheduledFireTime);
+                dispatch(taskInfo, scheduledFireTime);
+                break;
+        }
+        if (type == TaskInfo.ScheduleType.FIXED_RATE && taskInfo.getInterval() > 0) {
+            // 保持原有相位，下一次触发为当前时间之后的第一个计划时间
+            long interval = taskInfo.getInterval();
+            scheduleAt(taskInfo, scheduledFireTime + ((now - scheduledFireTime) / interval + 1) * interval);
+        } else {
+            scheduleTask(taskInfo, now);
+        }
+    }
+
+    /**
+     * 在分发线程中触发一次任务，FIXED_DELAY任务未能触发时从当前时间重新调度
+     */
+    public void dispatch(TaskInfo taskInfo, long scheduledFireTime) {
+        dispatcher.dispatch(taskInfo.getTaskId(), () -> {
+            // FIXED_DELAY任务未能触发时不会收到完成通知，从当前时间重新调度
+            if (!invoker.invoke(taskInfo, scheduledFireTime)
+                    && taskInfo.getScheduleType() == TaskInfo.ScheduleType.FIXED_DELAY) {
+                scheduleFixedDelay(taskInfo);
+            }
+        });
+    }
+
+    private void recordLateness(long latenessMillis) {
+        if (latenessMillis < 0) {
+            latenessMillis = 0;
+        }
+        fireCount.increment();
+        totalLatenessMillis.add(latenessMillis);
+        maxLatenessMillis.accumulateAndGet(latenessMillis, Math::max);
+    }
+}
@@ -0,0 +1,117 @@
+package com.distributed.scheduler.server.scheduler;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 任务分发器
+ * 定时线程只负责把到期的任务交给分发器，选择客户端和发送触发消息在分发线程中执行。
+ * 每个分发线程有自己的队列，同一个任务总是由同一个线程分发，保证同一任务的触发顺序。
+ */
+public class TaskDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(TaskDispatcher.class);
+
+    private final ExecutorService[] shards;
+
+    // 从定时线程提交到分发线程开始执行的延迟
+    private final LongAdder dispatchCount = new LongAdder();
+    private final LongAdder totalLagNanos = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    public TaskDispatcher(String threadNamePrefix, int threads) {
+        int count = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(threadNamePrefix, true);
+        this.shards = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory);
+        }
+        logger.debug("Task dispatcher {} started with {} thread(s)", threadNamePrefix, count);
+    }
+
+    /**
+     * 把任务交给对应的分发线程执行
+     *
+     * @param taskId 任务ID，决定使用哪个分发线程
+     * @param dispatch 分发逻辑
+     */
+    public void dispatch(String taskId, Runnable dispatch) {
+        long submitted = System.nanoTime();
+        try {
+            shards[shardOf(taskId)].execute(() -> {
+                recordLag(System.nanoTime() - submitted);
+                try {
+                    dispatch.run();
+                } catch (Exception e) {
+                    logger.error("Error dispatching task: {}", taskId, e);
+                }
+            });
+        } catch (Exception e) {
+            // 分发器已关闭
+            logger.warn("Task dispatcher rejected task {}: {}", taskId, e.getMessage());
+        }
+    }
+
+    private int shardOf(String taskId) {
+        // 乘法散列后取高位，与调度分片按低位取模的结果不相关
+        int h = taskId.hashCode() * 0x9E3779B9;
+        return (h >>> 16) % shards.length;
+    }
+
+    private void recordLag(long lagNanos) {
+        dispatchCount.increment();
+        totalLagNanos.add(lagNanos);
+        maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+
+    public int getThreadCount() {
+        return shards.length;
+    }
+
+    /**
+     * 已分发的任务数
+     */
+    public long getDispatchCount() {
+        return dispatchCount.sum();
+    }
+
+    /**
+     * 平均分发延迟（毫秒）
+     */
+    public double getAverageLagMillis() {
+        long count = dispatchCount.sum();
+        return count == 0 ? 0 : totalLagNanos.sum() / 1_000_000.0 / count;
+    }
+
+    /**
+     * 最大分发延迟（毫秒）
+     */
+    public double getMaxLagMillis() {
+        return maxLagNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * 等待分发的任务数
+     */
+    public int getQueuedCount() {
+        int queued = 0;
+        for (ExecutorService shard : shards) {
+            queued += ((ThreadPoolExecutor) shard).getQueue().size();
+        }
+        return queued;
+    }
+
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
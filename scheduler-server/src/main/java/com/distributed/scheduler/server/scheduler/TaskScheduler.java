@@ -1,37 +1,98 @@
 package com.distributed.scheduler.server.scheduler;
 
-import com.distributed.scheduler.client.model.ClientInfo;
 import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.server.manager.ClientGroup;
+import com.distributed.scheduler.server.manager.ClientLatencyTracker;
 import com.distributed.scheduler.server.manager.ClientManager;
+import com.distributed.scheduler.server.monitor.TaskStatusMonitor;
+import com.distributed.scheduler.server.scheduler.TaskTrigger.TriggerResult;
+import com.distributed.scheduler.server.scheduler.cron.CronScheduleCache;
+import com.distributed.scheduler.server.scheduler.engine.SchedulerEngineType;
+import com.distributed.scheduler.server.scheduler.result.ShardResultReducer;
+import com.distributed.scheduler.server.scheduler.result.ShardResultReducerFactory;
 import com.distributed.scheduler.server.scheduler.strategy.ClientSelectionStrategy;
 import com.distributed.scheduler.server.scheduler.strategy.ClientSelectionStrategyFactory;
-import io.netty.util.HashedWheelTimer;
-import io.netty.util.Timeout;
-import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.scheduling.support.CronExpression;
-import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 public class TaskScheduler {
     private static final Logger logger = LoggerFactory.getLogger(TaskScheduler.class);
-    private final Map<String, TaskInfo> tasks = new ConcurrentHashMap<>();
-    private final Map<String, Timeout> taskFutures = new ConcurrentHashMap<>();
-    private final HashedWheelTimer scheduler = new HashedWheelTimer(100, TimeUnit.MILLISECONDS, 1024);
+    
+    /**
+     * 单次执行结束的回调
+     */
+    @FunctionalInterface
+    public interface CompletionCallback {
+        /**
+         * @param status SUCCESS、FAILED或TIMED_OUT，未能触发时为FAILED，失败重试时为最后一次尝试的结果
+         * @param errorMsg 失败原因
+         */
+        void onCompleted(TaskStatus.Status status, String errorMsg);
+    }
+    
     private final ScheduledExecutorService heartbeatScheduler = Executors.newSingleThreadScheduledExecutor();
+    // 所有分片共享编译后的cron表达式
+    private final CronScheduleCache cronCache = new CronScheduleCache();
+    private SchedulerShard[] shards;
+    // 需要结束通知的执行，key为实例ID，广播执行时为运行ID
+    private final ConcurrentMap<String, TrackedExecution> trackedExecutions = new ConcurrentHashMap<>();
+    // 因并发上限等待的触发，QUEUE策略，key为taskId，value为计划触发时间
+    private final ConcurrentMap<String, Queue<Long>> queuedFires = new ConcurrentHashMap<>();
+    // DELAY策略的延迟触发和失败重试的退避等待
+    private final ScheduledExecutorService delayTimer = Executors.newSingleThreadScheduledExecutor(
+            new DefaultThreadFactory("dispatch-delay", true));
+    private final LongAdder concurrencySkippedCount = new LongAdder();
+    private final LongAdder concurrencyDelayedCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    
+    // 调度引擎：hashed-wheel（默认）或hierarchical-wheel
+    @Value("${scheduler.engine:hashed-wheel}")
+    private String engineName;
+    
+    // 时间轮tick（毫秒），决定调度精度，亚秒级的FIXED_RATE/FIXED_DELAY任务可调小
+    @Value("${scheduler.tick-millis:100}")
+    private long tickMillis;
+    
+    // 时间轮槽数，仅hashed-wheel引擎使用
+    @Value("${scheduler.wheel-size:1024}")
+    private int wheelSize;
+    
+    // 调度分片数，每个分片有独立的任务表、调度引擎和分发线程，0表示CPU核数
+    @Value("${scheduler.shards:1}")
+    private int shardCount;
+    
+    // 每个分片的分发线程数，0表示CPU核数平均分配到各分片
+    @Value("${scheduler.dispatch.threads:0}")
+    private int dispatchThreads;
+    
+    // QUEUE策略下每个任务最多等待的触发数
+    @Value("${scheduler.concurrency.queue-capacity:64}")
+    private int concurrencyQueueCapacity;
+    
+    // DELAY策略的重试间隔（毫秒）
+    @Value("${scheduler.concurrency.delay-millis:1000}")
+    private long concurrencyDelayMillis;
 
     @Autowired
     private ClientManager clientManager;
@@ -42,14 +103,63 @@ public class TaskScheduler {
     @Autowired
     private ClientSelectionStrategyFactory strategyFactory;
     
+    @Autowired
+    private BroadcastRunTracker broadcastRunTracker;
+    
+    @Autowired
+    private ShardResultReducerFactory shardResultReducerFactory;
+    
+    @Autowired
+    private TaskStatusMonitor taskStatusMonitor;
+    
+    @Autowired
+    private ClientLatencyTracker latencyTracker;
+    
     @PostConstruct
     public void init() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int count = shardCount > 0 ? shardCount : processors;
+        int threadsPerShard = dispatchThreads > 0 ? dispatchThreads : Math.max(1, processors / count);
+        SchedulerEngineType engineType = SchedulerEngineType.fromName(engineName);
+        shards = new SchedulerShard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new SchedulerShard(i, engineType, tickMillis, wheelSize, threadsPerShard,
+                    cronCache, this::dispatchTask);
+            shards[i].start();
+        }
+        taskTrigger.setRunningMarkListener(new TaskTrigger.RunningMarkListener() {
+            @Override
+            public void onReclaimed(RunningMark mark, TaskStatus.Status status, String reason) {
+                onRunningMarkReclaimed(mark, status, reason);
+            }
+            
+            @Override
+            public void onUnacknowledged(RunningMark mark, String reason) {
+                redeliver(mark, reason);
+            }
+            
+            @Override
+            public boolean willRetry(RunningMark mark) {
+                return retryable(getTask(mark.getTaskId()), mark);
+            }
+        });
+        logger.info("Task scheduler started with {} engine, tick: {} ms, wheel size: {}, shards: {}, dispatch threads per shard: {}",
+                engineType.getConfigName(), tickMillis, wheelSize, count, threadsPerShard);
+        
         // 启动心跳检测任务
         heartbeatScheduler.scheduleAtFixedRate(() -> {
             clientManager.cleanupTimeoutClients();
         }, 30, 60, TimeUnit.SECONDS);
     }
     
+    /**
+     * 按taskId散列选择分片
+     */
+    private SchedulerShard shardOf(String taskId) {
+        int h = taskId.hashCode();
+        return shards[Math.floorMod(h ^ (h >>> 16), shards.length)];
+    }
+    
     /**
      * 添加任务并记录注册客户端ID
      */
@@ -59,16 +169,8 @@ public class TaskScheduler {
             taskInfo.setExecutionCount(0);
         }
         
-        // 获取或创建任务
-        TaskInfo existingTask = tasks.computeIfAbsent(taskInfo.getTaskId(), k -> taskInfo);
-        
-        // 记录注册客户端
-        existingTask.addRegisteredClient(clientId);
-        
-        // 如果任务已启用且未被调度，则调度任务
-        if (existingTask.isEnabled() && !taskFutures.containsKey(existingTask.getTaskId())) {
-            scheduleTask(existingTask);
-        }
+        // 获取或创建任务，记录注册客户端，必要时开始调度
+        shardOf(taskInfo.getTaskId()).addTask(taskInfo, clientId);
         
         logger.debug("Task registered by client: taskId={}, clientId={}", taskInfo.getTaskId(), clientId);
     }
@@ -77,10 +179,9 @@ public class TaskScheduler {
      * 移除任务
      */
     public void removeTask(String taskId) {
-        tasks.remove(taskId);
-        
-        // 取消调度的任务
-        cancelTask(taskId);
+        shardOf(taskId).removeTask(taskId);
+        queuedFires.remove(taskId);
+        latencyTracker.removeTask(taskId);
         
         logger.info("Task removed: {}", taskId);
     }
@@ -90,13 +191,208 @@ public class TaskScheduler {
      */
     public void cancelTask(String taskId) {
         // 取消调度的任务
-        Timeout timeout = taskFutures.remove(taskId);
-        if (timeout != null) {
-            timeout.cancel();
+        if (shardOf(taskId).cancelTask(taskId)) {
             logger.info("Task schedule cancelled: {}", taskId);
         }
     }
     
+    /**
+     * 任务执行完成（成功或失败），FIXED_DELAY任务从此时开始计算下一次触发，QUEUE策略等待的触发开始执行
+     */
+    public void notifyTaskCompleted(String taskId) {
+        if (taskId == null) return;
+        shardOf(taskId).onTaskCompleted(taskId);
+        // 释放了并发槽，触发因并发上限等待的触发
+        dispatchQueuedFires(taskId);
+    }
+    
+    /**
+     * 任务实例执行完成，没有成功时按重试策略安排重试，否则通知等待该实例的回调，FIXED_DELAY任务从此时开始计算下一次触发
+     *
+     * @param mark 实例被移除的运行标记
+     */
+    public void notifyTaskCompleted(TaskStatus status, RunningMark mark) {
+        // 按运行标记上的客户端记录，重投后为实际执行实例的客户端
+        latencyTracker.record(mark.getTaskId(), mark.getClientId(),
+                status.getStatus() == TaskStatus.Status.SUCCESS, status.getExecutionTime());
+        if (status.getStatus() != TaskStatus.Status.SUCCESS && scheduleRetry(mark, status.getErrorMsg())) {
+            return;
+        }
+        TrackedExecution execution = trackedExecutions.remove(mark.getInstanceId());
+        if (execution != null) {
+            execution.complete(status.getStatus(), status.getErrorMsg());
+        }
+        notifyTaskCompleted(status.getTaskId());
+    }
+    
+    /**
+     * 运行标记因租约到期、执行超时或客户端断开被回收，实例按失败或超时处理
+     * 广播运行把未结束的分片标记为失败，超时时通知各分片的客户端中断执行；
+     * 其他实例通知等待的回调并释放等待的触发
+     */
+    private void onRunningMarkReclaimed(RunningMark mark, TaskStatus.Status status, String reason) {
+        if (mark.isBroadcastRun()) {
+            BroadcastRun active = broadcastRunTracker.getRun(mark.getInstanceId());
+            if (active != null) {
+                for (BroadcastRun.Shard shard : active.getShards()) {
+                    if (shard.isTerminal() || shard.getInstanceId() == null) {
+                        continue;
+                    }
+                    recordReclaimed(shard.getInstanceId(), status, reason);
+                    if (status == TaskStatus.Status.TIMED_OUT) {
+                        taskTrigger.cancelInstance(shard.getClientId(), mark.getTaskId(), shard.getInstanceId(), reason);
+                    }
+                }
+            }
+            BroadcastRun run = broadcastRunTracker.failRun(mark.getInstanceId(), status, reason);
+            if (run != null) {
+                onBroadcastRunFinished(run);
+            }
+            return;
+        }
+        // 执行超时时耗时至少为已运行的时间，租约到期或客户端断开时耗时未知，只计为失败
+        long executionTime = recordReclaimed(mark.getInstanceId(), status, reason);
+        latencyTracker.record(mark.getTaskId(), mark.getClientId(), false,
+                status == TaskStatus.Status.TIMED_OUT ? executionTime : -1);
+        if (scheduleRetry(mark, reason)) {
+            return;
+        }
+        TrackedExecution execution = trackedExecutions.remove(mark.getInstanceId());
+        if (execution != null) {
+            execution.complete(status, reason);
+        }
+        notifyTaskCompleted(mark.getTaskId());
+    }
+    
+    /**
+     * 在分发线程中把未确认的触发重投到分组内的其他客户端，分组内只有原客户端时仍投递给它
+     */
+    private void redeliver(RunningMark mark, String reason) {
+        String taskId = mark.getTaskId();
+        SchedulerShard shard = shardOf(taskId);
+        shard.getDispatcher().dispatch(taskId, () -> {
+            TaskInfo taskInfo = shard.getTask(taskId);
+            if (taskInfo == null) {
+                taskTrigger.failUndelivered(mark, reason + ", task removed before redelivery");
+                return;
+            }
+            ClientGroup candidates = clientManager.getClientsByGroup(taskInfo.getTaskGroup());
+            if (candidates.size() > 1) {
+                candidates = candidates.without(mark.getClientId());
+            }
+            ClientSelectionStrategy strategy = strategyOf(taskInfo);
+            while (!candidates.isEmpty()) {
+                String clientId = strategy.selectClient(candidates, taskInfo);
+                if (clientId == null) {
+                    break;
+                }
+                if (taskTrigger.redeliver(taskInfo, mark, clientId)) {
+                    return;
+                }
+                candidates = candidates.without(clientId);
+            }
+            taskTrigger.failUndelivered(mark, reason + ", no available client to redeliver");
+        });
+    }
+    
+    /**
+     * 非广播实例失败、超时或被回收后按任务的重试策略安排重试，重试继承实例的结束通知
+     *
+     * @return 已安排重试时返回true，此时实例不算结束
+     */
+    private boolean scheduleRetry(RunningMark mark, String reason) {
+        TaskInfo taskInfo = getTask(mark.getTaskId());
+        if (!retryable(taskInfo, mark)) {
+            // 结束时判断会重试而保留了并发槽，之后任务被删除等原因不再重试时释放
+            taskTrigger.releaseRetainedSlot(mark);
+            return false;
+        }
+        int attempt = mark.getAttempt() + 1;
+        long delay = retryDelayMillis(taskInfo, mark.getAttempt());
+        TrackedExecution execution = trackedExecutions.remove(mark.getInstanceId());
+        String excludedClientId = taskInfo.isRetryOnOtherClient() ? mark.getClientId() : null;
+        retryCount.increment();
+        logger.info("Task {} instance {} failed on client {} (attempt {}/{}): {}, retrying in {} ms",
+                taskInfo.getTaskName(), mark.getInstanceId(), mark.getClientId(), mark.getAttempt(),
+                taskInfo.getMaxAttempts(), reason, delay);
+        delayTimer.schedule(() -> retry(taskInfo, mark, attempt, excludedClientId, execution),
+                delay, TimeUnit.MILLISECONDS);
+        return true;
+    }
+    
+    private static boolean retryable(TaskInfo taskInfo, RunningMark mark) {
+        return taskInfo != null && !taskInfo.isBroadcast() && mark.getAttempt() < taskInfo.getMaxAttempts();
+    }
+    
+    /**
+     * 在分发线程中重新触发失败的实例，未能触发时本次执行按失败结束
+     */
+    private void retry(TaskInfo taskInfo, RunningMark failed, int attempt, String excludedClientId,
+                       TrackedExecution execution) {
+        String taskId = taskInfo.getTaskId();
+        SchedulerShard shard = shardOf(taskId);
+        shard.getDispatcher().dispatch(taskId, () -> {
+            // 退避期间保留的并发槽交给本次触发，同一任务的触发都在这个分发线程中，释放后不会被其他触发抢先占用
+            taskTrigger.releaseRetainedSlot(failed);
+            String error = null;
+            if (shard.getTask(taskId) != taskInfo) {
+                error = "Task removed before retry";
+            } else if (!taskTrigger.hasCapacity(taskInfo)) {
+                error = "Task reached its concurrency limit";
+            } else {
+                error = errorOf(invokeTask(taskInfo, failed.getScheduledFireTime(), failed.getParams(), execution,
+                        attempt, excludedClientId));
+            }
+            if (error != null) {
+                logger.warn("Retry {} of task {} abandoned: {}", attempt, taskInfo.getTaskName(), error);
+                if (execution != null) {
+                    execution.complete(TaskStatus.Status.FAILED, error);
+                }
+                notifyTaskCompleted(taskId);
+            }
+        });
+    }
+    
+    /**
+     * 计算第failedAttempt次尝试失败后的重试等待时间，指数退避并在一半到全部之间随机，避免同时失败的实例同时重试
+     */
+    static long retryDelayMillis(TaskInfo taskInfo, int failedAttempt) {
+        long max = taskInfo.getRetryMaxBackoffMillis() > 0 ? taskInfo.getRetryMaxBackoffMillis() : Long.MAX_VALUE;
+        long delay = Math.min(Math.max(0, taskInfo.getRetryBackoffMillis()), max);
+        for (int i = 1; i < failedAttempt && delay < max; i++) {
+            delay = delay > max / 2 ? max : delay * 2;
+        }
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay - delay / 2 + 1);
+    }
+    
+    /**
+     * 在状态监控中把已上报运行中的实例记录为回收时的结束状态
+     *
+     * @return 从开始运行到回收的时间，实例未上报过运行中时返回-1
+     */
+    private long recordReclaimed(String instanceId, TaskStatus.Status status, String reason) {
+        TaskStatus current = taskStatusMonitor.getTaskStatus(instanceId);
+        if (current == null || current.isTerminal()) {
+            return -1;
+        }
+        TaskStatus reclaimed = current.copy();
+        reclaimed.setStatus(status);
+        reclaimed.setErrorMsg(reason);
+        reclaimed.setEndTime(new Date());
+        if (reclaimed.getStartTime() != null) {
+            reclaimed.setExecutionTime(reclaimed.getEndTime().getTime() - reclaimed.getStartTime().getTime());
+        }
+        taskStatusMonitor.updateTaskStatus(reclaimed);
+        return reclaimed.getStartTime() != null ? reclaimed.getExecutionTime() : -1;
+    }
+    
+    /**
+     * 获取任务信息
+     */
+    public TaskInfo getTask(String taskId) {
+        return shardOf(taskId).getTask(taskId);
+    }
+    
     /**
      * 根据客户端ID取消该客户端注册的所有任务
      */
@@ -105,146 +401,537 @@ public class TaskScheduler {
         
         logger.info("Cancelling tasks registered by client: {}", clientId);
         
-        // 遍历所有任务
-        for (Map.Entry<String, TaskInfo> entry : tasks.entrySet()) {
-            TaskInfo taskInfo = entry.getValue();
-            
-            // 如果任务包含该客户端的注册信息
-            if (taskInfo.isClientRegistered(clientId)) {
-                // 移除客户端的注册记录
-                taskInfo.removeRegisteredClient(clientId);
-                
-                // 如果任务没有其他注册客户端，取消任务调度
-                if (taskInfo.getRegisteredClientCount() == 0) {
-                    cancelTask(taskInfo.getTaskId());
-                    logger.info("Task cancelled because no clients registered: {}", taskInfo.getTaskId());
+        // 遍历所有分片的任务
+        for (SchedulerShard shard : shards) {
+            for (TaskInfo taskInfo : shard.getTasks().values()) {
+                // 如果任务包含该客户端的注册信息
+                if (taskInfo.isClientRegistered(clientId)) {
+                    // 移除客户端的注册记录
+                    taskInfo.removeRegisteredClient(clientId);
+                    
+                    // 如果任务没有其他注册客户端，取消任务调度
+                    if (taskInfo.getRegisteredClientCount() == 0) {
+                        cancelTask(taskInfo.getTaskId());
+                        logger.info("Task cancelled because no clients registered: {}", taskInfo.getTaskId());
+                    }
                 }
             }
         }
     }
-    
+
+    /**
+     * 在分发线程中触发任务
+     *
+     * @return 触发消息已发出或已按并发策略处理时返回true
+     */
+    private boolean dispatchTask(TaskInfo taskInfo, long scheduledFireTime) {
+        // 同一任务总在同一个分发线程中触发，检查之后不会被其他触发抢先占用并发槽
+        if (!taskTrigger.hasCapacity(taskInfo)) {
+            onConcurrencyLimit(taskInfo, scheduledFireTime);
+            return true;
+        }
+        TriggerResult result = invokeTask(taskInfo, scheduledFireTime, null);
+        if (result == TriggerResult.CONCURRENCY_LIMITED) {
+            onConcurrencyLimit(taskInfo, scheduledFireTime);
+            return true;
+        }
+        return result == TriggerResult.SENT;
+    }
+
     /**
-     * 调度任务
+     * 任务达到并发上限时按任务的并发策略处理本次触发
      */
-    private void scheduleTask(TaskInfo taskInfo) {
+    private void onConcurrencyLimit(TaskInfo taskInfo, long scheduledFireTime) {
         String taskId = taskInfo.getTaskId();
-        
-        try {
-            if (!StringUtils.hasText(taskInfo.getCronExpression())) return;
-            // 解析cron表达式
-            CronExpression cronExpression = CronExpression.parse(taskInfo.getCronExpression());
-            
-            // 计算下次执行时间
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime nextExecutionTime = cronExpression.next(now);
-            
-            if (nextExecutionTime == null) {
-                logger.warn("Invalid cron expression for task: {}", taskId);
+        TaskInfo.ConcurrencyPolicy policy = taskInfo.getConcurrencyPolicy() != null
+                ? taskInfo.getConcurrencyPolicy() : TaskInfo.ConcurrencyPolicy.SKIP;
+        switch (policy) {
+            case QUEUE:
+                Queue<Long> queue = queuedFires.computeIfAbsent(taskId,
+                        k -> new ArrayBlockingQueue<>(concurrencyQueueCapacity));
+                if (!queue.offer(scheduledFireTime)) {
+                    concurrencySkippedCount.increment();
+                    logger.warn("Concurrency queue of task {} is full ({}), trigger skipped",
+                            taskInfo.getTaskName(), concurrencyQueueCapacity);
+                    return;
+                }
+                logger.debug("Task {} reached its concurrency limit, trigger queued, waiting: {}", taskId, queue.size());
+                // 入队期间已有实例结束时主动触发，避免等到下一次结束通知
+                if (taskTrigger.hasCapacity(taskInfo)) {
+                    dispatchQueuedFires(taskId);
+                }
                 return;
-            }
-            
-            // 计算延迟时间
-            long delay = Duration.between(now, nextExecutionTime).toMillis();
-            
-            // 调度任务执行
-            Timeout timeout = scheduler.newTimeout(new TimerTask() {
-                @Override
-                public void run(Timeout timeout) throws Exception {
-                    try {
-                        if (taskInfo.isOneRunning()) {
-                            // 检查任务是否已经在运行，如果在运行则不触发
-                            if (!taskTrigger.isTaskRunning(taskId)) {
-                                invokeTask(taskInfo);
-                            }
-                        } else {
-                            invokeTask(taskInfo);
+            case DELAY:
+                long delay = concurrencyDelayMillis;
+                if (System.currentTimeMillis() + delay - scheduledFireTime <= taskInfo.getMisfireThreshold()) {
+                    concurrencyDelayedCount.increment();
+                    logger.debug("Task {} reached its concurrency limit, retrying in {} ms", taskId, delay);
+                    delayTimer.schedule(() -> {
+                        // 任务已删除时放弃重试
+                        SchedulerShard shard = shardOf(taskId);
+                        if (shard.getTask(taskId) == taskInfo) {
+                            shard.dispatch(taskInfo, scheduledFireTime);
                         }
+                    }, delay, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                concurrencySkippedCount.increment();
+                logger.debug("Task {} still at its concurrency limit after misfire threshold, trigger skipped", taskId);
+                return;
+            default:
+                concurrencySkippedCount.increment();
+                logger.debug("Task {} reached its concurrency limit, trigger skipped", taskId);
+        }
+    }
 
-                        // 任务执行完成后，重新调度下一次执行
-                        scheduleTask(taskInfo);
-
-                    } catch (Exception e) {
-                        logger.error("Error scheduling task: {}", taskId, e);
-                        // 发生异常时，重新调度下一次执行
-                        scheduleTask(taskInfo);
-                    }
+    /**
+     * 有实例结束后在分发线程中依次触发等待的触发，直到再次达到并发上限
+     */
+    private void dispatchQueuedFires(String taskId) {
+        Queue<Long> queue = queuedFires.get(taskId);
+        if (queue == null || queue.isEmpty()) {
+            return;
+        }
+        SchedulerShard shard = shardOf(taskId);
+        TaskInfo taskInfo = shard.getTask(taskId);
+        if (taskInfo == null) {
+            queuedFires.remove(taskId);
+            return;
+        }
+        shard.getDispatcher().dispatch(taskId, () -> {
+            Long scheduledFireTime;
+            while (taskTrigger.hasCapacity(taskInfo) && (scheduledFireTime = queue.poll()) != null) {
+                TriggerResult result = invokeTask(taskInfo, scheduledFireTime, null);
+                if (result == TriggerResult.CONCURRENCY_LIMITED) {
+                    // 重新按并发策略排队，等待下一次实例结束
+                    onConcurrencyLimit(taskInfo, scheduledFireTime);
+                    return;
                 }
-            }, delay, TimeUnit.MILLISECONDS);
-            
-            // 保存任务的Timeout对象，以便后续可以取消调度
-            taskFutures.put(taskId, timeout);
-            
-            logger.debug("Task scheduled: {}, next execution at: {}", taskId, nextExecutionTime);
-            
-        } catch (Exception e) {
-            logger.error("Error parsing cron expression for task: {}", taskId, e);
+                if (result != TriggerResult.SENT) {
+                    logger.warn("Queued trigger of task {} could not be sent", taskInfo.getTaskName());
+                }
+            }
+        });
+    }
+
+    /**
+     * 在任务所在分片的分发线程中触发一次任务，不影响任务的周期调度
+     *
+     * @param params 本次执行覆盖的任务参数，为空时使用客户端本地的任务参数
+     * @param onRejected 任务达到并发上限或触发失败时在分发线程中回调
+     * @return 任务不存在时返回false
+     */
+    public boolean triggerOnce(String taskId, long scheduledFireTime, Map<String, Object> params, Runnable onRejected) {
+        SchedulerShard shard = shardOf(taskId);
+        TaskInfo taskInfo = shard.getTask(taskId);
+        if (taskInfo == null) {
+            return false;
         }
+        shard.getDispatcher().dispatch(taskId, () -> {
+            if (!taskTrigger.hasCapacity(taskInfo)
+                    || invokeTask(taskInfo, scheduledFireTime, params) != TriggerResult.SENT) {
+                onRejected.run();
+            }
+        });
+        return true;
     }
 
     /**
-     * 执行任务调度
+     * 在任务所在分片的分发线程中立即触发一次任务，执行结束或未能触发时回调，回调只会执行一次
+     *
+     * @param params 本次执行覆盖的任务参数，为空时使用客户端本地的任务参数
+     * @return 任务不存在时返回false，此时不会回调
      */
-    private void invokeTask(TaskInfo taskInfo) {
-        // 查找对应分组的客户端
-        Map<String, ClientInfo> clientMap = clientManager.getClientsByGroup(taskInfo.getTaskGroup());
-        if (!clientMap.isEmpty()) {
-            // 获取任务指定的调度策略，如果未指定则使用默认的轮询策略
-            String strategyName = taskInfo.getScheduleStrategy();
-            if (strategyName == null || strategyName.trim().isEmpty()) {
-                strategyName = "roundRobin";
-                logger.debug("Task {} did not specify a scheduling strategy, using default: roundRobin", taskInfo.getTaskId());
+    public boolean triggerTracked(String taskId, Map<String, Object> params, CompletionCallback callback) {
+        SchedulerShard shard = shardOf(taskId);
+        TaskInfo taskInfo = shard.getTask(taskId);
+        if (taskInfo == null) {
+            return false;
+        }
+        TrackedExecution execution = new TrackedExecution(callback);
+        shard.getDispatcher().dispatch(taskId, () -> {
+            // 同一任务总在同一个分发线程中触发，检查之后不会被其他触发抢先占用并发槽
+            String error = !taskTrigger.hasCapacity(taskInfo) ? "Task reached its concurrency limit"
+                    : errorOf(invokeTask(taskInfo, System.currentTimeMillis(), params, execution));
+            if (error != null) {
+                execution.complete(TaskStatus.Status.FAILED, error);
             }
+        });
+        return true;
+    }
+
+    private TriggerResult invokeTask(TaskInfo taskInfo, long scheduledFireTime, Map<String, Object> params) {
+        return invokeTask(taskInfo, scheduledFireTime, params, null);
+    }
+
+    private TriggerResult invokeTask(TaskInfo taskInfo, long scheduledFireTime, Map<String, Object> params,
+                                     TrackedExecution execution) {
+        return invokeTask(taskInfo, scheduledFireTime, params, execution, 1, null);
+    }
+
+    /**
+     * 没有发出的触发对应的失败原因，已发出时返回null
+     */
+    private static String errorOf(TriggerResult result) {
+        switch (result) {
+            case SENT:
+                return null;
+            case CONCURRENCY_LIMITED:
+                return "Task reached its concurrency limit";
+            default:
+                return "No available client";
+        }
+    }
+
+    /**
+     * 执行任务调度
+     *
+     * @param execution 需要结束通知时不为null
+     * @param attempt 第几次尝试，从1开始
+     * @param excludedClientId 失败重试时优先排除的客户端，分组内没有其他可选客户端时仍可选择
+     * @return 触发结果，没有发出时execution不会被记录，由调用方结束
+     */
+    private TriggerResult invokeTask(TaskInfo taskInfo, long scheduledFireTime, Map<String, Object> params,
+                                     TrackedExecution execution, int attempt, String excludedClientId) {
+        // 查找对应分组的在线客户端
+        ClientGroup clientGroup = clientManager.getClientsByGroup(taskInfo.getTaskGroup());
+        if (taskInfo.isBroadcast()) {
+            return broadcastTask(taskInfo, scheduledFireTime, params, clientGroup, execution);
+        }
+        if (!clientGroup.isEmpty()) {
+            ClientSelectionStrategy strategy = strategyOf(taskInfo);
             
-            // 获取对应的调度策略
-            ClientSelectionStrategy strategy = strategyFactory.getStrategy(strategyName);
+            // 使用策略选择客户端，重试时先在排除上次失败的客户端后的候选中选择
+            ClientGroup candidates = clientGroup;
+            String clientId = null;
+            if (excludedClientId != null && clientGroup.size() > 1 && clientGroup.contains(excludedClientId)) {
+                candidates = clientGroup.without(excludedClientId);
+                clientId = strategy.selectClient(candidates, taskInfo);
+            }
+            if (clientId == null) {
+                candidates = clientGroup;
+                clientId = strategy.selectClient(clientGroup, taskInfo);
+            }
             
-            // 使用策略选择客户端
-            String clientId = strategy.selectClient(clientMap, taskInfo);
+            if (clientId == null) {
+                logger.warn("No client selected for task: {}", taskInfo.getTaskName());
+                return TriggerResult.UNAVAILABLE;
+            }
             
-            if (clientId != null) {
-                // 触发任务
-                taskTrigger.triggerTask(taskInfo, clientId);
+            // 触发任务，客户端积压或不可用时按溢出策略处理，达到并发上限时改派也无法发送
+            TriggerResult result;
+            while ((result = trigger(taskInfo, clientId, scheduledFireTime, params, execution, attempt))
+                    == TriggerResult.UNAVAILABLE) {
+                if (taskInfo.getOverflowPolicy() == TaskInfo.OverflowPolicy.REJECT) {
+                    logger.warn("Trigger of task {} rejected by client {}, overflow policy is REJECT",
+                            taskInfo.getTaskName(), clientId);
+                    return TriggerResult.UNAVAILABLE;
+                }
+                // 排除已失败的客户端后重新选择
+                candidates = candidates.without(clientId);
+                clientId = candidates.isEmpty() ? null : strategy.selectClient(candidates, taskInfo);
+                if (clientId == null) {
+                    logger.warn("No available client to reroute task: {}", taskInfo.getTaskName());
+                    return TriggerResult.UNAVAILABLE;
+                }
+                logger.debug("Rerouting task {} to client {}", taskInfo.getTaskName(), clientId);
+            }
+            return result;
+        }
+        return TriggerResult.UNAVAILABLE;
+    }
+
+    /**
+     * 获取任务指定的调度策略，如果未指定则使用默认的轮询策略
+     */
+    private ClientSelectionStrategy strategyOf(TaskInfo taskInfo) {
+        String strategyName = taskInfo.getScheduleStrategy();
+        if (strategyName == null || strategyName.trim().isEmpty()) {
+            strategyName = "roundRobin";
+            logger.debug("Task {} did not specify a scheduling strategy, using default: roundRobin", taskInfo.getTaskId());
+        }
+        return strategyFactory.getStrategy(strategyName);
+    }
+
+    /**
+     * 触发任务，需要结束通知时在发送前按实例ID记录
+     */
+    private TriggerResult trigger(TaskInfo taskInfo, String clientId, long scheduledFireTime, Map<String, Object> params,
+                                  TrackedExecution execution, int attempt) {
+        String instanceId = UUID.randomUUID().toString();
+        if (execution != null) {
+            trackedExecutions.put(instanceId, execution);
+        }
+        TriggerResult result = taskTrigger.triggerTask(taskInfo, clientId, scheduledFireTime, params, instanceId, attempt);
+        if (result != TriggerResult.SENT && execution != null) {
+            trackedExecutions.remove(instanceId);
+        }
+        return result;
+    }
+
+    /**
+     * 广播执行，分组内每个在线客户端执行一个分片，所有分片作为一次逻辑运行跟踪
+     *
+     * @param execution 需要结束通知时不为null，按运行ID记录，整个运行结束时通知
+     * @return 至少一个分片发送成功时返回SENT，此时运行已记录，所有分片结束时通知execution
+     */
+    private TriggerResult broadcastTask(TaskInfo taskInfo, long scheduledFireTime, Map<String, Object> params,
+                                        ClientGroup clientGroup, TrackedExecution execution) {
+        // 快照只包含在线客户端并按clientId排序，客户端不变时分片分配稳定
+        if (clientGroup.isEmpty()) {
+            logger.warn("No online client to broadcast task: {}", taskInfo.getTaskName());
+            return TriggerResult.UNAVAILABLE;
+        }
+        
+        // 整个逻辑运行使用一个运行标记，设置了并发上限的任务占用一个并发槽，所有分片结束后释放
+        String runId = UUID.randomUUID().toString();
+        if (!taskTrigger.startBroadcastRun(taskInfo, runId, scheduledFireTime)) {
+            logger.debug("Task {} reached its concurrency limit, broadcast not started", taskInfo.getTaskId());
+            return TriggerResult.CONCURRENCY_LIMITED;
+        }
+        
+        int shardTotal = clientGroup.size();
+        ShardResultReducer reducer = null;
+        if (taskInfo.getResultReducer() != null) {
+            reducer = shardResultReducerFactory.getReducer(taskInfo.getResultReducer());
+            if (reducer == null) {
+                logger.warn("Unknown result reducer {} for task: {}, results will not be collected",
+                        taskInfo.getResultReducer(), taskInfo.getTaskName());
+            }
+        }
+        BroadcastRun run = new BroadcastRun(runId, taskInfo.getTaskId(), scheduledFireTime, shardTotal, reducer);
+        if (execution != null) {
+            trackedExecutions.put(run.getRunId(), execution);
+        }
+        broadcastRunTracker.start(run);
+        
+        int sent = 0;
+        boolean finished = false;
+        for (int shardIndex = 0; shardIndex < shardTotal; shardIndex++) {
+            if (sendShard(taskInfo, scheduledFireTime, params, run, shardIndex, clientGroup)) {
+                sent++;
             } else {
-                logger.warn("No client selected for task: {}", taskInfo.getTaskName());
+                finished |= run.updateShard(shardIndex, null, TaskStatus.Status.FAILED, "No available client");
+            }
+        }
+        logger.debug("Task {} broadcast as run {}, shards: {}, sent: {}", taskInfo.getTaskName(), run.getRunId(), shardTotal, sent);
+        if (finished) {
+            onBroadcastRunFinished(run);
+        }
+        return sent > 0 ? TriggerResult.SENT : TriggerResult.UNAVAILABLE;
+    }
+    
+    /**
+     * 发送一个分片，优先发送到序号对应的客户端，失败时按溢出策略依次改派到其他客户端
+     */
+    private boolean sendShard(TaskInfo taskInfo, long scheduledFireTime, Map<String, Object> params,
+                              BroadcastRun run, int shardIndex, ClientGroup clientGroup) {
+        int attempts = taskInfo.getOverflowPolicy() == TaskInfo.OverflowPolicy.REJECT ? 1 : clientGroup.size();
+        for (int i = 0; i < attempts; i++) {
+            String clientId = clientGroup.getClientId((shardIndex + i) % clientGroup.size());
+            String instanceId = UUID.randomUUID().toString();
+            run.shardTriggered(shardIndex, instanceId, clientId);
+            if (taskTrigger.triggerShard(taskInfo, clientId, scheduledFireTime, params, instanceId,
+                    run.getRunId(), shardIndex, run.getShardTotal())) {
+                return true;
             }
         }
+        logger.warn("Shard {} of task {} could not be sent to any client", shardIndex, taskInfo.getTaskName());
+        return false;
+    }
+    
+    /**
+     * 广播运行的所有分片结束后移除运行标记并释放并发槽，FIXED_DELAY任务开始计算下一次触发
+     */
+    public void onBroadcastRunFinished(BroadcastRun run) {
+        broadcastRunTracker.finish(run);
+        taskTrigger.complete(run.getRunId());
+        notifyTaskCompleted(run.getTaskId());
+        TrackedExecution execution = trackedExecutions.remove(run.getRunId());
+        if (execution != null) {
+            execution.complete(run.getStatus(), run.getFailedShards() == 0 ? null
+                    : run.getFailedShards() + "/" + run.getShardTotal() + " shard(s) failed");
+        }
+        logger.debug("Broadcast run {} of task {} finished: {}, failed shards: {}/{}, results: {}",
+                run.getRunId(), run.getTaskId(), run.getStatus(), run.getFailedShards(), run.getShardTotal(),
+                run.getResultCount());
+        if (run.getReduceError() != null) {
+            logger.warn("Result reduction of broadcast run {} of task {} failed: {}",
+                    run.getRunId(), run.getTaskId(), run.getReduceError());
+        }
+    }
+
+    /**
+     * 获取调度分片数
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * 获取所有分片的分发线程数
+     */
+    public int getDispatchThreadCount() {
+        int threads = 0;
+        for (SchedulerShard shard : shards) {
+            threads += shard.getDispatcher().getThreadCount();
+        }
+        return threads;
+    }
+
+    /**
+     * 获取所有分片等待分发的任务数
+     */
+    public int getDispatchQueuedCount() {
+        int queued = 0;
+        for (SchedulerShard shard : shards) {
+            queued += shard.getDispatcher().getQueuedCount();
+        }
+        return queued;
+    }
+
+    /**
+     * 获取所有分片的平均分发延迟（毫秒）
+     */
+    public double getDispatchLagAvgMillis() {
+        long count = 0;
+        double total = 0;
+        for (SchedulerShard shard : shards) {
+            TaskDispatcher dispatcher = shard.getDispatcher();
+            count += dispatcher.getDispatchCount();
+            total += dispatcher.getAverageLagMillis() * dispatcher.getDispatchCount();
+        }
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * 获取所有分片的最大分发延迟（毫秒）
+     */
+    public double getDispatchLagMaxMillis() {
+        double max = 0;
+        for (SchedulerShard shard : shards) {
+            max = Math.max(max, shard.getDispatcher().getMaxLagMillis());
+        }
+        return max;
+    }
+
+    /**
+     * 获取错过触发的次数
+     */
+    public long getMisfireCount() {
+        long count = 0;
+        for (SchedulerShard shard : shards) {
+            count += shard.getMisfireCount();
+        }
+        return count;
+    }
+
+    /**
+     * 获取所有分片的平均tick延迟（毫秒）
+     */
+    public double getTickLatenessAvgMillis() {
+        long count = 0;
+        double total = 0;
+        for (SchedulerShard shard : shards) {
+            count += shard.getFireCount();
+            total += shard.getAverageLatenessMillis() * shard.getFireCount();
+        }
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * 获取所有分片的最大tick延迟（毫秒）
+     */
+    public long getTickLatenessMaxMillis() {
+        long max = 0;
+        for (SchedulerShard shard : shards) {
+            max = Math.max(max, shard.getMaxLatenessMillis());
+        }
+        return max;
+    }
+
+    /**
+     * 获取因并发上限被跳过的触发次数
+     */
+    public long getConcurrencySkippedCount() {
+        return concurrencySkippedCount.sum();
+    }
+
+    /**
+     * 获取因并发上限延迟重试的次数
+     */
+    public long getConcurrencyDelayedCount() {
+        return concurrencyDelayedCount.sum();
+    }
+
+    /**
+     * 获取失败后安排重试的次数
+     */
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    /**
+     * 获取因并发上限等待的触发数
+     */
+    public int getConcurrencyQueuedCount() {
+        int queued = 0;
+        for (Queue<Long> queue : queuedFires.values()) {
+            queued += queue.size();
+        }
+        return queued;
     }
 
     /**
      * 获取所有任务
      */
     public Map<String, TaskInfo> getAllTasks() {
-        return new ConcurrentHashMap<>(tasks);
+        Map<String, TaskInfo> allTasks = new ConcurrentHashMap<>();
+        for (SchedulerShard shard : shards) {
+            allTasks.putAll(shard.getTasks());
+        }
+        return allTasks;
     }
     
     /**
      * 获取任务总数
      */
     public int getTaskCount() {
-        return tasks.size();
+        int count = 0;
+        for (SchedulerShard shard : shards) {
+            count += shard.getTasks().size();
+        }
+        return count;
     }
     
     /**
      * 获取启用的任务数量
      */
     public int getEnabledTaskCount() {
-        return (int) tasks.values().stream().filter(TaskInfo::isEnabled).count();
+        int count = 0;
+        for (SchedulerShard shard : shards) {
+            count += (int) shard.getTasks().values().stream().filter(TaskInfo::isEnabled).count();
+        }
+        return count;
     }
     
     /**
      * 获取禁用的任务数量
      */
     public int getDisabledTaskCount() {
-        return (int) tasks.values().stream().filter(task -> !task.isEnabled()).count();
+        return getTaskCount() - getEnabledTaskCount();
     }
     
     /**
-     * 组件销毁时关闭HashedWheelTimer
+     * 组件销毁时关闭所有分片
      */
     @PreDestroy
     public void destroy() {
-        scheduler.stop();
+        for (SchedulerShard shard : shards) {
+            shard.stop();
+        }
         heartbeatScheduler.shutdown();
+        delayTimer.shutdownNow();
         logger.info("TaskScheduler destroyed and resources released");
     }
-}
\ No newline at end of file
+}
@@ -1,112 +1,805 @@
 package com.distributed.scheduler.server.scheduler;
 
+import com.distributed.scheduler.client.model.TaskCancelRequest;
 import com.distributed.scheduler.client.model.TaskInfo;
 import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.client.model.TriggerRequest;
 import com.distributed.scheduler.client.protocol.Message;
 import com.distributed.scheduler.client.protocol.MessageType;
+import com.distributed.scheduler.client.protocol.ProtocolVersion;
+import com.distributed.scheduler.server.manager.ClientManager;
 import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class TaskTrigger {
     private static final Logger logger = LoggerFactory.getLogger(TaskTrigger.class);
+    
+    // 客户端注册时声明的协议版本
+    private static final AttributeKey<Integer> PROTOCOL_VERSION = AttributeKey.valueOf("schedulerProtocolVersion");
+    
+    /**
+     * 触发结果
+     */
+    public enum TriggerResult {
+        // 触发消息已发出或已进入待发送队列
+        SENT,
+        // 任务已达到并发上限，没有发送，调用方按任务的并发策略处理
+        CONCURRENCY_LIMITED,
+        // 客户端通道不可用或待发送队列已满，调用方可按任务的溢出策略改派其他客户端
+        UNAVAILABLE
+    }
+    
+    /**
+     * 运行标记的回调
+     */
+    public interface RunningMarkListener {
+        /**
+         * 运行标记被回收
+         *
+         * @param status 实例的结束状态，执行超时为TIMED_OUT，其他为FAILED
+         * @param reason 回收原因，租约到期、执行超时、未确认或客户端断开
+         */
+        void onReclaimed(RunningMark mark, TaskStatus.Status status, String reason);
+        
+        /**
+         * 客户端在确认超时内没有确认收到触发或在确认前断开，调用方选择客户端后通过
+         * {@link TaskTrigger#redeliver}重投，无法重投时调用{@link TaskTrigger#failUndelivered}
+         */
+        void onUnacknowledged(RunningMark mark, String reason);
+        
+        /**
+         * 实例没有成功结束时是否会安排重试，会重试时占用的并发槽保留给重试，
+         * 避免退避期间被其他触发占用，重试触发前调用{@link TaskTrigger#releaseRetainedSlot}
+         */
+        boolean willRetry(RunningMark mark);
+    }
+    
     // 保存连接的客户端通道
     private final ConcurrentMap<String, Channel> clientChannels = new ConcurrentHashMap<>();
-    // 跟踪正在执行的任务，对于oneRunning=true的任务，只需要跟踪taskId
-    private final ConcurrentMap<String, Boolean> runningTasks = new ConcurrentHashMap<>();
+    // 设置了并发上限的任务已触发但尚未结束的实例数，oneRunning=true的任务上限为1
+    private final ConcurrentMap<String, AtomicInteger> runningCounts = new ConcurrentHashMap<>();
+    // 已触发但尚未结束的实例的运行标记，key为实例ID，广播执行时为运行ID
+    private final ConcurrentMap<String, RunningMark> runningMarks = new ConcurrentHashMap<>();
+    private final AtomicLong reclaimedCount = new AtomicLong();
+    private final AtomicLong timedOutCount = new AtomicLong();
+    // 已发送但客户端尚未确认收到的触发，key为实例ID
+    private final ConcurrentMap<String, RunningMark> pendingAcks = new ConcurrentHashMap<>();
+    private final AtomicLong redeliveredCount = new AtomicLong();
+    private HashedWheelTimer leaseTimer;
+    private volatile RunningMarkListener runningMarkListener;
+    // 客户端通道不可写时积压的触发消息，每个客户端一个有界队列
+    private final ConcurrentMap<String, Queue<PendingTrigger>> pendingTriggers = new ConcurrentHashMap<>();
+    private final AtomicLong rejectedTriggerCount = new AtomicLong();
+    // 旧版本客户端的实例对应关系，key为客户端ID
+    private final ConcurrentMap<String, LegacyInstances> legacyInstances = new ConcurrentHashMap<>();
+    
+    @Autowired
+    private ClientManager clientManager;
+    
+    // 每个客户端待发送队列的容量
+    @Value("${scheduler.trigger.pending-queue-capacity:1024}")
+    private int pendingQueueCapacity;
+    
+    // 运行标记的租约（毫秒），收到RUNNING状态时续约，到期仍未收到结束状态时回收
+    @Value("${scheduler.trigger.lease-millis:600000}")
+    private long leaseMillis;
+    
+    // 执行超时后服务端再等待的宽限时间（毫秒），正常情况下客户端先中断执行并上报TIMED_OUT
+    @Value("${scheduler.trigger.timeout-grace-millis:5000}")
+    private long timeoutGraceMillis;
+    
+    // 等待客户端确认收到触发的时间（毫秒），客户端对实例的任何状态上报都视为确认，0表示不等待确认
+    @Value("${scheduler.trigger.ack-timeout-millis:5000}")
+    private long ackTimeoutMillis;
+    
+    // 未确认的触发最多重投的次数，超过后实例按失败处理
+    @Value("${scheduler.trigger.max-redeliveries:3}")
+    private int maxRedeliveries;
+    
+    @PostConstruct
+    public void init() {
+        // 同时承载租约、执行超时和确认超时，确认超时较短，tick取100毫秒
+        leaseTimer = new HashedWheelTimer(new DefaultThreadFactory("running-lease", true), 100, TimeUnit.MILLISECONDS, 512);
+    }
+    
+    /**
+     * 设置运行标记的回调
+     */
+    public void setRunningMarkListener(RunningMarkListener runningMarkListener) {
+        this.runningMarkListener = runningMarkListener;
+    }
     
     /**
      * 触发任务
      */
-    public void triggerTask(TaskInfo taskInfo, String clientId) {
+    public TriggerResult triggerTask(TaskInfo taskInfo, String clientId, long scheduledFireTime) {
+        return triggerTask(taskInfo, clientId, scheduledFireTime, null);
+    }
+    
+    /**
+     * 触发任务，params不为空时覆盖客户端本地的任务参数
+     *
+     * @return 触发结果
+     */
+    public TriggerResult triggerTask(TaskInfo taskInfo, String clientId, long scheduledFireTime, Map<String, Object> params) {
+        // 为每个任务实例生成唯一的实例ID
+        return triggerTask(taskInfo, clientId, scheduledFireTime, params, UUID.randomUUID().toString());
+    }
+    
+    /**
+     * 以指定的实例ID触发任务
+     *
+     * @param instanceId 实例ID，需要跟踪执行结果的调用方应在发送前记录，客户端的状态上报可能早于本方法返回
+     * @return 触发结果
+     */
+    public TriggerResult triggerTask(TaskInfo taskInfo, String clientId, long scheduledFireTime, Map<String, Object> params,
+                               String instanceId) {
+        return triggerTask(taskInfo, clientId, scheduledFireTime, params, instanceId, 1);
+    }
+    
+    /**
+     * 以指定的实例ID和尝试次数触发任务
+     *
+     * @param attempt 第几次尝试，从1开始，失败重试时大于1
+     * @return 触发结果，没有发出时不保留运行标记
+     */
+    public TriggerResult triggerTask(TaskInfo taskInfo, String clientId, long scheduledFireTime, Map<String, Object> params,
+                                     String instanceId, int attempt) {
         String taskId = taskInfo.getTaskId();
         
-        // 为每个任务实例生成唯一的实例ID
-        String instanceId = UUID.randomUUID().toString();
+        // 设置了并发上限的任务占用一个并发槽，已达上限时不发送，由调用方按并发策略处理
+        if (!tryAcquire(taskInfo)) {
+            logger.debug("Task {} reached its concurrency limit, trigger not sent", taskId);
+            return TriggerResult.CONCURRENCY_LIMITED;
+        }
+        
+        // 发送前记录运行标记，客户端的状态上报可能早于send返回
+        RunningMark mark = new RunningMark(instanceId, taskId, clientId, false, concurrencyLimit(taskInfo) > 0,
+                attempt, scheduledFireTime, params, System.currentTimeMillis() + leaseMillis);
+        mark(mark, taskInfo.getTimeoutMillis());
+        awaitAck(mark);
         
-        // 只有当oneRunning=true时才检查是否有实例正在运行
+        // 创建任务触发请求，只携带taskId等本次执行的信息，客户端从本地注册表解析完整任务信息
+        if (send(taskInfo, clientId, newTriggerRequest(mark), mark)) {
+            return TriggerResult.SENT;
+        }
+        // 如果发送失败，移除运行标记并释放占用的并发槽
+        complete(instanceId);
+        return TriggerResult.UNAVAILABLE;
+    }
+    
+    private static TriggerRequest newTriggerRequest(RunningMark mark) {
+        TriggerRequest request = new TriggerRequest(mark.getTaskId(), mark.getInstanceId(), mark.getScheduledFireTime(),
+                mark.getParams());
+        request.setAttempt(mark.getAttempt());
+        return request;
+    }
+    
+    /**
+     * 开始一次广播运行，整个逻辑运行使用一个运行标记，设置了并发上限的任务占用一个并发槽
+     *
+     * @return 已达到并发上限时返回false
+     */
+    public boolean startBroadcastRun(TaskInfo taskInfo, String runId, long scheduledFireTime) {
+        if (!tryAcquire(taskInfo)) {
+            return false;
+        }
+        mark(new RunningMark(runId, taskInfo.getTaskId(), null, true, concurrencyLimit(taskInfo) > 0,
+                1, scheduledFireTime, null, System.currentTimeMillis() + leaseMillis), taskInfo.getTimeoutMillis());
+        return true;
+    }
+    
+    /**
+     * 触发广播执行的一个分片，不检查和设置运行标记，由调用方按整个逻辑运行管理
+     *
+     * @param instanceId 分片的实例ID，调用方需要在发送前记录，客户端的状态上报可能早于本方法返回
+     * @return 客户端通道不可用或待发送队列已满时返回false
+     */
+    public boolean triggerShard(TaskInfo taskInfo, String clientId, long scheduledFireTime, Map<String, Object> params,
+                                String instanceId, String runId, int shardIndex, int shardTotal) {
+        if (isLegacy(clientId)) {
+            // 旧版本客户端不识别分片信息，会把分片当作普通触发执行，由调用方改派到其他客户端
+            logger.warn("Cannot send shard {} of task {} to client {}: client does not support broadcast execution",
+                    shardIndex, taskInfo.getTaskName(), clientId);
+            return false;
+        }
+        TriggerRequest request = new TriggerRequest(taskInfo.getTaskId(), instanceId, scheduledFireTime, params);
+        request.setRunId(runId);
+        request.setShardIndex(shardIndex);
+        request.setShardTotal(shardTotal);
+        return send(taskInfo, clientId, request, null);
+    }
+    
+    /**
+     * 获取任务的并发上限，oneRunning=true时为1
+     *
+     * @return 并发上限，0表示不限制
+     */
+    public static int concurrencyLimit(TaskInfo taskInfo) {
         if (taskInfo.isOneRunning()) {
-            // 检查任务是否正在执行
-            if (runningTasks.containsKey(taskId)) {
-                logger.debug("Task {} is already running, skipping trigger", taskId);
-                return;
+            return 1;
+        }
+        return Math.max(0, taskInfo.getMaxConcurrentInstances());
+    }
+    
+    /**
+     * 检查任务是否还能再触发一个实例
+     */
+    public boolean hasCapacity(TaskInfo taskInfo) {
+        int limit = concurrencyLimit(taskInfo);
+        if (limit == 0) {
+            return true;
+        }
+        AtomicInteger running = runningCounts.get(taskInfo.getTaskId());
+        return running == null || running.get() < limit;
+    }
+    
+    /**
+     * 占用一个并发槽，未设置并发上限的任务总是成功且不计数
+     *
+     * @return 已达到并发上限时返回false
+     */
+    private boolean tryAcquire(TaskInfo taskInfo) {
+        int limit = concurrencyLimit(taskInfo);
+        if (limit == 0) {
+            return true;
+        }
+        AtomicInteger running = runningCounts.computeIfAbsent(taskInfo.getTaskId(), k -> new AtomicInteger());
+        for (;;) {
+            int current = running.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (running.compareAndSet(current, current + 1)) {
+                return true;
             }
-            // 标记任务为正在执行
-            runningTasks.put(taskId, Boolean.TRUE);
         }
+    }
+    
+    /**
+     * 释放一个并发槽
+     *
+     * @return 任务有占用的并发槽并被释放时返回true
+     */
+    private boolean release(String taskId) {
+        AtomicInteger running = runningCounts.get(taskId);
+        if (running == null) {
+            return false;
+        }
+        for (;;) {
+            int current = running.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (running.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * 获取设置了并发上限的任务正在运行的实例数
+     */
+    public int getRunningCount(String taskId) {
+        AtomicInteger running = runningCounts.get(taskId);
+        return running == null ? 0 : running.get();
+    }
+    
+    /**
+     * 发送触发消息
+     *
+     * @param ackMark 需要等待确认的运行标记，消息写出后开始计算确认超时，广播分片为null
+     * @return 客户端通道不可用或待发送队列已满时返回false
+     */
+    private boolean send(TaskInfo taskInfo, String clientId, TriggerRequest request, RunningMark ackMark) {
+        String taskId = taskInfo.getTaskId();
         
-        // 增加任务执行次数
-        taskInfo.setExecutionCount(taskInfo.getExecutionCount() + 1);
+        // 获取客户端通道
+        Channel channel = clientChannels.get(clientId);
+        if (channel == null || !channel.isActive()) {
+            logger.warn("Cannot trigger task {}: client channel {} is not active", taskInfo.getTaskName(), clientId);
+            return false;
+        }
         
-        // 创建任务触发消息
         Message message = new Message();
-        message.setMessageId(instanceId); // 使用instanceId作为messageId，方便后续跟踪
+        message.setMessageId(request.getInstanceId()); // 使用instanceId作为messageId，方便后续跟踪
         message.setType(MessageType.TASK_TRIGGER);
         message.setClientId(clientId);
-        message.setData(taskInfo);
+        if (protocolVersion(channel) >= ProtocolVersion.V1) {
+            message.setData(request);
+        } else {
+            // 旧版本客户端没有TriggerRequest类，只能接收完整的任务信息，实例ID由客户端生成，在首次状态上报时对应
+            message.setData(legacyTaskInfo(taskInfo, request));
+            if (ackMark != null) {
+                legacyInstances.computeIfAbsent(clientId, k -> new LegacyInstances()).add(ackMark);
+            }
+        }
         
-        // 获取客户端通道并发送消息
-        Channel channel = clientChannels.get(clientId);
-        if (channel != null && channel.isActive()) {
-            logger.debug("Triggering task: {} to client: {}, execution count: {}", taskInfo.getTaskName(), clientId, taskInfo.getExecutionCount());
+        // 通道可写且没有积压时直接发送，否则进入该客户端的待发送队列，保证同一客户端的触发顺序
+        Queue<PendingTrigger> queue = pendingTriggers.computeIfAbsent(clientId,
+                k -> new ArrayBlockingQueue<>(pendingQueueCapacity));
+        if (channel.isWritable() && queue.isEmpty()) {
             channel.writeAndFlush(message);
+            startAckTimer(ackMark);
+        } else if (queue.offer(new PendingTrigger(message, ackMark))) {
+            logger.debug("Client {} is not writable, trigger of task {} queued, pending: {}", clientId, taskId, queue.size());
+            if (channel.isWritable()) {
+                // 入队期间通道已恢复可写，主动排空队列，避免消息滞留到下一次可写事件
+                drainPendingTriggers(clientId);
+            }
         } else {
-            logger.warn("Cannot trigger task {}: client channel {} is not active", taskInfo.getTaskName(), clientId);
-            // 如果发送失败，移除运行标记
-            runningTasks.remove(taskId);
+            rejectedTriggerCount.incrementAndGet();
+            logger.warn("Pending trigger queue of client {} is full ({}), trigger of task {} rejected",
+                    clientId, pendingQueueCapacity, taskInfo.getTaskName());
+            return false;
         }
+        
+        // 增加任务执行次数
+        taskInfo.setExecutionCount(taskInfo.getExecutionCount() + 1);
+        logger.debug("Triggering task: {} to client: {}, execution count: {}", taskInfo.getTaskName(), clientId, taskInfo.getExecutionCount());
+        return true;
     }
     
     /**
-     * 任务完成通知，用于清除运行中的任务标记
+     * 旧版本客户端能够识别的任务信息，只设置旧版本TaskInfo已有的字段，新增的枚举字段置空，
+     * 避免客户端反序列化时找不到枚举类
      */
-    public void notifyTaskCompleted(String taskId) {
-        // 直接移除运行标记，对于oneRunning=true的任务，这会允许新的实例被触发
-        // 对于oneRunning=false的任务，这个操作不会影响并行执行
-        if (runningTasks.containsKey(taskId)) {
-            runningTasks.remove(taskId);
-            logger.debug("Task {} running mark cleared, can be triggered again", taskId);
-        } else {
-            logger.debug("Task {} was not tracked as running", taskId);
+    private static TaskInfo legacyTaskInfo(TaskInfo taskInfo, TriggerRequest request) {
+        TaskInfo legacy = new TaskInfo();
+        legacy.setTaskId(taskInfo.getTaskId());
+        legacy.setTaskName(taskInfo.getTaskName());
+        legacy.setTaskGroup(taskInfo.getTaskGroup());
+        legacy.setCronExpression(taskInfo.getCronExpression());
+        legacy.setTargetClass(taskInfo.getTargetClass());
+        legacy.setTargetMethod(taskInfo.getTargetMethod());
+        legacy.setParams(request.getParams() != null ? request.getParams() : taskInfo.getParams());
+        legacy.setEnabled(taskInfo.isEnabled());
+        legacy.setDescription(taskInfo.getDescription());
+        legacy.setExecutionCount(taskInfo.getExecutionCount());
+        legacy.setOneRunning(taskInfo.isOneRunning());
+        legacy.setScheduleStrategy(taskInfo.getScheduleStrategy());
+        legacy.setScheduleType(null);
+        legacy.setOverflowPolicy(null);
+        legacy.setMisfirePolicy(null);
+        legacy.setConcurrencyPolicy(null);
+        return legacy;
+    }
+    
+    private static int protocolVersion(Channel channel) {
+        Integer version = channel.attr(PROTOCOL_VERSION).get();
+        return version == null ? ProtocolVersion.LEGACY : version;
+    }
+    
+    private boolean isLegacy(String clientId) {
+        Channel channel = clientChannels.get(clientId);
+        return channel != null && protocolVersion(channel) < ProtocolVersion.V1;
+    }
+    
+    /**
+     * 旧版本客户端上报的状态使用客户端自行生成的实例ID，改写为服务端的实例ID。
+     * 客户端首次上报某个实例时，按发送顺序对应到该客户端同一任务最早的尚未对应的触发
+     */
+    public void resolveLegacyInstanceId(TaskStatus status) {
+        LegacyInstances instances = status.getClientId() == null ? null : legacyInstances.get(status.getClientId());
+        if (instances == null || status.getInstanceId() == null) {
+            return;
+        }
+        String instanceId = instances.resolve(status, this);
+        if (instanceId != null) {
+            status.setInstanceId(instanceId);
         }
     }
     
     /**
-     * 任务完成通知重载版本，根据任务配置决定是否清除运行标记
+     * 在通道恢复可写后发送积压的触发消息，在通道的事件循环中执行
      */
-    public void notifyTaskCompleted(TaskStatus taskStatus) {
-        String taskId = taskStatus.getTaskId();
-        // 只有当任务配置为oneRunning=true时，才需要清除运行标记
-        // 对于oneRunning=false的任务，允许多实例并行执行，不需要跟踪运行状态
-        if (taskStatus.isOneRunning()) {
-            if (runningTasks.containsKey(taskId)) {
-                runningTasks.remove(taskId);
-                logger.debug("Task {} running mark cleared based on oneRunning=true, can be triggered again", taskId);
+    public void drainPendingTriggers(String clientId) {
+        Channel channel = clientChannels.get(clientId);
+        Queue<PendingTrigger> queue = pendingTriggers.get(clientId);
+        if (channel == null || queue == null) {
+            return;
+        }
+        if (!channel.eventLoop().inEventLoop()) {
+            channel.eventLoop().execute(() -> drainPendingTriggers(clientId));
+            return;
+        }
+        
+        int written = 0;
+        // write会立即计入出站缓冲区，超过高水位后isWritable变为false，停止发送等待下一次可写事件
+        while (channel.isActive() && channel.isWritable()) {
+            PendingTrigger pending = queue.poll();
+            if (pending == null) {
+                break;
             }
-        } else {
-            // 对于允许多实例并行执行的任务，不需要清除运行标记
-            // 实际上，这类任务可能根本没有被添加到runningTasks中
-            logger.debug("Task {} completed, but not clearing running mark due to oneRunning=false", taskId);
+            channel.write(pending.message);
+            startAckTimer(pending.ackMark);
+            written++;
+        }
+        if (written > 0) {
+            channel.flush();
+            logger.debug("Drained {} pending trigger(s) to client {}, remaining: {}", written, clientId, queue.size());
+        }
+    }
+    
+    /**
+     * 获取因待发送队列已满被拒绝的触发次数
+     */
+    public long getRejectedTriggerCount() {
+        return rejectedTriggerCount.get();
+    }
+    
+    /**
+     * @param timeoutMillis 执行超时，大于0时在超时加宽限时间后仍未结束的实例按TIMED_OUT回收
+     */
+    private void mark(RunningMark mark, long timeoutMillis) {
+        runningMarks.put(mark.getInstanceId(), mark);
+        if (mark.getClientId() != null) {
+            clientManager.incrementInFlight(mark.getClientId());
+        }
+        mark.leaseTimeout = leaseTimer.newTimeout(t -> onLeaseTimeout(mark), leaseMillis, TimeUnit.MILLISECONDS);
+        if (timeoutMillis > 0) {
+            mark.deadlineTimeout = leaseTimer.newTimeout(t -> onExecutionTimeout(mark, timeoutMillis),
+                    timeoutMillis + timeoutGraceMillis, TimeUnit.MILLISECONDS);
         }
     }
     
     /**
-     * 检查任务是否正在运行
+     * 实例结束，移除运行标记并释放占用的并发槽
+     *
+     * @param instanceId 实例ID，广播执行时为运行ID
+     * @return 被移除的运行标记，实例未知或标记已被回收时返回null
+     */
+    public RunningMark complete(String instanceId) {
+        return complete(instanceId, false);
+    }
+    
+    /**
+     * @param failed 实例没有成功，会重试时保留并发槽
+     */
+    private RunningMark complete(String instanceId, boolean failed) {
+        RunningMark mark = instanceId == null ? null : runningMarks.remove(instanceId);
+        if (mark == null) {
+            return null;
+        }
+        release(mark, failed);
+        return mark;
+    }
+    
+    private void release(RunningMark mark, boolean failed) {
+        clearAck(mark);
+        // 与redeliver改投客户端互斥，保证在途实例数从实际所在的客户端扣除
+        synchronized (mark) {
+            if (mark.getClientId() != null) {
+                clientManager.decrementInFlight(mark.getClientId());
+            }
+        }
+        Timeout timeout = mark.leaseTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        Timeout deadline = mark.deadlineTimeout;
+        if (deadline != null) {
+            deadline.cancel();
+        }
+        if (!mark.isHoldsSlot()) {
+            return;
+        }
+        if (failed && willRetry(mark)) {
+            mark.retainSlot();
+            logger.debug("Task {} concurrency slot kept for retry of instance {}", mark.getTaskId(), mark.getInstanceId());
+        } else if (release(mark.getTaskId())) {
+            logger.debug("Task {} concurrency slot released, running: {}", mark.getTaskId(), getRunningCount(mark.getTaskId()));
+        }
+    }
+    
+    private boolean willRetry(RunningMark mark) {
+        RunningMarkListener listener = runningMarkListener;
+        if (listener == null || mark.isBroadcastRun()) {
+            return false;
+        }
+        try {
+            return listener.willRetry(mark);
+        } catch (Exception e) {
+            logger.error("Running mark listener failed for instance {}", mark.getInstanceId(), e);
+            return false;
+        }
+    }
+    
+    /**
+     * 释放实例失败时为重试保留的并发槽，在任务的分发线程中重试触发前或放弃重试时调用，只释放一次
+     */
+    public void releaseRetainedSlot(RunningMark mark) {
+        if (mark.takeRetainedSlot() && release(mark.getTaskId())) {
+            logger.debug("Task {} concurrency slot kept for retry released, running: {}",
+                    mark.getTaskId(), getRunningCount(mark.getTaskId()));
+        }
+    }
+    
+    /**
+     * 任务完成通知，移除实例的运行标记并释放占用的并发槽
+     *
+     * @return 被移除的运行标记，实例未知或标记已被回收（迟到的结束状态）时返回null
+     */
+    public RunningMark notifyTaskCompleted(TaskStatus taskStatus) {
+        RunningMark mark = complete(taskStatus.getInstanceId(), taskStatus.getStatus() != TaskStatus.Status.SUCCESS);
+        if (mark == null) {
+            logger.debug("Task {} instance {} was not tracked as running", taskStatus.getTaskId(), taskStatus.getInstanceId());
+        }
+        return mark;
+    }
+    
+    /**
+     * 记录等待客户端确认的触发，消息写出后开始计算确认超时，在积压队列中等待的时间不计入
+     */
+    private void awaitAck(RunningMark mark) {
+        if (ackTimeoutMillis > 0) {
+            pendingAcks.put(mark.getInstanceId(), mark);
+        }
+    }
+    
+    private void startAckTimer(RunningMark mark) {
+        if (mark != null && pendingAcks.get(mark.getInstanceId()) == mark) {
+            mark.ackTimeout = leaseTimer.newTimeout(t -> onAckTimeout(mark), ackTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * @return 触发仍在等待确认并被本次移除时返回true
+     */
+    private boolean clearAck(RunningMark mark) {
+        if (!pendingAcks.remove(mark.getInstanceId(), mark)) {
+            return false;
+        }
+        Timeout timeout = mark.ackTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        return true;
+    }
+    
+    /**
+     * 客户端确认收到触发，实例的任何状态上报都视为确认
+     */
+    public void acknowledge(String instanceId) {
+        RunningMark mark = instanceId == null ? null : pendingAcks.get(instanceId);
+        if (mark != null) {
+            clearAck(mark);
+        }
+    }
+    
+    private void onAckTimeout(RunningMark mark) {
+        if (clearAck(mark)) {
+            unacknowledged(mark, "Trigger not acknowledged by client " + mark.getClientId()
+                    + " within " + ackTimeoutMillis + " ms");
+        }
+    }
+    
+    /**
+     * 触发未被确认，未超过重投次数时交给回调选择客户端重投，否则按失败回收
+     */
+    private void unacknowledged(RunningMark mark, String reason) {
+        RunningMarkListener listener = runningMarkListener;
+        if (mark.getDeliveries() > maxRedeliveries || listener == null) {
+            failUndelivered(mark, reason);
+            return;
+        }
+        logger.warn("Task {} instance {}: {}, redelivering", mark.getTaskId(), mark.getInstanceId(), reason);
+        try {
+            listener.onUnacknowledged(mark, reason);
+        } catch (Exception e) {
+            logger.error("Running mark listener failed for instance {}", mark.getInstanceId(), e);
+            failUndelivered(mark, reason);
+        }
+    }
+    
+    /**
+     * 以相同的实例ID把未确认的触发重投到指定客户端，客户端按实例ID忽略重复的触发
+     *
+     * @return 实例已结束或重投成功时返回true，客户端不可用时返回false
+     */
+    public boolean redeliver(TaskInfo taskInfo, RunningMark mark, String clientId) {
+        synchronized (mark) {
+            // 持锁期间标记仍在表中时，之后的release一定在改投之后扣除新客户端的在途实例数
+            if (runningMarks.get(mark.getInstanceId()) != mark) {
+                return true;
+            }
+            clientManager.decrementInFlight(mark.getClientId());
+            mark.setClientId(clientId);
+            clientManager.incrementInFlight(clientId);
+        }
+        awaitAck(mark);
+        if (send(taskInfo, clientId, newTriggerRequest(mark), mark)) {
+            mark.redelivered();
+            redeliveredCount.incrementAndGet();
+            logger.info("Task {} instance {} redelivered to client {}, delivery {}", taskInfo.getTaskName(),
+                    mark.getInstanceId(), clientId, mark.getDeliveries());
+            return true;
+        }
+        clearAck(mark);
+        return false;
+    }
+    
+    /**
+     * 触发无法投递，实例按失败回收
+     */
+    public void failUndelivered(RunningMark mark, String reason) {
+        reclaim(mark, TaskStatus.Status.FAILED, reason);
+    }
+    
+    /**
+     * 收到实例的RUNNING状态，从当前时间续约
+     */
+    public void renewLease(String instanceId) {
+        RunningMark mark = instanceId == null ? null : runningMarks.get(instanceId);
+        if (mark != null) {
+            mark.setLeaseDeadline(System.currentTimeMillis() + leaseMillis);
+        }
+    }
+    
+    /**
+     * 租约定时器到期，续约过时按新的到期时间重新计时，否则回收
+     */
+    private void onLeaseTimeout(RunningMark mark) {
+        long remaining = mark.getLeaseDeadline() - System.currentTimeMillis();
+        if (remaining > 0) {
+            if (runningMarks.get(mark.getInstanceId()) == mark) {
+                mark.leaseTimeout = leaseTimer.newTimeout(t -> onLeaseTimeout(mark), remaining, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+        reclaim(mark, TaskStatus.Status.FAILED, "Running lease expired");
+    }
+    
+    /**
+     * 执行超时后仍未收到结束状态，按TIMED_OUT回收并通知客户端中断执行
+     */
+    private void onExecutionTimeout(RunningMark mark, long timeoutMillis) {
+        String reason = "Execution timed out after " + timeoutMillis + " ms";
+        if (!reclaim(mark, TaskStatus.Status.TIMED_OUT, reason)) {
+            return;
+        }
+        timedOutCount.incrementAndGet();
+        // 广播运行由调用方按分片取消
+        if (mark.getClientId() != null) {
+            cancelInstance(mark.getClientId(), mark.getTaskId(), mark.getInstanceId(), reason);
+        }
+    }
+    
+    /**
+     * 通知客户端中断正在执行的实例，不经过待发送队列
+     *
+     * @return 客户端通道不可用时返回false
+     */
+    public boolean cancelInstance(String clientId, String taskId, String instanceId, String reason) {
+        Channel channel = clientChannels.get(clientId);
+        if (channel == null || !channel.isActive()) {
+            return false;
+        }
+        if (protocolVersion(channel) < ProtocolVersion.V1) {
+            // 旧版本客户端无法解码取消消息，只能等待实例自行结束
+            logger.debug("Client {} does not support cancel, task {} instance {} keeps running", clientId, taskId, instanceId);
+            return false;
+        }
+        Message message = new Message();
+        message.setMessageId(instanceId);
+        message.setType(MessageType.TASK_CANCEL);
+        message.setClientId(clientId);
+        message.setData(new TaskCancelRequest(taskId, instanceId, reason));
+        channel.writeAndFlush(message);
+        logger.debug("Cancel of task {} instance {} sent to client {}: {}", taskId, instanceId, clientId, reason);
+        return true;
+    }
+    
+    /**
+     * 客户端断开，尚未确认的触发重投到其他客户端，已确认的实例回收
+     */
+    private void reclaimMarksOfClient(String clientId) {
+        for (RunningMark mark : runningMarks.values()) {
+            if (!clientId.equals(mark.getClientId())) {
+                continue;
+            }
+            if (clearAck(mark)) {
+                unacknowledged(mark, "Client " + clientId + " disconnected before acknowledging trigger");
+            } else {
+                reclaim(mark, TaskStatus.Status.FAILED, "Client disconnected");
+            }
+        }
+    }
+    
+    /**
+     * @return 标记仍在运行并被本次回收时返回true
+     */
+    private boolean reclaim(RunningMark mark, TaskStatus.Status status, String reason) {
+        if (!runningMarks.remove(mark.getInstanceId(), mark)) {
+            return false;
+        }
+        release(mark, true);
+        reclaimedCount.incrementAndGet();
+        logger.warn("Running mark of task {} instance {} on client {} reclaimed: {}",
+                mark.getTaskId(), mark.getInstanceId(), mark.getClientId(), reason);
+        RunningMarkListener listener = runningMarkListener;
+        if (listener != null) {
+            try {
+                listener.onReclaimed(mark, status, reason);
+            } catch (Exception e) {
+                logger.error("Reclaim listener failed for instance {}", mark.getInstanceId(), e);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 获取被回收的运行标记数
+     */
+    public long getReclaimedCount() {
+        return reclaimedCount.get();
+    }
+    
+    /**
+     * 获取等待客户端确认的触发数
+     */
+    public int getPendingAckCount() {
+        return pendingAcks.size();
+    }
+    
+    /**
+     * 获取重投的触发次数
+     */
+    public long getRedeliveredCount() {
+        return redeliveredCount.get();
+    }
+    
+    /**
+     * 获取因执行超时被回收的实例数
+     */
+    public long getTimedOutCount() {
+        return timedOutCount.get();
+    }
+    
+    /**
+     * 获取运行标记数，即已触发但尚未结束的实例和广播运行数
+     */
+    public int getRunningMarkCount() {
+        return runningMarks.size();
+    }
+    
+    /**
+     * 检查任务是否有正在运行的实例，只跟踪设置了并发上限的任务
      */
     public boolean isTaskRunning(String taskId) {
-        return runningTasks.containsKey(taskId);
+        return getRunningCount(taskId) > 0;
     }
 
     /**
      * 注册客户端通道
+     *
+     * @param protocolVersion 客户端注册时声明的协议版本，旧版本客户端为{@link ProtocolVersion#LEGACY}
      */
-    public void registerClientChannel(String clientId, Channel channel) {
+    public void registerClientChannel(String clientId, Channel channel, int protocolVersion) {
+        channel.attr(PROTOCOL_VERSION).set(protocolVersion);
         clientChannels.put(clientId, channel);
         logger.debug("Client channel registered: {}", clientId);
     }
@@ -116,7 +809,76 @@ public class TaskTrigger {
      */
     public void removeClientChannel(String clientId) {
         clientChannels.remove(clientId);
+        
+        // 丢弃该客户端积压的触发消息，已发送和积压的实例的运行标记一起回收
+        // 广播分片没有单独的运行标记，由BroadcastRunTracker标记为失败
+        legacyInstances.remove(clientId);
+        Queue<PendingTrigger> queue = pendingTriggers.remove(clientId);
+        if (queue != null && !queue.isEmpty()) {
+            logger.warn("Dropping {} pending trigger(s) of removed client {}", queue.size(), clientId);
+            queue.clear();
+        }
+        reclaimMarksOfClient(clientId);
         logger.debug("Client channel removed: {}", clientId);
     }
     
+    @PreDestroy
+    public void destroy() {
+        leaseTimer.stop();
+    }
+    
+    /**
+     * 旧版本客户端的实例ID与服务端实例ID的对应关系
+     */
+    private static final class LegacyInstances {
+        // 已发送但客户端尚未上报状态的触发，按发送顺序
+        private final ArrayDeque<RunningMark> unbound = new ArrayDeque<>();
+        // 客户端实例ID -> 服务端实例ID
+        private final Map<String, String> bound = new ConcurrentHashMap<>();
+        
+        private synchronized void add(RunningMark mark) {
+            unbound.add(mark);
+        }
+        
+        /**
+         * @return 服务端的实例ID，没有可对应的触发时返回null
+         */
+        private synchronized String resolve(TaskStatus status, TaskTrigger trigger) {
+            String clientInstanceId = status.getInstanceId();
+            String instanceId = bound.get(clientInstanceId);
+            if (instanceId == null) {
+                for (Iterator<RunningMark> it = unbound.iterator(); it.hasNext(); ) {
+                    RunningMark mark = it.next();
+                    // 已结束或已改投其他客户端的触发不再对应
+                    if (trigger.runningMarks.get(mark.getInstanceId()) != mark
+                            || !status.getClientId().equals(mark.getClientId())) {
+                        it.remove();
+                    } else if (mark.getTaskId().equals(status.getTaskId())) {
+                        it.remove();
+                        instanceId = mark.getInstanceId();
+                        bound.put(clientInstanceId, instanceId);
+                        break;
+                    }
+                }
+            }
+            if (instanceId != null && status.isTerminal()) {
+                bound.remove(clientInstanceId);
+            }
+            return instanceId;
+        }
+    }
+    
+    /**
+     * 待发送的触发消息
+     */
+    private static final class PendingTrigger {
+        private final Message message;
+        private final RunningMark ackMark;
+        
+        private PendingTrigger(Message message, RunningMark ackMark) {
+            this.message = message;
+            this.ackMark = ackMark;
+        }
+    }
+    
 }
\ No newline at end of file
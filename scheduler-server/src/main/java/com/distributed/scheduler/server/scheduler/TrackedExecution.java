@@ -0,0 +1,33 @@
+package com.distributed.scheduler.server.scheduler;
+
+import com.distributed.scheduler.client.model.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 需要结束通知的一次执行
+ * 状态上报、运行标记回收和触发失败可能在不同线程中同时结束同一次执行，回调只执行一次。
+ */
+class TrackedExecution {
+    private static final Logger logger = LoggerFactory.getLogger(TrackedExecution.class);
+
+    private final TaskScheduler.CompletionCallback callback;
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    TrackedExecution(TaskScheduler.CompletionCallback callback) {
+        this.callback = callback;
+    }
+
+    void complete(TaskStatus.Status status, String errorMsg) {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            callback.onCompleted(status, errorMsg);
+        } catch (Exception e) {
+            logger.error("Completion callback failed", e);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.distributed.scheduler.server.scheduler.cron;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * 位图形式的cron表达式
+ * 语法与Spring CronExpression一致：秒 分 时 日 月 周，支持*、?、范围、步长、列表、月份和星期名称以及@daily等宏，
+ * 日和周同时指定时需要同时满足。不支持L、W、#，这类表达式由{@link SpringCronSchedule}处理。
+ * 夏令时回拨时重复出现的本地时间按时刻先后各触发一次，与Spring一致；只有半小时的回拨（如Australia/Lord_Howe）
+ * Spring会跳过重复时段内的第二次触发，这里仍然触发。
+ *
+ * 每个字段编译为一个long位图，计算下一次触发时间时直接在毫秒时间戳和年月日之间换算，不创建java.time对象。
+ * 实例不可变，可被多个任务共享。
+ */
+public final class CompiledCron implements CronSchedule {
+
+    private static final String[] MONTH_NAMES = {
+            "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"
+    };
+    // 星期名称按Spring的约定MON=1 ... SUN=7，0和7都表示星期日
+    private static final String[] DAY_NAMES = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final long MILLIS_PER_DAY = SECONDS_PER_DAY * 1000L;
+    // 夏令时切换的最大调整量
+    private static final long MAX_TRANSITION_MILLIS = 3 * 3600 * 1000L;
+    // 公历每400年一个周期，400年内没有匹配的表达式不会再触发
+    private static final int MAX_YEARS = 400;
+
+    private final String expression;
+    private final TimeZone zone;
+    private final long seconds;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek; // 0表示星期日
+
+    private CompiledCron(String expression, TimeZone zone, long seconds, long minutes, long hours,
+                         long daysOfMonth, long months, long daysOfWeek) {
+        this.expression = expression;
+        this.zone = zone;
+        this.seconds = seconds;
+        this.minutes = minutes;
+        this.hours = hours;
+        this.daysOfMonth = daysOfMonth;
+        this.months = months;
+        this.daysOfWeek = daysOfWeek;
+    }
+
+    /**
+     * 表达式是否可以由CompiledCron处理
+     */
+    public static boolean isSupported(String expression) {
+        String upper = resolveMacro(expression.trim()).toUpperCase(Locale.ROOT);
+        String[] fields = upper.split("\\s+");
+        if (fields.length != 6) {
+            // 交给Spring给出格式错误信息
+            return false;
+        }
+        // 只检查日和周字段，星期名称中的W（WED）不算
+        String daysOfWeek = fields[5];
+        for (String name : DAY_NAMES) {
+            daysOfWeek = daysOfWeek.replace(name, "");
+        }
+        return isPlain(fields[3]) && isPlain(daysOfWeek);
+    }
+
+    private static boolean isPlain(String field) {
+        return field.indexOf('L') < 0 && field.indexOf('W') < 0 && field.indexOf('#') < 0;
+    }
+
+    /**
+     * 编译cron表达式
+     *
+     * @throws IllegalArgumentException 表达式格式错误或包含不支持的语法
+     */
+    public static CompiledCron parse(String expression, TimeZone zone) {
+        String resolved = resolveMacro(expression.trim());
+        String[] fields = resolved.toUpperCase(Locale.ROOT).split("\\s+");
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Cron expression must consist of 6 fields (found "
+                    + fields.length + " in \"" + expression + "\")");
+        }
+        try {
+            long seconds = parseField(fields[0], 0, 59, null, false);
+            long minutes = parseField(fields[1], 0, 59, null, false);
+            long hours = parseField(fields[2], 0, 23, null, false);
+            long daysOfMonth = parseField(fields[3], 1, 31, null, true);
+            long months = parseField(fields[4], 1, 12, MONTH_NAMES, false);
+            long daysOfWeek = parseDaysOfWeek(fields[5]);
+            return new CompiledCron(expression, (TimeZone) zone.clone(),
+                    seconds, minutes, hours, daysOfMonth, months, daysOfWeek);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " in cron expression \"" + expression + "\"", e);
+        }
+    }
+
+    private static String resolveMacro(String expression) {
+        switch (expression.toLowerCase(Locale.ROOT)) {
+            case "@yearly":
+            case "@annually":
+                return "0 0 0 1 1 *";
+            case "@monthly":
+                return "0 0 0 1 * *";
+            case "@weekly":
+                return "0 0 0 * * 0";
+            case "@daily":
+            case "@midnight":
+                return "0 0 0 * * *";
+            case "@hourly":
+                return "0 0 * * * *";
+            default:
+                return expression;
+        }
+    }
+
+    private static long parseDaysOfWeek(String field) {
+        // 按1-7解析，再把7（星期日）折叠到0
+        long bits = parseField(field, 0, 7, DAY_NAMES, true);
+        if ((bits & (1L << 7)) != 0) {
+            bits = (bits & ~(1L << 7)) | 1L;
+        }
+        return bits;
+    }
+
+    private static long parseField(String field, int min, int max, String[] names, boolean allowQuestionMark) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            if (part.isEmpty()) {
+                throw new IllegalArgumentException("Empty value in field \"" + field + "\"");
+            }
+            int step = 1;
+            int slash = part.indexOf('/');
+            String range = part;
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), null);
+                if (step <= 0) {
+                    throw new IllegalArgumentException("Step must be greater than 0 in \"" + part + "\"");
+                }
+                range = part.substring(0, slash);
+            }
+
+            int start;
+            int end;
+            if (range.equals("*") || allowQuestionMark && range.equals("?")) {
+                start = names == DAY_NAMES ? 1 : min;
+                end = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash > 0) {
+                    start = parseNumber(range.substring(0, dash), names);
+                    end = parseNumber(range.substring(dash + 1), names);
+                    if (names == DAY_NAMES && start == 7) {
+                        // 与Spring一致，范围起点的星期日（7或SUN）按0处理，SUN-SAT、7-2都是合法的范围
+                        start = 0;
+                    }
+                } else {
+                    start = parseNumber(range, names);
+                    // a/n 表示从a开始到最大值，每隔n
+                    end = slash >= 0 ? max : start;
+                }
+            }
+            if (start < min || end > max || start > end) {
+                throw new IllegalArgumentException("Value range " + start + "-" + end
+                        + " is outside " + min + "-" + max + " in \"" + part + "\"");
+            }
+            for (int value = start; value <= end; value += step) {
+                bits |= 1L << value;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseNumber(String value, String[] names) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(value)) {
+                    // 月份名称JAN=1，星期名称MON=1
+                    return i + 1;
+                }
+            }
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value \"" + value + "\"");
+        }
+    }
+
+    @Override
+    public long nextFireTime(long afterMillis) {
+        // 与Spring一致，结果精确到秒并且严格晚于给定时间
+        long searchFrom = Math.floorDiv(afterMillis, 1000) * 1000 + 1000;
+        // 夏令时切换时本地时间可能不存在或出现两次，不存在的时间跳过，出现两次时按时刻先后各触发一次。
+        // 附近有切换时分别从切换前后的偏移量对应的本地时间开始查找，取较早的时刻：
+        // 回拨前按切换前的偏移量找到重复时段之前的触发，回拨后重复出现的本地时间早于当前本地时间，按切换后的偏移量才能找到
+        int offsetNow = zone.getOffset(searchFrom);
+        int offsetLater = zone.getOffset(searchFrom + MAX_TRANSITION_MILLIS);
+        long result = nextFireTime(afterMillis, searchFrom, offsetNow);
+        if (offsetLater != offsetNow) {
+            long other = nextFireTime(afterMillis, searchFrom, offsetLater);
+            if (other >= 0 && (result < 0 || other < result)) {
+                result = other;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 从searchFrom按给定偏移量换算的本地时间开始查找，返回第一个晚于afterMillis的有效时刻
+     */
+    private long nextFireTime(long afterMillis, long searchFrom, int offset) {
+        long localSecond = Math.floorDiv(searchFrom + offset, 1000);
+        while (true) {
+            long nextLocal = nextLocalSecond(localSecond);
+            if (nextLocal < 0) {
+                return -1;
+            }
+            long result = toEpochMillis(nextLocal * 1000, afterMillis);
+            if (result >= 0) {
+                return result;
+            }
+            localSecond = nextLocal + 1;
+        }
+    }
+
+    /**
+     * 本地时间换算为毫秒时间戳，取晚于afterMillis的最早时刻，本地时间不存在时返回-1
+     */
+    private long toEpochMillis(long localMillis, long afterMillis) {
+        // 前后一天的偏移量覆盖了该本地时间附近可能发生的时区切换
+        int offsetBefore = zone.getOffset(localMillis - MILLIS_PER_DAY);
+        int offsetAfter = zone.getOffset(localMillis + MILLIS_PER_DAY);
+        long earlier = localMillis - Math.max(offsetBefore, offsetAfter);
+        long later = localMillis - Math.min(offsetBefore, offsetAfter);
+        if (earlier > afterMillis && zone.getOffset(earlier) == localMillis - earlier) {
+            return earlier;
+        }
+        if (later > afterMillis && zone.getOffset(later) == localMillis - later) {
+            return later;
+        }
+        return -1;
+    }
+
+    /**
+     * 在本地时间（按本地时区换算后的秒数）上查找不早于fromSecond的第一个匹配时间
+     */
+    private long nextLocalSecond(long fromSecond) {
+        long epochDay = Math.floorDiv(fromSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(fromSecond, SECONDS_PER_DAY);
+
+        // 从epochDay换算年月日，算法见 http://howardhinnant.github.io/date_algorithms.html
+        long z = epochDay + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        int hour = secondOfDay / 3600;
+        int minute = secondOfDay / 60 % 60;
+        int second = secondOfDay % 60;
+        int maxYear = year + MAX_YEARS;
+
+        while (true) {
+            // 进位
+            if (second > 59) {
+                second = 0;
+                minute++;
+            }
+            if (minute > 59) {
+                minute = 0;
+                hour++;
+            }
+            if (hour > 23) {
+                hour = 0;
+                day++;
+            }
+            if (day > daysInMonth(year, month)) {
+                day = 1;
+                month++;
+            }
+            if (month > 12) {
+                month = 1;
+                year++;
+            }
+            if (year > maxYear) {
+                return -1;
+            }
+
+            if ((months & (1L << month)) == 0) {
+                int next = nextSetBit(months, month);
+                if (next < 0) {
+                    month = 13;
+                } else {
+                    month = next;
+                }
+                day = 1;
+                hour = minute = second = 0;
+                continue;
+            }
+
+            int nextDay = nextSetBit(daysOfMonth, day);
+            if (nextDay < 0 || nextDay > daysInMonth(year, month)) {
+                day = 32;
+                hour = minute = second = 0;
+                continue;
+            }
+            if (nextDay != day) {
+                day = nextDay;
+                hour = minute = second = 0;
+            }
+            long epochDayOfMatch = daysFromCivil(year, month, day);
+            if ((daysOfWeek & (1L << (int) Math.floorMod(epochDayOfMatch + 4, 7))) == 0) {
+                day++;
+                hour = minute = second = 0;
+                continue;
+            }
+
+            int nextHour = nextSetBit(hours, hour);
+            if (nextHour < 0) {
+                hour = 24;
+                minute = second = 0;
+                continue;
+            }
+            if (nextHour != hour) {
+                hour = nextHour;
+                minute = second = 0;
+            }
+
+            int nextMinute = nextSetBit(minutes, minute);
+            if (nextMinute < 0) {
+                minute = 60;
+                second = 0;
+                continue;
+            }
+            if (nextMinute != minute) {
+                minute = nextMinute;
+                second = 0;
+            }
+
+            int nextSecond = nextSetBit(seconds, second);
+            if (nextSecond < 0) {
+                second = 60;
+                continue;
+            }
+            return epochDayOfMatch * SECONDS_PER_DAY + hour * 3600L + minute * 60L + nextSecond;
+        }
+    }
+
+    private static int nextSetBit(long bits, int from) {
+        long masked = bits & (-1L << from);
+        return masked == 0 ? -1 : Long.numberOfTrailingZeros(masked);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
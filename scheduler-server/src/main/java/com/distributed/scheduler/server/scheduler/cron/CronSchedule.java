@@ -0,0 +1,15 @@
+package com.distributed.scheduler.server.scheduler.cron;
+
+/**
+ * 编译后的cron表达式，线程安全，可被多个任务共享
+ */
+public interface CronSchedule {
+
+    /**
+     * 计算晚于指定时间的下一次触发时间
+     *
+     * @param afterMillis 毫秒时间戳
+     * @return 下一次触发的毫秒时间戳，没有下一次触发时返回-1
+     */
+    long nextFireTime(long afterMillis);
+}
@@ -0,0 +1,58 @@
+package com.distributed.scheduler.server.scheduler.cron;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 编译后的cron表达式缓存
+ * 每个不同的表达式字符串只编译一次，使用相同表达式的任务共享同一个实例。
+ */
+public class CronScheduleCache {
+    private static final Logger logger = LoggerFactory.getLogger(CronScheduleCache.class);
+
+    private final ConcurrentMap<String, CronSchedule> schedules = new ConcurrentHashMap<>();
+    private final TimeZone zone;
+
+    public CronScheduleCache() {
+        this(TimeZone.getDefault());
+    }
+
+    public CronScheduleCache(TimeZone zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * 获取编译后的cron表达式，首次使用时编译
+     *
+     * @throws IllegalArgumentException 表达式格式错误
+     */
+    public CronSchedule get(String expression) {
+        CronSchedule schedule = schedules.get(expression);
+        if (schedule == null) {
+            schedule = schedules.computeIfAbsent(expression, this::compile);
+        }
+        return schedule;
+    }
+
+    public int size() {
+        return schedules.size();
+    }
+
+    private CronSchedule compile(String expression) {
+        if (CompiledCron.isSupported(expression)) {
+            try {
+                return CompiledCron.parse(expression, zone);
+            } catch (IllegalArgumentException e) {
+                // 以Spring的解析结果为准，Spring也无法解析时由它抛出格式错误
+                logger.warn("CompiledCron failed to parse {}, falling back to Spring: {}", expression, e.getMessage());
+                return new SpringCronSchedule(expression, zone.toZoneId());
+            }
+        }
+        logger.debug("Cron expression {} uses syntax not supported by CompiledCron, falling back to Spring", expression);
+        return new SpringCronSchedule(expression, zone.toZoneId());
+    }
+}
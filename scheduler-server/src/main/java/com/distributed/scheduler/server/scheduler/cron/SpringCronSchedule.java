@@ -0,0 +1,31 @@
+package com.distributed.scheduler.server.scheduler.cron;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * 基于Spring CronExpression的实现，用于CompiledCron不支持的L、W、#等语法
+ */
+public class SpringCronSchedule implements CronSchedule {
+    private final CronExpression expression;
+    private final ZoneId zone;
+
+    public SpringCronSchedule(String expression, ZoneId zone) {
+        this.expression = CronExpression.parse(expression);
+        this.zone = zone;
+    }
+
+    @Override
+    public long nextFireTime(long afterMillis) {
+        ZonedDateTime next = expression.next(ZonedDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone));
+        return next == null ? -1 : next.toInstant().toEpochMilli();
+    }
+
+    @Override
+    public String toString() {
+        return expression.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package com.distributed.scheduler.server.scheduler.delay;
+
+import com.distributed.scheduler.client.model.DelayedJob;
+import com.distributed.scheduler.server.scheduler.TaskScheduler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一次性延迟任务服务
+ * 作业保存在DelayedJobStore中，轮询线程按桶取出到期的作业，交给任务所在分片的分发线程触发。
+ * 任务未注册、仍在运行或触发失败时延迟重试，超过最大重试次数后丢弃。
+ */
+@Component
+public class DelayedJobService {
+    private static final Logger logger = LoggerFactory.getLogger(DelayedJobService.class);
+
+    // 分段文件目录
+    @Value("${scheduler.delayed-job.dir:data/delayed-jobs}")
+    private String dir;
+
+    // 时间桶大小（毫秒），决定触发精度和轮询间隔
+    @Value("${scheduler.delayed-job.bucket-millis:100}")
+    private long bucketMillis;
+
+    // 单个分段文件的大小上限
+    @Value("${scheduler.delayed-job.segment-size:67108864}")
+    private long segmentSize;
+
+    // 触发失败后的重试间隔（毫秒）
+    @Value("${scheduler.delayed-job.retry-delay-millis:5000}")
+    private long retryDelayMillis;
+
+    // 最大重试次数
+    @Value("${scheduler.delayed-job.max-retries:5}")
+    private int maxRetries;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private DelayedJobStore store;
+    private ScheduledExecutorService poller;
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder retriedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        store = new DelayedJobStore(Paths.get(dir), bucketMillis, segmentSize);
+        poller = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("delayed-job-poller", true));
+        poller.scheduleWithFixedDelay(this::pollDue, bucketMillis, bucketMillis, TimeUnit.MILLISECONDS);
+        logger.info("Delayed job service started, dir: {}, bucket: {} ms, pending: {}",
+                Paths.get(dir).toAbsolutePath(), bucketMillis, store.getPendingCount());
+    }
+
+    /**
+     * 提交一次性延迟任务
+     *
+     * @return 作业ID
+     * @throws IllegalArgumentException 未指定任务ID
+     * @throws IllegalStateException 写入分段文件失败
+     */
+    public String submit(DelayedJob job) {
+        if (!StringUtils.hasText(job.getTaskId())) {
+            throw new IllegalArgumentException("taskId is required");
+        }
+        if (!StringUtils.hasText(job.getJobId())) {
+            job.setJobId(UUID.randomUUID().toString());
+        }
+        try {
+            store.add(job, 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to store delayed job " + job.getJobId(), e);
+        }
+        submittedCount.increment();
+        logger.debug("Delayed job {} of task {} submitted, fire time: {}", job.getJobId(), job.getTaskId(), job.getFireTime());
+        return job.getJobId();
+    }
+
+    private void pollDue() {
+        try {
+            store.pollDue(System.currentTimeMillis(), this::fire);
+        } catch (Exception e) {
+            logger.error("Error polling delayed jobs", e);
+        }
+    }
+
+    private void fire(DelayedJob job, int attempts) {
+        if (!taskScheduler.triggerOnce(job.getTaskId(), job.getFireTime(), job.getParams(), () -> retry(job, attempts))) {
+            // 任务可能还没有注册，例如服务端重启后客户端尚未重连
+            retry(job, attempts);
+        }
+    }
+
+    private void retry(DelayedJob job, int attempts) {
+        if (attempts >= maxRetries) {
+            droppedCount.increment();
+            logger.warn("Delayed job {} of task {} dropped after {} retries", job.getJobId(), job.getTaskId(), attempts);
+            return;
+        }
+        DelayedJob retry = new DelayedJob(job.getJobId(), job.getTaskId(),
+                System.currentTimeMillis() + retryDelayMillis, job.getParams());
+        try {
+            store.add(retry, attempts + 1);
+            retriedCount.increment();
+            logger.debug("Delayed job {} of task {} will be retried, attempt: {}", job.getJobId(), job.getTaskId(), attempts + 1);
+        } catch (IOException e) {
+            droppedCount.increment();
+            logger.error("Failed to store retry of delayed job {}", job.getJobId(), e);
+        }
+    }
+
+    /**
+     * 待触发的作业数
+     */
+    public long getPendingCount() {
+        return store.getPendingCount();
+    }
+
+    /**
+     * 已提交的作业数
+     */
+    public long getSubmittedCount() {
+        return submittedCount.sum();
+    }
+
+    /**
+     * 重试次数
+     */
+    public long getRetriedCount() {
+        return retriedCount.sum();
+    }
+
+    /**
+     * 超过最大重试次数被丢弃的作业数
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 分段文件数
+     */
+    public int getSegmentCount() {
+        return store.getSegmentCount();
+    }
+
+    /**
+     * 分段文件占用的磁盘字节数
+     */
+    public long getDiskBytes() {
+        return store.getDiskBytes();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        poller.shutdown();
+        try {
+            poller.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.close();
+        logger.info("Delayed job service stopped, pending: {}", store.getPendingCount());
+    }
+}
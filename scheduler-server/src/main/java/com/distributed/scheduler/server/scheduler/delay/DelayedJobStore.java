@@ -0,0 +1,372 @@
+package com.distributed.scheduler.server.scheduler.delay;
+
+import com.distributed.scheduler.client.model.DelayedJob;
+import com.distributed.scheduler.client.protocol.codec.BinaryMessageCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 延迟任务存储
+ * 作业按到达顺序追加写入分段文件，堆内只按触发时间分桶保存每个作业的文件位置（8字节），
+ * 待触发作业数增长时堆内存基本不变。
+ *
+ * 记录格式：length(4) + state(1) + attempts(1) + DelayedJob结构体
+ * 作业触发后把state改为已完成，分段中的作业全部完成后删除文件；
+ * 重启时扫描分段文件恢复未完成的作业。写入不做fsync，进程重启不丢失作业，掉电可能丢失最近写入的作业。
+ */
+public class DelayedJobStore {
+    private static final Logger logger = LoggerFactory.getLogger(DelayedJobStore.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final int RECORD_HEADER_LENGTH = 6;
+    private static final byte STATE_PENDING = 0;
+    private static final byte STATE_DONE = 1;
+
+    // 位置编码：高24位为分段ID，低40位为分段内偏移
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final int MAX_SEGMENT_ID = (1 << (Long.SIZE - OFFSET_BITS)) - 1;
+
+    /**
+     * 到期作业回调
+     */
+    @FunctionalInterface
+    public interface DueJobHandler {
+        /**
+         * @param attempts 已经重新提交的次数
+         */
+        void onDue(DelayedJob job, int attempts);
+    }
+
+    private final Path dir;
+    private final long bucketMillis;
+    private final long segmentSize;
+
+    // 以下状态由this保护
+    private final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+    private final Map<Integer, Segment> segments = new HashMap<>();
+    private final ByteBuf writeBuffer = Unpooled.buffer(256);
+    private Segment active;
+    private long pendingCount;
+
+    public DelayedJobStore(Path dir, long bucketMillis, long segmentSize) throws IOException {
+        this.dir = dir;
+        this.bucketMillis = Math.max(1, bucketMillis);
+        this.segmentSize = segmentSize;
+        Files.createDirectories(dir);
+        recover();
+    }
+
+    /**
+     * 追加一个作业
+     *
+     * @param attempts 已经重新提交的次数
+     */
+    public synchronized void add(DelayedJob job, int attempts) throws IOException {
+        writeBuffer.clear();
+        writeBuffer.writeInt(0);
+        writeBuffer.writeByte(STATE_PENDING);
+        writeBuffer.writeByte(Math.min(attempts, Byte.MAX_VALUE));
+        BinaryMessageCodec.writeDelayedJob(writeBuffer, job);
+        writeBuffer.setInt(0, writeBuffer.readableBytes() - 4);
+
+        if (active == null || active.size + writeBuffer.readableBytes() > segmentSize) {
+            rollSegment();
+        }
+        long offset = active.size;
+        ByteBuffer nio = writeBuffer.nioBuffer();
+        long position = offset;
+        while (nio.hasRemaining()) {
+            position += active.channel.write(nio, position);
+        }
+        active.size = position;
+        active.live++;
+        index(job.getFireTime(), location(active.id, offset));
+    }
+
+    /**
+     * 取出所有已到期的作业并交给回调处理，回调返回后作业被标记为已完成
+     * 只取出结束时间不晚于now的桶，作业最多晚一个桶的时间触发
+     *
+     * @return 取出的作业数
+     */
+    public int pollDue(long now, DueJobHandler handler) {
+        List<Bucket> due = new ArrayList<>();
+        synchronized (this) {
+            long dueBucket = Math.floorDiv(now, bucketMillis);
+            while (!buckets.isEmpty() && buckets.firstKey() < dueBucket) {
+                due.add(buckets.pollFirstEntry().getValue());
+            }
+        }
+        int polled = 0;
+        ByteBuffer readBuffer = ByteBuffer.allocate(256);
+        for (Bucket bucket : due) {
+            for (int i = 0; i < bucket.size; i++) {
+                long location = bucket.locations[i];
+                try {
+                    readBuffer = read(location, readBuffer);
+                    ByteBuf record = Unpooled.wrappedBuffer(readBuffer);
+                    record.skipBytes(1);
+                    int attempts = record.readByte();
+                    handler.onDue(BinaryMessageCodec.readDelayedJob(record), attempts);
+                } catch (Exception e) {
+                    logger.error("Error handling delayed job at segment {} offset {}",
+                            segmentId(location), offset(location), e);
+                }
+                complete(location);
+                polled++;
+            }
+        }
+        return polled;
+    }
+
+    /**
+     * 待触发的作业数
+     */
+    public synchronized long getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * 分段文件数
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 分段文件占用的磁盘字节数
+     */
+    public synchronized long getDiskBytes() {
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            bytes += segment.size;
+        }
+        return bytes;
+    }
+
+    public synchronized void close() {
+        for (Segment segment : segments.values()) {
+            closeQuietly(segment);
+        }
+        segments.clear();
+        active = null;
+    }
+
+    private void index(long fireTime, long location) {
+        buckets.computeIfAbsent(Math.floorDiv(fireTime, bucketMillis), k -> new Bucket()).add(location);
+        pendingCount++;
+    }
+
+    /**
+     * 读取记录到buffer，返回的buffer从state字段开始
+     */
+    private ByteBuffer read(long location, ByteBuffer buffer) throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            Segment segment = segments.get(segmentId(location));
+            if (segment == null) {
+                throw new IOException("Segment not found");
+            }
+            channel = segment.channel;
+        }
+        long offset = offset(location);
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        readFully(channel, lengthBuffer, offset);
+        int length = lengthBuffer.getInt(0);
+        if (buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2));
+        }
+        buffer.clear().limit(length);
+        readFully(channel, buffer, offset + 4);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 标记作业已完成，分段中的作业全部完成后删除分段文件
+     */
+    private synchronized void complete(long location) {
+        pendingCount--;
+        Segment segment = segments.get(segmentId(location));
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.channel.write(ByteBuffer.wrap(new byte[]{STATE_DONE}), offset(location) + 4);
+        } catch (IOException e) {
+            logger.warn("Failed to mark delayed job done in segment {}: {}", segment.id, e.getMessage());
+        }
+        if (--segment.live == 0 && segment != active) {
+            deleteSegment(segment);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        int id = active == null ? 0 : active.id + 1;
+        while (segments.containsKey(id) || Files.exists(segmentPath(id))) {
+            id = id >= MAX_SEGMENT_ID ? 0 : id + 1;
+        }
+        Segment previous = active;
+        active = openSegment(id);
+        segments.put(id, active);
+        if (previous != null && previous.live == 0) {
+            deleteSegment(previous);
+        }
+        logger.debug("Delayed job segment {} created", id);
+    }
+
+    private void recover() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    ids.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected file in delayed job directory: {}", path);
+                }
+            }
+        }
+        ids.sort(null);
+        for (int id : ids) {
+            Segment segment = openSegment(id);
+            segments.put(id, segment);
+            scan(segment);
+            if (segment.live == 0) {
+                deleteSegment(segment);
+            }
+        }
+        // 恢复的分段不再写入，新作业写入新的分段，恢复的作业全部完成后分段被删除
+        if (pendingCount > 0) {
+            logger.info("Recovered {} pending delayed job(s) from {} segment(s)", pendingCount, segments.size());
+        }
+    }
+
+    /**
+     * 扫描分段文件，索引未完成的作业，截断末尾不完整的记录
+     */
+    private void scan(Segment segment) throws IOException {
+        long fileSize = segment.channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        while (offset + RECORD_HEADER_LENGTH <= fileSize) {
+            header.clear();
+            readFully(segment.channel, header, offset);
+            int length = header.getInt(0);
+            if (length < 2 || offset + 4 + length > fileSize) {
+                break;
+            }
+            if (header.get(4) == STATE_PENDING) {
+                buffer = read(location(segment.id, offset), buffer);
+                ByteBuf record = Unpooled.wrappedBuffer(buffer);
+                record.skipBytes(2);
+                DelayedJob job = BinaryMessageCodec.readDelayedJob(record);
+                segment.live++;
+                index(job.getFireTime(), location(segment.id, offset));
+            }
+            offset += 4 + length;
+        }
+        if (offset < fileSize) {
+            logger.warn("Truncating incomplete record at offset {} of delayed job segment {}", offset, segment.id);
+            segment.channel.truncate(offset);
+        }
+        segment.size = offset;
+    }
+
+    private Segment openSegment(int id) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(id),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(id, channel, channel.size());
+    }
+
+    private void deleteSegment(Segment segment) {
+        segments.remove(segment.id);
+        closeQuietly(segment);
+        try {
+            Files.deleteIfExists(segmentPath(segment.id));
+            logger.debug("Delayed job segment {} deleted", segment.id);
+        } catch (IOException e) {
+            logger.warn("Failed to delete delayed job segment {}: {}", segment.id, e.getMessage());
+        }
+    }
+
+    private Path segmentPath(int id) {
+        return dir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close delayed job segment {}", segment.id, e);
+        }
+    }
+
+    private static long location(int segmentId, long offset) {
+        return ((long) segmentId << OFFSET_BITS) | offset;
+    }
+
+    private static int segmentId(long location) {
+        return (int) (location >>> OFFSET_BITS);
+    }
+
+    private static long offset(long location) {
+        return location & OFFSET_MASK;
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final FileChannel channel;
+        private long size;
+        // 未完成的作业数
+        private int live;
+
+        private Segment(int id, FileChannel channel, long size) {
+            this.id = id;
+            this.channel = channel;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 同一时间桶内作业的位置
+     */
+    private static final class Bucket {
+        private long[] locations = new long[4];
+        private int size;
+
+        private void add(long location) {
+            if (size == locations.length) {
+                locations = Arrays.copyOf(locations, size * 2);
+            }
+            locations[size++] = location;
+        }
+    }
+}
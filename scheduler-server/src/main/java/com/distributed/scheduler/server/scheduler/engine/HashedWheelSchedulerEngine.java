@@ -0,0 +1,100 @@
+package com.distributed.scheduler.server.scheduler.engine;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Netty HashedWheelTimer的调度引擎，默认实现
+ * 每次调度创建一个Timeout，超过一圈的任务在每次经过所在槽位时递减剩余圈数。
+ */
+public class HashedWheelSchedulerEngine implements SchedulerEngine {
+    private final HashedWheelTimer timer;
+    private final FireHandler fireHandler;
+    private final Map<String, Entry> timeouts = new ConcurrentHashMap<>();
+
+    public HashedWheelSchedulerEngine(long tickMillis, int wheelSize, FireHandler fireHandler) {
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory("scheduler-engine-hashed-wheel", true),
+                tickMillis, TimeUnit.MILLISECONDS, wheelSize);
+        this.fireHandler = fireHandler;
+    }
+
+    @Override
+    public void start() {
+        timer.start();
+    }
+
+    @Override
+    public void schedule(String taskId, long deadline) {
+        long delay = Math.max(0, deadline - System.currentTimeMillis());
+        // 先登记再创建Timeout，延迟为0或调用线程被挂起时回调可能先于newTimeout返回执行，
+        // 回调移除的必须是本次登记的条目，否则会留下已触发的条目，isScheduled一直为true
+        Entry entry = new Entry();
+        Entry previous = timeouts.put(taskId, entry);
+        if (previous != null) {
+            previous.cancel();
+        }
+        entry.setTimeout(timer.newTimeout(timeout -> {
+            // 只移除自己，条目已被取消或被重新调度替换时不再触发
+            if (timeouts.remove(taskId, entry)) {
+                fireHandler.onFire(taskId, deadline);
+            }
+        }, delay, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public boolean cancel(String taskId) {
+        // 条目移除后即使Timeout已到期，回调也不会再触发
+        Entry entry = timeouts.remove(taskId);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancel();
+        return true;
+    }
+
+    @Override
+    public boolean isScheduled(String taskId) {
+        return timeouts.containsKey(taskId);
+    }
+
+    @Override
+    public int size() {
+        return timeouts.size();
+    }
+
+    @Override
+    public void stop() {
+        timer.stop();
+        timeouts.clear();
+    }
+
+    /**
+     * 一次调度登记的条目，Timeout在登记之后设置
+     */
+    private static final class Entry {
+        private Timeout timeout;
+        private boolean cancelled;
+
+        synchronized void setTimeout(Timeout timeout) {
+            this.timeout = timeout;
+            if (cancelled) {
+                timeout.cancel();
+            }
+        }
+
+        /**
+         * 取消Timeout，还未设置时在设置后取消
+         */
+        synchronized void cancel() {
+            cancelled = true;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.distributed.scheduler.server.scheduler.engine;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多级时间轮调度引擎
+ * 共4级时间轮，每级256个槽位，第0级每个槽位一个tick，第n级每个槽位256^n个tick，
+ * tick为100毫秒时最长可直接表示约13年的延迟，更远的任务放在最高级，到期前逐级下放。
+ * 长周期任务只在所在级别的槽位到期时下放一次，不会像单级时间轮一样每圈都被遍历。
+ *
+ * 任务保存在按下标访问的并行数组中，槽位是下标组成的双向链表，任务ID到下标的映射
+ * 使用开放寻址的int数组，调度和触发不会为每个任务分配对象。
+ * 所有结构由同一把锁保护，回调在锁外执行，回调中可以重新调度任务。
+ */
+public class HierarchicalWheelSchedulerEngine implements SchedulerEngine {
+    private static final Logger logger = LoggerFactory.getLogger(HierarchicalWheelSchedulerEngine.class);
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final long tickMillis;
+    private final FireHandler fireHandler;
+    private final Thread workerThread;
+    private final Object lock = new Object();
+
+    // 每个槽位链表的头节点下标，下标为 level * SLOTS + slot
+    private final int[] slotHeads = new int[LEVELS * SLOTS];
+
+    // 任务数据，按下标存放
+    private String[] taskIds = new String[INITIAL_CAPACITY];
+    private long[] deadlines = new long[INITIAL_CAPACITY];
+    private long[] deadlineTicks = new long[INITIAL_CAPACITY];
+    private int[] slotOf = new int[INITIAL_CAPACITY];
+    private int[] prev = new int[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int highWater = 0;
+    private int freeHead = NONE;
+    private int size = 0;
+
+    // 任务ID到下标的开放寻址表，存放下标+1，0表示空位
+    private int[] index = new int[INITIAL_CAPACITY * 2];
+
+    // 本次tick到期的任务，复用数组避免每个tick分配
+    private String[] expiredIds = new String[64];
+    private long[] expiredDeadlines = new long[64];
+    private int expiredCount = 0;
+
+    private volatile long startTime;
+    private long currentTick = 0;
+    private volatile boolean running = false;
+
+    public HierarchicalWheelSchedulerEngine(long tickMillis, FireHandler fireHandler) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be greater than 0: " + tickMillis);
+        }
+        this.tickMillis = tickMillis;
+        this.fireHandler = fireHandler;
+        Arrays.fill(slotHeads, NONE);
+        this.workerThread = new DefaultThreadFactory("scheduler-engine-hierarchical-wheel", true)
+                .newThread(this::runWorker);
+        this.startTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public void start() {
+        synchronized (lock) {
+            if (running) {
+                return;
+            }
+            running = true;
+        }
+        workerThread.start();
+    }
+
+    @Override
+    public void schedule(String taskId, long deadline) {
+        synchronized (lock) {
+            int node = lookup(taskId);
+            if (node == NONE) {
+                node = allocate(taskId);
+            } else {
+                unlink(node);
+            }
+            deadlines[node] = deadline;
+            deadlineTicks[node] = tickOf(deadline);
+            place(node);
+        }
+    }
+
+    @Override
+    public boolean cancel(String taskId) {
+        synchronized (lock) {
+            int node = lookup(taskId);
+            if (node == NONE) {
+                return false;
+            }
+            unlink(node);
+            release(node);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean isScheduled(String taskId) {
+        synchronized (lock) {
+            return lookup(taskId) != NONE;
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        workerThread.interrupt();
+        synchronized (lock) {
+            Arrays.fill(slotHeads, NONE);
+            Arrays.fill(index, 0);
+            Arrays.fill(taskIds, 0, highWater, null);
+            highWater = 0;
+            freeHead = NONE;
+            size = 0;
+        }
+    }
+
+    /**
+     * 推进一个tick并执行到期任务的回调，返回本次触发的任务数
+     */
+    int advance() {
+        int count;
+        synchronized (lock) {
+            currentTick++;
+            cascade();
+            expireSlot(currentTick & SLOT_MASK);
+            count = expiredCount;
+            expiredCount = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            String taskId = expiredIds[i];
+            expiredIds[i] = null;
+            try {
+                fireHandler.onFire(taskId, expiredDeadlines[i]);
+            } catch (Throwable t) {
+                logger.error("Error firing task: {}", taskId, t);
+            }
+        }
+        return count;
+    }
+
+    private void runWorker() {
+        long nextTickTime = startTime + tickMillis;
+        while (running) {
+            long sleepMillis = nextTickTime - System.currentTimeMillis();
+            if (sleepMillis > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            // 落后时连续推进，直到追上当前时间
+            advance();
+            nextTickTime += tickMillis;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 时间轮，以下方法需持有锁
+    // ---------------------------------------------------------------------
+
+    private long tickOf(long deadline) {
+        long offset = deadline - startTime;
+        return offset <= 0 ? 0 : (offset + tickMillis - 1) / tickMillis;
+    }
+
+    /**
+     * 根据到期tick与当前tick的距离放入对应级别的槽位，已到期的放到下一个tick
+     */
+    private void place(int node) {
+        long ticks = deadlineTicks[node];
+        long delta = ticks - currentTick;
+        if (delta <= 0) {
+            // 已到期，放到下一个tick的槽位
+            ticks = currentTick + 1;
+            delta = 1;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        if (level == LEVELS - 1 && delta >= 1L << (SLOT_BITS * LEVELS)) {
+            // 超出最高级范围，先放在最高级能表示的最远位置，到期下放时重新计算
+            ticks = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        int slot = (int) ((ticks >>> (SLOT_BITS * level)) & SLOT_MASK);
+        link(node, level * SLOTS + slot);
+    }
+
+    /**
+     * 低级时间轮转满一圈时，把高一级当前槽位的任务按剩余距离重新放入低级时间轮，从最高级开始下放
+     */
+    private void cascade() {
+        int topLevel = 0;
+        while (topLevel < LEVELS - 1 && (currentTick & ((1L << (SLOT_BITS * (topLevel + 1))) - 1)) == 0) {
+            topLevel++;
+        }
+        for (int level = topLevel; level >= 1; level--) {
+            int bucket = level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            int node = slotHeads[bucket];
+            slotHeads[bucket] = NONE;
+            while (node != NONE) {
+                int following = next[node];
+                prev[node] = NONE;
+                next[node] = NONE;
+                slotOf[node] = NONE;
+                if (deadlineTicks[node] <= currentTick) {
+                    collect(node);
+                } else {
+                    place(node);
+                }
+                node = following;
+            }
+        }
+    }
+
+    private void expireSlot(long slot) {
+        int bucket = (int) slot;
+        int node = slotHeads[bucket];
+        slotHeads[bucket] = NONE;
+        while (node != NONE) {
+            int following = next[node];
+            prev[node] = NONE;
+            next[node] = NONE;
+            slotOf[node] = NONE;
+            if (deadlineTicks[node] <= currentTick) {
+                collect(node);
+            } else {
+                // 超出最高级范围的任务可能在第0级提前出现，重新放置
+                place(node);
+            }
+            node = following;
+        }
+    }
+
+    private void collect(int node) {
+        if (expiredCount == expiredIds.length) {
+            expiredIds = Arrays.copyOf(expiredIds, expiredCount * 2);
+            expiredDeadlines = Arrays.copyOf(expiredDeadlines, expiredCount * 2);
+        }
+        expiredIds[expiredCount] = taskIds[node];
+        expiredDeadlines[expiredCount] = deadlines[node];
+        expiredCount++;
+        release(node);
+    }
+
+    private void link(int node, int bucket) {
+        int head = slotHeads[bucket];
+        next[node] = head;
+        prev[node] = NONE;
+        if (head != NONE) {
+            prev[head] = node;
+        }
+        slotHeads[bucket] = node;
+        slotOf[node] = bucket;
+    }
+
+    private void unlink(int node) {
+        int bucket = slotOf[node];
+        if (bucket == NONE) {
+            return;
+        }
+        int before = prev[node];
+        int after = next[node];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            slotHeads[bucket] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+        prev[node] = NONE;
+        next[node] = NONE;
+        slotOf[node] = NONE;
+    }
+
+    // ---------------------------------------------------------------------
+    // 下标分配与任务ID索引
+    // ---------------------------------------------------------------------
+
+    private int allocate(String taskId) {
+        if ((size + 1) * 2 > index.length) {
+            rehash(index.length * 2);
+        }
+        int node;
+        if (freeHead != NONE) {
+            node = freeHead;
+            freeHead = next[node];
+        } else {
+            if (highWater == taskIds.length) {
+                grow();
+            }
+            node = highWater++;
+        }
+        taskIds[node] = taskId;
+        prev[node] = NONE;
+        next[node] = NONE;
+        slotOf[node] = NONE;
+        size++;
+        insertIndex(node);
+        return node;
+    }
+
+    private void release(int node) {
+        removeIndex(node);
+        taskIds[node] = null;
+        next[node] = freeHead;
+        freeHead = node;
+        size--;
+    }
+
+    private void grow() {
+        int capacity = taskIds.length * 2;
+        taskIds = Arrays.copyOf(taskIds, capacity);
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        deadlineTicks = Arrays.copyOf(deadlineTicks, capacity);
+        slotOf = Arrays.copyOf(slotOf, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+
+    private int lookup(String taskId) {
+        int mask = index.length - 1;
+        for (int i = hash(taskId) & mask; ; i = (i + 1) & mask) {
+            int entry = index[i];
+            if (entry == 0) {
+                return NONE;
+            }
+            if (taskIds[entry - 1].equals(taskId)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void insertIndex(int node) {
+        int mask = index.length - 1;
+        int i = hash(taskIds[node]) & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = node + 1;
+    }
+
+    /**
+     * 线性探测表的删除，把后续同一探测链上的条目前移填补空位
+     */
+    private void removeIndex(int node) {
+        int mask = index.length - 1;
+        int i = hash(taskIds[node]) & mask;
+        while (index[i] != node + 1) {
+            i = (i + 1) & mask;
+        }
+        int hole = i;
+        for (int j = (hole + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+            int home = hash(taskIds[index[j] - 1]) & mask;
+            // home不在(hole, j]区间内时，条目可以移动到hole
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                index[hole] = index[j];
+                hole = j;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private void rehash(int capacity) {
+        index = new int[capacity];
+        for (int node = 0; node < highWater; node++) {
+            if (taskIds[node] != null) {
+                insertIndex(node);
+            }
+        }
+    }
+
+    private static int hash(String taskId) {
+        int h = taskId.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,56 @@
+package com.distributed.scheduler.server.scheduler.engine;
+
+/**
+ * 调度引擎
+ * 按任务ID保存每个任务的下一次触发时间，到期后回调{@link FireHandler}。
+ * 每个任务同一时刻只有一个待触发时间，重复调度会替换之前的时间。
+ */
+public interface SchedulerEngine {
+
+    /**
+     * 任务到期回调，在引擎的定时线程中执行，实现不应阻塞
+     */
+    @FunctionalInterface
+    interface FireHandler {
+        /**
+         * @param taskId 到期的任务ID
+         * @param deadline 调度时指定的触发时间（毫秒时间戳）
+         */
+        void onFire(String taskId, long deadline);
+    }
+
+    /**
+     * 启动引擎
+     */
+    void start();
+
+    /**
+     * 调度任务在指定时间触发，任务已在调度中时替换原触发时间
+     *
+     * @param taskId 任务ID
+     * @param deadline 触发时间（毫秒时间戳），早于当前时间时在下一个tick触发
+     */
+    void schedule(String taskId, long deadline);
+
+    /**
+     * 取消任务调度
+     *
+     * @return 任务在调度中并被取消时返回true
+     */
+    boolean cancel(String taskId);
+
+    /**
+     * 任务是否在调度中
+     */
+    boolean isScheduled(String taskId);
+
+    /**
+     * 调度中的任务数量
+     */
+    int size();
+
+    /**
+     * 停止引擎，未触发的任务将被丢弃
+     */
+    void stop();
+}
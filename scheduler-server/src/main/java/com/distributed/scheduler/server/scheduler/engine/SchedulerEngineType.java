@@ -0,0 +1,57 @@
+package com.distributed.scheduler.server.scheduler.engine;
+
+/**
+ * 调度引擎类型
+ */
+public enum SchedulerEngineType {
+    /**
+     * Netty HashedWheelTimer，默认引擎
+     */
+    HASHED_WHEEL("hashed-wheel") {
+        @Override
+        public SchedulerEngine newEngine(long tickMillis, int wheelSize, SchedulerEngine.FireHandler fireHandler) {
+            return new HashedWheelSchedulerEngine(tickMillis, wheelSize, fireHandler);
+        }
+    },
+    /**
+     * 多级时间轮，适合大量长周期任务
+     */
+    HIERARCHICAL_WHEEL("hierarchical-wheel") {
+        @Override
+        public SchedulerEngine newEngine(long tickMillis, int wheelSize, SchedulerEngine.FireHandler fireHandler) {
+            // 每级槽位数固定，wheelSize只对单级时间轮生效
+            return new HierarchicalWheelSchedulerEngine(tickMillis, fireHandler);
+        }
+    };
+
+    private final String configName;
+
+    SchedulerEngineType(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * 创建调度引擎
+     *
+     * @param tickMillis 每个tick的毫秒数
+     * @param wheelSize 时间轮槽位数
+     * @param fireHandler 任务到期回调
+     */
+    public abstract SchedulerEngine newEngine(long tickMillis, int wheelSize, SchedulerEngine.FireHandler fireHandler);
+
+    /**
+     * 根据配置名称获取引擎类型，同时接受枚举名
+     */
+    public static SchedulerEngineType fromName(String name) {
+        for (SchedulerEngineType type : values()) {
+            if (type.configName.equalsIgnoreCase(name) || type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scheduler engine: " + name);
+    }
+}
@@ -0,0 +1,39 @@
+package com.distributed.scheduler.server.scheduler.result;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 计数合并归约器
+ * 各分片返回键为字符串、值为数值的Map，结果中每个键的值为所有分片对应值之和
+ */
+public class MergeCountsReducer implements ShardResultReducer {
+
+    @Override
+    public String getReducerName() {
+        return "mergeCounts";
+    }
+
+    @Override
+    public Object init() {
+        return new HashMap<String, Number>();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object accumulate(Object accumulator, int shardIndex, Object result) {
+        if (!(result instanceof Map)) {
+            throw new IllegalArgumentException("Shard " + shardIndex + " returned non-map result: "
+                    + result.getClass().getName());
+        }
+        Map<String, Number> counts = (Map<String, Number>) accumulator;
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) result).entrySet()) {
+            if (!(entry.getValue() instanceof Number)) {
+                throw new IllegalArgumentException("Shard " + shardIndex + " returned non-numeric count for key: "
+                        + entry.getKey());
+            }
+            counts.merge(String.valueOf(entry.getKey()), (Number) entry.getValue(), SumReducer::add);
+        }
+        return counts;
+    }
+}
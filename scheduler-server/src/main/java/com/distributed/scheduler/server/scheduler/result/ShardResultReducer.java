@@ -0,0 +1,44 @@
+package com.distributed.scheduler.server.scheduler.result;
+
+/**
+ * 广播分片结果归约器
+ * 分片结果到达时立即合并到累加值中，不缓存全部分片结果，所有分片结束后由累加值得到最终的汇总结果。
+ * 同一运行的调用已串行化，实现不需要同步，但同一实例会被多个运行共享，状态只能保存在累加值中。
+ * 自定义归约器声明为Spring Bean后按名称自动注册，任务通过TaskExecutor.getResultReducer()指定名称。
+ */
+public interface ShardResultReducer {
+
+    /**
+     * 获取归约器名称
+     *
+     * @return 归约器名称
+     */
+    String getReducerName();
+
+    /**
+     * 创建一次运行的初始累加值
+     *
+     * @return 初始累加值
+     */
+    Object init();
+
+    /**
+     * 合并一个分片的结果
+     *
+     * @param accumulator 当前累加值
+     * @param shardIndex 分片序号
+     * @param result 分片的执行结果，不为null
+     * @return 新的累加值，可以是修改后的原对象
+     */
+    Object accumulate(Object accumulator, int shardIndex, Object result);
+
+    /**
+     * 所有分片结束后由累加值得到汇总结果
+     *
+     * @param accumulator 最终的累加值
+     * @return 汇总结果
+     */
+    default Object complete(Object accumulator) {
+        return accumulator;
+    }
+}
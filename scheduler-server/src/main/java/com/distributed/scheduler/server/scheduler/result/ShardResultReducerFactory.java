@@ -0,0 +1,92 @@
+package com.distributed.scheduler.server.scheduler.result;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 分片结果归约器工厂
+ * 管理内置归约器和以Spring Bean声明的自定义归约器，并根据名称获取对应的归约器
+ */
+@Component
+public class ShardResultReducerFactory {
+
+    // 存储所有可用的归约器
+    private final Map<String, ShardResultReducer> reducers = new HashMap<>();
+
+    // 使用读写锁保证线程安全
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 构造函数，注册内置归约器
+     */
+    public ShardResultReducerFactory() {
+        registerReducer(new SumReducer());
+        registerReducer(new MergeCountsReducer());
+    }
+
+    /**
+     * 注册容器中声明的自定义归约器，同名时覆盖内置归约器
+     */
+    @Autowired(required = false)
+    public void setReducers(List<ShardResultReducer> customReducers) {
+        for (ShardResultReducer reducer : customReducers) {
+            registerReducer(reducer);
+        }
+    }
+
+    /**
+     * 注册新的归约器
+     *
+     * @param reducer 归约器实例
+     */
+    public void registerReducer(ShardResultReducer reducer) {
+        if (reducer == null) {
+            throw new IllegalArgumentException("Reducer cannot be null");
+        }
+
+        lock.writeLock().lock();
+        try {
+            reducers.put(reducer.getReducerName(), reducer);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 根据名称获取归约器
+     *
+     * @param reducerName 归约器名称
+     * @return 对应的归约器，不存在时返回null
+     */
+    public ShardResultReducer getReducer(String reducerName) {
+        if (reducerName == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return reducers.get(reducerName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取所有可用的归约器名称
+     *
+     * @return 归约器名称数组
+     */
+    public String[] getAllReducerNames() {
+        lock.readLock().lock();
+        try {
+            return reducers.keySet().toArray(new String[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
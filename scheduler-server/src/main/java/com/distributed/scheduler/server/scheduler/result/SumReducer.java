@@ -0,0 +1,41 @@
+package com.distributed.scheduler.server.scheduler.result;
+
+/**
+ * 数值求和归约器
+ * 各分片都返回整数时结果为Long，出现浮点数后结果为Double
+ */
+public class SumReducer implements ShardResultReducer {
+
+    @Override
+    public String getReducerName() {
+        return "sum";
+    }
+
+    @Override
+    public Object init() {
+        return 0L;
+    }
+
+    @Override
+    public Object accumulate(Object accumulator, int shardIndex, Object result) {
+        if (!(result instanceof Number)) {
+            throw new IllegalArgumentException("Shard " + shardIndex + " returned non-numeric result: "
+                    + result.getClass().getName());
+        }
+        return add((Number) accumulator, (Number) result);
+    }
+
+    /**
+     * 两个数值相加，都是整数时按long相加
+     */
+    static Number add(Number a, Number b) {
+        if (isIntegral(a) && isIntegral(b)) {
+            return a.longValue() + b.longValue();
+        }
+        return a.doubleValue() + b.doubleValue();
+    }
+
+    private static boolean isIntegral(Number value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+}
@@ -1,13 +1,10 @@
 package com.distributed.scheduler.server.scheduler.strategy;
 
-import com.distributed.scheduler.client.model.ClientInfo;
 import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.server.manager.ClientGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-import java.util.Set;
-
 /**
  * 客户端选择策略抽象基类
  * 提供通用的前置检查和基础功能
@@ -17,7 +14,7 @@ public abstract class AbstractClientSelectionStrategy implements ClientSelection
     protected final Logger logger = LoggerFactory.getLogger(getClass());
     
     @Override
-    public String selectClient(Map<String, ClientInfo> clients, TaskInfo taskInfo) {
+    public String selectClient(ClientGroup clients, TaskInfo taskInfo) {
         // 前置检查
         if (clients == null || clients.isEmpty()) {
             logger.warn("No clients available for task: {}", taskInfo.getTaskName());
@@ -36,30 +33,9 @@ public abstract class AbstractClientSelectionStrategy implements ClientSelection
     /**
      * 实际的客户端选择逻辑，由子类实现
      * 
-     * @param clients 可用客户端映射
+     * @param clients 分组内在线客户端的快照，不为空
      * @param taskInfo 当前要调度的任务信息
      * @return 选中的客户端ID
      */
-    protected abstract String doSelectClient(Map<String, ClientInfo> clients, TaskInfo taskInfo);
-    
-    /**
-     * 获取客户端ID集合
-     * 
-     * @param clients 客户端映射
-     * @return 客户端ID集合
-     */
-    protected Set<String> getClientIds(Map<String, ClientInfo> clients) {
-        return clients.keySet();
-    }
-    
-    /**
-     * 获取客户端信息
-     * 
-     * @param clients 客户端映射
-     * @param clientId 客户端ID
-     * @return 客户端信息
-     */
-    protected ClientInfo getClientInfo(Map<String, ClientInfo> clients, String clientId) {
-        return clients.get(clientId);
-    }
+    protected abstract String doSelectClient(ClientGroup clients, TaskInfo taskInfo);
 }
@@ -1,5 +1,7 @@
 package com.distributed.scheduler.server.scheduler.strategy;
 
+import com.distributed.scheduler.server.manager.ClientLatencyTracker;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,12 +26,17 @@ public class ClientSelectionStrategyFactory {
     
     /**
      * 构造函数，初始化所有策略
+     *
+     * @param latencyTracker latencyAware策略使用的执行耗时统计
      */
-    public ClientSelectionStrategyFactory() {
+    @Autowired
+    public ClientSelectionStrategyFactory(ClientLatencyTracker latencyTracker) {
         // 注册内置策略
         registerStrategy(new RoundRobinStrategy());
         registerStrategy(new RandomStrategy());
         registerStrategy(new WeightedStrategy());
+        registerStrategy(new LeastLoadedStrategy());
+        registerStrategy(new LatencyAwareStrategy(latencyTracker));
     }
     
     /**
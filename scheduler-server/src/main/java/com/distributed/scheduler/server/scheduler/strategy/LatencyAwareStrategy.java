@@ -0,0 +1,80 @@
+package com.distributed.scheduler.server.scheduler.strategy;
+
+import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.server.manager.ClientGroup;
+import com.distributed.scheduler.server.manager.ClientLatencyTracker;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 延迟感知调度策略
+ * 按任务在各客户端上执行耗时和失败率的移动平均选择客户端：随机取两个客户端，选择预期完成时间较短的一个，
+ * 预期完成时间为平均耗时乘以（在途实例数+1），再除以成功率。少量触发随机选择客户端，
+ * 让较慢或失败过的客户端恢复后重新获得执行，统计也不会停留在过时的结果上。
+ */
+public class LatencyAwareStrategy extends AbstractClientSelectionStrategy {
+
+    // 失败率接近1时成功率的下限，避免除以0
+    private static final double MIN_SUCCESS_RATE = 0.05;
+
+    private final ClientLatencyTracker latencyTracker;
+
+    public LatencyAwareStrategy(ClientLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
+    @Override
+    protected String doSelectClient(ClientGroup clients, TaskInfo taskInfo) {
+        int size = clients.size();
+        int index = 0;
+        if (size > 1) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < latencyTracker.getProbeRatio()) {
+                index = random.nextInt(size);
+            } else {
+                int first = random.nextInt(size);
+                int second = random.nextInt(size - 1);
+                if (second >= first) {
+                    second++;
+                }
+                Map<String, ClientLatencyTracker.ExecutionStats> stats = latencyTracker.getTaskStats(taskInfo.getTaskId());
+                index = choose(clients, stats, first, second);
+            }
+        }
+        String selectedClientId = clients.getClientId(index);
+
+        logger.debug("LatencyAware strategy selected client: {} for task: {}", selectedClientId, taskInfo.getTaskName());
+
+        return selectedClientId;
+    }
+
+    /**
+     * 比较两个客户端的预期完成时间，没有耗时统计的客户端按另一个客户端的耗时计算，只比较在途实例数和失败率
+     */
+    static int choose(ClientGroup clients, Map<String, ClientLatencyTracker.ExecutionStats> stats, int first, int second) {
+        ClientLatencyTracker.ExecutionStats a = stats.get(clients.getClientId(first));
+        ClientLatencyTracker.ExecutionStats b = stats.get(clients.getClientId(second));
+        double latencyA = a == null ? Double.NaN : a.getLatencyMillis();
+        double latencyB = b == null ? Double.NaN : b.getLatencyMillis();
+        if (Double.isNaN(latencyA)) {
+            latencyA = Double.isNaN(latencyB) ? 0 : latencyB;
+        }
+        if (Double.isNaN(latencyB)) {
+            latencyB = latencyA;
+        }
+        return cost(clients, second, latencyB, b) < cost(clients, first, latencyA, a) ? second : first;
+    }
+
+    private static double cost(ClientGroup clients, int index, double latencyMillis,
+                               ClientLatencyTracker.ExecutionStats stats) {
+        double successRate = stats == null ? 1 : Math.max(MIN_SUCCESS_RATE, 1 - stats.getFailureRate());
+        // 耗时加1毫秒，耗时很短的任务仍按在途实例数区分
+        return (latencyMillis + 1) * (clients.getInFlight(index) + 1) / successRate;
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "latencyAware";
+    }
+}
@@ -0,0 +1,54 @@
+package com.distributed.scheduler.server.scheduler.strategy;
+
+import com.distributed.scheduler.client.model.ClientInfo;
+import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.server.manager.ClientGroup;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最小负载调度策略
+ * 随机取两个客户端，选择负载较低的一个（power of two choices），只比较两个客户端即可避开繁忙的节点，
+ * 也不会像总是选择全局最小值那样让所有分发线程同时涌向同一个客户端。
+ * 负载为服务端记录的在途实例数与心跳上报的执行中和排队任务数中的较大值，除以客户端的最大线程数；
+ * 最近一个心跳周期内有任务被拒绝的客户端视为已饱和。
+ */
+public class LeastLoadedStrategy extends AbstractClientSelectionStrategy {
+    
+    @Override
+    protected String doSelectClient(ClientGroup clients, TaskInfo taskInfo) {
+        int size = clients.size();
+        int index = 0;
+        if (size > 1) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            index = load(clients, second) < load(clients, first) ? second : first;
+        }
+        String selectedClientId = clients.getClientId(index);
+        
+        logger.debug("LeastLoaded strategy selected client: {} for task: {}, in flight: {}", 
+                selectedClientId, taskInfo.getTaskName(), clients.getInFlight(index));
+        
+        return selectedClientId;
+    }
+    
+    /**
+     * 客户端的负载，1表示执行线程全部占用
+     */
+    static double load(ClientGroup clients, int index) {
+        ClientInfo client = clients.getClient(index);
+        // 在途实例数是实时的，上报的执行中和排队任务数最多滞后一个心跳周期，但包含其他来源的任务
+        int work = Math.max(clients.getInFlight(index), client.getActiveThreads() + client.getQueueDepth());
+        double load = (double) work / Math.max(1, client.getMaxThreads());
+        return client.getRecentRejections() > 0 ? load + 1 : load;
+    }
+    
+    @Override
+    public String getStrategyName() {
+        return "leastLoaded";
+    }
+}
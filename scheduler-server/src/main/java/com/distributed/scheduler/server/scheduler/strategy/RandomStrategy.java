@@ -1,11 +1,9 @@
 package com.distributed.scheduler.server.scheduler.strategy;
 
-import com.distributed.scheduler.client.model.ClientInfo;
 import com.distributed.scheduler.client.model.TaskInfo;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
-import java.util.stream.Collectors;
+import com.distributed.scheduler.server.manager.ClientGroup;
+
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 随机调度策略
@@ -13,19 +11,10 @@ import java.util.stream.Collectors;
  */
 public class RandomStrategy extends AbstractClientSelectionStrategy {
     
-    private final Random random = new Random();
-    
     @Override
-    protected String doSelectClient(Map<String, ClientInfo> clients, TaskInfo taskInfo) {
-        List<String> clientIds = clients.keySet().stream().collect(Collectors.toList());
-        
-        if (clientIds.isEmpty()) {
-            return null;
-        }
-        
-        // 随机选择客户端
-        int randomIndex = random.nextInt(clientIds.size());
-        String selectedClientId = clientIds.get(randomIndex);
+    protected String doSelectClient(ClientGroup clients, TaskInfo taskInfo) {
+        // 随机选择客户端，各分发线程使用自己的随机数生成器
+        String selectedClientId = clients.getClientId(ThreadLocalRandom.current().nextInt(clients.size()));
         
         logger.debug("Random strategy selected client: {} for task: {}", 
                 selectedClientId, taskInfo.getTaskName());
@@ -1,12 +1,7 @@
 package com.distributed.scheduler.server.scheduler.strategy;
 
-import com.distributed.scheduler.client.model.ClientInfo;
 import com.distributed.scheduler.client.model.TaskInfo;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import com.distributed.scheduler.server.manager.ClientGroup;
 
 /**
  * 轮询调度策略
@@ -14,20 +9,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class RoundRobinStrategy extends AbstractClientSelectionStrategy {
     
-    // 使用原子变量确保线程安全
-    private final AtomicInteger counter = new AtomicInteger(0);
-    
     @Override
-    protected String doSelectClient(Map<String, ClientInfo> clients, TaskInfo taskInfo) {
-        List<String> clientIds = new ArrayList<>(clients.keySet());
-        
-        if (clientIds.isEmpty()) {
-            return null;
-        }
-        
-        // 使用轮询算法选择客户端
-        int index = Math.abs(counter.getAndIncrement() % clientIds.size());
-        String selectedClientId = clientIds.get(index);
+    protected String doSelectClient(ClientGroup clients, TaskInfo taskInfo) {
+        // 游标按分组保存，多个分组交替触发时各自依次轮询
+        String selectedClientId = clients.getClientId(clients.nextRoundRobinIndex());
         
         logger.debug("RoundRobin strategy selected client: {} for task: {}", 
                 selectedClientId, taskInfo.getTaskName());
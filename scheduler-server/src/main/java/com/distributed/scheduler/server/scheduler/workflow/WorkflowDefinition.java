@@ -0,0 +1,64 @@
+package com.distributed.scheduler.server.scheduler.workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 工作流定义
+ * 节点为已注册任务的taskId，边为任务之间的依赖，必须是有向无环图。
+ * 指定cron表达式时按cron启动运行，否则只能手动启动。
+ */
+public class WorkflowDefinition {
+
+    private String workflowId;
+    private String name;
+    private String cronExpression;
+    private List<String> nodes = new ArrayList<>();
+    private List<WorkflowEdge> edges = new ArrayList<>();
+
+    public String getWorkflowId() {
+        return workflowId;
+    }
+
+    public void setWorkflowId(String workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 启动运行的cron表达式，为空时只能手动启动
+     */
+    public String getCronExpression() {
+        return cronExpression;
+    }
+
+    public void setCronExpression(String cronExpression) {
+        this.cronExpression = cronExpression;
+    }
+
+    /**
+     * 节点的taskId
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(List<String> nodes) {
+        this.nodes = nodes == null ? new ArrayList<>() : nodes;
+    }
+
+    public List<WorkflowEdge> getEdges() {
+        return edges;
+    }
+
+    public void setEdges(List<WorkflowEdge> edges) {
+        this.edges = edges == null ? new ArrayList<>() : edges;
+    }
+}
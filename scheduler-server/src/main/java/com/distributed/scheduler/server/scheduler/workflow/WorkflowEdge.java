@@ -0,0 +1,62 @@
+package com.distributed.scheduler.server.scheduler.workflow;
+
+/**
+ * 工作流的依赖边，from执行结束后才能执行to
+ */
+public class WorkflowEdge {
+
+    /**
+     * 上游节点没有成功（失败或被跳过）时的处理方式
+     */
+    public enum FailurePolicy {
+        SKIP,           // 跳过下游节点，并按下游节点的出边继续传递
+        CONTINUE,       // 视为依赖已满足，下游节点照常执行
+        FAIL_WORKFLOW   // 整个工作流运行失败，不再触发新的节点
+    }
+
+    private String from;
+    private String to;
+    private FailurePolicy failurePolicy = FailurePolicy.SKIP;
+
+    public WorkflowEdge() {
+    }
+
+    public WorkflowEdge(String from, String to, FailurePolicy failurePolicy) {
+        this.from = from;
+        this.to = to;
+        setFailurePolicy(failurePolicy);
+    }
+
+    /**
+     * 上游任务ID
+     */
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    /**
+     * 下游任务ID
+     */
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public FailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    /**
+     * 为null时使用SKIP
+     */
+    public void setFailurePolicy(FailurePolicy failurePolicy) {
+        this.failurePolicy = failurePolicy == null ? FailurePolicy.SKIP : failurePolicy;
+    }
+}
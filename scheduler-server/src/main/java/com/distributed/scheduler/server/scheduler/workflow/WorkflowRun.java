@@ -0,0 +1,296 @@
+package com.distributed.scheduler.server.scheduler.workflow;
+
+import com.distributed.scheduler.client.model.TaskStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 工作流的一次运行
+ * 节点的所有上游都结束后节点就绪，就绪的节点同时触发。上游没有成功时按边的失败策略处理，
+ * 所有节点结束（成功、失败或被跳过）后运行结束，任一节点失败时整个运行为失败。
+ */
+public class WorkflowRun {
+
+    public enum NodeStatus {
+        PENDING,    // 等待上游结束
+        RUNNING,    // 已触发
+        SUCCESS,    // 执行成功
+        FAILED,     // 执行失败或未能触发
+        SKIPPED     // 因上游没有成功或工作流失败被跳过
+    }
+
+    private final String runId;
+    private final String workflowId;
+    private final long startTime;
+    private final Node[] nodes;
+    private final Map<String, Integer> nodeIndex;
+    // 按节点序号保存出边的下游节点序号和失败策略
+    private final int[][] successors;
+    private final WorkflowEdge.FailurePolicy[][] successorPolicies;
+    // 尚未结束的上游数
+    private final int[] remaining;
+    private long endTime;
+    private int finished;
+    private int failed;
+    private String abortReason;
+
+    /**
+     * @param definition 已校验的工作流定义
+     */
+    public WorkflowRun(String runId, WorkflowDefinition definition) {
+        this.runId = runId;
+        this.workflowId = definition.getWorkflowId();
+        this.startTime = System.currentTimeMillis();
+        List<String> taskIds = definition.getNodes();
+        int count = taskIds.size();
+        this.nodes = new Node[count];
+        this.nodeIndex = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            nodes[i] = new Node(taskIds.get(i));
+            nodeIndex.put(taskIds.get(i), i);
+        }
+        this.remaining = new int[count];
+        int[] outDegree = new int[count];
+        for (WorkflowEdge edge : definition.getEdges()) {
+            outDegree[nodeIndex.get(edge.getFrom())]++;
+            remaining[nodeIndex.get(edge.getTo())]++;
+        }
+        this.successors = new int[count][];
+        this.successorPolicies = new WorkflowEdge.FailurePolicy[count][];
+        for (int i = 0; i < count; i++) {
+            successors[i] = new int[outDegree[i]];
+            successorPolicies[i] = new WorkflowEdge.FailurePolicy[outDegree[i]];
+            outDegree[i] = 0;
+        }
+        for (WorkflowEdge edge : definition.getEdges()) {
+            int from = nodeIndex.get(edge.getFrom());
+            successors[from][outDegree[from]] = nodeIndex.get(edge.getTo());
+            successorPolicies[from][outDegree[from]++] = edge.getFailurePolicy();
+        }
+    }
+
+    /**
+     * 开始运行，把没有上游的节点标记为已触发
+     *
+     * @return 需要立即触发的taskId
+     */
+    public synchronized List<String> start() {
+        List<String> ready = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            if (remaining[i] == 0) {
+                ready.add(markRunning(nodes[i]));
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * 节点执行结束，解析下游节点的依赖
+     *
+     * @param status SUCCESS、FAILED或TIMED_OUT，没有成功时按失败处理
+     * @return 因此就绪、需要立即触发的taskId，已被标记为已触发
+     */
+    public synchronized List<String> onNodeCompleted(String taskId, TaskStatus.Status status, String errorMsg) {
+        Integer index = nodeIndex.get(taskId);
+        if (index == null || nodes[index].status != NodeStatus.RUNNING) {
+            return Collections.emptyList();
+        }
+        Node node = nodes[index];
+        node.endTime = System.currentTimeMillis();
+        node.errorMsg = errorMsg;
+        if (status == TaskStatus.Status.SUCCESS) {
+            node.status = NodeStatus.SUCCESS;
+        } else {
+            node.status = NodeStatus.FAILED;
+            failed++;
+        }
+        nodeFinished();
+
+        List<Integer> ready = new ArrayList<>();
+        Deque<Integer> resolved = new ArrayDeque<>();
+        resolved.push(index);
+        while (!resolved.isEmpty()) {
+            int upstream = resolved.pop();
+            boolean succeeded = nodes[upstream].status == NodeStatus.SUCCESS;
+            for (int i = 0; i < successors[upstream].length; i++) {
+                int downstream = successors[upstream][i];
+                remaining[downstream]--;
+                if (nodes[downstream].status != NodeStatus.PENDING) {
+                    continue;
+                }
+                if (!succeeded) {
+                    WorkflowEdge.FailurePolicy policy = successorPolicies[upstream][i];
+                    if (policy == WorkflowEdge.FailurePolicy.FAIL_WORKFLOW) {
+                        if (abortReason == null) {
+                            abortReason = "Node " + nodes[upstream].taskId + " " + nodes[upstream].status;
+                        }
+                        continue;
+                    }
+                    if (policy == WorkflowEdge.FailurePolicy.SKIP) {
+                        // 被跳过的节点立即结束，继续解析它的下游
+                        skip(nodes[downstream], "Upstream " + nodes[upstream].taskId + " " + nodes[upstream].status);
+                        resolved.push(downstream);
+                        continue;
+                    }
+                }
+                if (remaining[downstream] == 0) {
+                    ready.add(downstream);
+                }
+            }
+        }
+
+        if (abortReason != null) {
+            // 工作流失败后跳过所有未触发的节点，已触发的节点结束后运行结束
+            for (Node pending : nodes) {
+                if (pending.status == NodeStatus.PENDING) {
+                    skip(pending, "Workflow failed: " + abortReason);
+                }
+            }
+            return Collections.emptyList();
+        }
+        List<String> taskIds = new ArrayList<>(ready.size());
+        for (int i : ready) {
+            taskIds.add(markRunning(nodes[i]));
+        }
+        return taskIds;
+    }
+
+    private String markRunning(Node node) {
+        node.status = NodeStatus.RUNNING;
+        node.startTime = System.currentTimeMillis();
+        return node.taskId;
+    }
+
+    private void skip(Node node, String reason) {
+        node.status = NodeStatus.SKIPPED;
+        node.errorMsg = reason;
+        node.endTime = System.currentTimeMillis();
+        nodeFinished();
+    }
+
+    private void nodeFinished() {
+        finished++;
+        if (finished == nodes.length) {
+            endTime = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized boolean isFinished() {
+        return finished == nodes.length;
+    }
+
+    /**
+     * 运行状态：RUNNING、SUCCESS或FAILED
+     */
+    public synchronized TaskStatus.Status getStatus() {
+        if (finished < nodes.length) {
+            return TaskStatus.Status.RUNNING;
+        }
+        return failed == 0 && abortReason == null ? TaskStatus.Status.SUCCESS : TaskStatus.Status.FAILED;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public String getWorkflowId() {
+        return workflowId;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public synchronized long getEndTime() {
+        return endTime;
+    }
+
+    public int getNodeTotal() {
+        return nodes.length;
+    }
+
+    public synchronized int getFinishedNodes() {
+        return finished;
+    }
+
+    public synchronized int getFailedNodes() {
+        return failed;
+    }
+
+    /**
+     * 通过FAIL_WORKFLOW边使工作流失败的原因
+     */
+    public synchronized String getAbortReason() {
+        return abortReason;
+    }
+
+    /**
+     * 各节点的快照
+     */
+    public synchronized List<Node> getNodes() {
+        List<Node> snapshot = new ArrayList<>(nodes.length);
+        for (Node node : nodes) {
+            snapshot.add(node.copy());
+        }
+        return Collections.unmodifiableList(snapshot);
+    }
+
+    /**
+     * 单个节点
+     */
+    public static final class Node {
+        private final String taskId;
+        private NodeStatus status = NodeStatus.PENDING;
+        private String errorMsg;
+        private long startTime;
+        private long endTime;
+
+        private Node(String taskId) {
+            this.taskId = taskId;
+        }
+
+        private Node copy() {
+            Node copy = new Node(taskId);
+            copy.status = status;
+            copy.errorMsg = errorMsg;
+            copy.startTime = startTime;
+            copy.endTime = endTime;
+            return copy;
+        }
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        public NodeStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * 失败或被跳过的原因
+         */
+        public String getErrorMsg() {
+            return errorMsg;
+        }
+
+        /**
+         * 触发的时间，未触发时为0
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * 结束的时间，未结束时为0
+         */
+        public long getEndTime() {
+            return endTime;
+        }
+    }
+}
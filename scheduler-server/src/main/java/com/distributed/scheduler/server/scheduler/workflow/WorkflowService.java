@@ -0,0 +1,276 @@
+package com.distributed.scheduler.server.scheduler.workflow;
+
+import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.server.scheduler.TaskScheduler;
+import com.distributed.scheduler.server.scheduler.cron.CronScheduleCache;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工作流服务
+ * 保存工作流定义并驱动运行：节点的执行结束后立即在各任务所在分片的分发线程中触发就绪的下游节点，
+ * 互不依赖的分支并行执行。同一工作流同时只有一个运行。
+ */
+@Component
+public class WorkflowService {
+    private static final Logger logger = LoggerFactory.getLogger(WorkflowService.class);
+
+    private final ConcurrentMap<String, WorkflowDefinition> definitions = new ConcurrentHashMap<>();
+    // 正在执行的运行，key为workflowId
+    private final ConcurrentMap<String, WorkflowRun> activeRuns = new ConcurrentHashMap<>();
+    // 最近结束的运行，由自身保护
+    private final Deque<WorkflowRun> recentRuns = new ArrayDeque<>();
+    private final ConcurrentMap<String, ScheduledFuture<?>> cronTriggers = new ConcurrentHashMap<>();
+    private final CronScheduleCache cronCache = new CronScheduleCache();
+    private ScheduledExecutorService cronTimer;
+
+    // 保留的最近结束的运行数
+    @Value("${scheduler.workflow.history-size:100}")
+    private int historySize;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @PostConstruct
+    public void init() {
+        cronTimer = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("workflow-cron", true));
+    }
+
+    /**
+     * 注册或替换工作流定义，替换不影响正在执行的运行
+     *
+     * @throws IllegalArgumentException 定义不合法，例如引用了不存在的节点或存在环
+     */
+    public void register(WorkflowDefinition definition) {
+        validate(definition);
+        String workflowId = definition.getWorkflowId();
+        definitions.put(workflowId, definition);
+        cancelCron(workflowId);
+        if (StringUtils.hasText(definition.getCronExpression())) {
+            scheduleNext(definition, System.currentTimeMillis());
+        }
+        logger.info("Workflow registered: {}, nodes: {}, edges: {}, cron: {}", workflowId,
+                definition.getNodes().size(), definition.getEdges().size(), definition.getCronExpression());
+    }
+
+    /**
+     * 移除工作流定义，正在执行的运行继续执行到结束
+     *
+     * @return 定义不存在时返回false
+     */
+    public boolean remove(String workflowId) {
+        cancelCron(workflowId);
+        if (definitions.remove(workflowId) == null) {
+            return false;
+        }
+        logger.info("Workflow removed: {}", workflowId);
+        return true;
+    }
+
+    private void validate(WorkflowDefinition definition) {
+        if (!StringUtils.hasText(definition.getWorkflowId())) {
+            throw new IllegalArgumentException("workflowId is required");
+        }
+        List<String> nodes = definition.getNodes();
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        Map<String, Integer> inDegree = new HashMap<>(nodes.size() * 2);
+        for (String taskId : nodes) {
+            if (!StringUtils.hasText(taskId) || inDegree.put(taskId, 0) != null) {
+                throw new IllegalArgumentException("Blank or duplicate node: " + taskId);
+            }
+        }
+        Map<String, List<String>> successors = new HashMap<>();
+        Set<String> edgeKeys = new HashSet<>();
+        for (WorkflowEdge edge : definition.getEdges()) {
+            if (!inDegree.containsKey(edge.getFrom()) || !inDegree.containsKey(edge.getTo())) {
+                throw new IllegalArgumentException("Edge references unknown node: " + edge.getFrom() + " -> " + edge.getTo());
+            }
+            if (!edgeKeys.add(edge.getFrom() + "\n" + edge.getTo())) {
+                throw new IllegalArgumentException("Duplicate edge: " + edge.getFrom() + " -> " + edge.getTo());
+            }
+            successors.computeIfAbsent(edge.getFrom(), k -> new ArrayList<>()).add(edge.getTo());
+            inDegree.merge(edge.getTo(), 1, Integer::sum);
+        }
+        // 按拓扑顺序移除入度为0的节点，剩余节点说明存在环
+        Deque<String> roots = new ArrayDeque<>();
+        inDegree.forEach((taskId, degree) -> {
+            if (degree == 0) {
+                roots.add(taskId);
+            }
+        });
+        int visited = 0;
+        while (!roots.isEmpty()) {
+            String taskId = roots.poll();
+            visited++;
+            for (String next : successors.getOrDefault(taskId, Collections.emptyList())) {
+                if (inDegree.merge(next, -1, Integer::sum) == 0) {
+                    roots.add(next);
+                }
+            }
+        }
+        if (visited < nodes.size()) {
+            throw new IllegalArgumentException("Workflow " + definition.getWorkflowId() + " contains a cycle");
+        }
+        if (StringUtils.hasText(definition.getCronExpression())) {
+            cronCache.get(definition.getCronExpression());
+        }
+    }
+
+    /**
+     * 启动一次运行，立即触发没有上游的节点
+     *
+     * @throws IllegalArgumentException 工作流不存在
+     * @throws IllegalStateException 该工作流已有正在执行的运行
+     */
+    public WorkflowRun start(String workflowId) {
+        WorkflowDefinition definition = definitions.get(workflowId);
+        if (definition == null) {
+            throw new IllegalArgumentException("Unknown workflow: " + workflowId);
+        }
+        WorkflowRun run = new WorkflowRun(UUID.randomUUID().toString(), definition);
+        WorkflowRun active = activeRuns.putIfAbsent(workflowId, run);
+        if (active != null) {
+            throw new IllegalStateException("Workflow " + workflowId + " is already running as " + active.getRunId());
+        }
+        logger.info("Workflow run {} of {} started", run.getRunId(), workflowId);
+        dispatch(run, run.start());
+        return run;
+    }
+
+    /**
+     * 触发就绪的节点，每个节点在其任务所在分片的分发线程中触发
+     */
+    private void dispatch(WorkflowRun run, List<String> taskIds) {
+        for (String taskId : taskIds) {
+            logger.debug("Workflow run {} triggering node {}", run.getRunId(), taskId);
+            if (!taskScheduler.triggerTracked(taskId, null,
+                    (status, errorMsg) -> onNodeCompleted(run, taskId, status, errorMsg))) {
+                onNodeCompleted(run, taskId, TaskStatus.Status.FAILED, "Task not registered");
+            }
+        }
+    }
+
+    private void onNodeCompleted(WorkflowRun run, String taskId, TaskStatus.Status status, String errorMsg) {
+        logger.debug("Workflow run {} node {} completed: {}", run.getRunId(), taskId, status);
+        List<String> ready = run.onNodeCompleted(taskId, status, errorMsg);
+        if (!ready.isEmpty()) {
+            dispatch(run, ready);
+        } else if (run.isFinished() && activeRuns.remove(run.getWorkflowId(), run)) {
+            synchronized (recentRuns) {
+                recentRuns.addFirst(run);
+                while (recentRuns.size() > historySize) {
+                    recentRuns.removeLast();
+                }
+            }
+            logger.info("Workflow run {} of {} finished: {}, failed nodes: {}/{}", run.getRunId(), run.getWorkflowId(),
+                    run.getStatus(), run.getFailedNodes(), run.getNodeTotal());
+        }
+    }
+
+    /**
+     * 按cron表达式安排下一次启动，下一次的计算基于本次的计划时间
+     */
+    private void scheduleNext(WorkflowDefinition definition, long afterMillis) {
+        long next = cronCache.get(definition.getCronExpression()).nextFireTime(afterMillis);
+        if (next < 0) {
+            return;
+        }
+        String workflowId = definition.getWorkflowId();
+        ScheduledFuture<?> future = cronTimer.schedule(() -> {
+            // 定义已被替换或移除
+            if (definitions.get(workflowId) != definition) {
+                return;
+            }
+            try {
+                start(workflowId);
+            } catch (IllegalStateException e) {
+                logger.warn("Skipping scheduled run of workflow {}: {}", workflowId, e.getMessage());
+            } catch (Exception e) {
+                logger.error("Failed to start scheduled run of workflow {}", workflowId, e);
+            }
+            scheduleNext(definition, Math.max(next, System.currentTimeMillis()));
+        }, Math.max(0, next - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        cronTriggers.put(workflowId, future);
+    }
+
+    private void cancelCron(String workflowId) {
+        ScheduledFuture<?> future = cronTriggers.remove(workflowId);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    public WorkflowDefinition getDefinition(String workflowId) {
+        return definitions.get(workflowId);
+    }
+
+    public Collection<WorkflowDefinition> getDefinitions() {
+        return new ArrayList<>(definitions.values());
+    }
+
+    public WorkflowRun getRun(String runId) {
+        for (WorkflowRun run : activeRuns.values()) {
+            if (run.getRunId().equals(runId)) {
+                return run;
+            }
+        }
+        synchronized (recentRuns) {
+            for (WorkflowRun recent : recentRuns) {
+                if (recent.getRunId().equals(runId)) {
+                    return recent;
+                }
+            }
+        }
+        return null;
+    }
+
+    public Collection<WorkflowRun> getActiveRuns() {
+        return new ArrayList<>(activeRuns.values());
+    }
+
+    /**
+     * 最近结束的运行，最新的在前
+     */
+    public List<WorkflowRun> getRecentRuns() {
+        synchronized (recentRuns) {
+            return new ArrayList<>(recentRuns);
+        }
+    }
+
+    public int getActiveRunCount() {
+        return activeRuns.size();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        cronTimer.shutdownNow();
+        logger.info("Workflow service stopped, active runs: {}", activeRuns.size());
+    }
+}
@@ -0,0 +1,79 @@
+package com.distributed.scheduler.server.benchmark;
+
+import com.distributed.scheduler.server.scheduler.cron.CronSchedule;
+import com.distributed.scheduler.server.scheduler.cron.CronScheduleCache;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * cron表达式基准测试
+ * 对比每次重新调度时的三种做法：Spring解析+计算（原实现）、Spring预解析后计算、CompiledCron计算，
+ * 输出每次计算的耗时和分配的字节数。
+ *
+ * 运行方式：mvn -pl scheduler-server test-compile exec:java -Dexec.classpathScope=test
+ *          -Dexec.mainClass=com.distributed.scheduler.server.benchmark.CronBenchmark -Dexec.args="[iterations]"
+ */
+public class CronBenchmark {
+
+    private static final String[] EXPRESSIONS = {
+            "*/10 * * * * ?",
+            "0 0/5 14,18 * * ?",
+            "0 0 12 * * MON-FRI",
+            "0 15 10 15 * ?",
+            "0 0 0 1 1 *"
+    };
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // 防止JIT消除计算结果
+    private static long sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        CronScheduleCache cache = new CronScheduleCache();
+
+        System.out.printf("iterations=%d%n", iterations);
+        System.out.printf("%-20s %-22s %12s %12s%n", "expression", "method", "ns/op", "bytes/op");
+        for (String expression : EXPRESSIONS) {
+            CronExpression parsed = CronExpression.parse(expression);
+            CronSchedule compiled = cache.get(expression);
+
+            run(expression, "spring parse+next", iterations, () -> {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime next = CronExpression.parse(expression).next(now);
+                return Duration.between(now, next).toMillis();
+            });
+            run(expression, "spring next", iterations, () -> {
+                LocalDateTime now = LocalDateTime.now();
+                return Duration.between(now, parsed.next(now)).toMillis();
+            });
+            run(expression, "compiled next", iterations,
+                    () -> compiled.nextFireTime(System.currentTimeMillis()));
+        }
+    }
+
+    private static void run(String expression, String method, int iterations, Computation computation) {
+        // 预热
+        for (int i = 0; i < iterations / 2; i++) {
+            sink += computation.next();
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += computation.next();
+        }
+        double nanos = (double) (System.nanoTime() - start) / iterations;
+        double bytes = (double) (THREAD_BEAN.getThreadAllocatedBytes(threadId) - bytesBefore) / iterations;
+        System.out.printf("%-20s %-22s %12.0f %12.1f%n", expression, method, nanos, bytes);
+    }
+
+    @FunctionalInterface
+    private interface Computation {
+        long next();
+    }
+}
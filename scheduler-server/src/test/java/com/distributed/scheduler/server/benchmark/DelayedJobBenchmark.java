@@ -0,0 +1,96 @@
+package com.distributed.scheduler.server.benchmark;
+
+import com.distributed.scheduler.client.model.DelayedJob;
+import com.distributed.scheduler.server.scheduler.delay.DelayedJobStore;
+import io.netty.util.HashedWheelTimer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 延迟任务存储基准测试
+ * 提交jobs个分布在未来一小时内的作业，对比DelayedJobStore和每个作业一个HashedWheelTimer Timeout的堆内存占用，
+ * 然后把时间推进到所有作业到期，统计DelayedJobStore取出作业的吞吐。
+ *
+ * 运行方式：mvn -pl scheduler-server test-compile exec:java -Dexec.classpathScope=test
+ *          -Dexec.mainClass=com.distributed.scheduler.server.benchmark.DelayedJobBenchmark -Dexec.args="[jobs] [dir]"
+ */
+public class DelayedJobBenchmark {
+
+    private static final long HORIZON_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    public static void main(String[] args) throws Exception {
+        int jobCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path dir = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("delayed-job-benchmark");
+
+        System.out.printf("jobs=%d, dir=%s%n", jobCount, dir);
+        System.out.printf("%-16s %14s %14s %14s%n", "store", "heap MB", "bytes/job", "submit ms");
+
+        long start = System.currentTimeMillis();
+        long baseline = usedHeap();
+        long begin = System.nanoTime();
+        DelayedJobStore store = new DelayedJobStore(dir, 100, 64L * 1024 * 1024);
+        for (int i = 0; i < jobCount; i++) {
+            store.add(newJob(i, start), 0);
+        }
+        long submitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        print("segment-file", usedHeap() - baseline, jobCount, submitMillis);
+
+        AtomicLong polled = new AtomicLong();
+        begin = System.nanoTime();
+        store.pollDue(start + HORIZON_MILLIS + 2000, (job, attempts) -> polled.incrementAndGet());
+        double pollSeconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("polled %d job(s) in %.2f s, %.0f jobs/s, pending: %d, segments: %d%n",
+                polled.get(), pollSeconds, polled.get() / pollSeconds, store.getPendingCount(), store.getSegmentCount());
+        store.close();
+        deleteRecursively(dir);
+
+        baseline = usedHeap();
+        begin = System.nanoTime();
+        HashedWheelTimer timer = new HashedWheelTimer(100, TimeUnit.MILLISECONDS, 1024);
+        for (int i = 0; i < jobCount; i++) {
+            DelayedJob job = newJob(i, start);
+            timer.newTimeout(timeout -> job.getParams(), job.getFireTime() - start, TimeUnit.MILLISECONDS);
+        }
+        submitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        // 等待工作线程把Timeout转移到时间轮中
+        Thread.sleep(1000);
+        print("hashed-wheel", usedHeap() - baseline, jobCount, submitMillis);
+        timer.stop();
+    }
+
+    private static DelayedJob newJob(int i, long start) {
+        Map<String, Object> params = Collections.singletonMap("orderId", "order-" + i);
+        return new DelayedJob(UUID.randomUUID().toString(), "orderTimeout_orders",
+                start + 1000 + (long) i * 7919 % HORIZON_MILLIS, params);
+    }
+
+    private static void print(String name, long heapBytes, int jobCount, long submitMillis) {
+        System.out.printf("%-16s %14.1f %14.1f %14d%n", name, heapBytes / 1024.0 / 1024.0,
+                (double) heapBytes / jobCount, submitMillis);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
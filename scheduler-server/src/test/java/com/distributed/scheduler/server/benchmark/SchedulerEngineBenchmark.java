@@ -0,0 +1,110 @@
+package com.distributed.scheduler.server.benchmark;
+
+import com.distributed.scheduler.server.scheduler.engine.SchedulerEngine;
+import com.distributed.scheduler.server.scheduler.engine.SchedulerEngineType;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调度引擎基准测试
+ * 分别在10k/100k/1M个长周期任务（1小时到30天后触发）下，对比各调度引擎每个任务占用的堆内存、
+ * 调度耗时以及空闲时每个tick的CPU耗时。
+ *
+ * 运行方式：mvn -pl scheduler-server test-compile exec:java -Dexec.classpathScope=test
+ *          -Dexec.mainClass=com.distributed.scheduler.server.benchmark.SchedulerEngineBenchmark -Dexec.args="[tickMillis] [measureSeconds]"
+ */
+public class SchedulerEngineBenchmark {
+
+    private static final int[] TASK_COUNTS = {10_000, 100_000, 1_000_000};
+    private static final long MIN_DELAY = TimeUnit.HOURS.toMillis(1);
+    private static final long MAX_DELAY = TimeUnit.DAYS.toMillis(30);
+
+    public static void main(String[] args) throws Exception {
+        long tickMillis = args.length > 0 ? Long.parseLong(args[0]) : 10;
+        int measureSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.printf("tickMillis=%d, measureSeconds=%d%n", tickMillis, measureSeconds);
+        System.out.printf("%-20s %10s %14s %16s %16s%n",
+                "engine", "tasks", "bytes/task", "schedule ns/op", "tick cpu us");
+        for (int taskCount : TASK_COUNTS) {
+            String[] taskIds = newTaskIds(taskCount);
+            long[] deadlines = newDeadlines(taskCount);
+            for (SchedulerEngineType type : SchedulerEngineType.values()) {
+                run(type, taskIds, deadlines, tickMillis, measureSeconds);
+            }
+        }
+    }
+
+    private static void run(SchedulerEngineType type, String[] taskIds, long[] deadlines,
+                            long tickMillis, int measureSeconds) throws InterruptedException {
+        long before = usedMemory();
+        SchedulerEngine engine = type.newEngine(tickMillis, 1024, (taskId, deadline) -> { });
+        engine.start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < taskIds.length; i++) {
+            engine.schedule(taskIds[i], deadlines[i]);
+        }
+        double scheduleNanos = (double) (System.nanoTime() - start) / taskIds.length;
+
+        // 等待HashedWheelTimer把待处理队列中的任务转移到时间轮
+        Thread.sleep(Math.max(1000, tickMillis * (taskIds.length / 100_000 + 10)));
+        long bytesPerTask = (usedMemory() - before) / taskIds.length;
+
+        // 统计引擎线程在测量窗口内的CPU耗时，任务都不会到期，只包含tick本身的开销
+        Thread worker = findEngineThread(type);
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long cpuStart = threadBean.getThreadCpuTime(worker.getId());
+        Thread.sleep(TimeUnit.SECONDS.toMillis(measureSeconds));
+        long cpuNanos = threadBean.getThreadCpuTime(worker.getId()) - cpuStart;
+        long ticks = TimeUnit.SECONDS.toMillis(measureSeconds) / tickMillis;
+
+        System.out.printf("%-20s %10d %14d %16.0f %16.2f%n", type.getConfigName(), taskIds.length,
+                bytesPerTask, scheduleNanos, cpuNanos / 1000.0 / ticks);
+        engine.stop();
+    }
+
+    private static Thread findEngineThread(SchedulerEngineType type) {
+        String prefix = "scheduler-engine-" + type.getConfigName();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(prefix) && thread.isAlive()) {
+                return thread;
+            }
+        }
+        throw new IllegalStateException("Engine thread not found: " + prefix);
+    }
+
+    private static String[] newTaskIds(int count) {
+        String[] taskIds = new String[count];
+        for (int i = 0; i < count; i++) {
+            taskIds[i] = "task-" + i + "_group-" + (i % 100);
+        }
+        return taskIds;
+    }
+
+    private static long[] newDeadlines(int count) {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        long[] deadlines = new long[count];
+        for (int i = 0; i < count; i++) {
+            deadlines[i] = now + MIN_DELAY + (long) (random.nextDouble() * (MAX_DELAY - MIN_DELAY));
+        }
+        return deadlines;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,77 @@
+package com.distributed.scheduler.server.benchmark;
+
+import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.server.scheduler.SchedulerShard;
+import com.distributed.scheduler.server.scheduler.cron.CronScheduleCache;
+import com.distributed.scheduler.server.scheduler.engine.SchedulerEngineType;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 调度分片扩展性基准测试
+ * 所有任务每秒触发一次，分片数从1增加到maxShards，统计每秒实际分发的任务数和平均分发延迟。
+ * 分发逻辑用生成UUID模拟触发消息的构造开销。
+ *
+ * 运行方式：mvn -pl scheduler-server test-compile exec:java -Dexec.classpathScope=test
+ *          -Dexec.mainClass=com.distributed.scheduler.server.benchmark.SchedulerShardBenchmark -Dexec.args="[maxShards] [tasks] [measureSeconds] [engine]"
+ */
+public class SchedulerShardBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxShards = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int taskCount = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int measureSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        SchedulerEngineType engineType = SchedulerEngineType.fromName(args.length > 3 ? args[3] : "hashed-wheel");
+
+        System.out.printf("cores=%d, tasks=%d, measureSeconds=%d, engine=%s%n",
+                Runtime.getRuntime().availableProcessors(), taskCount, measureSeconds, engineType.getConfigName());
+        System.out.printf("%-8s %14s %16s %16s%n", "shards", "fires/s", "expected/s", "avg lag ms");
+        for (int shardCount = 1; shardCount <= maxShards; shardCount *= 2) {
+            run(shardCount, taskCount, measureSeconds, engineType);
+        }
+    }
+
+    private static void run(int shardCount, int taskCount, int measureSeconds, SchedulerEngineType engineType)
+            throws InterruptedException {
+        LongAdder fires = new LongAdder();
+        CronScheduleCache cronCache = new CronScheduleCache();
+        SchedulerShard[] shards = new SchedulerShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new SchedulerShard(i, engineType, 100, 1024, 1, cronCache, (taskInfo, fireTime) -> {
+                if (UUID.randomUUID().getLeastSignificantBits() != 0) {
+                    fires.increment();
+                }
+                return true;
+            });
+            shards[i].start();
+        }
+        for (int i = 0; i < taskCount; i++) {
+            TaskInfo taskInfo = new TaskInfo();
+            taskInfo.setTaskId("task-" + i);
+            taskInfo.setCronExpression("* * * * * *");
+            taskInfo.setEnabled(true);
+            // 过载时不补执行，统计的是稳定吞吐
+            taskInfo.setMisfirePolicy(TaskInfo.MisfirePolicy.SKIP);
+            int h = taskInfo.getTaskId().hashCode();
+            shards[Math.floorMod(h ^ (h >>> 16), shardCount)].addTask(taskInfo, "client");
+        }
+
+        // 预热
+        Thread.sleep(2000);
+        long start = fires.sum();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(measureSeconds));
+        double firesPerSecond = (double) (fires.sum() - start) / measureSeconds;
+
+        long count = 0;
+        double totalLag = 0;
+        for (SchedulerShard shard : shards) {
+            count += shard.getDispatcher().getDispatchCount();
+            totalLag += shard.getDispatcher().getAverageLagMillis() * shard.getDispatcher().getDispatchCount();
+            shard.stop();
+        }
+        System.out.printf("%-8d %14.0f %16d %16.2f%n", shardCount, firesPerSecond, taskCount,
+                count == 0 ? 0 : totalLag / count);
+    }
+}
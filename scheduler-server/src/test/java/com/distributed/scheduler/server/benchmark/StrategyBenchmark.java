@@ -0,0 +1,130 @@
+package com.distributed.scheduler.server.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.distributed.scheduler.client.model.ClientInfo;
+import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.server.manager.ClientGroup;
+import com.distributed.scheduler.server.manager.ClientLatencyTracker;
+import com.distributed.scheduler.server.scheduler.strategy.ClientSelectionStrategy;
+import com.distributed.scheduler.server.scheduler.strategy.LatencyAwareStrategy;
+import com.distributed.scheduler.server.scheduler.strategy.LeastLoadedStrategy;
+import com.distributed.scheduler.server.scheduler.strategy.RandomStrategy;
+import com.distributed.scheduler.server.scheduler.strategy.RoundRobinStrategy;
+import com.distributed.scheduler.server.scheduler.strategy.WeightedStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 客户端选择策略基准测试
+ * 对比原实现（每次选择复制客户端映射、构建权重HashMap）与基于分组快照的实现，
+ * 分组客户端数为10、100、1000，权重在1到10之间随机，输出每次选择的耗时和分配的字节数。
+ *
+ * 运行方式：mvn -pl scheduler-server test-compile exec:java -Dexec.classpathScope=test
+ *          -Dexec.mainClass=com.distributed.scheduler.server.benchmark.StrategyBenchmark -Dexec.args="[iterations]"
+ */
+public class StrategyBenchmark {
+
+    private static final int[] CLIENT_COUNTS = {10, 100, 1000};
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // 防止JIT消除选择结果
+    private static int sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        // 没有Spring的日志配置时logback默认输出DEBUG，关闭策略的逐次选择日志
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        TaskInfo taskInfo = new TaskInfo();
+        taskInfo.setTaskId("benchmark");
+        taskInfo.setTaskName("benchmark");
+        System.out.printf("iterations=%d%n", iterations);
+        System.out.printf("%-8s %-22s %12s %12s%n", "clients", "method", "ns/op", "bytes/op");
+        for (int clientCount : CLIENT_COUNTS) {
+            Map<String, ClientInfo> clientMap = new ConcurrentHashMap<>();
+            for (int i = 0; i < clientCount; i++) {
+                ClientInfo clientInfo = new ClientInfo("host-" + i, 9000, "benchmark", "benchmark");
+                clientInfo.setWeight(ThreadLocalRandom.current().nextInt(1, 11));
+                clientMap.put(clientInfo.getClientId(), clientInfo);
+            }
+            ClientGroup group = ClientGroup.of("benchmark", clientMap.values());
+            ClientLatencyTracker latencyTracker = new ClientLatencyTracker();
+            for (String clientId : clientMap.keySet()) {
+                latencyTracker.record(taskInfo.getTaskId(), clientId, true, ThreadLocalRandom.current().nextLong(10, 1000));
+            }
+
+            AtomicInteger legacyCounter = new AtomicInteger();
+            run(clientCount, "legacy roundRobin", iterations, () -> {
+                List<String> clientIds = new ArrayList<>(clientMap.keySet());
+                return clientIds.get(Math.abs(legacyCounter.getAndIncrement() % clientIds.size())).length();
+            });
+            run(clientCount, "legacy weighted", iterations,
+                    () -> legacyWeighted(clientMap, legacyCounter.getAndIncrement()).length());
+            runStrategy(clientCount, new RoundRobinStrategy(), group, taskInfo, iterations);
+            runStrategy(clientCount, new RandomStrategy(), group, taskInfo, iterations);
+            runStrategy(clientCount, new WeightedStrategy(), group, taskInfo, iterations);
+            runStrategy(clientCount, new LeastLoadedStrategy(), group, taskInfo, iterations);
+            runStrategy(clientCount, new LatencyAwareStrategy(latencyTracker), group, taskInfo, iterations);
+        }
+    }
+
+    /**
+     * 原WeightedStrategy的选择逻辑
+     */
+    private static String legacyWeighted(Map<String, ClientInfo> clients, int count) {
+        Map<String, Integer> weights = new HashMap<>();
+        int totalWeight = 0;
+        for (Map.Entry<String, ClientInfo> entry : clients.entrySet()) {
+            int weight = entry.getValue().getWeight() > 0 ? entry.getValue().getWeight() : 1;
+            weights.put(entry.getKey(), weight);
+            totalWeight += weight;
+        }
+        int position = Math.abs(count % totalWeight);
+        int currentWeight = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            currentWeight += entry.getValue();
+            if (position < currentWeight) {
+                return entry.getKey();
+            }
+        }
+        return weights.keySet().iterator().next();
+    }
+
+    private static void runStrategy(int clientCount, ClientSelectionStrategy strategy, ClientGroup group,
+                                    TaskInfo taskInfo, int iterations) {
+        run(clientCount, strategy.getStrategyName(), iterations,
+                () -> strategy.selectClient(group, taskInfo).length());
+    }
+
+    private static void run(int clientCount, String method, int iterations, Selection selection) {
+        // 预热
+        for (int i = 0; i < iterations / 2; i++) {
+            sink += selection.select();
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += selection.select();
+        }
+        double nanos = (double) (System.nanoTime() - start) / iterations;
+        double bytes = (double) (THREAD_BEAN.getThreadAllocatedBytes(threadId) - bytesBefore) / iterations;
+        System.out.printf("%-8d %-22s %12.0f %12.1f%n", clientCount, method, nanos, bytes);
+    }
+
+    @FunctionalInterface
+    private interface Selection {
+        int select();
+    }
+}
@@ -0,0 +1,165 @@
+package com.distributed.scheduler.server.manager;
+
+import com.distributed.scheduler.client.model.ClientInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 平滑加权轮询序列的周期、次数、间隔和随机选择的回退
+ */
+class ClientGroupTest {
+
+    @Test
+    void interleavesThreeToTwo() {
+        ClientGroup group = group(3, 2);
+        assertArrayEquals(new int[]{0, 1, 0, 1, 0, 0, 1, 0, 1, 0}, picks(group, 10));
+        assertSmooth(group, 2);
+    }
+
+    @Test
+    void spreadsHeavyClientAroundLightOnes() {
+        ClientGroup group = group(5, 1, 1);
+        // 轻量客户端位于周期中间，位置相同时下标小的在前
+        assertArrayEquals(new int[]{0, 0, 0, 1, 2, 0, 0}, picks(group, 7));
+        assertSmooth(group, 3);
+    }
+
+    @Test
+    void countsEqualWeightsInEveryPeriod() {
+        Random random = new Random(5);
+        for (int round = 0; round < 200; round++) {
+            int[] weights = new int[1 + random.nextInt(8)];
+            int total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = 1 + random.nextInt(50);
+                total += weights[i];
+            }
+            int period = total / gcd(weights);
+            ClientGroup group = group(weights);
+            for (int cycle = 0; cycle < 3; cycle++) {
+                int[] counts = counts(picks(group, period), weights.length);
+                for (int i = 0; i < weights.length; i++) {
+                    assertEquals(weights[i] / gcd(weights), counts[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void reducesWeightsByGreatestCommonDivisor() {
+        assertArrayEquals(picks(group(3, 2), 20), picks(group(6, 4), 20));
+        assertArrayEquals(picks(group(1, 1, 1), 9), picks(group(2, 2, 2), 9));
+        assertEquals(3, sequence(group(2, 2, 2)).length);
+        assertEquals(5, sequence(group(30, 20)).length);
+    }
+
+    @Test
+    void treatsNonPositiveWeightAsDefault() {
+        ClientGroup group = group(0, -3, 2);
+        assertEquals(ClientGroup.DEFAULT_WEIGHT, group.getWeight(0));
+        assertEquals(ClientGroup.DEFAULT_WEIGHT, group.getWeight(1));
+        assertEquals(4, group.getTotalWeight());
+        assertArrayEquals(new int[]{1, 1, 2}, counts(picks(group, 4), 3));
+    }
+
+    @Test
+    void fallsBackToRandomForLongPeriods() {
+        // 约去最大公约数后的总权重为MAX_WEIGHTED_SEQUENCE + 1
+        ClientGroup group = group(ClientGroup.MAX_WEIGHTED_SEQUENCE - 1, 2);
+        int samples = 100_000;
+        int[] counts = counts(picks(group, samples), 2);
+        assertNull(ReflectionTestUtils.getField(group, "weightedSequence"));
+        assertTrue(counts[1] < 50, "light client picked " + counts[1] + " times");
+        assertEquals(samples, counts[0] + counts[1]);
+
+        ClientGroup atLimit = group(ClientGroup.MAX_WEIGHTED_SEQUENCE - 1, 1);
+        atLimit.nextWeightedIndex();
+        assertNotNull(ReflectionTestUtils.getField(atLimit, "weightedSequence"));
+    }
+
+    @Test
+    void findsClientByWeightPosition() {
+        ClientGroup group = group(3, 1, 2);
+        int[] expected = {0, 0, 0, 1, 2, 2};
+        for (int position = 0; position < expected.length; position++) {
+            assertEquals(expected[position], group.indexOfWeight(position));
+        }
+    }
+
+    /**
+     * 任意前缀内各客户端的次数与按权重比例的期望相差小于1，即间隔均匀
+     */
+    private static void assertSmooth(ClientGroup group, int clients) {
+        int period = group.getTotalWeight();
+        int[] sequence = picks(group, period * 2);
+        int[] counts = new int[clients];
+        for (int n = 1; n <= sequence.length; n++) {
+            counts[sequence[n - 1]]++;
+            for (int i = 0; i < clients; i++) {
+                double expected = (double) n * group.getWeight(i) / period;
+                assertTrue(Math.abs(counts[i] - expected) < 1,
+                        "client " + i + " picked " + counts[i] + " times in first " + n + ", expected " + expected);
+            }
+        }
+    }
+
+    private static ClientGroup group(int... weights) {
+        List<ClientInfo> clients = new ArrayList<>();
+        for (int i = 0; i < weights.length; i++) {
+            ClientInfo client = new ClientInfo("127.0.0.1", 9000 + i, "default", "app");
+            client.setClientId(String.format("client-%02d", i));
+            client.setWeight(weights[i]);
+            clients.add(client);
+        }
+        // 打乱顺序，快照按clientId排序后下标与权重数组一致
+        Collections.reverse(clients);
+        return ClientGroup.of("default", clients);
+    }
+
+    private static int[] picks(ClientGroup group, int count) {
+        int[] picks = new int[count];
+        for (int i = 0; i < count; i++) {
+            picks[i] = group.nextWeightedIndex();
+        }
+        return picks;
+    }
+
+    private static int[] sequence(ClientGroup group) {
+        group.nextWeightedIndex();
+        return (int[]) ReflectionTestUtils.getField(group, "weightedSequence");
+    }
+
+    private static int[] counts(int[] picks, int clients) {
+        int[] counts = new int[clients];
+        for (int pick : picks) {
+            counts[pick]++;
+        }
+        return counts;
+    }
+
+    private static int gcd(int[] weights) {
+        int gcd = 0;
+        for (int weight : weights) {
+            int a = gcd;
+            int b = weight;
+            while (b != 0) {
+                int t = a % b;
+                a = b;
+                b = t;
+            }
+            gcd = a;
+        }
+        return gcd;
+    }
+}
@@ -0,0 +1,180 @@
+package com.distributed.scheduler.server.scheduler;
+
+import com.distributed.scheduler.client.model.TaskInfo;
+import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.client.model.TriggerRequest;
+import com.distributed.scheduler.client.protocol.Message;
+import com.distributed.scheduler.client.protocol.ProtocolVersion;
+import com.distributed.scheduler.server.manager.ClientManager;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static com.distributed.scheduler.server.scheduler.TaskTrigger.TriggerResult.CONCURRENCY_LIMITED;
+import static com.distributed.scheduler.server.scheduler.TaskTrigger.TriggerResult.SENT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 触发结果和按客户端声明的协议版本发送的触发格式
+ */
+class TaskTriggerTest {
+
+    private TaskTrigger trigger;
+
+    @BeforeEach
+    void setUp() {
+        trigger = new TaskTrigger();
+        ReflectionTestUtils.setField(trigger, "clientManager", new ClientManager());
+        ReflectionTestUtils.setField(trigger, "pendingQueueCapacity", 16);
+        ReflectionTestUtils.setField(trigger, "leaseMillis", 600000L);
+        ReflectionTestUtils.setField(trigger, "ackTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(trigger, "maxRedeliveries", 3);
+        trigger.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        trigger.destroy();
+    }
+
+    @Test
+    void sendsTriggerRequestToCurrentClients() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        trigger.registerClientChannel("client", channel, ProtocolVersion.CURRENT);
+
+        assertEquals(SENT, trigger.triggerTask(task(), "client", 1000L, null, "instance-1"));
+        Message message = channel.readOutbound();
+        TriggerRequest request = assertInstanceOf(TriggerRequest.class, message.getData());
+        assertEquals("instance-1", request.getInstanceId());
+        assertTrue(trigger.cancelInstance("client", "task", "instance-1", "test"));
+    }
+
+    @Test
+    void reportsConcurrencyLimitWithoutKeepingAMark() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        trigger.registerClientChannel("client", channel, ProtocolVersion.CURRENT);
+        TaskInfo taskInfo = task();
+        taskInfo.setOneRunning(true);
+
+        assertEquals(SENT, trigger.triggerTask(taskInfo, "client", 1000L, null, "first"));
+        assertEquals(CONCURRENCY_LIMITED, trigger.triggerTask(taskInfo, "client", 2000L, null, "second"));
+        assertEquals(1, trigger.getRunningMarkCount());
+        assertEquals(1, trigger.getRunningCount("task"));
+        assertNotNull(channel.readOutbound());
+        assertNull(channel.readOutbound());
+
+        assertNotNull(trigger.complete("first"));
+        assertEquals(0, trigger.getRunningCount("task"));
+        assertTrue(trigger.startBroadcastRun(taskInfo, "run", 3000L));
+        assertFalse(trigger.startBroadcastRun(taskInfo, "run-2", 4000L));
+    }
+
+    @Test
+    void keepsSlotOfFailedInstanceForRetry() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        trigger.registerClientChannel("client", channel, ProtocolVersion.CURRENT);
+        trigger.setRunningMarkListener(new TaskTrigger.RunningMarkListener() {
+            @Override
+            public void onReclaimed(RunningMark mark, TaskStatus.Status status, String reason) {
+            }
+
+            @Override
+            public void onUnacknowledged(RunningMark mark, String reason) {
+            }
+
+            @Override
+            public boolean willRetry(RunningMark mark) {
+                return mark.getAttempt() < 2;
+            }
+        });
+        TaskInfo taskInfo = task();
+        taskInfo.setOneRunning(true);
+
+        assertEquals(SENT, trigger.triggerTask(taskInfo, "client", 1000L, null, "first", 1));
+        TaskStatus failed = new TaskStatus();
+        failed.setTaskId("task");
+        failed.setInstanceId("first");
+        failed.setStatus(TaskStatus.Status.FAILED);
+        RunningMark mark = trigger.notifyTaskCompleted(failed);
+        assertNotNull(mark);
+
+        // 退避期间并发槽仍被占用，其他触发按并发策略处理
+        assertEquals(1, trigger.getRunningCount("task"));
+        assertEquals(CONCURRENCY_LIMITED, trigger.triggerTask(taskInfo, "client", 2000L, null, "cron"));
+        trigger.releaseRetainedSlot(mark);
+        trigger.releaseRetainedSlot(mark);
+        assertEquals(0, trigger.getRunningCount("task"));
+
+        // 最后一次尝试失败时直接释放
+        assertEquals(SENT, trigger.triggerTask(taskInfo, "client", 1000L, null, "second", 2));
+        failed.setInstanceId("second");
+        assertNotNull(trigger.notifyTaskCompleted(failed));
+        assertEquals(0, trigger.getRunningCount("task"));
+    }
+
+    @Test
+    void sendsTaskInfoToLegacyClientsAndMapsTheirInstanceIds() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        trigger.registerClientChannel("legacy", channel, ProtocolVersion.LEGACY);
+
+        assertEquals(SENT, trigger.triggerTask(task(), "legacy", 1000L,
+                Collections.singletonMap("orderId", "42"), "first"));
+        assertEquals(SENT, trigger.triggerTask(task(), "legacy", 2000L, null, "second"));
+        Message message = channel.readOutbound();
+        TaskInfo sent = assertInstanceOf(TaskInfo.class, message.getData());
+        assertEquals("task", sent.getTaskId());
+        assertEquals("42", sent.getParams().get("orderId"));
+        // 旧版本客户端没有新增的枚举类
+        assertNull(sent.getScheduleType());
+        assertNull(sent.getOverflowPolicy());
+        assertNull(sent.getMisfirePolicy());
+        assertNull(sent.getConcurrencyPolicy());
+        assertEquals(2, trigger.getPendingAckCount());
+
+        // 客户端自行生成实例ID，首次上报时按发送顺序对应
+        TaskStatus running = status("client-a", TaskStatus.Status.RUNNING);
+        trigger.resolveLegacyInstanceId(running);
+        assertEquals("first", running.getInstanceId());
+        trigger.acknowledge(running.getInstanceId());
+        TaskStatus otherRunning = status("client-b", TaskStatus.Status.RUNNING);
+        trigger.resolveLegacyInstanceId(otherRunning);
+        assertEquals("second", otherRunning.getInstanceId());
+        trigger.acknowledge(otherRunning.getInstanceId());
+        assertEquals(0, trigger.getPendingAckCount());
+
+        TaskStatus success = status("client-a", TaskStatus.Status.SUCCESS);
+        trigger.resolveLegacyInstanceId(success);
+        assertEquals("first", success.getInstanceId());
+        assertNotNull(trigger.notifyTaskCompleted(success));
+        assertEquals(1, trigger.getRunningMarkCount());
+
+        // 旧版本客户端无法解码分片和取消消息
+        assertFalse(trigger.triggerShard(task(), "legacy", 3000L, null, "shard", "run", 0, 2));
+        assertFalse(trigger.cancelInstance("legacy", "task", "second", "test"));
+    }
+
+    private static TaskInfo task() {
+        TaskInfo taskInfo = new TaskInfo();
+        taskInfo.setTaskId("task");
+        taskInfo.setTaskName("task");
+        return taskInfo;
+    }
+
+    private static TaskStatus status(String instanceId, TaskStatus.Status value) {
+        TaskStatus status = new TaskStatus();
+        status.setTaskId("task");
+        status.setInstanceId(instanceId);
+        status.setClientId("legacy");
+        status.setStatus(value);
+        return status;
+    }
+}
@@ -0,0 +1,112 @@
+package com.distributed.scheduler.server.scheduler.cron;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * 与Spring CronExpression对比下一次触发时间
+ */
+class CompiledCronTest {
+
+    private static final String[] EXPRESSIONS = {
+            "0 */15 * * * *",
+            "0 0 * * * *",
+            "0 30 1 * * *",
+            "0 30 2 * * *",
+            "*/20 * 1-3 * * *",
+            "0 0 12 * * SUN-SAT",
+            "0 0 12 * * 7-2",
+            "0 0 12 * * SUN-TUE",
+            "0 0 12 * * 0-3",
+            "0 15 10 * * MON-FRI",
+            "0 0 0 1,15 * *",
+            "0 0 6 * JAN-MAR,OCT *",
+            "0 0 0 29 2 *",
+            "0 0 12 13 * FRI",
+            "@daily",
+            "@weekly",
+    };
+
+    // 2023年的夏令时切换（美国3月12日、11月5日，欧洲3月26日、10月29日，澳洲4月2日、10月1日）前后
+    private static final String[] TRANSITIONS = {
+            "2023-03-11T22:00", "2023-03-12T00:59", "2023-03-12T01:45",
+            "2023-11-04T22:00", "2023-11-05T00:30", "2023-11-05T01:00",
+            "2023-03-25T22:00", "2023-03-26T01:45",
+            "2023-10-28T22:00", "2023-10-29T01:30", "2023-10-29T02:15",
+            "2023-04-01T22:00", "2023-09-30T22:00",
+    };
+
+    @ParameterizedTest
+    @ValueSource(strings = {"America/New_York", "Europe/Berlin", "Australia/Sydney", "Asia/Kolkata", "UTC"})
+    void matchesSpringAroundTransitions(String zoneId) {
+        ZoneId zone = ZoneId.of(zoneId);
+        for (String expression : EXPRESSIONS) {
+            CronSchedule compiled = CompiledCron.parse(expression, TimeZone.getTimeZone(zone));
+            CronSchedule spring = new SpringCronSchedule(expression, zone);
+            for (String start : TRANSITIONS) {
+                long after = LocalDateTime.parse(start).atZone(zone).toInstant().toEpochMilli();
+                assertSameFires(expression, zoneId, compiled, spring, after, 24);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"America/New_York", "Europe/Berlin", "UTC"})
+    void matchesSpringFromRandomTimes(String zoneId) {
+        ZoneId zone = ZoneId.of(zoneId);
+        Random random = new Random(42);
+        long from = LocalDateTime.parse("2020-01-01T00:00").atZone(zone).toInstant().toEpochMilli();
+        for (String expression : EXPRESSIONS) {
+            CronSchedule compiled = CompiledCron.parse(expression, TimeZone.getTimeZone(zone));
+            CronSchedule spring = new SpringCronSchedule(expression, zone);
+            for (int i = 0; i < 200; i++) {
+                long after = from + (long) (random.nextDouble() * 8 * 365 * 86400_000L);
+                assertSameFires(expression, zoneId, compiled, spring, after, 3);
+            }
+        }
+    }
+
+    @Test
+    void firesRepeatedTimesOfHalfHourFallBack() {
+        // Australia/Lord_Howe在2023-04-02 02:00从+11:00回拨到+10:30，01:30和01:45出现两次。
+        // Spring按小时进位时跳过第二次出现的01:30和01:45，这里与整小时回拨一致，按时刻各触发一次
+        TimeZone zone = TimeZone.getTimeZone("Australia/Lord_Howe");
+        CronSchedule cron = CompiledCron.parse("0 */15 * * * *", zone);
+        long after = LocalDateTime.parse("2023-04-02T01:45").atZone(zone.toZoneId())
+                .withEarlierOffsetAtOverlap().toInstant().toEpochMilli();
+        long first = cron.nextFireTime(after);
+        long second = cron.nextFireTime(first);
+        long third = cron.nextFireTime(second);
+        assertEquals(after + 15 * 60_000L, first);
+        assertEquals(first + 15 * 60_000L, second);
+        assertEquals(second + 15 * 60_000L, third);
+    }
+
+    @Test
+    void fallsBackToSpringForUnsupportedSyntax() {
+        CronScheduleCache cache = new CronScheduleCache(TimeZone.getTimeZone("UTC"));
+        assertInstanceOf(SpringCronSchedule.class, cache.get("0 0 12 L * ?"));
+        assertInstanceOf(CompiledCron.class, cache.get("0 0 12 * * SUN-SAT"));
+    }
+
+    private static void assertSameFires(String expression, String zoneId, CronSchedule compiled, CronSchedule spring,
+                                        long after, int fires) {
+        long expected = after;
+        long actual = after;
+        for (int n = 0; n < fires && expected >= 0; n++) {
+            long previous = expected;
+            expected = spring.nextFireTime(previous);
+            actual = compiled.nextFireTime(previous);
+            assertEquals(expected, actual, expression + " in " + zoneId + " after " + previous);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.distributed.scheduler.server.scheduler.delay;
+
+import com.distributed.scheduler.client.model.DelayedJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分段文件的写入、触发后标记完成、重启恢复和分段删除
+ */
+class DelayedJobStoreTest {
+
+    private static final long BUCKET_MILLIS = 1000;
+    private static final long SEGMENT_SIZE = 1024;
+
+    @TempDir
+    Path dir;
+
+    private DelayedJobStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void recoversPendingJobsAfterReopen() throws IOException {
+        store = new DelayedJobStore(dir, BUCKET_MILLIS, SEGMENT_SIZE);
+        Map<String, DelayedJob> jobs = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            DelayedJob job = job("job-" + i, i * 1000L + 500, i % 3 == 0 ? Collections.singletonMap("n", i) : null);
+            store.add(job, i % 4);
+            jobs.put(job.getJobId(), job);
+        }
+        assertTrue(store.getSegmentCount() > 1);
+
+        Map<String, DelayedJob> fired = new HashMap<>();
+        assertEquals(40, store.pollDue(40_000, (job, attempts) -> fired.put(job.getJobId(), job)));
+        for (int i = 0; i < 40; i++) {
+            assertEquals(jobs.get("job-" + i), fired.get("job-" + i));
+        }
+        store.close();
+
+        store = new DelayedJobStore(dir, BUCKET_MILLIS, SEGMENT_SIZE);
+        assertEquals(60, store.getPendingCount());
+        Map<String, Integer> recovered = new HashMap<>();
+        assertEquals(60, store.pollDue(Long.MAX_VALUE, (job, attempts) -> {
+            assertEquals(jobs.get(job.getJobId()), job);
+            recovered.put(job.getJobId(), attempts);
+        }));
+        for (int i = 40; i < 100; i++) {
+            assertEquals(i % 4, recovered.get("job-" + i));
+        }
+        assertEquals(0, store.getPendingCount());
+        // 恢复的分段全部完成后删除
+        assertEquals(0, store.getSegmentCount());
+        assertEquals(0, segmentFiles());
+    }
+
+    @Test
+    void marksRecordsDoneInPlaceAndDeletesDrainedSegments() throws IOException {
+        store = new DelayedJobStore(dir, BUCKET_MILLIS, SEGMENT_SIZE);
+        for (int i = 0; i < 60; i++) {
+            store.add(job("job-" + i, i * 1000L, null), 0);
+        }
+        int segments = store.getSegmentCount();
+        long diskBytes = store.getDiskBytes();
+        Path first = dir.resolve("segment-00000000.dat");
+        byte[] before = Files.readAllBytes(first);
+        // 记录格式为length(4) + state(1) + ...
+        ByteBuffer records = ByteBuffer.wrap(before);
+        int firstLength = records.getInt(0);
+        int recordsInFirst = 0;
+        for (int offset = 0; offset < before.length; offset += 4 + records.getInt(offset)) {
+            recordsInFirst++;
+        }
+        assertTrue(recordsInFirst > 1);
+
+        // 只触发第一个分段的第一个作业，状态原地改为已完成，文件大小不变
+        assertEquals(1, store.pollDue(1000, (job, attempts) -> assertEquals("job-0", job.getJobId())));
+        byte[] after = Files.readAllBytes(first);
+        assertEquals(before.length, after.length);
+        assertEquals(0, before[4]);
+        assertEquals(1, after[4]);
+        assertEquals(0, after[4 + 4 + firstLength]);
+        assertEquals(diskBytes, store.getDiskBytes());
+
+        // 第一个分段的作业全部完成后删除文件
+        assertEquals(recordsInFirst - 1, store.pollDue(recordsInFirst * 1000L, (job, attempts) -> { }));
+        assertFalse(Files.exists(first));
+        assertEquals(segments - 1, store.getSegmentCount());
+
+        // 重启后已完成的记录不再恢复
+        store.close();
+        store = new DelayedJobStore(dir, BUCKET_MILLIS, SEGMENT_SIZE);
+        assertEquals(60 - recordsInFirst, store.getPendingCount());
+    }
+
+    @Test
+    void pollsOnlyBucketsEndingBeforeNow() throws IOException {
+        store = new DelayedJobStore(dir, BUCKET_MILLIS, SEGMENT_SIZE);
+        store.add(job("early", -1, null), 0);
+        store.add(job("start", 2000, null), 0);
+        store.add(job("end", 2999, null), 0);
+
+        assertEquals(1, store.pollDue(0, (job, attempts) -> assertEquals("early", job.getJobId())));
+        // 2000-2999的桶在3000之后才取出，作业最多晚一个桶的时间触发
+        assertEquals(0, store.pollDue(2000, (job, attempts) -> { }));
+        assertEquals(0, store.pollDue(2999, (job, attempts) -> { }));
+        assertEquals(2, store.pollDue(3000, (job, attempts) -> { }));
+        assertEquals(0, store.getPendingCount());
+    }
+
+    @Test
+    void truncatesIncompleteRecordOnRecovery() throws IOException {
+        store = new DelayedJobStore(dir, BUCKET_MILLIS, SEGMENT_SIZE);
+        store.add(job("complete", 1000, null), 2);
+        long diskBytes = store.getDiskBytes();
+        store.close();
+        // 模拟写入一半时进程退出
+        Files.write(dir.resolve("segment-00000000.dat"), new byte[]{0, 0, 0, 40, 0, 0, 1},
+                StandardOpenOption.APPEND);
+
+        store = new DelayedJobStore(dir, BUCKET_MILLIS, SEGMENT_SIZE);
+        assertEquals(1, store.getPendingCount());
+        assertEquals(diskBytes, store.getDiskBytes());
+        assertEquals(1, store.pollDue(Long.MAX_VALUE, (job, attempts) -> {
+            assertEquals("complete", job.getJobId());
+            assertEquals(2, attempts);
+        }));
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private static DelayedJob job(String jobId, long fireTime, Map<String, Object> params) {
+        return new DelayedJob(jobId, "task", fireTime, params);
+    }
+}
@@ -0,0 +1,74 @@
+package com.distributed.scheduler.server.scheduler.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedWheelSchedulerEngineTest {
+
+    private HashedWheelSchedulerEngine engine;
+
+    @AfterEach
+    void stop() {
+        engine.stop();
+    }
+
+    @Test
+    void firedTaskIsNoLongerScheduled() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        int tasksPerThread = 20000;
+        CountDownLatch fired = new CountDownLatch(threads * tasksPerThread);
+        engine = new HashedWheelSchedulerEngine(1, 64, (taskId, deadline) -> fired.countDown());
+        engine.start();
+        long now = System.currentTimeMillis();
+        // 多个线程同时调度已到期的任务，调度线程被挂起时回调可能先于schedule返回执行
+        Thread[] schedulers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String prefix = "task-" + t + "-";
+            schedulers[t] = new Thread(() -> {
+                for (int i = 0; i < tasksPerThread; i++) {
+                    engine.schedule(prefix + i, now - 1);
+                }
+            });
+            schedulers[t].start();
+        }
+        for (Thread scheduler : schedulers) {
+            scheduler.join();
+        }
+        assertTrue(fired.await(30, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (engine.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, engine.size());
+        assertFalse(engine.isScheduled("task-0-0"));
+    }
+
+    @Test
+    void rescheduledOrCancelledTaskDoesNotFireOldDeadline() throws Exception {
+        AtomicInteger fires = new AtomicInteger();
+        CountDownLatch fired = new CountDownLatch(1);
+        engine = new HashedWheelSchedulerEngine(1, 64, (taskId, deadline) -> {
+            fires.incrementAndGet();
+            fired.countDown();
+        });
+        engine.start();
+        long now = System.currentTimeMillis();
+        engine.schedule("cancelled", now + 50);
+        assertTrue(engine.cancel("cancelled"));
+        assertFalse(engine.isScheduled("cancelled"));
+        engine.schedule("rescheduled", now + 50);
+        engine.schedule("rescheduled", now + 100);
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(1, fires.get());
+        assertFalse(engine.isScheduled("rescheduled"));
+    }
+}
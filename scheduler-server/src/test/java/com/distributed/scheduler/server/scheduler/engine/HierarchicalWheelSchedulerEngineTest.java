@@ -0,0 +1,196 @@
+package com.distributed.scheduler.server.scheduler.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 手动推进时间轮，与按到期tick记录的模型逐tick对比触发结果
+ */
+class HierarchicalWheelSchedulerEngineTest {
+
+    private static final long LEVEL_3_SPAN = 1L << 24;
+    private static final long WHEEL_SPAN = 1L << 32;
+
+    private final Map<String, Long> fired = new HashMap<>();
+    private HierarchicalWheelSchedulerEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        // tick为1毫秒、起始时间为0，截止时间即到期tick
+        engine = new HierarchicalWheelSchedulerEngine(1, (taskId, deadline) -> {
+            Long previous = fired.put(taskId, deadline);
+            assertEquals(null, previous, taskId + " fired twice in one tick");
+        });
+        ReflectionTestUtils.setField(engine, "startTime", 0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    void firesLikeModelAcrossLevelBoundaries() {
+        Random random = new Random(11);
+        Map<String, Long> expected = new HashMap<>();
+        // 应触发的tick，已到期的任务在调度后的下一个tick触发
+        Map<String, Long> due = new HashMap<>();
+        List<String> ids = taskIds();
+
+        // 第3级2号槽位在2^25下放，只有第3级有任务时可以直接跳过中间的tick
+        for (int i = 0; i < 1500; i++) {
+            String taskId = ids.get(random.nextInt(ids.size()));
+            long deadline = 2 * LEVEL_3_SPAN + random.nextInt(60_000);
+            engine.schedule(taskId, deadline);
+            expected.put(taskId, deadline);
+            due.put(taskId, deadline);
+        }
+        for (int i = 0; i < 20; i++) {
+            String taskId = "far-" + i;
+            long deadline = WHEEL_SPAN + random.nextInt(Integer.MAX_VALUE);
+            engine.schedule(taskId, deadline);
+            expected.put(taskId, deadline);
+            due.put(taskId, deadline);
+        }
+        long now = 2 * LEVEL_3_SPAN - 20_000;
+        jumpTo(now);
+
+        long end = 2 * LEVEL_3_SPAN + 70_000;
+        while (now < end) {
+            int operations = random.nextInt(4);
+            for (int i = 0; i < operations; i++) {
+                String taskId = ids.get(random.nextInt(ids.size()));
+                if (random.nextInt(5) == 0) {
+                    due.remove(taskId);
+                    assertEquals(expected.remove(taskId) != null, engine.cancel(taskId));
+                } else {
+                    // 新任务和已调度任务的重新调度，覆盖已到期、各级时间轮和超出最高级范围的截止时间
+                    long deadline = now + delay(random);
+                    engine.schedule(taskId, deadline);
+                    expected.put(taskId, deadline);
+                    due.put(taskId, Math.max(deadline, now + 1));
+                }
+            }
+
+            int count = engine.advance();
+            now++;
+            assertEquals(fired.size(), count);
+            for (Map.Entry<String, Long> entry : fired.entrySet()) {
+                Long deadline = expected.remove(entry.getKey());
+                assertEquals(deadline, entry.getValue(), entry.getKey());
+                assertEquals(now, due.remove(entry.getKey()), entry.getKey() + " fired at wrong tick");
+                assertFalse(engine.isScheduled(entry.getKey()));
+            }
+            fired.clear();
+            if ((now & 1023) == 0) {
+                for (Map.Entry<String, Long> entry : due.entrySet()) {
+                    assertTrue(entry.getValue() > now, entry.getKey() + " missed at tick " + now);
+                }
+            }
+            assertEquals(expected.size(), engine.size());
+        }
+
+        assertEquals(end, tick());
+        for (Map.Entry<String, Long> entry : due.entrySet()) {
+            assertTrue(entry.getValue() > now, entry.getKey() + " missed");
+        }
+        for (String taskId : expected.keySet()) {
+            assertTrue(engine.cancel(taskId));
+        }
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    void firesDeadlineBeyondHighestLevel() {
+        long deadline = WHEEL_SPAN + 300;
+        engine.schedule("far", deadline);
+
+        // 先放在最高级能表示的最远位置，即第3级255号槽位，下放后重新放入第3级0号槽位
+        jumpTo(255 * LEVEL_3_SPAN - 1);
+        assertEquals(0, engine.advance());
+        assertTrue(engine.isScheduled("far"));
+        jumpTo(WHEEL_SPAN - 1);
+        assertEquals(0, engine.advance());
+
+        while (tick() < deadline - 1) {
+            assertEquals(0, engine.advance());
+        }
+        assertEquals(1, engine.advance());
+        assertEquals(deadline, fired.get("far"));
+        assertFalse(engine.isScheduled("far"));
+        assertEquals(0, engine.size());
+    }
+
+    @Test
+    void firesOverdueTaskOnNextTick() {
+        jumpTo(1000);
+        engine.schedule("overdue", 10);
+        engine.schedule("now", 1000);
+        assertEquals(2, engine.advance());
+        assertEquals(10L, fired.get("overdue"));
+        assertEquals(1000L, fired.get("now"));
+        assertEquals(0, engine.size());
+    }
+
+    private long delay(Random random) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return random.nextInt(10) - 5;
+            case 1:
+                return random.nextInt(256);
+            case 2:
+                return random.nextInt(65_536);
+            case 3:
+                return 65_536 + random.nextInt(200_000);
+            case 4:
+                return LEVEL_3_SPAN + random.nextInt(Integer.MAX_VALUE);
+            default:
+                return WHEEL_SPAN + random.nextInt(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 普通任务ID加上哈希值相同的ID，后者在索引表中位于同一条探测链上
+     */
+    private static List<String> taskIds() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            ids.add("task-" + i);
+        }
+        List<String> colliding = new ArrayList<>();
+        colliding.add("");
+        for (int block = 0; block < 6; block++) {
+            List<String> longer = new ArrayList<>();
+            for (String prefix : colliding) {
+                longer.add(prefix + "Aa");
+                longer.add(prefix + "BB");
+            }
+            colliding = longer;
+        }
+        ids.addAll(colliding);
+        return ids;
+    }
+
+    private long tick() {
+        return (long) ReflectionTestUtils.getField(engine, "currentTick");
+    }
+
+    /**
+     * 跳过中间的tick，只能在被跳过的槽位都为空时使用
+     */
+    private void jumpTo(long tick) {
+        ReflectionTestUtils.setField(engine, "currentTick", tick);
+    }
+}
@@ -0,0 +1,236 @@
+package com.distributed.scheduler.server.scheduler.workflow;
+
+import com.distributed.scheduler.client.model.TaskStatus;
+import com.distributed.scheduler.server.scheduler.TaskScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.distributed.scheduler.client.model.TaskStatus.Status.FAILED;
+import static com.distributed.scheduler.client.model.TaskStatus.Status.SUCCESS;
+import static com.distributed.scheduler.server.scheduler.workflow.WorkflowEdge.FailurePolicy.CONTINUE;
+import static com.distributed.scheduler.server.scheduler.workflow.WorkflowEdge.FailurePolicy.FAIL_WORKFLOW;
+import static com.distributed.scheduler.server.scheduler.workflow.WorkflowEdge.FailurePolicy.SKIP;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 由节点的完成回调驱动工作流运行：就绪节点的并行触发、边的失败策略和环的校验
+ */
+class WorkflowServiceTest {
+
+    private RecordingTaskScheduler taskScheduler;
+    private WorkflowService workflowService;
+
+    @BeforeEach
+    void setUp() {
+        taskScheduler = new RecordingTaskScheduler();
+        workflowService = new WorkflowService();
+        ReflectionTestUtils.setField(workflowService, "taskScheduler", taskScheduler);
+        ReflectionTestUtils.setField(workflowService, "historySize", 10);
+        workflowService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        workflowService.destroy();
+    }
+
+    @Test
+    void triggersReadySuccessorsTogether() {
+        // a -> b, a -> c, b -> d, c -> d，e没有依赖
+        workflowService.register(workflow(Arrays.asList("a", "b", "c", "d", "e"),
+                edge("a", "b", SKIP), edge("a", "c", SKIP), edge("b", "d", SKIP), edge("c", "d", SKIP)));
+        WorkflowRun run = workflowService.start("flow");
+        assertEquals(Arrays.asList("a", "e"), taskScheduler.takeTriggered());
+        assertThrows(IllegalStateException.class, () -> workflowService.start("flow"));
+
+        taskScheduler.complete("a", SUCCESS);
+        // b和c在任一个结束前都已触发
+        assertEquals(Arrays.asList("b", "c"), taskScheduler.takeTriggered());
+        taskScheduler.complete("b", SUCCESS);
+        assertTrue(taskScheduler.takeTriggered().isEmpty());
+        taskScheduler.complete("c", SUCCESS);
+        assertEquals(Arrays.asList("d"), taskScheduler.takeTriggered());
+        taskScheduler.complete("d", SUCCESS);
+        assertFalse(run.isFinished());
+        taskScheduler.complete("e", SUCCESS);
+
+        assertTrue(run.isFinished());
+        assertEquals(SUCCESS, run.getStatus());
+        assertEquals(0, workflowService.getActiveRunCount());
+        assertSame(run, workflowService.getRecentRuns().get(0));
+        assertSame(run, workflowService.getRun(run.getRunId()));
+    }
+
+    @Test
+    void skipsDownstreamOfFailedNodeAndPropagatesSkip() {
+        // a -SKIP-> b -SKIP-> c，a -CONTINUE-> d，b -CONTINUE-> e
+        workflowService.register(workflow(Arrays.asList("a", "b", "c", "d", "e"),
+                edge("a", "b", SKIP), edge("b", "c", SKIP), edge("a", "d", CONTINUE), edge("b", "e", CONTINUE)));
+        WorkflowRun run = workflowService.start("flow");
+        assertEquals(Arrays.asList("a"), taskScheduler.takeTriggered());
+
+        taskScheduler.complete("a", FAILED);
+        // b被跳过，c按b的SKIP边跳过，e和d按CONTINUE边照常执行
+        assertEquals(new HashSet<>(Arrays.asList("d", "e")), new HashSet<>(taskScheduler.takeTriggered()));
+        assertEquals(WorkflowRun.NodeStatus.SKIPPED, node(run, "b").getStatus());
+        assertEquals(WorkflowRun.NodeStatus.SKIPPED, node(run, "c").getStatus());
+        assertTrue(node(run, "b").getErrorMsg().contains("Upstream a"));
+        assertTrue(node(run, "c").getErrorMsg().contains("Upstream b"));
+
+        taskScheduler.complete("d", SUCCESS);
+        taskScheduler.complete("e", SUCCESS);
+        assertTrue(run.isFinished());
+        assertEquals(FAILED, run.getStatus());
+        assertEquals(1, run.getFailedNodes());
+    }
+
+    @Test
+    void failsWorkflowWithoutTriggeringFurtherNodes() {
+        // a -FAIL_WORKFLOW-> b，c -> d与a并行
+        workflowService.register(workflow(Arrays.asList("a", "b", "c", "d"),
+                edge("a", "b", FAIL_WORKFLOW), edge("c", "d", SKIP)));
+        WorkflowRun run = workflowService.start("flow");
+        assertEquals(Arrays.asList("a", "c"), taskScheduler.takeTriggered());
+
+        taskScheduler.complete("a", TaskStatus.Status.TIMED_OUT);
+        assertEquals("Node a FAILED", run.getAbortReason());
+        assertEquals(WorkflowRun.NodeStatus.SKIPPED, node(run, "b").getStatus());
+        assertEquals(WorkflowRun.NodeStatus.SKIPPED, node(run, "d").getStatus());
+        // 已触发的c结束后运行才结束，c成功也不再触发d
+        assertFalse(run.isFinished());
+        assertEquals(1, workflowService.getActiveRunCount());
+        taskScheduler.complete("c", SUCCESS);
+        assertTrue(taskScheduler.takeTriggered().isEmpty());
+        assertTrue(run.isFinished());
+        assertEquals(FAILED, run.getStatus());
+        assertEquals(0, workflowService.getActiveRunCount());
+    }
+
+    @Test
+    void treatsUpstreamAsDoneOnContinueEdgeOnlyWhenAllUpstreamsEnd() {
+        // a -CONTINUE-> c，b -> c
+        workflowService.register(workflow(Arrays.asList("a", "b", "c"),
+                edge("a", "c", CONTINUE), edge("b", "c", SKIP)));
+        WorkflowRun run = workflowService.start("flow");
+        assertEquals(Arrays.asList("a", "b"), taskScheduler.takeTriggered());
+        taskScheduler.complete("a", FAILED);
+        assertTrue(taskScheduler.takeTriggered().isEmpty());
+        taskScheduler.complete("b", SUCCESS);
+        assertEquals(Arrays.asList("c"), taskScheduler.takeTriggered());
+        taskScheduler.complete("c", SUCCESS);
+        assertEquals(FAILED, run.getStatus());
+    }
+
+    @Test
+    void failsNodeWhoseTaskIsNotRegistered() {
+        taskScheduler.unregistered.add("b");
+        workflowService.register(workflow(Arrays.asList("a", "b", "c"),
+                edge("a", "b", SKIP), edge("b", "c", CONTINUE)));
+        WorkflowRun run = workflowService.start("flow");
+        taskScheduler.takeTriggered();
+        taskScheduler.complete("a", SUCCESS);
+
+        assertEquals(WorkflowRun.NodeStatus.FAILED, node(run, "b").getStatus());
+        assertEquals("Task not registered", node(run, "b").getErrorMsg());
+        assertEquals(Arrays.asList("b", "c"), taskScheduler.takeTriggered());
+        taskScheduler.complete("c", SUCCESS);
+        assertTrue(run.isFinished());
+    }
+
+    @Test
+    void ignoresRepeatedCompletion() {
+        workflowService.register(workflow(Arrays.asList("a", "b"), edge("a", "b", SKIP)));
+        WorkflowRun run = workflowService.start("flow");
+        taskScheduler.takeTriggered();
+        TaskScheduler.CompletionCallback callback = taskScheduler.callbacks.get("a");
+        callback.onCompleted(SUCCESS, null);
+        callback.onCompleted(FAILED, "late");
+        assertEquals(Arrays.asList("b"), taskScheduler.takeTriggered());
+        assertEquals(WorkflowRun.NodeStatus.SUCCESS, node(run, "a").getStatus());
+        assertEquals(0, run.getFailedNodes());
+    }
+
+    @Test
+    void rejectsInvalidDefinitions() {
+        IllegalArgumentException cycle = assertThrows(IllegalArgumentException.class, () -> workflowService.register(
+                workflow(Arrays.asList("a", "b", "c", "d"),
+                        edge("a", "b", SKIP), edge("b", "c", SKIP), edge("c", "b", SKIP), edge("c", "d", SKIP))));
+        assertTrue(cycle.getMessage().contains("cycle"));
+        assertThrows(IllegalArgumentException.class,
+                () -> workflowService.register(workflow(Arrays.asList("a"), edge("a", "a", SKIP))));
+        assertThrows(IllegalArgumentException.class,
+                () -> workflowService.register(workflow(Arrays.asList("a"), edge("a", "x", SKIP))));
+        assertThrows(IllegalArgumentException.class, () -> workflowService.register(
+                workflow(Arrays.asList("a", "b"), edge("a", "b", SKIP), edge("a", "b", CONTINUE))));
+        assertThrows(IllegalArgumentException.class,
+                () -> workflowService.register(workflow(Arrays.asList("a", "a"))));
+        assertTrue(workflowService.getDefinitions().isEmpty());
+
+        workflowService.register(workflow(Arrays.asList("a", "b", "c"), edge("a", "c", SKIP), edge("b", "c", SKIP)));
+        assertEquals(3, workflowService.getDefinition("flow").getNodes().size());
+    }
+
+    private static WorkflowRun.Node node(WorkflowRun run, String taskId) {
+        for (WorkflowRun.Node node : run.getNodes()) {
+            if (node.getTaskId().equals(taskId)) {
+                return node;
+            }
+        }
+        throw new AssertionError("No node " + taskId);
+    }
+
+    private static WorkflowDefinition workflow(List<String> nodes, WorkflowEdge... edges) {
+        WorkflowDefinition definition = new WorkflowDefinition();
+        definition.setWorkflowId("flow");
+        definition.setNodes(nodes);
+        definition.setEdges(Arrays.asList(edges));
+        return definition;
+    }
+
+    private static WorkflowEdge edge(String from, String to, WorkflowEdge.FailurePolicy policy) {
+        return new WorkflowEdge(from, to, policy);
+    }
+
+    /**
+     * 记录触发的节点，由测试调用完成回调
+     */
+    static class RecordingTaskScheduler extends TaskScheduler {
+        private final Map<String, CompletionCallback> callbacks = new HashMap<>();
+        private final List<String> triggered = new ArrayList<>();
+        private final Set<String> unregistered = new HashSet<>();
+
+        @Override
+        public boolean triggerTracked(String taskId, Map<String, Object> params, CompletionCallback callback) {
+            triggered.add(taskId);
+            if (unregistered.contains(taskId)) {
+                return false;
+            }
+            callbacks.put(taskId, callback);
+            return true;
+        }
+
+        void complete(String taskId, TaskStatus.Status status) {
+            callbacks.remove(taskId).onCompleted(status, status == SUCCESS ? null : "error");
+        }
+
+        List<String> takeTriggered() {
+            List<String> taken = new ArrayList<>(triggered);
+            triggered.clear();
+            return taken;
+        }
+    }
+}